@@ -0,0 +1,70 @@
+package com.project.marsrover.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH json result against the committed baseline and fails if any benchmark got slower than the
+ * allowed tolerance. All benchmarks report average time, so a higher score is a regression.
+ * Usage: BenchmarkBaselineCheck baseline.json result.json [tolerancePercent]
+ */
+public final class BenchmarkBaselineCheck {
+
+    private BenchmarkBaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaselineCheck baseline.json result.json [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerancePercent = args.length > 2 ? Double.parseDouble(args[2]) : 25;
+        Map<String, Double> baseline = readScores(new File(args[0]));
+        Map<String, Double> result = readScores(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : new TreeMap<>(result).entrySet()) {
+            Double baselineScore = baseline.get(entry.getKey());
+            if (baselineScore == null) {
+                System.out.printf("NEW        %s %.3f%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+            double changePercent = (entry.getValue() - baselineScore) * 100 / baselineScore;
+            boolean regressed = changePercent > tolerancePercent;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s %.3f -> %.3f (%+.1f%%)%n", regressed ? "REGRESSED" : "OK", entry.getKey(), baselineScore, entry.getValue(), changePercent);
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmarks regressed by more than %.0f%%%n", regressions, tolerancePercent);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Double> readScores(File file) throws IOException {
+        Map<String, Double> scores = new HashMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(benchmark.get("benchmark").asText());
+            JsonNode params = benchmark.get("params");
+            if (params != null) {
+                Map<String, String> sortedParams = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    sortedParams.put(field.getKey(), field.getValue().asText());
+                }
+                key.append(sortedParams);
+            }
+            scores.put(key.toString(), benchmark.get("primaryMetric").get("score").asDouble());
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.marsrover.benchmark;
+
+import com.project.marsrover.enums.GridType;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.objects.DeployRoverParams;
+import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.service.MarsRoverService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deployments on grids at several occupancy levels. At 0 percent every rover runs all of its commands, at higher
+ * levels most rovers stop early on a collision. The coordinates of parked rovers are freed so the occupancy stays
+ * constant, and a fresh service on a copy of the initial grid is created before each iteration so the registry state of
+ * the parked rovers does not grow across iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final int SIZE = 1000;
+    private static final String[] COMMANDS = {"f", "f", "f", "b", "l", "r"};
+
+    @Param({"SPARSE", "DENSE"})
+    public GridType gridType;
+
+    @Param({"0", "1", "10", "30"})
+    public int occupancyPercent;
+
+    private OccupancyGrid initialMars;
+    private MarsRoverService marsRoverService;
+    private DeployRoverParams[] deployments;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        OccupancyGrid mars = gridType == GridType.DENSE ? new BitmapOccupancyGrid(SIZE, SIZE) : new SparseOccupancyGrid(SIZE, SIZE, SIZE * SIZE / 2);
+        Random random = new Random(42);
+        long rovers = (long) SIZE * SIZE * occupancyPercent / 100;
+        for (long i = 0; i < rovers; ) {
+            if (mars.occupy(random.nextInt(SIZE), random.nextInt(SIZE))) {
+                i++;
+            }
+        }
+        initialMars = mars;
+        List<DeployRoverParams> deploymentList = new ArrayList<>();
+        while (deploymentList.size() < 4096) {
+            // Start away from the boundary on a free coordinate
+            int xCoordinate = 100 + random.nextInt(SIZE - 200);
+            int yCoordinate = 100 + random.nextInt(SIZE - 200);
+            if (mars.isOccupied(xCoordinate, yCoordinate)) {
+                continue;
+            }
+            StringBuilder commands = new StringBuilder(COMMANDS[random.nextInt(COMMANDS.length)]);
+            for (int c = 0; c < 50; c++) {
+                commands.append(',').append(COMMANDS[random.nextInt(COMMANDS.length)]);
+            }
+            deploymentList.add(new DeployRoverParams(xCoordinate + "," + yCoordinate + ",N", commands.toString()));
+        }
+        deployments = deploymentList.toArray(new DeployRoverParams[0]);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        marsRoverService = new MarsRoverService(initialMars.snapshot());
+        next = 0;
+    }
+
+    @Benchmark
+    public DeployRoverResult deployRover() throws DeployRoverException {
+        DeployRoverParams deployRoverParams = deployments[next];
+        next = (next + 1) & (deployments.length - 1);
+        DeployRoverResult deployRoverResult = marsRoverService.deployRover(deployRoverParams);
+        marsRoverService.mars.release(deployRoverResult.getxCoordinate(), deployRoverResult.getyCoordinate());
+        return deployRoverResult;
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.marsrover.benchmark;
+
+import com.project.marsrover.enums.Command;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.objects.DeployRoverBatchResult;
+import com.project.marsrover.protocol.BinaryProtocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the same deployments to a running application over the JSON endpoint or the binary protocol and reports the
+ * throughput, to compare both paths on the same machine. Each connection deploys rovers on cells of its own, facing
+ * north with the commands f,b,r,l, so both paths do the same work. Over the binary protocol each connection keeps up
+ * to the pipeline depth of requests in flight, the JSON endpoint takes one request at a time per connection.
+ * Restart the application between runs, or use a plateau larger than the total number of deployments.
+ * Usage: DeployLoadGenerator rest|binary host port [connections] [deploymentsPerConnection] [pipelineDepth] [plateauWidth]
+ */
+public final class DeployLoadGenerator {
+    private static final String COMMANDS = "f,b,r,l";
+    private static final Command[] PACKED_COMMANDS = {Command.FORWARD, Command.BACKWARD, Command.RIGHT, Command.LEFT};
+
+    private DeployLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || !(args[0].equals("rest") || args[0].equals("binary"))) {
+            System.err.println("Usage: DeployLoadGenerator rest|binary host port [connections] [deploymentsPerConnection] [pipelineDepth] [plateauWidth]");
+            System.exit(2);
+        }
+        String host = args[1];
+        int port = Integer.parseInt(args[2]);
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int deploymentsPerConnection = args.length > 4 ? Integer.parseInt(args[4]) : 10_000;
+        int pipelineDepth = args.length > 5 ? Integer.parseInt(args[5]) : 64;
+        int plateauWidth = args.length > 6 ? Integer.parseInt(args[6]) : 1000;
+        boolean binary = args[0].equals("binary");
+
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        List<Future<long[]>> outcomes = new ArrayList<>();
+        long startNanos = System.nanoTime();
+        for (int connection = 0; connection < connections; connection++) {
+            int firstCell = connection * deploymentsPerConnection;
+            Callable<long[]> client = binary
+                    ? () -> runBinary(host, port, firstCell, deploymentsPerConnection, pipelineDepth, plateauWidth)
+                    : () -> runRest(host, port, firstCell, deploymentsPerConnection, plateauWidth);
+            outcomes.add(executor.submit(client));
+        }
+        long parked = 0;
+        long failed = 0;
+        for (Future<long[]> outcome : outcomes) {
+            parked += outcome.get()[0];
+            failed += outcome.get()[1];
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        executor.shutdown();
+        System.out.printf("%s: %d deployments over %d connections in %.3f s, %.0f per second, %d parked, %d failed%n",
+                args[0], parked + failed, connections, seconds, (parked + failed) / seconds, parked, failed);
+    }
+
+    /**
+     * @return The number of parked and failed deployments
+     */
+    private static long[] runRest(String host, int port, int firstCell, int deployments, int plateauWidth)
+            throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://" + host + ":" + port + "/deployRover");
+        long[] outcome = new long[2];
+        for (int i = 0; i < deployments; i++) {
+            int cell = firstCell + i;
+            String body = "{\"currentCoordinates\":\"" + (cell % plateauWidth) + "," + (cell / plateauWidth) + ",N\",\"commands\":\"" + COMMANDS + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            outcome[response.statusCode() == 200 ? 0 : 1]++;
+        }
+        return outcome;
+    }
+
+    /**
+     * @return The number of parked and failed deployments
+     */
+    private static long[] runBinary(String host, int port, int firstCell, int deployments, int pipelineDepth, int plateauWidth)
+            throws IOException {
+        long[] outcome = new long[2];
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+            ByteBuffer out = ByteBuffer.allocate(pipelineDepth * 32);
+            ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+            int sent = 0;
+            int received = 0;
+            while (received < deployments) {
+                // Top the pipeline up, then wait for at least one response
+                out.clear();
+                while (sent < deployments && sent - received < pipelineDepth) {
+                    int cell = firstCell + sent;
+                    BinaryProtocol.writeDeployRequest(out, cell % plateauWidth, cell / plateauWidth, Direction.NORTH, PACKED_COMMANDS);
+                    sent++;
+                }
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                if (channel.read(in) < 0) {
+                    throw new IOException("Connection closed with " + (sent - received) + " responses missing");
+                }
+                in.flip();
+                while (true) {
+                    int frameStart = in.position();
+                    int length = BinaryProtocol.readFrameLength(in);
+                    if (length < 0 || in.remaining() < length) {
+                        in.position(frameStart);
+                        break;
+                    }
+                    in.position(frameStart);
+                    DeployRoverBatchResult result = BinaryProtocol.readResponse(in);
+                    outcome[result.getResult() != null ? 0 : 1]++;
+                    received++;
+                }
+                in.compact();
+            }
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,95 @@
+package com.project.marsrover.benchmark;
+
+import com.project.marsrover.events.RoverEventBus;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.objects.DeployRoverParams;
+import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.parser.CommandProgram;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.parser.DeployRoverParser;
+import com.project.marsrover.service.MarsRoverService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end cost of MarsRoverService.deployRover for short and long commands params, with the compiled program taken
+ * from the cache or compiled on every deployment. Both variants deploy the same commands param, which stays under the
+ * cache's length limit so the cached variant really hits the cache.
+ * The coordinate of the parked rover is freed after each deployment so every invocation starts from the same free
+ * coordinate. The rover keeps its ID in the registry, its coordinate lookup and the spatial index, as there is no way to
+ * unpark a rover, so a fresh service is created before each iteration to keep that state from growing across iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeployRoverBenchmark {
+
+    // 2000 commands make a commands param of 3999 characters, just under the cache's limit of 4096
+    @Param({"4", "2000"})
+    public int commandCount;
+
+    private MarsRoverService marsRoverService;
+    // Compiles the commands param on every deployment instead of looking it up in the cache
+    private MarsRoverService uncachedMarsRoverService;
+    private DeployRoverParams deployRoverParams;
+
+    @Setup
+    public void setUp() {
+        // Turning right and moving forward in a loop keeps the rover within a 2 x 2 square
+        String[] pattern = {"f", "r"};
+        StringBuilder commands = new StringBuilder(pattern[0]);
+        for (int i = 1; i < commandCount; i++) {
+            commands.append(',').append(pattern[i % 2]);
+        }
+        deployRoverParams = new DeployRoverParams("50,50,N", commands.toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        marsRoverService = new MarsRoverService(new SparseOccupancyGrid(99, 99));
+        uncachedMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(99, 99), new UncachedCommandProgramCache(),
+                RoverEventBus.disabled());
+    }
+
+    @Benchmark
+    public DeployRoverResult deployRover() throws DeployRoverException {
+        return release(marsRoverService, marsRoverService.deployRover(deployRoverParams));
+    }
+
+    @Benchmark
+    public DeployRoverResult deployRoverUncachedCommands() throws DeployRoverException {
+        return release(uncachedMarsRoverService, uncachedMarsRoverService.deployRover(deployRoverParams));
+    }
+
+    private static DeployRoverResult release(MarsRoverService marsRoverService, DeployRoverResult deployRoverResult) {
+        marsRoverService.mars.release(deployRoverResult.getxCoordinate(), deployRoverResult.getyCoordinate());
+        return deployRoverResult;
+    }
+
+    private static class UncachedCommandProgramCache extends CommandProgramCache {
+        UncachedCommandProgramCache() {
+            super(1);
+        }
+
+        @Override
+        public CommandProgram get(String commands) {
+            return DeployRoverParser.parseCommands(commands);
+        }
+    }
+}
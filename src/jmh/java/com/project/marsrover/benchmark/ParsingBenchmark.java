@@ -0,0 +1,74 @@
+package com.project.marsrover.benchmark;
+
+import com.project.marsrover.enums.Command;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.parser.CommandProgram;
+import com.project.marsrover.parser.DeployRoverParser;
+import com.project.marsrover.parser.ParsedCoordinates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the deployment params in isolation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+    private String[] commandTokens;
+    private String[] directionTokens;
+    private String commands;
+
+    @Setup
+    public void setUp() {
+        commandTokens = new String[]{"f", "b", "r", "l"};
+        directionTokens = new String[]{"N", "S", "E", "W"};
+        commands = "f,f,r,f,f,l,b,b,r,f,".repeat(10) + "f";
+    }
+
+    @Benchmark
+    public void convertStringToCommandEnum(Blackhole blackhole) throws DeployRoverException {
+        for (String token : commandTokens) {
+            blackhole.consume(Command.convertStringToCommandEnum(token));
+        }
+    }
+
+    @Benchmark
+    public void convertStringToDirectionEnum(Blackhole blackhole) throws DeployRoverException {
+        for (String token : directionTokens) {
+            blackhole.consume(Direction.convertStringToDirectionEnum(token));
+        }
+    }
+
+    @Benchmark
+    public ParsedCoordinates parseCoordinates() throws DeployRoverException {
+        return DeployRoverParser.parseCoordinates("3141,5926,N");
+    }
+
+    @Benchmark
+    public CommandProgram parseCommands() {
+        return DeployRoverParser.parseCommands(commands);
+    }
+
+    @Benchmark
+    public void splitAndConvertCommands(Blackhole blackhole) throws DeployRoverException {
+        for (String token : commands.split(",")) {
+            blackhole.consume(Command.convertStringToCommandEnum(token));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.project.marsrover.benchmark;
+
+import com.project.marsrover.enums.Command;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.objects.Rover;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single turn and move commands on a rover
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoverBenchmark {
+    private OccupancyGrid mars;
+    private Rover rover;
+    private boolean forward;
+
+    @Setup
+    public void setUp() {
+        mars = new BitmapOccupancyGrid(99, 99);
+        rover = new Rover(50, 50, Direction.NORTH);
+    }
+
+    @Benchmark
+    public Direction turn() throws DeployRoverException {
+        rover.turn(Command.RIGHT);
+        return rover.getDirection();
+    }
+
+    @Benchmark
+    public StopReason move() throws DeployRoverException {
+        // Alternate between forward and backward so the rover stays in place over two invocations
+        forward = !forward;
+        return rover.move(forward ? Command.FORWARD : Command.BACKWARD, mars);
+    }
+}
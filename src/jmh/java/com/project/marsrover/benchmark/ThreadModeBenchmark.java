@@ -0,0 +1,126 @@
+package com.project.marsrover.benchmark;
+
+import com.project.marsrover.config.ThreadModes;
+import com.project.marsrover.enums.ThreadMode;
+import com.project.marsrover.events.RoverEventBus;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.metrics.MarsRoverMetrics;
+import com.project.marsrover.objects.DeployRoverParams;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.persistence.MarsPersistence;
+import com.project.marsrover.planner.RoutePlanner;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.service.MarsRoverService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
+
+/**
+ * Runs deploy requests the way the web server would, at a fixed number of requests in flight, and reports the
+ * throughput and latencies of each way of running them. Every request deploys a rover with persistence on, so it waits
+ * for the write ahead log to reach the disk, then blocks for a while like a request writing to a slow log or client.
+ * <ul>
+ *     <li>pool: a fixed pool of 200 platform threads, like Tomcat's default, the other requests wait in its queue</li>
+ *     <li>platform: a new platform thread per request</li>
+ *     <li>virtual: a new virtual thread per request, platform threads on a JVM without virtual threads</li>
+ * </ul>
+ * Usage: ThreadModeBenchmark pool|platform|virtual [requests] [concurrency] [blockingMillis]
+ */
+public final class ThreadModeBenchmark {
+    private static final int POOL_THREADS = 200;
+    private static final int PLATEAU_WIDTH = 10_000;
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || !(args[0].equals("pool") || args[0].equals("platform") || args[0].equals("virtual"))) {
+            System.err.println("Usage: ThreadModeBenchmark pool|platform|virtual [requests] [concurrency] [blockingMillis]");
+            System.exit(2);
+        }
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+        long blockingMillis = args.length > 3 ? Long.parseLong(args[3]) : 20;
+        if (args[0].equals("virtual") && ThreadModes.virtualThreadFactory("probe-") == null) {
+            System.out.println("Virtual threads are not supported by Java " + Runtime.version().feature() + ", running on platform threads");
+        }
+
+        Path directory = Files.createTempDirectory("thread-mode-benchmark");
+        SparseOccupancyGrid mars = new SparseOccupancyGrid(PLATEAU_WIDTH, PLATEAU_WIDTH, requests);
+        RoverRegistry roverRegistry = new RoverRegistry(requests);
+        ExecutorService pool = null;
+        try (MarsPersistence persistence = MarsPersistence.open(directory, mars, roverRegistry, Duration.ZERO)) {
+            MarsRoverService marsRoverService = new MarsRoverService(mars, new CommandProgramCache(64), RoverEventBus.disabled(),
+                    MarsRoverMetrics.noop(), roverRegistry, new RoutePlanner());
+            Executor executor;
+            if (args[0].equals("pool")) {
+                pool = Executors.newFixedThreadPool(POOL_THREADS, ThreadModes.threadFactory(ThreadMode.PLATFORM, "request-"));
+                executor = pool;
+            }
+            else {
+                ThreadFactory threadFactory = ThreadModes.threadFactory(
+                        args[0].equals("virtual") ? ThreadMode.VIRTUAL : ThreadMode.PLATFORM, "request-");
+                executor = ThreadModes.threadPerTaskExecutor(threadFactory);
+            }
+
+            long[] latencies = new long[requests];
+            Semaphore inFlight = new Semaphore(concurrency);
+            CountDownLatch done = new CountDownLatch(requests);
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                int request = i;
+                inFlight.acquire();
+                long submittedNanos = System.nanoTime();
+                executor.execute(() -> {
+                    try {
+                        marsRoverService.deployRover(new DeployRoverParams(
+                                (request % PLATEAU_WIDTH) + "," + (request / PLATEAU_WIDTH) + ",E", "f,b,r,l"));
+                        Thread.sleep(blockingMillis);
+                    }
+                    catch (DeployRoverException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                    catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally {
+                        latencies[request] = System.nanoTime() - submittedNanos;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            Arrays.sort(latencies);
+            System.out.printf("%s: %d requests at %d in flight, %d ms blocking, in %.3f s, %.0f per second, p50 %.1f ms, p99 %.1f ms%n",
+                    args[0], requests, concurrency, blockingMillis, seconds, requests / seconds,
+                    latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99)] / 1e6);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            deleteDirectory(directory);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
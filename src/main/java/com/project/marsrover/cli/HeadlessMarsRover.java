@@ -0,0 +1,219 @@
+package com.project.marsrover.cli;
+
+import com.project.marsrover.config.MarsConfiguration;
+import com.project.marsrover.config.MarsProperties;
+import com.project.marsrover.events.RoverEventBus;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.metrics.MarsRoverMetrics;
+import com.project.marsrover.persistence.MarsPersistence;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.service.MarsRoverService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Runs the deploy console without the application context, the web server or component scanning, so scripts and
+ * batch jobs do not pay for them. The mars settings are read from the same sources as the full application, and the
+ * plateau is built by the same factory methods. Rover events, metrics, named plateaus and the binary protocol are off.
+ */
+public final class HeadlessMarsRover {
+    // Argument selecting the headless mode
+    public static final String HEADLESS = "--headless";
+
+    private HeadlessMarsRover() {
+    }
+
+    /**
+     * Deploys a rover for every line of the mission file or the input until it ends, then writes out the persisted rovers
+     * if enabled
+     *
+     * @param args The command line arguments, --mars.* arguments override application.properties
+     * @param input The lines to deploy without a mission file
+     * @param output Receives the final position of every rover, or the reason it was not deployed
+     * @throws IOException if the settings or the mission file cannot be read, or the persisted rovers cannot be recovered or written
+     */
+    public static void run(String[] args, InputStream input, PrintStream output) throws IOException {
+        MarsProperties marsProperties = loadProperties(args);
+        MarsConfiguration marsConfiguration = new MarsConfiguration();
+        OccupancyGrid mars = marsConfiguration.occupancyGrid(marsProperties);
+        RoverRegistry roverRegistry = marsConfiguration.roverRegistry(marsProperties);
+        MarsPersistence marsPersistence = marsProperties.getPersistence().isEnabled()
+                ? marsConfiguration.marsPersistence(marsProperties, mars, roverRegistry)
+                : null;
+        try {
+            MarsRoverService marsRoverService = new MarsRoverService(mars, marsConfiguration.commandProgramCache(marsProperties),
+                    RoverEventBus.disabled(), MarsRoverMetrics.noop(), roverRegistry, marsConfiguration.routePlanner(marsProperties));
+            MarsRoverConsole.start(marsRoverService, args, input, output);
+        } finally {
+            if (marsPersistence != null) {
+                marsPersistence.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the mars settings from the same sources as the full application
+     *
+     * @param args The command line arguments
+     * @return The mars settings
+     * @throws IOException if application.properties or a profile's properties cannot be read
+     * @throws IllegalArgumentException if a setting cannot be converted to the type of its property
+     */
+    public static MarsProperties loadProperties(String[] args) throws IOException {
+        return loadProperties(args, System.getProperties(), System.getenv());
+    }
+
+    /**
+     * Reads the mars settings like Spring Boot binds MarsProperties, from highest to lowest precedence: --key=value
+     * arguments, system properties, environment variables such as MARS_EVENTS_BUFFERSIZE, the properties of the active
+     * profiles then application.properties. Keys match in any of the relaxed forms, e.g mars.expected-rovers or
+     * mars.expectedRovers. Spring's property binder alone takes longer to start than the whole headless run, so every
+     * property of MarsProperties is bound through its setter here instead.
+     *
+     * @param args The command line arguments
+     * @param systemProperties The system properties
+     * @param environment The environment variables
+     * @return The mars settings
+     * @throws IOException if application.properties or a profile's properties cannot be read
+     * @throws IllegalArgumentException if a setting cannot be converted to the type of its property
+     */
+    public static MarsProperties loadProperties(String[] args, Properties systemProperties, Map<String, String> environment)
+            throws IOException {
+        Map<String, String> argValues = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                argValues.put(relaxedKey(arg.substring(2, separator)), arg.substring(separator + 1));
+            }
+        }
+        Map<String, String> systemValues = new HashMap<>();
+        for (String name : systemProperties.stringPropertyNames()) {
+            systemValues.put(relaxedKey(name), systemProperties.getProperty(name));
+        }
+        Map<String, String> environmentValues = new HashMap<>();
+        environment.forEach((name, value) -> environmentValues.put(relaxedKey(name.replace('_', '.')), value));
+        Map<String, String> applicationValues = readResource("/application.properties");
+
+        // Later profiles take precedence over earlier ones, and every profile over application.properties
+        List<Map<String, String>> sources = new ArrayList<>(List.of(argValues, systemValues, environmentValues));
+        String activeProfiles = lookUp(sources, "spring.profiles.active");
+        if (activeProfiles == null) {
+            activeProfiles = applicationValues.get(relaxedKey("spring.profiles.active"));
+        }
+        if (activeProfiles != null) {
+            String[] profiles = activeProfiles.split(",");
+            for (int i = profiles.length - 1; i >= 0; i--) {
+                if (!profiles[i].isBlank()) {
+                    sources.add(readResource("/application-" + profiles[i].trim() + ".properties"));
+                }
+            }
+        }
+        sources.add(applicationValues);
+        MarsProperties marsProperties = new MarsProperties();
+        bind(marsProperties, "mars", sources);
+        return marsProperties;
+    }
+
+    /**
+     * Sets every property of the settings object found in the sources, and the properties of its nested settings objects
+     */
+    private static void bind(Object target, String prefix, List<Map<String, String>> sources) {
+        try {
+            for (Method method : target.getClass().getMethods()) {
+                String name = method.getName();
+                if (name.startsWith("set") && name.length() > 3 && method.getParameterCount() == 1) {
+                    String key = prefix + "." + name.substring(3);
+                    String value = lookUp(sources, key);
+                    if (value != null) {
+                        method.invoke(target, convert(key, value, method.getParameterTypes()[0]));
+                    }
+                }
+                else if (name.startsWith("get") && method.getParameterCount() == 0
+                        && method.getReturnType().getEnclosingClass() == MarsProperties.class) {
+                    bind(method.invoke(target), prefix + "." + name.substring(3), sources);
+                }
+            }
+        }
+        catch (IllegalAccessException | InvocationTargetException exception) {
+            throw new IllegalStateException("Cannot bind " + prefix + ".", exception);
+        }
+    }
+
+    private static Object convert(String key, String value, Class<?> type) {
+        String trimmed = value.trim();
+        try {
+            if (type == int.class) {
+                return Integer.parseInt(trimmed);
+            }
+            if (type == long.class) {
+                return Long.parseLong(trimmed);
+            }
+            if (type == boolean.class) {
+                // The same words as Spring's string to boolean conversion
+                switch (trimmed.toLowerCase(Locale.ROOT)) {
+                    case "true", "on", "yes", "1" -> {
+                        return true;
+                    }
+                    case "false", "off", "no", "0" -> {
+                        return false;
+                    }
+                    default -> throw new IllegalArgumentException();
+                }
+            }
+            if (type.isEnum()) {
+                for (Object constant : type.getEnumConstants()) {
+                    if (relaxedKey(((Enum<?>) constant).name()).equals(relaxedKey(trimmed))) {
+                        return constant;
+                    }
+                }
+                throw new IllegalArgumentException();
+            }
+            return value;
+        }
+        catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, exception);
+        }
+    }
+
+    private static String lookUp(List<Map<String, String>> sources, String key) {
+        String relaxedKey = relaxedKey(key);
+        for (Map<String, String> source : sources) {
+            String value = source.get(relaxedKey);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> readResource(String name) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        try (InputStream propertiesInput = HeadlessMarsRover.class.getResourceAsStream(name)) {
+            if (propertiesInput != null) {
+                Properties properties = new Properties();
+                properties.load(propertiesInput);
+                for (String key : properties.stringPropertyNames()) {
+                    values.put(relaxedKey(key), properties.getProperty(key));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return The key in lower case without dashes and underscores, the same for every relaxed form of it
+     */
+    private static String relaxedKey(String key) {
+        return key.toLowerCase(Locale.ROOT).replace("-", "").replace("_", "");
+    }
+}
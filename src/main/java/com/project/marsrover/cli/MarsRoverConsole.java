@@ -0,0 +1,92 @@
+package com.project.marsrover.cli;
+
+import com.project.marsrover.objects.DeployRoverParams;
+import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.service.MarsRoverService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/**
+ * Deploys rovers typed on the console, one per line in the format of 3,4,N f,f,r,f,f
+ */
+public class MarsRoverConsole {
+    static final String INVALID_PARAMS = "Invalid params. Params must follow the format of: 3,4,N f,f,r,f,f";
+
+    private final MarsRoverService marsRoverService;
+
+    /**
+     * @param marsRoverService The service to deploy on, shared with any other way of deploying rovers
+     */
+    public MarsRoverConsole(MarsRoverService marsRoverService) {
+        this.marsRoverService = marsRoverService;
+    }
+
+    /**
+     * Deploys the lines of the mission file given by --input if there is one, otherwise the lines typed on the console
+     *
+     * @param marsRoverService The service to deploy on
+     * @param args The command line arguments, see MissionFileRunner for the mission file arguments
+     * @param input The lines to deploy without a mission file
+     * @param output Receives the results unless --output names a file
+     * @throws IOException if the mission file cannot be read or the results cannot be written
+     */
+    public static void start(MarsRoverService marsRoverService, String[] args, InputStream input, PrintStream output) throws IOException {
+        Path inputFile = MissionFileRunner.inputFile(args);
+        if (inputFile == null) {
+            new MarsRoverConsole(marsRoverService).run(input, output);
+            return;
+        }
+        MissionFileRunner missionFileRunner = new MissionFileRunner(marsRoverService, MissionFileRunner.workers(args));
+        Path outputFile = MissionFileRunner.outputFile(args);
+        if (outputFile == null) {
+            // Not closed, the console output stays open
+            missionFileRunner.run(inputFile, Channels.newChannel(output));
+            output.flush();
+            return;
+        }
+        try (WritableByteChannel outputChannel = MissionFileRunner.openOutput(outputFile)) {
+            missionFileRunner.run(inputFile, outputChannel);
+        }
+    }
+
+    /**
+     * Deploys a rover for every line until the input ends
+     *
+     * @param input The lines to deploy
+     * @param output Receives the final position of every rover, or the reason it was not deployed
+     */
+    public void run(InputStream input, PrintStream output) {
+        Scanner scanner = new Scanner(input);
+        output.println("Deploy your rover: ");
+        while (scanner.hasNext()) {
+            try {
+                // Format must follow 3,4,N f,f,r,f,f
+                String[] commandLine = scanner.nextLine().split(" ");
+                if (commandLine.length != 2) {
+                    output.println(INVALID_PARAMS);
+                    continue;
+                }
+                DeployRoverParams deployRoverParams = new DeployRoverParams(commandLine[0], commandLine[1]);
+                DeployRoverResult deployRoverResult = marsRoverService.deployRover(deployRoverParams);
+                output.println(describe(deployRoverResult));
+            }
+            catch (Exception exception) {
+                output.println(exception);
+            }
+        }
+    }
+
+    /**
+     * @return The final position and direction of a deployed rover, as printed on the console
+     */
+    static String describe(DeployRoverResult deployRoverResult) {
+        return "Final Coordinate: " + deployRoverResult.getxCoordinate() + ", " + deployRoverResult.getyCoordinate()
+                + System.lineSeparator() + "Final Direction:  " + deployRoverResult.getFinalDirection();
+    }
+}
@@ -0,0 +1,266 @@
+package com.project.marsrover.cli;
+
+import com.project.marsrover.objects.DeployRoverParams;
+import com.project.marsrover.parser.PreparedDeployment;
+import com.project.marsrover.service.MarsRoverService;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deploys every line of a mission file, with the same results as typing the lines on the console one by one.
+ * The file is read in large chunks cut at line ends. Worker threads parse and compile the lines of each chunk, and
+ * a single committing thread deploys them in file order. It waits once per chunk for the rovers to be persisted,
+ * then writes the results of the whole chunk at once. Only a few chunks are read ahead of the committing thread.
+ * <p>
+ * Arguments: --input=file to deploy, --output=file for the results instead of the console, --workers=parsing threads.
+ */
+public class MissionFileRunner {
+    static final String INPUT = "--input=";
+    static final String OUTPUT = "--output=";
+    static final String WORKERS = "--workers=";
+    private static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final byte BLANK = 0;
+    private static final byte INVALID = 1;
+    private static final byte DEPLOY = 2;
+
+    private final MarsRoverService marsRoverService;
+    private final int workers;
+    private final int chunkBytes;
+
+    public MissionFileRunner(MarsRoverService marsRoverService, int workers) {
+        this(marsRoverService, workers, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param marsRoverService The service to deploy on
+     * @param workers The number of threads parsing lines, 0 for one per processor
+     * @param chunkBytes The number of bytes read at once, grown for longer lines
+     */
+    public MissionFileRunner(MarsRoverService marsRoverService, int workers, int chunkBytes) {
+        this.marsRoverService = marsRoverService;
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Deploys a rover for every line of the file, in order
+     *
+     * @param inputFile The mission file, one deployment per line in the format of 3,4,N f,f,r,f,f
+     * @param output Receives the final position of every rover, or the reason it was not deployed
+     * @return The number of lines read
+     * @throws IOException if the file cannot be read or the results cannot be written
+     */
+    public long run(Path inputFile, WritableByteChannel output) throws IOException {
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mission-parser-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService committer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mission-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Lines seen by the committing thread, and whitespace only lines waiting for a later line with a deployment
+        long[] lineCounts = new long[2];
+        Deque<Future<?>> commits = new ArrayDeque<>();
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            byte[] carry = new byte[0];
+            boolean end = false;
+            while (!end) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.max(chunkBytes, carry.length * 2));
+                buffer.put(carry);
+                while (buffer.hasRemaining() && !end) {
+                    end = input.read(buffer) < 0;
+                }
+                byte[] bytes = buffer.array();
+                int length = buffer.position();
+                int cut = end ? length : lastLineEnd(bytes, length);
+                carry = Arrays.copyOfRange(bytes, cut, length);
+                if (cut == 0) {
+                    // A single line longer than the buffer, read on with a larger one
+                    continue;
+                }
+                Future<ParsedChunk> parsed = parsers.submit(() -> parse(bytes, cut));
+                commits.add(committer.submit(() -> {
+                    commit(await(parsed), output, lineCounts);
+                    return null;
+                }));
+                while (commits.size() > workers * 2) {
+                    await(commits.poll());
+                }
+            }
+            while (!commits.isEmpty()) {
+                await(commits.poll());
+            }
+        } finally {
+            parsers.shutdownNow();
+            committer.shutdownNow();
+        }
+        return lineCounts[0];
+    }
+
+    /**
+     * Parses the lines of a chunk that ends at a line end or at the end of the file
+     */
+    private ParsedChunk parse(byte[] bytes, int length) {
+        ParsedChunk parsedChunk = new ParsedChunk();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            String line = new String(bytes, lineStart, contentEnd - lineStart, StandardCharsets.UTF_8);
+            if (line.isBlank()) {
+                parsedChunk.add(BLANK, null);
+            }
+            else {
+                // Format must follow 3,4,N f,f,r,f,f
+                String[] commandLine = line.split(" ");
+                if (commandLine.length != 2) {
+                    parsedChunk.add(INVALID, null);
+                }
+                else {
+                    parsedChunk.add(DEPLOY, marsRoverService.prepareDeployment(new DeployRoverParams(commandLine[0], commandLine[1])));
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return parsedChunk;
+    }
+
+    /**
+     * Deploys the lines of a chunk in order, waits for them to be persisted and writes their results
+     */
+    private void commit(ParsedChunk parsedChunk, WritableByteChannel output, long[] lineCounts) throws IOException {
+        StringBuilder results = new StringBuilder(parsedChunk.count * 48);
+        String lineSeparator = System.lineSeparator();
+        for (int i = 0; i < parsedChunk.count; i++) {
+            lineCounts[0]++;
+            if (parsedChunk.kinds[i] == BLANK) {
+                // Like the console, whitespace only lines are only rejected if a line with content follows them
+                lineCounts[1]++;
+                continue;
+            }
+            for (; lineCounts[1] > 0; lineCounts[1]--) {
+                results.append(MarsRoverConsole.INVALID_PARAMS).append(lineSeparator);
+            }
+            if (parsedChunk.kinds[i] == INVALID) {
+                results.append(MarsRoverConsole.INVALID_PARAMS).append(lineSeparator);
+                continue;
+            }
+            try {
+                results.append(MarsRoverConsole.describe(marsRoverService.deployPreparedRover(parsedChunk.deployments[i])));
+            }
+            catch (Exception exception) {
+                results.append(exception);
+            }
+            results.append(lineSeparator);
+        }
+        // Results only leave once the rovers they report are persisted
+        marsRoverService.sync();
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(results.toString());
+        while (bytes.hasRemaining()) {
+            output.write(bytes);
+        }
+    }
+
+    private static int lastLineEnd(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deploying the mission file");
+        }
+        catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("Unable to deploy the mission file", exception.getCause());
+        }
+    }
+
+    /**
+     * @return The mission file given by --input, or null to read the console
+     */
+    static Path inputFile(String[] args) {
+        String value = option(args, INPUT);
+        return value != null ? Path.of(value) : null;
+    }
+
+    /**
+     * @return The results file given by --output, or null to write to the console
+     */
+    static Path outputFile(String[] args) {
+        String value = option(args, OUTPUT);
+        return value != null ? Path.of(value) : null;
+    }
+
+    /**
+     * @return The number of parsing threads given by --workers, 0 for one per processor
+     */
+    static int workers(String[] args) {
+        String value = option(args, WORKERS);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    static WritableByteChannel openOutput(Path outputFile) throws IOException {
+        return FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static String option(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parsed lines of a chunk, in file order
+     */
+    private static final class ParsedChunk {
+        private byte[] kinds = new byte[1024];
+        // Set for the lines to deploy
+        private PreparedDeployment[] deployments = new PreparedDeployment[1024];
+        private int count;
+
+        private void add(byte kind, PreparedDeployment preparedDeployment) {
+            if (count == kinds.length) {
+                kinds = Arrays.copyOf(kinds, count * 2);
+                deployments = Arrays.copyOf(deployments, count * 2);
+            }
+            kinds[count] = kind;
+            deployments[count++] = preparedDeployment;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.project.marsrover.collections;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non-negative long keys to int values with linear probing.
+ * Keys and values are stored in primitive arrays so no boxing happens on lookups or inserts.
+ */
+public class LongIntHashMap {
+    public static final int NO_VALUE = -1;
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every key, keeping the current capacity
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * @return The value of the key, or NO_VALUE if the key is not in the map
+     */
+    public int get(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                return NO_VALUE;
+            }
+            if (existing == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return The previous value of the key, or NO_VALUE if the key was not in the map
+     */
+    public int put(long key, int value) {
+        int index = indexOf(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > resizeThreshold) {
+                    resize();
+                }
+                return NO_VALUE;
+            }
+            if (existing == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return The removed value of the key, or NO_VALUE if the key was not in the map
+     */
+    public int remove(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                return NO_VALUE;
+            }
+            if (existing == key) {
+                int removed = values[index];
+                shiftBack(index);
+                size--;
+                return removed;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Closes the gap left by a removed key so that later probes do not stop early
+     */
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == EMPTY) {
+                keys[gap] = EMPTY;
+                return;
+            }
+            int home = indexOf(key);
+            // Move the entry into the gap only if its home slot is not between the gap and its current slot
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int index = indexOf(key);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
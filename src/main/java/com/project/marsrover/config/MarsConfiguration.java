@@ -0,0 +1,232 @@
+package com.project.marsrover.config;
+
+import com.project.marsrover.events.FileRoverEventConsumer;
+import com.project.marsrover.events.InMemoryRoverEventConsumer;
+import com.project.marsrover.events.LoggingRoverEventConsumer;
+import com.project.marsrover.events.RoverEventBus;
+import com.project.marsrover.events.RoverEventConsumer;
+import com.project.marsrover.feed.SseFeedStreamer;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.metrics.MarsRoverMetrics;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.persistence.MarsPersistence;
+import com.project.marsrover.plateau.PlateauManager;
+import com.project.marsrover.planner.RoutePlanner;
+import com.project.marsrover.protocol.BinaryProtocolServer;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.service.MarsRoverService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+@EnableConfigurationProperties(MarsProperties.class)
+public class MarsConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MarsConfiguration.class);
+
+    /**
+     * Creates the occupancy store for the plateau based on the configured grid type and dimensions
+     *
+     * @param marsProperties The plateau settings
+     * @return The occupancy store shared by all deployments
+     */
+    @Bean
+    public OccupancyGrid occupancyGrid(MarsProperties marsProperties) {
+        return switch (marsProperties.getGrid()) {
+            case SPARSE -> new SparseOccupancyGrid(marsProperties.getWidth(), marsProperties.getHeight(), marsProperties.getExpectedRovers());
+            case DENSE -> new BitmapOccupancyGrid(marsProperties.getWidth(), marsProperties.getHeight());
+        };
+    }
+
+    /**
+     * Creates the cache of compiled commands params shared by all deployments
+     *
+     * @param marsProperties The plateau settings
+     * @return The bounded program cache
+     */
+    @Bean
+    public CommandProgramCache commandProgramCache(MarsProperties marsProperties) {
+        return new CommandProgramCache(marsProperties.getCommandCacheSize());
+    }
+
+    /**
+     * Creates the registry of parked rovers, sized for the expected number of rovers
+     *
+     * @param marsProperties The plateau settings
+     * @return The rover registry shared by all deployments
+     */
+    @Bean
+    public RoverRegistry roverRegistry(MarsProperties marsProperties) {
+        return new RoverRegistry(marsProperties.getExpectedRovers());
+    }
+
+    /**
+     * Recovers the rovers persisted by the previous run onto the plateau and logs every later change of a rover position.
+     * Only created when mars.persistence.enabled is true. Recovery finishes before the application starts taking requests.
+     *
+     * @param marsProperties The plateau settings
+     * @param occupancyGrid The empty occupancy store
+     * @param roverRegistry The empty rover registry
+     * @return The persistence, which writes a last snapshot when the application context shuts down
+     * @throws IOException if the persisted rovers cannot be read
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mars.persistence", name = "enabled", havingValue = "true")
+    public MarsPersistence marsPersistence(MarsProperties marsProperties, OccupancyGrid occupancyGrid, RoverRegistry roverRegistry)
+            throws IOException {
+        MarsProperties.Persistence persistence = marsProperties.getPersistence();
+        return MarsPersistence.open(Path.of(persistence.getDirectory()), occupancyGrid, roverRegistry,
+                Duration.ofSeconds(persistence.getSnapshotIntervalSeconds()));
+    }
+
+    /**
+     * Creates the route planner with the configured turn cost, search limit and route cache size
+     *
+     * @param marsProperties The plateau settings
+     * @return The route planner shared by all requests
+     */
+    @Bean
+    public RoutePlanner routePlanner(MarsProperties marsProperties) {
+        MarsProperties.Planner planner = marsProperties.getPlanner();
+        return new RoutePlanner(planner.getTurnCost(), planner.getMaxExpandedPoses(), planner.getCacheSize());
+    }
+
+    /**
+     * Creates the pool running simulation ticks and parallel batches, the common fork join pool unless a parallelism is configured
+     *
+     * @param marsProperties The plateau settings
+     * @return The parallel pool, shut down when the application context shuts down
+     */
+    @Bean
+    public ForkJoinPool parallelPool(MarsProperties marsProperties) {
+        int parallelism = marsProperties.getParallelism();
+        return parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Creates the named plateaus next to the default one, evicted to mars.plateaus.directory beyond the memory budget
+     *
+     * @param marsProperties The plateau settings
+     * @param marsRoverService The service of the default plateau
+     * @param commandProgramCache The program cache shared with the named plateaus
+     * @param roverEventBus The event bus shared with the named plateaus
+     * @param marsRoverMetrics The metrics shared with the named plateaus
+     * @param parallelPool The parallel pool shared with the named plateaus
+     * @return The plateau manager
+     */
+    @Bean
+    public PlateauManager plateauManager(MarsProperties marsProperties, MarsRoverService marsRoverService,
+                                         CommandProgramCache commandProgramCache, RoverEventBus roverEventBus,
+                                         MarsRoverMetrics marsRoverMetrics, ForkJoinPool parallelPool) {
+        MarsProperties.Plateaus plateaus = marsProperties.getPlateaus();
+        MarsProperties.Planner planner = marsProperties.getPlanner();
+        return new PlateauManager(marsRoverService, Path.of(plateaus.getDirectory()), plateaus.getMemoryBudgetMb() * 1024L * 1024L,
+                commandProgramCache, roverEventBus, marsRoverMetrics,
+                () -> new RoutePlanner(planner.getTurnCost(), planner.getMaxExpandedPoses(), planner.getCacheSize()), parallelPool);
+    }
+
+    /**
+     * Creates the sender of the occupancy feed to server-sent event clients
+     *
+     * @param marsProperties The plateau settings
+     * @return The feed streamer, which ends every stream when the application context shuts down
+     */
+    @Bean
+    public SseFeedStreamer sseFeedStreamer(MarsProperties marsProperties) {
+        MarsProperties.Feed feed = marsProperties.getFeed();
+        return new SseFeedStreamer(feed.getBufferCells(), feed.getHeartbeatSeconds(),
+                ThreadModes.threadFactory(marsProperties.getThreadMode(), "rover-feed-"));
+    }
+
+    /**
+     * Starts accepting deployments on the default plateau over the binary protocol.
+     * Only created when mars.binary.enabled is true.
+     *
+     * @param marsProperties The plateau settings
+     * @param marsRoverService The service of the default plateau
+     * @return The binary protocol server, which closes every connection when the application context shuts down
+     * @throws IOException if the port cannot be bound
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mars.binary", name = "enabled", havingValue = "true")
+    public BinaryProtocolServer binaryProtocolServer(MarsProperties marsProperties, MarsRoverService marsRoverService) throws IOException {
+        MarsProperties.Binary binary = marsProperties.getBinary();
+        return BinaryProtocolServer.start(new InetSocketAddress(binary.getPort()), marsRoverService, binary.getThreads(),
+                ThreadModes.threadFactory(marsProperties.getThreadMode(), "rover-binary-sync-"));
+    }
+
+    /**
+     * Serves every request on a new virtual thread instead of Tomcat's fixed pool of platform threads, so requests
+     * waiting on disk flushes or slow consumers do not cap the number of requests in progress.
+     * Only created when mars.thread-mode is VIRTUAL, and leaves the fixed pool in place if the JVM has no virtual threads.
+     *
+     * @return The customizer of the Tomcat connector
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mars", name = "thread-mode", havingValue = "VIRTUAL")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        ThreadFactory virtualThreadFactory = ThreadModes.virtualThreadFactory("rover-request-");
+        return protocolHandler -> {
+            if (virtualThreadFactory == null) {
+                LOGGER.warn("Virtual threads are not supported by Java {}, requests are served by the fixed thread pool",
+                        Runtime.version().feature());
+                return;
+            }
+            protocolHandler.setExecutor(ThreadModes.threadPerTaskExecutor(virtualThreadFactory));
+        };
+    }
+
+    /**
+     * Creates the asynchronous rover event pipeline with the configured built in consumer and any
+     * RoverEventConsumer beans in the application context
+     *
+     * @param marsProperties The plateau settings
+     * @param customConsumers Additional consumers declared as beans
+     * @return The event bus, closed when the application context shuts down
+     */
+    @Bean
+    public RoverEventBus roverEventBus(MarsProperties marsProperties, ObjectProvider<RoverEventConsumer> customConsumers) {
+        MarsProperties.Events events = marsProperties.getEvents();
+        List<RoverEventConsumer> consumers = new ArrayList<>();
+        switch (events.getConsumer()) {
+            case LOG -> consumers.add(new LoggingRoverEventConsumer());
+            case FILE -> consumers.add(new FileRoverEventConsumer(Path.of(events.getFile())));
+            case MEMORY -> consumers.add(new InMemoryRoverEventConsumer(events.getMemoryCapacity()));
+            case NONE -> {
+                // Only custom consumers, if any
+            }
+        }
+        customConsumers.orderedStream().forEach(consumers::add);
+        return new RoverEventBus(events.getBufferSize(), consumers,
+                ThreadModes.threadFactory(marsProperties.getThreadMode(), "rover-event-bus-"));
+    }
+
+    /**
+     * Creates the deployment meters in the application meter registry, published by the actuator endpoints
+     *
+     * @param meterRegistry The registry provided by Spring Boot
+     * @return The deployment metrics
+     */
+    @Bean
+    public MarsRoverMetrics marsRoverMetrics(MeterRegistry meterRegistry) {
+        return new MarsRoverMetrics(meterRegistry);
+    }
+}
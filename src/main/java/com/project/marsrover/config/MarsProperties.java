@@ -0,0 +1,307 @@
+package com.project.marsrover.config;
+
+import com.project.marsrover.enums.EventConsumerType;
+import com.project.marsrover.enums.GridType;
+import com.project.marsrover.enums.ThreadMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Plateau settings bound from the "mars" prefix in application.properties
+ */
+@ConfigurationProperties(prefix = "mars")
+public class MarsProperties {
+    // Number of valid x coordinates, rovers facing north move towards higher x
+    private int width = 99;
+    // Number of valid y coordinates, rovers facing east move towards higher y
+    private int height = 99;
+    // SPARSE for large plateaus with few rovers, DENSE for plateaus where a large share of coordinates are taken
+    private GridType grid = GridType.SPARSE;
+    // Expected number of parked rovers, used to pre-size the occupancy store
+    private int expectedRovers = 1024;
+    // Maximum number of compiled commands params kept for reuse
+    private int commandCacheSize = 4096;
+    // Settings of the asynchronous rover event pipeline
+    private final Events events = new Events();
+    // Settings of the route planner
+    private final Planner planner = new Planner();
+    // Threads running simulation ticks and parallel batches, 0 to share the common fork join pool
+    private int parallelism = 0;
+    // Settings of the write ahead log and snapshots
+    private final Persistence persistence = new Persistence();
+    // Settings of the named plateaus
+    private final Plateaus plateaus = new Plateaus();
+    // Settings of the occupancy feed
+    private final Feed feed = new Feed();
+    // Settings of the binary deployment protocol
+    private final Binary binary = new Binary();
+    // Threads serving requests and blocking consumers of rover events and the occupancy feed
+    private ThreadMode threadMode = ThreadMode.PLATFORM;
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public GridType getGrid() {
+        return grid;
+    }
+
+    public void setGrid(GridType grid) {
+        this.grid = grid;
+    }
+
+    public int getExpectedRovers() {
+        return expectedRovers;
+    }
+
+    public void setExpectedRovers(int expectedRovers) {
+        this.expectedRovers = expectedRovers;
+    }
+
+    public int getCommandCacheSize() {
+        return commandCacheSize;
+    }
+
+    public void setCommandCacheSize(int commandCacheSize) {
+        this.commandCacheSize = commandCacheSize;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public Planner getPlanner() {
+        return planner;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public Plateaus getPlateaus() {
+        return plateaus;
+    }
+
+    public Feed getFeed() {
+        return feed;
+    }
+
+    public Binary getBinary() {
+        return binary;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public void setThreadMode(ThreadMode threadMode) {
+        this.threadMode = threadMode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public static class Events {
+        // Built in consumer of rover events
+        private EventConsumerType consumer = EventConsumerType.LOG;
+        // Number of events that can wait for the consumers before new events are dropped
+        private int bufferSize = 65536;
+        // File the FILE consumer appends to
+        private String file = "rover-events.log";
+        // Number of events the MEMORY consumer keeps
+        private int memoryCapacity = 10000;
+
+        public EventConsumerType getConsumer() {
+            return consumer;
+        }
+
+        public void setConsumer(EventConsumerType consumer) {
+            this.consumer = consumer;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getMemoryCapacity() {
+            return memoryCapacity;
+        }
+
+        public void setMemoryCapacity(int memoryCapacity) {
+            this.memoryCapacity = memoryCapacity;
+        }
+    }
+
+    public static class Planner {
+        // Cost of a turn, a move costs 1
+        private int turnCost = 1;
+        // Number of poses a search may expand before giving up on the target
+        private int maxExpandedPoses = 1_000_000;
+        // Maximum number of planned routes kept for reuse
+        private int cacheSize = 1024;
+
+        public int getTurnCost() {
+            return turnCost;
+        }
+
+        public void setTurnCost(int turnCost) {
+            this.turnCost = turnCost;
+        }
+
+        public int getMaxExpandedPoses() {
+            return maxExpandedPoses;
+        }
+
+        public void setMaxExpandedPoses(int maxExpandedPoses) {
+            this.maxExpandedPoses = maxExpandedPoses;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+
+    public static class Persistence {
+        // Keep parked rovers across restarts
+        private boolean enabled = false;
+        // Directory holding the snapshots and the write ahead log
+        private String directory = "mars-data";
+        // Seconds between snapshots, 0 to only write a snapshot on shutdown
+        private long snapshotIntervalSeconds = 300;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getSnapshotIntervalSeconds() {
+            return snapshotIntervalSeconds;
+        }
+
+        public void setSnapshotIntervalSeconds(long snapshotIntervalSeconds) {
+            this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        }
+    }
+
+    public static class Plateaus {
+        // Directory idle named plateaus are evicted to
+        private String directory = "mars-plateaus";
+        // Estimated heap the loaded named plateaus may use before the least recently used are evicted
+        private long memoryBudgetMb = 512;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMemoryBudgetMb() {
+            return memoryBudgetMb;
+        }
+
+        public void setMemoryBudgetMb(long memoryBudgetMb) {
+            this.memoryBudgetMb = memoryBudgetMb;
+        }
+    }
+
+    public static class Feed {
+        // Cells with changes that can wait for a slow subscriber before its subscription overflows
+        private int bufferCells = 4096;
+        // Seconds between heartbeats, which notice subscribers that left
+        private long heartbeatSeconds = 15;
+
+        public int getBufferCells() {
+            return bufferCells;
+        }
+
+        public void setBufferCells(int bufferCells) {
+            this.bufferCells = bufferCells;
+        }
+
+        public long getHeartbeatSeconds() {
+            return heartbeatSeconds;
+        }
+
+        public void setHeartbeatSeconds(long heartbeatSeconds) {
+            this.heartbeatSeconds = heartbeatSeconds;
+        }
+    }
+
+    public static class Binary {
+        // Whether deployments are also accepted over the binary protocol
+        private boolean enabled = false;
+        // TCP port of the binary protocol
+        private int port = 7070;
+        // Reactor threads serving the connections, 0 for one per processor
+        private int threads = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+}
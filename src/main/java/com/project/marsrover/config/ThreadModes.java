@@ -0,0 +1,72 @@
+package com.project.marsrover.config;
+
+import com.project.marsrover.enums.ThreadMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads of a thread mode. Virtual threads are looked up by reflection, since the application is built
+ * for Java 17 where they do not exist yet. On a JVM without them, the VIRTUAL mode falls back to platform threads
+ * with a warning instead of failing to start.
+ */
+public final class ThreadModes {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadModes.class);
+
+    private ThreadModes() {
+    }
+
+    /**
+     * @param threadMode The configured thread mode
+     * @param namePrefix The name of the threads, followed by their number
+     * @return A factory of virtual threads in the VIRTUAL mode if the JVM supports them, otherwise of daemon platform threads
+     */
+    public static ThreadFactory threadFactory(ThreadMode threadMode, String namePrefix) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            ThreadFactory virtualThreadFactory = virtualThreadFactory(namePrefix);
+            if (virtualThreadFactory != null) {
+                return virtualThreadFactory;
+            }
+            LOGGER.warn("Virtual threads are not supported by Java {}, {} threads are platform threads",
+                    Runtime.version().feature(), namePrefix);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @param namePrefix The name of the threads, followed by their number
+     * @return A factory of virtual threads, or null if the JVM does not support them
+     */
+    public static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            // Thread.ofVirtual().name(namePrefix, 1).factory(), through the public Thread.Builder interface since the
+            // builder classes are internal
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) factory.invoke(name.invoke(builder, namePrefix, 1L));
+        }
+        catch (ReflectiveOperationException | RuntimeException exception) {
+            // Missing before Java 19, and a preview feature that must be enabled on Java 19 and 20
+            return null;
+        }
+    }
+
+    /**
+     * @param threadFactory The factory of the threads
+     * @return An executor starting a new thread for every task, which does not limit how many tasks run at once
+     */
+    public static Executor threadPerTaskExecutor(ThreadFactory threadFactory) {
+        return runnable -> threadFactory.newThread(runnable).start();
+    }
+}
@@ -0,0 +1,103 @@
+package com.project.marsrover.controller;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the lines of a request body, holding at most one line of up to a maximum length in memory.
+ * The characters of a longer line are skipped up to its end instead of being kept, so a body without line breaks
+ * cannot fill the heap. Lines end with \n or \r\n, like BufferedReader.readLine without the lone \r.
+ */
+final class BoundedLineReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    // Characters of the current line, one more than the maximum length so a trailing \r still fits
+    private final StringBuilder line = new StringBuilder();
+    // Next character to read in the buffer, and the end of the characters read into it
+    private int position;
+    private int limit;
+    // True if the last line read was longer than the maximum length
+    private boolean tooLong;
+
+    /**
+     * @param reader The characters of the body, read in blocks so it does not need to be buffered
+     * @param maxLineLength The longest line kept, without its line break
+     */
+    BoundedLineReader(Reader reader, int maxLineLength) {
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * @return The next line without its line break, an empty line if it was too long, or null at the end of the body
+     * @throws IOException if reading the body fails
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean started = false;
+        while (true) {
+            if (position == limit) {
+                int read = reader.read(buffer, 0, BUFFER_SIZE);
+                if (read < 0) {
+                    return started ? endLine() : null;
+                }
+                position = 0;
+                limit = read;
+            }
+            started = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                // Skip the \n
+                position++;
+                return endLine();
+            }
+        }
+    }
+
+    /**
+     * @return true if the last line read was longer than the maximum length and was skipped
+     */
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    /**
+     * @return true if the next line can be started without waiting on the client
+     * @throws IOException if reading the body fails
+     */
+    boolean ready() throws IOException {
+        return position < limit || reader.ready();
+    }
+
+    private void append(int start, int end) {
+        if (tooLong) {
+            return;
+        }
+        if (line.length() + end - start > maxLineLength + 1) {
+            tooLong = true;
+            line.setLength(0);
+            return;
+        }
+        line.append(buffer, start, end - start);
+    }
+
+    private String endLine() {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        if (line.length() > maxLineLength) {
+            tooLong = true;
+            line.setLength(0);
+        }
+        return line.toString();
+    }
+}
@@ -1,28 +1,261 @@
 package com.project.marsrover.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.exceptions.InvalidQueryException;
+import com.project.marsrover.exceptions.PlateauNotFoundException;
+import com.project.marsrover.exceptions.RoverNotFoundException;
+import com.project.marsrover.feed.SseFeedStreamer;
+import com.project.marsrover.objects.DeployRoverBatchResult;
 import com.project.marsrover.objects.DeployRoverParams;
 import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.objects.PlanRouteParams;
+import com.project.marsrover.objects.PlateauInfo;
+import com.project.marsrover.objects.PlateauParams;
+import com.project.marsrover.objects.RoverCommandParams;
+import com.project.marsrover.objects.RoverPosition;
+import com.project.marsrover.objects.SimulationParams;
+import com.project.marsrover.objects.SimulationResult;
+import com.project.marsrover.planner.Route;
+import com.project.marsrover.plateau.PlateauLease;
+import com.project.marsrover.plateau.PlateauManager;
 import com.project.marsrover.service.MarsRoverService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 public class MarsRoverController {
+    private static final String NDJSON = "application/x-ndjson";
+    // Longest line of a streamed deployment, in characters, the same limit as a binary protocol frame
+    private static final int MAX_NDJSON_LINE_LENGTH = 1 << 20;
 
-    private final MarsRoverService marsRoverService;
+    private final PlateauManager plateauManager;
+    private final SseFeedStreamer sseFeedStreamer;
+    private final ObjectReader deployRoverParamsReader;
+    private final ObjectWriter deployRoverBatchResultWriter;
 
     @Autowired
-    public MarsRoverController(MarsRoverService marsRoverService) {
-        this.marsRoverService = marsRoverService;
+    public MarsRoverController(PlateauManager plateauManager, SseFeedStreamer sseFeedStreamer, ObjectMapper objectMapper) {
+        this.plateauManager = plateauManager;
+        this.sseFeedStreamer = sseFeedStreamer;
+        this.deployRoverParamsReader = objectMapper.readerFor(DeployRoverParams.class);
+        this.deployRoverBatchResultWriter = objectMapper.writerFor(DeployRoverBatchResult.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @ResponseBody
     @PostMapping("/deployRover")
-    public DeployRoverResult deployRover(@RequestBody DeployRoverParams deployRoverParams) throws DeployRoverException {
-        return marsRoverService.deployRover(deployRoverParams);
+    public DeployRoverResult deployRover(@RequestBody DeployRoverParams deployRoverParams, @RequestParam(required = false) String plateau)
+            throws DeployRoverException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().deployRover(deployRoverParams);
+        }
+    }
+
+    @ResponseBody
+    @PostMapping("/deployRovers")
+    public List<DeployRoverBatchResult> deployRovers(@RequestBody List<DeployRoverParams> deployRoverParamsList,
+                                                     @RequestParam(required = false) String plateau) throws PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().deployRovers(deployRoverParamsList);
+        }
+    }
+
+    @ResponseBody
+    @GetMapping("/rovers/{roverId}")
+    public RoverPosition getRover(@PathVariable int roverId, @RequestParam(required = false) String plateau)
+            throws RoverNotFoundException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().getRover(roverId);
+        }
+    }
+
+    @ResponseBody
+    @PostMapping("/planRoute")
+    public Route planRoute(@RequestBody PlanRouteParams planRouteParams, @RequestParam(required = false) String plateau)
+            throws DeployRoverException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().planRoute(planRouteParams);
+        }
+    }
+
+    @ResponseBody
+    @PostMapping("/rovers/{roverId}/commands")
+    public DeployRoverResult commandRover(@PathVariable int roverId, @RequestBody RoverCommandParams roverCommandParams,
+                                          @RequestParam(required = false) String plateau)
+            throws RoverNotFoundException, DeployRoverException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().commandRover(roverId, roverCommandParams.getCommands());
+        }
+    }
+
+    @ResponseBody
+    @PostMapping("/plateaus")
+    public PlateauInfo createPlateau(@RequestBody PlateauParams plateauParams) throws InvalidQueryException {
+        return plateauManager.createPlateau(plateauParams.getName(), plateauParams.getWidth(), plateauParams.getHeight(),
+                plateauParams.getGrid());
+    }
+
+    @ResponseBody
+    @GetMapping("/plateaus")
+    public List<PlateauInfo> listPlateaus() {
+        return plateauManager.listPlateaus();
+    }
+
+    @ResponseBody
+    @PostMapping("/simulations")
+    public SimulationResult simulate(@RequestBody SimulationParams simulationParams, @RequestParam(required = false) String plateau)
+            throws RoverNotFoundException, DeployRoverException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().simulate(simulationParams);
+        }
+    }
+
+    @ResponseBody
+    @GetMapping("/rovers")
+    public RoverPosition getRoverAt(@RequestParam int x, @RequestParam int y, @RequestParam(required = false) String plateau)
+            throws RoverNotFoundException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().getRoverAt(x, y);
+        }
+    }
+
+    @ResponseBody
+    @GetMapping("/rovers/area/count")
+    public long countRovers(@RequestParam int minX, @RequestParam int minY, @RequestParam int maxX, @RequestParam int maxY,
+                            @RequestParam(required = false) String plateau) throws InvalidQueryException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().countRovers(minX, minY, maxX, maxY);
+        }
+    }
+
+    @ResponseBody
+    @GetMapping("/rovers/area")
+    public List<RoverPosition> listRovers(@RequestParam int minX, @RequestParam int minY, @RequestParam int maxX, @RequestParam int maxY,
+                                          @RequestParam(defaultValue = "1000") int limit, @RequestParam(required = false) String plateau)
+            throws InvalidQueryException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().listRovers(minX, minY, maxX, maxY, limit);
+        }
+    }
+
+    @ResponseBody
+    @GetMapping("/rovers/nearest")
+    public List<RoverPosition> findNearestRovers(@RequestParam int x, @RequestParam int y, @RequestParam(defaultValue = "1") int k,
+                                                 @RequestParam(required = false) String plateau)
+            throws InvalidQueryException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return lease.getService().findNearestRovers(x, y, k);
+        }
+    }
+
+    /**
+     * Streams the changes of the parked rovers inside a rectangle as server-sent events named parked, moved, vacated
+     * and collision, each with a CellChange as JSON data. Only the latest change of each cell is sent to a client that
+     * falls behind, and the stream ends with an overflow event if too many cells change before it catches up.
+     *
+     * @param minX The lowest xCoordinate of the rectangle, inclusive, 0 if not set
+     * @param minY The lowest yCoordinate of the rectangle, inclusive, 0 if not set
+     * @param maxX The highest xCoordinate of the rectangle, inclusive, the whole plateau if not set
+     * @param maxY The highest yCoordinate of the rectangle, inclusive, the whole plateau if not set
+     * @param plateau The name of the plateau, the default plateau if not set
+     * @return The event stream
+     * @throws InvalidQueryException if the lowest coordinates are above the highest coordinates
+     * @throws PlateauNotFoundException if there is no plateau with the name
+     */
+    @GetMapping(value = "/rovers/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRoverChanges(@RequestParam(defaultValue = "0") int minX, @RequestParam(defaultValue = "0") int minY,
+                                         @RequestParam(defaultValue = "2147483647") int maxX, @RequestParam(defaultValue = "2147483647") int maxY,
+                                         @RequestParam(required = false) String plateau) throws InvalidQueryException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            return sseFeedStreamer.stream(lease.getService(), minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * Deploys rovers from a newline delimited JSON request body, one DeployRoverParams per line, and streams back
+     * one DeployRoverBatchResult per line in the same order. Blank lines are skipped. Only one line of up to 1,048,576
+     * characters is held in memory at a time, longer lines are skipped and answered with an error result, and a slow
+     * client slows down reading of the request body instead of results piling up on the heap.
+     *
+     * @param request The request with the newline delimited deployments as body
+     * @param response The response the results are written to
+     * @param plateau The name of the plateau, the default plateau if not set
+     * @throws IOException if reading the request or writing the response fails
+     * @throws PlateauNotFoundException if there is no plateau with the name
+     */
+    @PostMapping(value = "/deployRovers/stream", consumes = NDJSON, produces = NDJSON)
+    public void deployRoversStream(HttpServletRequest request, HttpServletResponse response, @RequestParam(required = false) String plateau)
+            throws IOException, PlateauNotFoundException {
+        try (PlateauLease lease = plateauManager.acquire(plateau)) {
+            deployRoversStream(lease.getService(), request, response);
+        }
+    }
+
+    private void deployRoversStream(MarsRoverService marsRoverService, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8),
+                MAX_NDJSON_LINE_LENGTH);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            DeployRoverBatchResult deployRoverBatchResult;
+            if (reader.isTooLong()) {
+                deployRoverBatchResult = new DeployRoverBatchResult(null,
+                        "Invalid deployment: line longer than " + MAX_NDJSON_LINE_LENGTH + " characters.");
+            }
+            else if (line.isBlank()) {
+                continue;
+            }
+            else {
+                deployRoverBatchResult = deployRoverFromLine(marsRoverService, line);
+            }
+            deployRoverBatchResultWriter.writeValue(writer, deployRoverBatchResult);
+            writer.write('\n');
+            // Send the buffered results before waiting on the client for more deployments
+            if (!reader.ready()) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private DeployRoverBatchResult deployRoverFromLine(MarsRoverService marsRoverService, String line) {
+        DeployRoverParams deployRoverParams;
+        try {
+            deployRoverParams = deployRoverParamsReader.readValue(line);
+        }
+        catch (JsonProcessingException exception) {
+            return new DeployRoverBatchResult(null, "Invalid deployment: " + exception.getOriginalMessage());
+        }
+        if (deployRoverParams == null) {
+            // A line of literal null is valid JSON but not a deployment
+            return new DeployRoverBatchResult(null, "Invalid deployment: expected a JSON object but got null.");
+        }
+        return marsRoverService.deployRoverForBatch(deployRoverParams);
     }
 }
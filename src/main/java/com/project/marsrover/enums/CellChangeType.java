@@ -0,0 +1,12 @@
+package com.project.marsrover.enums;
+
+public enum CellChangeType {
+    // A deployed rover was parked at the coordinates
+    PARKED,
+    // A parked rover moved to the coordinates, or turned while staying there
+    MOVED,
+    // A parked rover left the coordinates
+    VACATED,
+    // A rover stopped at the coordinates before moving onto another rover, sent after its PARKED or MOVED change
+    COLLISION
+}
@@ -3,7 +3,38 @@ package com.project.marsrover.enums;
 import com.project.marsrover.exceptions.DeployRoverException;
 
 public enum Direction {
-    NORTH, SOUTH, EAST, WEST;
+    NORTH(1, 0), SOUTH(-1, 0), EAST(0, 1), WEST(0, -1);
+
+    // Directions in the order a rover faces them when turning right
+    private static final Direction[] CLOCKWISE = {NORTH, EAST, SOUTH, WEST};
+    private static final int[] CLOCKWISE_INDEX = {0, 2, 1, 3};
+
+    // Change in coordinates when moving one step forward
+    private final int xStep;
+    private final int yStep;
+
+    Direction(int xStep, int yStep) {
+        this.xStep = xStep;
+        this.yStep = yStep;
+    }
+
+    public int getxStep() {
+        return xStep;
+    }
+
+    public int getyStep() {
+        return yStep;
+    }
+
+    /**
+     * Returns the direction faced after turning right a number of times
+     *
+     * @param rightTurns The number of right turns, 3 right turns are the same as 1 left turn
+     * @return The Direction faced after turning
+     */
+    public Direction turnRight(int rightTurns) {
+        return CLOCKWISE[(CLOCKWISE_INDEX[ordinal()] + rightTurns) & 3];
+    }
 
     /**
      * Converts the string input into the respective Direction enum
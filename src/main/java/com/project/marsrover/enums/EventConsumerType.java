@@ -0,0 +1,12 @@
+package com.project.marsrover.enums;
+
+public enum EventConsumerType {
+    // Rover events are not recorded by a built in consumer
+    NONE,
+    // Rover events are written to the application log
+    LOG,
+    // Rover events are appended to a file
+    FILE,
+    // The most recent rover events are kept in memory
+    MEMORY
+}
@@ -0,0 +1,8 @@
+package com.project.marsrover.enums;
+
+public enum GridType {
+    // Stores only the taken coordinates, memory grows with the number of rovers
+    SPARSE,
+    // Stores two bits per coordinate, memory grows with the plateau area
+    DENSE
+}
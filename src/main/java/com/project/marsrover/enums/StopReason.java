@@ -0,0 +1,10 @@
+package com.project.marsrover.enums;
+
+public enum StopReason {
+    // The rover ran all of its commands
+    COMPLETED,
+    // The rover stopped before moving onto another rover
+    COLLISION,
+    // The rover stopped before moving out of Mars boundary
+    OUT_OF_BOUNDS
+}
@@ -0,0 +1,8 @@
+package com.project.marsrover.enums;
+
+public enum ThreadMode {
+    // Requests and blocking consumers run on platform threads, Tomcat serves requests from its fixed pool
+    PLATFORM,
+    // Requests and blocking consumers run on a new virtual thread each, where the JVM supports virtual threads
+    VIRTUAL
+}
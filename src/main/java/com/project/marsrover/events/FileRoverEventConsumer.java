@@ -0,0 +1,61 @@
+package com.project.marsrover.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each event as a line to a file, writing out once per batch instead of once per event
+ */
+public class FileRoverEventConsumer implements RoverEventConsumer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileRoverEventConsumer.class);
+
+    private final BufferedWriter writer;
+
+    public FileRoverEventConsumer(Path file) {
+        try {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException("Unable to open rover event file " + file, exception);
+        }
+    }
+
+    @Override
+    public void accept(RoverEvent event) {
+        try {
+            writer.write(event.toString());
+            writer.newLine();
+        }
+        catch (IOException exception) {
+            LOGGER.warn("Unable to write rover event", exception);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        }
+        catch (IOException exception) {
+            LOGGER.warn("Unable to flush rover events", exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        }
+        catch (IOException exception) {
+            LOGGER.warn("Unable to close rover event file", exception);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.project.marsrover.events;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the most recent events in memory, older events are discarded once the capacity is reached
+ */
+public class InMemoryRoverEventConsumer implements RoverEventConsumer {
+    private final int capacity;
+    private final ArrayDeque<RoverEvent> events;
+    // Not a monitor, so a virtual thread waiting for it does not pin its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public InMemoryRoverEventConsumer(int capacity) {
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public void accept(RoverEvent event) {
+        lock.lock();
+        try {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The kept events, oldest first
+     */
+    public List<RoverEvent> getEvents() {
+        lock.lock();
+        try {
+            return new ArrayList<>(events);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
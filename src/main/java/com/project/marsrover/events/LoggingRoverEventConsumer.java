@@ -0,0 +1,16 @@
+package com.project.marsrover.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes each event to the application log
+ */
+public class LoggingRoverEventConsumer implements RoverEventConsumer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingRoverEventConsumer.class);
+
+    @Override
+    public void accept(RoverEvent event) {
+        LOGGER.info("{}", event);
+    }
+}
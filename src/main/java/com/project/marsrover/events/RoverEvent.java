@@ -0,0 +1,42 @@
+package com.project.marsrover.events;
+
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
+
+/**
+ * Immutable record of a rover being parked on Mars
+ */
+public class RoverEvent {
+    private final int xCoordinate;
+    private final int yCoordinate;
+    private final Direction direction;
+    private final StopReason stopReason;
+
+    public RoverEvent(int xCoordinate, int yCoordinate, Direction direction, StopReason stopReason) {
+        this.xCoordinate = xCoordinate;
+        this.yCoordinate = yCoordinate;
+        this.direction = direction;
+        this.stopReason = stopReason;
+    }
+
+    public int getxCoordinate() {
+        return xCoordinate;
+    }
+
+    public int getyCoordinate() {
+        return yCoordinate;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    @Override
+    public String toString() {
+        return "Final Coordinate: " + xCoordinate + ", " + yCoordinate + ", Final Direction: " + direction + ", Stop Reason: " + stopReason;
+    }
+}
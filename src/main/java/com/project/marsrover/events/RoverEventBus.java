@@ -0,0 +1,152 @@
+package com.project.marsrover.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands rover events from deploying threads to consumers on a single background thread.
+ * Events go through a bounded ring buffer. When it is full the event is dropped and counted, so publishing never
+ * blocks a deployment on slow consumers.
+ */
+public class RoverEventBus implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoverEventBus.class);
+    private static final int DRAIN_BATCH_SIZE = 1024;
+
+    private final List<RoverEventConsumer> consumers;
+    private final ArrayBlockingQueue<RoverEvent> buffer;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread drainThread;
+    private volatile boolean running = true;
+
+    public RoverEventBus(int bufferSize, List<RoverEventConsumer> consumers) {
+        this(bufferSize, consumers, runnable -> {
+            Thread thread = new Thread(runnable, "rover-event-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param bufferSize The number of events that can wait for the consumers before new events are dropped
+     * @param consumers The consumers, called in order on the background thread
+     * @param threadFactory Creates the background thread, which may block on consumers writing to files or the log
+     */
+    public RoverEventBus(int bufferSize, List<RoverEventConsumer> consumers, ThreadFactory threadFactory) {
+        this.consumers = List.copyOf(consumers);
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        if (this.consumers.isEmpty()) {
+            this.drainThread = null;
+        } else {
+            this.drainThread = threadFactory.newThread(this::drain);
+            this.drainThread.start();
+        }
+    }
+
+    /**
+     * Creates a bus without consumers, publishing is a no-op
+     *
+     * @return The bus
+     */
+    public static RoverEventBus disabled() {
+        return new RoverEventBus(1, List.of());
+    }
+
+    /**
+     * @return true if there is at least one consumer, so callers can skip building events otherwise
+     */
+    public boolean isEnabled() {
+        return drainThread != null;
+    }
+
+    /**
+     * Queues the event for the consumers without blocking
+     *
+     * @param event The event to publish
+     * @return true if the event was queued, false if it was dropped because the buffer is full
+     */
+    public boolean publish(RoverEvent event) {
+        if (drainThread == null) {
+            return false;
+        }
+        if (!buffer.offer(event)) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of events dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops the background thread after handing all queued events to the consumers
+     */
+    @Override
+    public void close() {
+        if (drainThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            drainThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<RoverEvent> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        long reportedDroppedCount = 0;
+        try {
+            while (running || !buffer.isEmpty()) {
+                RoverEvent first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+                dispatch(batch);
+                batch.clear();
+                long dropped = droppedCount.get();
+                if (dropped != reportedDroppedCount) {
+                    LOGGER.warn("Dropped {} rover events because consumers could not keep up", dropped - reportedDroppedCount);
+                    reportedDroppedCount = dropped;
+                }
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            for (RoverEventConsumer consumer : consumers) {
+                consumer.close();
+            }
+        }
+    }
+
+    private void dispatch(List<RoverEvent> batch) {
+        for (RoverEventConsumer consumer : consumers) {
+            try {
+                for (RoverEvent event : batch) {
+                    consumer.accept(event);
+                }
+                consumer.flush();
+            }
+            catch (RuntimeException exception) {
+                LOGGER.warn("Rover event consumer failed", exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.marsrover.events;
+
+/**
+ * Receives rover events on the event bus thread, never on the thread that deployed the rover
+ */
+public interface RoverEventConsumer {
+
+    /**
+     * Handles a single event
+     *
+     * @param event The event to handle
+     */
+    void accept(RoverEvent event);
+
+    /**
+     * Called after each batch of events so buffered output can be written out
+     */
+    default void flush() {
+    }
+
+    /**
+     * Called once when the event bus shuts down
+     */
+    default void close() {
+    }
+}
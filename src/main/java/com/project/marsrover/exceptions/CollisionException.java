@@ -1,7 +0,0 @@
-package com.project.marsrover.exceptions;
-
-public class CollisionException extends Exception {
-    public CollisionException(String message) {
-        super(message);
-    }
-}
@@ -0,0 +1,11 @@
+package com.project.marsrover.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidQueryException extends Exception {
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
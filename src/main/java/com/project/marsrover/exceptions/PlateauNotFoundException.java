@@ -0,0 +1,11 @@
+package com.project.marsrover.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class PlateauNotFoundException extends Exception {
+    public PlateauNotFoundException(String message) {
+        super(message);
+    }
+}
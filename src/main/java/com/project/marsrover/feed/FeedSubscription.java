@@ -0,0 +1,158 @@
+package com.project.marsrover.feed;
+
+import com.project.marsrover.objects.CellChange;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Changes of the cells inside a rectangle waiting to be sent to one subscriber. Only the latest change of each cell
+ * is kept, so a subscriber that falls behind skips straight to the current state of the cells instead of holding up
+ * deployments or piling up changes on the heap. Once more cells are waiting than the capacity allows the
+ * subscription overflows and stops taking changes, and the subscriber has to subscribe again and reload the area.
+ */
+public class FeedSubscription implements Closeable {
+    private final OccupancyFeed occupancyFeed;
+    private final int minXCoordinate;
+    private final int minYCoordinate;
+    private final int maxXCoordinate;
+    private final int maxYCoordinate;
+    private final int capacity;
+    // Guards the waiting changes and the flags below
+    private final ReentrantLock lock = new ReentrantLock();
+    // Latest PARKED, MOVED or VACATED change of each cell by cell key, in the order the cells first changed
+    private final LinkedHashMap<Long, CellChange> cellChanges = new LinkedHashMap<>();
+    // Latest COLLISION of each cell by cell key, the oldest are dropped beyond the capacity
+    private final LinkedHashMap<Long, CellChange> collisions = new LinkedHashMap<>();
+    private boolean overflowed;
+    // Set from the change that woke up the sender until the sender finds nothing left to send
+    private boolean waking;
+    private Runnable readyListener = () -> {
+    };
+
+    FeedSubscription(OccupancyFeed occupancyFeed, int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate,
+                     int capacity) {
+        this.occupancyFeed = occupancyFeed;
+        this.minXCoordinate = minXCoordinate;
+        this.minYCoordinate = minYCoordinate;
+        this.maxXCoordinate = maxXCoordinate;
+        this.maxYCoordinate = maxYCoordinate;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the callback that sends the waiting changes. It runs on the thread that made a change, once per batch of
+     * changes, and must only hand the work to another thread. Changes made since subscribing wake up the sender before
+     * the callback was set, so it is run right away if a wake up is pending.
+     *
+     * @param readyListener The callback, run once changes are waiting after the last drain found none
+     */
+    public void onReady(Runnable readyListener) {
+        boolean missedWakeUp;
+        lock.lock();
+        try {
+            this.readyListener = readyListener;
+            // A change woke up the previous listener and nothing drained since, later changes will not wake up again
+            missedWakeUp = waking;
+        } finally {
+            lock.unlock();
+        }
+        if (missedWakeUp) {
+            readyListener.run();
+        }
+    }
+
+    /**
+     * Takes every waiting change, oldest cell first, followed by the waiting collisions
+     *
+     * @return The waiting changes, empty if there are none, or null if the subscription overflowed
+     */
+    public List<CellChange> drain() {
+        lock.lock();
+        try {
+            if (overflowed) {
+                return null;
+            }
+            if (cellChanges.isEmpty() && collisions.isEmpty()) {
+                waking = false;
+                return List.of();
+            }
+            List<CellChange> changes = new ArrayList<>(cellChanges.size() + collisions.size());
+            changes.addAll(cellChanges.values());
+            changes.addAll(collisions.values());
+            cellChanges.clear();
+            collisions.clear();
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops taking changes
+     */
+    @Override
+    public void close() {
+        occupancyFeed.unsubscribe(this);
+    }
+
+    boolean covers(int xCoordinate, int yCoordinate) {
+        return xCoordinate >= minXCoordinate && xCoordinate <= maxXCoordinate
+                && yCoordinate >= minYCoordinate && yCoordinate <= maxYCoordinate;
+    }
+
+    void offer(long cellKey, CellChange change) {
+        Runnable wakeUp;
+        lock.lock();
+        try {
+            if (overflowed) {
+                return;
+            }
+            // Replacing keeps the position of the cell, only the latest change of a cell matters
+            if (cellChanges.size() >= capacity && !cellChanges.containsKey(cellKey)) {
+                overflowed = true;
+                cellChanges.clear();
+                collisions.clear();
+            } else {
+                cellChanges.put(cellKey, change);
+            }
+            wakeUp = wakeUp();
+        } finally {
+            lock.unlock();
+        }
+        wakeUp.run();
+    }
+
+    void offerCollision(long cellKey, CellChange change) {
+        Runnable wakeUp;
+        lock.lock();
+        try {
+            if (overflowed) {
+                return;
+            }
+            if (collisions.size() >= capacity && !collisions.containsKey(cellKey)) {
+                Iterator<CellChange> oldest = collisions.values().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            collisions.put(cellKey, change);
+            wakeUp = wakeUp();
+        } finally {
+            lock.unlock();
+        }
+        wakeUp.run();
+    }
+
+    private Runnable wakeUp() {
+        if (waking) {
+            return () -> {
+            };
+        }
+        waking = true;
+        return readyListener;
+    }
+}
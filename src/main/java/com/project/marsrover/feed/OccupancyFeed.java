@@ -0,0 +1,98 @@
+package com.project.marsrover.feed;
+
+import com.project.marsrover.enums.CellChangeType;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.objects.CellChange;
+import com.project.marsrover.registry.RoverListener;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans out the changes of the parked rovers to the subscriptions whose rectangle covers the changed cells.
+ * Attached to the rover registry as its listener, so the changes of a cell reach every subscription in the order
+ * they happened. Costs a single check per change while nobody is subscribed.
+ */
+public class OccupancyFeed implements RoverListener {
+    private final CopyOnWriteArrayList<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts collecting the changes of the cells inside a rectangle
+     *
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @param capacity The number of cells with changes that can wait to be sent before the subscription overflows
+     * @return The subscription, to be closed once the subscriber leaves
+     */
+    public FeedSubscription subscribe(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate, int capacity) {
+        FeedSubscription subscription = new FeedSubscription(this, minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate,
+                Math.max(1, capacity));
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * @return true if at least one subscription is open
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    void unsubscribe(FeedSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    @Override
+    public void parked(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        offer(CellChangeType.PARKED, roverId, xCoordinate, yCoordinate, direction);
+    }
+
+    @Override
+    public void moved(int roverId, int fromXCoordinate, int fromYCoordinate, int xCoordinate, int yCoordinate, Direction direction) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        if (fromXCoordinate != xCoordinate || fromYCoordinate != yCoordinate) {
+            offer(CellChangeType.VACATED, roverId, fromXCoordinate, fromYCoordinate, null);
+        }
+        offer(CellChangeType.MOVED, roverId, xCoordinate, yCoordinate, direction);
+    }
+
+    /**
+     * Reports a rover that stopped before moving onto another rover, after its PARKED or MOVED change
+     *
+     * @param roverId The ID of the rover
+     * @param xCoordinate The xCoordinate the rover stopped at
+     * @param yCoordinate The yCoordinate the rover stopped at
+     * @param direction The direction the rover is facing
+     */
+    public void collided(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        CellChange change = null;
+        for (FeedSubscription subscription : subscriptions) {
+            if (subscription.covers(xCoordinate, yCoordinate)) {
+                if (change == null) {
+                    change = new CellChange(CellChangeType.COLLISION, roverId, xCoordinate, yCoordinate, direction);
+                }
+                subscription.offerCollision(toKey(xCoordinate, yCoordinate), change);
+            }
+        }
+    }
+
+    private void offer(CellChangeType type, int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        // The change is shared by every subscription covering the cell, and only built if there is one
+        CellChange change = null;
+        for (FeedSubscription subscription : subscriptions) {
+            if (subscription.covers(xCoordinate, yCoordinate)) {
+                if (change == null) {
+                    change = new CellChange(type, roverId, xCoordinate, yCoordinate, direction);
+                }
+                subscription.offer(toKey(xCoordinate, yCoordinate), change);
+            }
+        }
+    }
+
+    private static long toKey(int xCoordinate, int yCoordinate) {
+        return ((long) xCoordinate << 32) | (yCoordinate & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,154 @@
+package com.project.marsrover.feed;
+
+import com.project.marsrover.exceptions.InvalidQueryException;
+import com.project.marsrover.objects.CellChange;
+import com.project.marsrover.service.MarsRoverService;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams feed subscriptions to clients as server-sent events, one event per cell change named after its type.
+ * Sending runs on a pool of daemon threads woken up by the subscriptions, so a slow client only holds up its own
+ * sender thread while its subscription keeps conflating changes. A comment is sent to every client periodically so
+ * closed connections are noticed and their subscriptions closed.
+ */
+public class SseFeedStreamer implements Closeable {
+    private final int bufferCells;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Set<FeedStream> streams = ConcurrentHashMap.newKeySet();
+
+    public SseFeedStreamer(int bufferCells, long heartbeatSeconds) {
+        this(bufferCells, heartbeatSeconds, daemonThreadFactory());
+    }
+
+    /**
+     * @param bufferCells The cells with changes a slow subscriber can fall behind by before its subscription overflows
+     * @param heartbeatSeconds The seconds between heartbeats
+     * @param senderThreadFactory Creates the sender threads, which block while a client is slow to take its events
+     */
+    public SseFeedStreamer(int bufferCells, long heartbeatSeconds, ThreadFactory senderThreadFactory) {
+        this.bufferCells = bufferCells;
+        this.senders = Executors.newCachedThreadPool(senderThreadFactory);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rover-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Subscribes to the changes of the cells inside a rectangle and streams them until the client leaves
+     *
+     * @param marsRoverService The service of the plateau to stream
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @return The emitter to return from the request handler
+     * @throws InvalidQueryException if the lowest coordinates are above the highest coordinates
+     */
+    public SseEmitter stream(MarsRoverService marsRoverService, int minXCoordinate, int minYCoordinate, int maxXCoordinate,
+                             int maxYCoordinate) throws InvalidQueryException {
+        // No timeout, the stream lasts until the client leaves or the application shuts down
+        SseEmitter emitter = new SseEmitter(0L);
+        FeedSubscription subscription = marsRoverService.subscribe(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate, bufferCells);
+        FeedStream stream = new FeedStream(emitter, subscription);
+        streams.add(stream);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        subscription.onReady(() -> senders.execute(stream::send));
+        return emitter;
+    }
+
+    /**
+     * Ends every stream and stops the sender threads
+     */
+    @Override
+    public void close() {
+        heartbeats.shutdownNow();
+        for (FeedStream stream : streams) {
+            stream.emitter.complete();
+            stream.close();
+        }
+        senders.shutdownNow();
+    }
+
+    private void sendHeartbeats() {
+        for (FeedStream stream : streams) {
+            try {
+                stream.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            catch (IOException | IllegalStateException exception) {
+                stream.close();
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger senderCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "rover-feed-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A subscription and the emitter its changes are sent to
+     */
+    private final class FeedStream {
+        private final SseEmitter emitter;
+        private final FeedSubscription subscription;
+
+        private FeedStream(SseEmitter emitter, FeedSubscription subscription) {
+            this.emitter = emitter;
+            this.subscription = subscription;
+        }
+
+        private void send() {
+            try {
+                while (true) {
+                    List<CellChange> changes = subscription.drain();
+                    if (changes == null) {
+                        emitter.send(SseEmitter.event().name("overflow").data("Too many changes waiting, subscribe again and reload the area."));
+                        emitter.complete();
+                        close();
+                        return;
+                    }
+                    if (changes.isEmpty()) {
+                        return;
+                    }
+                    for (CellChange change : changes) {
+                        emitter.send(SseEmitter.event().name(change.getType().name().toLowerCase(Locale.ROOT))
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                }
+            }
+            catch (IOException | IllegalStateException exception) {
+                // The client left or the emitter was completed
+                close();
+            }
+        }
+
+        private void close() {
+            subscription.close();
+            streams.remove(this);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.project.marsrover.grid;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Occupancy grid that stores two bits per coordinate in long arrays. Suited for dense plateaus with many parked rovers.
+ * Every coordinate is kept in two bitmaps: one laid out by x first, where the bits for a fixed x and increasing y
+ * are contiguous, and one laid out by y first, where the bits for a fixed y and increasing x are contiguous.
+ * Straight line moves in any direction can then be checked 64 coordinates at a time.
+ * Words are updated with compare and set, so concurrent deployments never take the same coordinate twice. Both bits of
+ * a coordinate are set or cleared under a lock striped by coordinate, so a release racing an occupy of the same
+ * coordinate cannot leave the two bitmaps disagreeing. Reads take no lock.
+ */
+public class BitmapOccupancyGrid implements OccupancyGrid {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long MAX_CELLS = (long) Integer.MAX_VALUE << 6;
+
+    private final int width;
+    private final int height;
+    // Bits laid out by x first, the source of truth for which coordinates are taken
+    private final long[] rows;
+    // Bits laid out by y first, kept in step with rows for scans that change x
+    private final long[] columns;
+    // Guard the update of both bitmaps for the coordinates of a stripe
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+    // Kept in step with rows so reading it never scans the bitmap
+    private final LongAdder occupiedCount = new LongAdder();
+
+    public BitmapOccupancyGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Mars dimensions must be positive.");
+        }
+        long cells = (long) width * height;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Mars is too large for a bitmap grid, use a sparse grid instead.");
+        }
+        this.width = width;
+        this.height = height;
+        this.rows = new long[(int) ((cells + 63) >>> 6)];
+        this.columns = new long[rows.length];
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1;
+        this.locks = new ReentrantLock[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @param width The number of valid x coordinates
+     * @param height The number of valid y coordinates
+     * @return The heap taken by the bitmaps of a grid of these dimensions, both bitmaps together
+     */
+    public static long bitmapBytes(int width, int height) {
+        return 2 * Long.BYTES * (((long) width * height + 63) >>> 6);
+    }
+
+    private BitmapOccupancyGrid(BitmapOccupancyGrid other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.rows = new long[other.rows.length];
+        this.columns = new long[other.columns.length];
+        this.locks = new ReentrantLock[other.locks.length];
+        this.stripeMask = other.stripeMask;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = readWord(other.rows, i);
+            columns[i] = readWord(other.columns, i);
+            occupiedCount.add(Long.bitCount(rows[i]));
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean isOccupied(int xCoordinate, int yCoordinate) {
+        long bitIndex = toRowBitIndex(xCoordinate, yCoordinate);
+        return (readWord(rows, (int) (bitIndex >>> 6)) & (1L << bitIndex)) != 0;
+    }
+
+    @Override
+    public boolean occupy(int xCoordinate, int yCoordinate) {
+        long bitIndex = toRowBitIndex(xCoordinate, yCoordinate);
+        int wordIndex = (int) (bitIndex >>> 6);
+        long bit = 1L << bitIndex;
+        ReentrantLock lock = locks[stripeOf(bitIndex)];
+        lock.lock();
+        try {
+            // Still compare and set, the other coordinates of the word belong to other stripes
+            long word;
+            do {
+                word = readWord(rows, wordIndex);
+                if ((word & bit) != 0) {
+                    return false;
+                }
+            } while (!WORDS.compareAndSet(rows, wordIndex, word, word | bit));
+            long columnBitIndex = toColumnBitIndex(xCoordinate, yCoordinate);
+            WORDS.getAndBitwiseOr(columns, (int) (columnBitIndex >>> 6), 1L << columnBitIndex);
+        } finally {
+            lock.unlock();
+        }
+        occupiedCount.increment();
+        return true;
+    }
+
+    @Override
+    public boolean release(int xCoordinate, int yCoordinate) {
+        long bitIndex = toRowBitIndex(xCoordinate, yCoordinate);
+        int wordIndex = (int) (bitIndex >>> 6);
+        long bit = 1L << bitIndex;
+        ReentrantLock lock = locks[stripeOf(bitIndex)];
+        lock.lock();
+        try {
+            long word;
+            do {
+                word = readWord(rows, wordIndex);
+                if ((word & bit) == 0) {
+                    return false;
+                }
+            } while (!WORDS.compareAndSet(rows, wordIndex, word, word & ~bit));
+            long columnBitIndex = toColumnBitIndex(xCoordinate, yCoordinate);
+            WORDS.getAndBitwiseAnd(columns, (int) (columnBitIndex >>> 6), ~(1L << columnBitIndex));
+        } finally {
+            lock.unlock();
+        }
+        occupiedCount.decrement();
+        return true;
+    }
+
+    @Override
+    public int countFreeSteps(int xCoordinate, int yCoordinate, int xStep, int yStep, int maxSteps) {
+        if (maxSteps <= 0) {
+            return 0;
+        }
+        if (xStep == 0) {
+            long from = toRowBitIndex(xCoordinate, yCoordinate + yStep);
+            return yStep > 0 ? scanUp(rows, from, maxSteps) : scanDown(rows, from, maxSteps);
+        }
+        long from = toColumnBitIndex(xCoordinate + xStep, yCoordinate);
+        return xStep > 0 ? scanUp(columns, from, maxSteps) : scanDown(columns, from, maxSteps);
+    }
+
+    @Override
+    public long getOccupiedCount() {
+        return occupiedCount.sum();
+    }
+
+    @Override
+    public OccupancyGrid snapshot() {
+        return new BitmapOccupancyGrid(this);
+    }
+
+    /**
+     * Counts the clear bits from the bit index upwards until the first set bit, checking a word at a time
+     */
+    private static int scanUp(long[] words, long from, int maxSteps) {
+        long end = from + maxSteps;
+        long index = from;
+        while (index < end) {
+            // Drop the bits below the index so the lowest remaining set bit is the first taken coordinate
+            long word = readWord(words, (int) (index >>> 6)) >>> index;
+            if (word != 0) {
+                return (int) (Math.min(index + Long.numberOfTrailingZeros(word), end) - from);
+            }
+            index = (index | 63) + 1;
+        }
+        return maxSteps;
+    }
+
+    /**
+     * Counts the clear bits from the bit index downwards until the first set bit, checking a word at a time
+     */
+    private static int scanDown(long[] words, long from, int maxSteps) {
+        long end = from - maxSteps;
+        long index = from;
+        while (index > end) {
+            // Drop the bits above the index so the highest remaining set bit is the first taken coordinate
+            long word = readWord(words, (int) (index >>> 6)) << (63 - (index & 63));
+            if (word != 0) {
+                return (int) (from - Math.max(index - Long.numberOfLeadingZeros(word), end));
+            }
+            index = (index & ~63L) - 1;
+        }
+        return maxSteps;
+    }
+
+    private static long readWord(long[] words, int wordIndex) {
+        return (long) WORDS.getAcquire(words, wordIndex);
+    }
+
+    private int stripeOf(long bitIndex) {
+        // Folds the high bits in so every part of a large plateau spreads over all the locks
+        return (int) (bitIndex ^ (bitIndex >>> 16)) & stripeMask;
+    }
+
+    private long toRowBitIndex(int xCoordinate, int yCoordinate) {
+        return (long) xCoordinate * height + yCoordinate;
+    }
+
+    private long toColumnBitIndex(int xCoordinate, int yCoordinate) {
+        return (long) yCoordinate * width + xCoordinate;
+    }
+}
@@ -0,0 +1,68 @@
+package com.project.marsrover.grid;
+
+/**
+ * View of an occupancy grid that reports one taken coordinate as free. Used to move a parked rover, whose own
+ * coordinates stay taken on the grid until it is parked somewhere else, without it colliding with itself.
+ * Every other call goes straight to the underlying grid.
+ */
+public class IgnoredCellOccupancyGrid implements OccupancyGrid {
+    private final OccupancyGrid mars;
+    private final int ignoredXCoordinate;
+    private final int ignoredYCoordinate;
+
+    public IgnoredCellOccupancyGrid(OccupancyGrid mars, int ignoredXCoordinate, int ignoredYCoordinate) {
+        this.mars = mars;
+        this.ignoredXCoordinate = ignoredXCoordinate;
+        this.ignoredYCoordinate = ignoredYCoordinate;
+    }
+
+    @Override
+    public int getWidth() {
+        return mars.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mars.getHeight();
+    }
+
+    @Override
+    public boolean isOccupied(int xCoordinate, int yCoordinate) {
+        return !isIgnored(xCoordinate, yCoordinate) && mars.isOccupied(xCoordinate, yCoordinate);
+    }
+
+    @Override
+    public boolean occupy(int xCoordinate, int yCoordinate) {
+        return mars.occupy(xCoordinate, yCoordinate);
+    }
+
+    @Override
+    public boolean release(int xCoordinate, int yCoordinate) {
+        return mars.release(xCoordinate, yCoordinate);
+    }
+
+    @Override
+    public int countFreeSteps(int xCoordinate, int yCoordinate, int xStep, int yStep, int maxSteps) {
+        int freeSteps = mars.countFreeSteps(xCoordinate, yCoordinate, xStep, yStep, maxSteps);
+        int blockedStep = freeSteps + 1;
+        if (freeSteps < maxSteps && isIgnored(xCoordinate + xStep * blockedStep, yCoordinate + yStep * blockedStep)) {
+            // The line is only blocked by the ignored coordinate, carry on scanning past it
+            return blockedStep + mars.countFreeSteps(ignoredXCoordinate, ignoredYCoordinate, xStep, yStep, maxSteps - blockedStep);
+        }
+        return freeSteps;
+    }
+
+    @Override
+    public long getOccupiedCount() {
+        return mars.getOccupiedCount();
+    }
+
+    @Override
+    public OccupancyGrid snapshot() {
+        return new IgnoredCellOccupancyGrid(mars.snapshot(), ignoredXCoordinate, ignoredYCoordinate);
+    }
+
+    private boolean isIgnored(int xCoordinate, int yCoordinate) {
+        return xCoordinate == ignoredXCoordinate && yCoordinate == ignoredYCoordinate;
+    }
+}
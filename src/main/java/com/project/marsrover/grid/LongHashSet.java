@@ -0,0 +1,128 @@
+package com.project.marsrover.grid;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of non-negative long keys with linear probing.
+ * Keys are stored in a primitive array so no boxing happens on lookups or inserts.
+ */
+class LongHashSet {
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    LongHashSet(LongHashSet other) {
+        this.keys = other.keys.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+        this.resizeThreshold = other.resizeThreshold;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                return false;
+            }
+            if (existing == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    boolean add(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                keys[index] = key;
+                if (++size > resizeThreshold) {
+                    resize();
+                }
+                return true;
+            }
+            if (existing == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    boolean remove(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                return false;
+            }
+            if (existing == key) {
+                shiftBack(index);
+                size--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Closes the gap left by a removed key so that later probes do not stop early
+     */
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == EMPTY) {
+                keys[gap] = EMPTY;
+                return;
+            }
+            int home = indexOf(key);
+            // Move the key into the gap only if its home slot is not between the gap and its current slot
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = key;
+                gap = index;
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        allocate(oldKeys.length << 1);
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                int index = indexOf(key);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.marsrover.grid;
+
+/**
+ * Keeps track of which coordinates on Mars are taken by a parked rover.
+ * Coordinates are valid from 0 (inclusive) to the plateau width / height (exclusive).
+ */
+public interface OccupancyGrid {
+
+    /**
+     * @return The number of valid x coordinates on the plateau
+     */
+    int getWidth();
+
+    /**
+     * @return The number of valid y coordinates on the plateau
+     */
+    int getHeight();
+
+    /**
+     * Checks if the coordinates fall within the plateau
+     *
+     * @param xCoordinate The xCoordinate to check
+     * @param yCoordinate The yCoordinate to check
+     * @return true if the coordinates are on the plateau
+     */
+    default boolean isWithinBounds(int xCoordinate, int yCoordinate) {
+        return xCoordinate >= 0 && yCoordinate >= 0 && xCoordinate < getWidth() && yCoordinate < getHeight();
+    }
+
+    /**
+     * Checks if a rover is parked at the coordinates. Coordinates must be within bounds.
+     *
+     * @param xCoordinate The xCoordinate to check
+     * @param yCoordinate The yCoordinate to check
+     * @return true if the coordinates are taken
+     */
+    boolean isOccupied(int xCoordinate, int yCoordinate);
+
+    /**
+     * Marks the coordinates as taken. Coordinates must be within bounds.
+     *
+     * @param xCoordinate The xCoordinate to mark
+     * @param yCoordinate The yCoordinate to mark
+     * @return true if the coordinates were free and are now taken, false if they were already taken
+     */
+    boolean occupy(int xCoordinate, int yCoordinate);
+
+    /**
+     * Marks the coordinates as free. Coordinates must be within bounds.
+     *
+     * @param xCoordinate The xCoordinate to free
+     * @param yCoordinate The yCoordinate to free
+     * @return true if the coordinates were taken and are now free
+     */
+    boolean release(int xCoordinate, int yCoordinate);
+
+    /**
+     * Counts how many steps a rover can move in a straight line before the next coordinate is taken.
+     * The caller must keep the whole line within bounds.
+     *
+     * @param xCoordinate The xCoordinate the rover starts from
+     * @param yCoordinate The yCoordinate the rover starts from
+     * @param xStep The change in xCoordinate per step, -1, 0 or 1
+     * @param yStep The change in yCoordinate per step, -1, 0 or 1
+     * @param maxSteps The number of steps to check
+     * @return The number of free coordinates before the first taken one, or maxSteps if all of them are free
+     */
+    default int countFreeSteps(int xCoordinate, int yCoordinate, int xStep, int yStep, int maxSteps) {
+        for (int step = 1; step <= maxSteps; step++) {
+            if (isOccupied(xCoordinate + xStep * step, yCoordinate + yStep * step)) {
+                return step - 1;
+            }
+        }
+        return maxSteps;
+    }
+
+    /**
+     * @return The number of coordinates currently taken, kept up to date on every occupy and release
+     */
+    long getOccupiedCount();
+
+    /**
+     * Copies the current state of the grid. Later changes to either grid are not visible in the other.
+     *
+     * @return An independent copy of the grid
+     */
+    OccupancyGrid snapshot();
+}
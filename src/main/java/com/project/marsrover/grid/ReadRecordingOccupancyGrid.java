@@ -0,0 +1,100 @@
+package com.project.marsrover.grid;
+
+import java.util.Arrays;
+
+/**
+ * Read only view of an occupancy grid that records every coordinate looked at. Each check and each straight line
+ * scan is kept as one segment of coordinates, so a rover crossing the plateau records a handful of segments instead
+ * of a coordinate per step. Used to run a deployment speculatively and tell afterwards whether a coordinate taken
+ * in the meantime could have changed its outcome. Not thread safe, each view belongs to a single deployment.
+ */
+public class ReadRecordingOccupancyGrid implements OccupancyGrid {
+    private final OccupancyGrid mars;
+    // Segments of coordinates read, each starting at a coordinate and repeating a step a number of times
+    private int[] segments = new int[5 * 4];
+    private int segmentCount;
+
+    public ReadRecordingOccupancyGrid(OccupancyGrid mars) {
+        this.mars = mars;
+    }
+
+    @Override
+    public int getWidth() {
+        return mars.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mars.getHeight();
+    }
+
+    @Override
+    public boolean isOccupied(int xCoordinate, int yCoordinate) {
+        record(xCoordinate, yCoordinate, 0, 0, 1);
+        return mars.isOccupied(xCoordinate, yCoordinate);
+    }
+
+    @Override
+    public boolean occupy(int xCoordinate, int yCoordinate) {
+        throw new UnsupportedOperationException("Read recording grids cannot be changed.");
+    }
+
+    @Override
+    public boolean release(int xCoordinate, int yCoordinate) {
+        throw new UnsupportedOperationException("Read recording grids cannot be changed.");
+    }
+
+    @Override
+    public int countFreeSteps(int xCoordinate, int yCoordinate, int xStep, int yStep, int maxSteps) {
+        int freeSteps = mars.countFreeSteps(xCoordinate, yCoordinate, xStep, yStep, maxSteps);
+        // The scan looked at every free coordinate and the taken one that stopped it
+        int readSteps = Math.min(freeSteps + 1, maxSteps);
+        if (readSteps > 0) {
+            record(xCoordinate + xStep, yCoordinate + yStep, xStep, yStep, readSteps);
+        }
+        return freeSteps;
+    }
+
+    @Override
+    public long getOccupiedCount() {
+        return mars.getOccupiedCount();
+    }
+
+    @Override
+    public OccupancyGrid snapshot() {
+        return mars.snapshot();
+    }
+
+    /**
+     * Checks if the coordinates were looked at through this view
+     *
+     * @param xCoordinate The xCoordinate to check
+     * @param yCoordinate The yCoordinate to check
+     * @return true if any check or scan through this view included the coordinates
+     */
+    public boolean hasRead(int xCoordinate, int yCoordinate) {
+        for (int i = 0; i < segmentCount * 5; i += 5) {
+            int xStep = segments[i + 2];
+            int yStep = segments[i + 3];
+            long step = xStep != 0 ? (long) (xCoordinate - segments[i]) * xStep : (long) (yCoordinate - segments[i + 1]) * yStep;
+            if (step >= 0 && step < segments[i + 4]
+                    && segments[i] + xStep * step == xCoordinate && segments[i + 1] + yStep * step == yCoordinate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(int xCoordinate, int yCoordinate, int xStep, int yStep, int steps) {
+        int index = segmentCount * 5;
+        if (index == segments.length) {
+            segments = Arrays.copyOf(segments, index * 2);
+        }
+        segments[index] = xCoordinate;
+        segments[index + 1] = yCoordinate;
+        segments[index + 2] = xStep;
+        segments[index + 3] = yStep;
+        segments[index + 4] = steps;
+        segmentCount++;
+    }
+}
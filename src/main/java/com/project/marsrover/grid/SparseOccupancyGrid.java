@@ -0,0 +1,132 @@
+package com.project.marsrover.grid;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Occupancy grid that only stores the taken coordinates, so memory grows with the number of parked rovers
+ * instead of the plateau area. Suited for very large plateaus with few rovers.
+ * The plateau is split into square regions and each region maps to one of several lock striped hash sets,
+ * so deployments in different areas of Mars do not contend with each other.
+ */
+public class SparseOccupancyGrid implements OccupancyGrid {
+    private static final int DEFAULT_EXPECTED_ROVERS = 1024;
+    // Regions are 64 x 64 coordinates
+    private static final int REGION_SHIFT = 6;
+
+    private final int width;
+    private final int height;
+    private final LongHashSet[] stripes;
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+    // Kept in step with the stripes so reading it never takes a lock
+    private final LongAdder occupiedCount = new LongAdder();
+
+    public SparseOccupancyGrid(int width, int height) {
+        this(width, height, DEFAULT_EXPECTED_ROVERS);
+    }
+
+    public SparseOccupancyGrid(int width, int height, int expectedRovers) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Mars dimensions must be positive.");
+        }
+        this.width = width;
+        this.height = height;
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1;
+        this.stripes = new LongHashSet[stripeCount];
+        this.locks = new ReentrantLock[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new LongHashSet(expectedRovers / stripeCount);
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private SparseOccupancyGrid(SparseOccupancyGrid other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.stripes = new LongHashSet[other.stripes.length];
+        this.locks = new ReentrantLock[other.locks.length];
+        this.stripeMask = other.stripeMask;
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i] = new ReentrantLock();
+            other.locks[i].lock();
+            try {
+                stripes[i] = new LongHashSet(other.stripes[i]);
+                occupiedCount.add(stripes[i].size());
+            } finally {
+                other.locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean isOccupied(int xCoordinate, int yCoordinate) {
+        int stripe = stripeOf(xCoordinate, yCoordinate);
+        locks[stripe].lock();
+        try {
+            return stripes[stripe].contains(toKey(xCoordinate, yCoordinate));
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public boolean occupy(int xCoordinate, int yCoordinate) {
+        int stripe = stripeOf(xCoordinate, yCoordinate);
+        locks[stripe].lock();
+        try {
+            if (!stripes[stripe].add(toKey(xCoordinate, yCoordinate))) {
+                return false;
+            }
+            occupiedCount.increment();
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public boolean release(int xCoordinate, int yCoordinate) {
+        int stripe = stripeOf(xCoordinate, yCoordinate);
+        locks[stripe].lock();
+        try {
+            if (!stripes[stripe].remove(toKey(xCoordinate, yCoordinate))) {
+                return false;
+            }
+            occupiedCount.decrement();
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public long getOccupiedCount() {
+        return occupiedCount.sum();
+    }
+
+    @Override
+    public OccupancyGrid snapshot() {
+        return new SparseOccupancyGrid(this);
+    }
+
+    private int stripeOf(int xCoordinate, int yCoordinate) {
+        int hash = (xCoordinate >>> REGION_SHIFT) * 0x9E3779B1 + (yCoordinate >>> REGION_SHIFT);
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private static long toKey(int xCoordinate, int yCoordinate) {
+        return ((long) xCoordinate << 32) | yCoordinate;
+    }
+}
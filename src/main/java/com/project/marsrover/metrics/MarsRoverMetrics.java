@@ -0,0 +1,138 @@
+package com.project.marsrover.metrics;
+
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.grid.OccupancyGrid;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records deployment latency, command throughput and plateau occupancy.
+ * Every meter is registered up front, so recording a deployment only updates existing meters and does not allocate.
+ */
+public class MarsRoverMetrics {
+    private static final String DEPLOY_TIMER = "mars.rover.deploy";
+
+    // Deployment latency, one timer per outcome
+    private final Timer completedTimer;
+    private final Timer collisionTimer;
+    private final Timer outOfBoundsTimer;
+    private final Timer failedTimer;
+    // Commands executed by rovers that were deployed, counting each repeat of a repeated command
+    private final Counter commandsCounter;
+    // Rovers that stopped early because the next coordinate was taken
+    private final Counter collisionsCounter;
+    // Rovers that stopped early because the next coordinate was outside Mars
+    private final Counter boundaryStopsCounter;
+    // Deployments rejected because the coordinates or commands could not be parsed
+    private final Counter parseFailuresCounter;
+    // Length of the commands params, in characters
+    private final DistributionSummary commandLengthSummary;
+    private final MeterRegistry registry;
+
+    public MarsRoverMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.completedTimer = deployTimer(registry, "completed");
+        this.collisionTimer = deployTimer(registry, "collision");
+        this.outOfBoundsTimer = deployTimer(registry, "out_of_bounds");
+        this.failedTimer = deployTimer(registry, "failed");
+        this.commandsCounter = Counter.builder("mars.rover.commands")
+                .description("Commands executed by deployed rovers")
+                .register(registry);
+        this.collisionsCounter = Counter.builder("mars.rover.collisions")
+                .description("Rovers stopped before a taken coordinate")
+                .register(registry);
+        this.boundaryStopsCounter = Counter.builder("mars.rover.boundary.stops")
+                .description("Rovers stopped before Mars boundary")
+                .register(registry);
+        this.parseFailuresCounter = Counter.builder("mars.rover.parse.failures")
+                .description("Deployments with coordinates or commands that could not be parsed")
+                .register(registry);
+        this.commandLengthSummary = DistributionSummary.builder("mars.rover.command.length")
+                .description("Length of the commands params")
+                .baseUnit("characters")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * @return Metrics that are recorded nowhere, for services created outside of Spring
+     */
+    public static MarsRoverMetrics noop() {
+        // A composite registry without any registries hands out meters that ignore every recording
+        return new MarsRoverMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Publishes the number of taken coordinates of the grid as a gauge tagged with the plateau name
+     *
+     * @param plateau The name of the plateau the grid belongs to
+     * @param mars The grid to read the count from
+     * @return The gauge, to be unbound once the grid is dropped
+     */
+    public Gauge bindOccupancy(String plateau, OccupancyGrid mars) {
+        return Gauge.builder("mars.rover.occupied.cells", mars, OccupancyGrid::getOccupiedCount)
+                .description("Coordinates taken by parked rovers")
+                .tag("plateau", plateau)
+                .register(registry);
+    }
+
+    /**
+     * Stops publishing a gauge bound by bindOccupancy, so a plateau that was dropped does not keep reporting
+     *
+     * @param occupancyGauge The gauge returned by bindOccupancy
+     */
+    public void unbindOccupancy(Gauge occupancyGauge) {
+        registry.remove(occupancyGauge);
+    }
+
+    /**
+     * Records a deployment that ran its commands
+     *
+     * @param stopReason The reason the rover stopped
+     * @param commandCount The number of commands the rover ran before it stopped
+     * @param commandLength The length of the commands params
+     * @param elapsedNanos The time taken by the deployment
+     */
+    public void recordDeployment(StopReason stopReason, long commandCount, int commandLength, long elapsedNanos) {
+        commandsCounter.increment(commandCount);
+        commandLengthSummary.record(commandLength);
+        switch (stopReason) {
+            case COLLISION -> {
+                collisionsCounter.increment();
+                collisionTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+            case OUT_OF_BOUNDS -> {
+                boundaryStopsCounter.increment();
+                outOfBoundsTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+            default -> completedTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records a deployment that was rejected before the rover was parked
+     *
+     * @param parseFailure true if the params could not be parsed
+     * @param elapsedNanos The time taken by the deployment
+     */
+    public void recordFailure(boolean parseFailure, long elapsedNanos) {
+        if (parseFailure) {
+            parseFailuresCounter.increment();
+        }
+        failedTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer deployTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder(DEPLOY_TIMER)
+                .description("Time taken to deploy a rover and run its commands")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
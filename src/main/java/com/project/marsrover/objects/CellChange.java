@@ -0,0 +1,62 @@
+package com.project.marsrover.objects;
+
+import com.project.marsrover.enums.CellChangeType;
+import com.project.marsrover.enums.Direction;
+
+public class CellChange {
+    private CellChangeType type;
+    // The rover now at the coordinates, or the rover that left them
+    private int roverId;
+    private int xCoordinate;
+    private int yCoordinate;
+    // null for VACATED
+    private Direction direction;
+
+    public CellChange(CellChangeType type, int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        this.setType(type);
+        this.setRoverId(roverId);
+        this.setxCoordinate(xCoordinate);
+        this.setyCoordinate(yCoordinate);
+        this.setDirection(direction);
+    }
+
+    public CellChangeType getType() {
+        return type;
+    }
+
+    public void setType(CellChangeType type) {
+        this.type = type;
+    }
+
+    public int getRoverId() {
+        return roverId;
+    }
+
+    public void setRoverId(int roverId) {
+        this.roverId = roverId;
+    }
+
+    public int getxCoordinate() {
+        return xCoordinate;
+    }
+
+    public void setxCoordinate(int xCoordinate) {
+        this.xCoordinate = xCoordinate;
+    }
+
+    public int getyCoordinate() {
+        return yCoordinate;
+    }
+
+    public void setyCoordinate(int yCoordinate) {
+        this.yCoordinate = yCoordinate;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+}
@@ -0,0 +1,29 @@
+package com.project.marsrover.objects;
+
+public class DeployRoverBatchResult {
+    // Set when the deployment succeeded
+    private DeployRoverResult result;
+    // Set when the deployment failed
+    private String error;
+
+    public DeployRoverBatchResult(DeployRoverResult result, String error) {
+        this.setResult(result);
+        this.setError(error);
+    }
+
+    public DeployRoverResult getResult() {
+        return result;
+    }
+
+    public void setResult(DeployRoverResult result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -1,16 +1,35 @@
 package com.project.marsrover.objects;
 
 import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
 
 public class DeployRoverResult {
+    // ID of the parked rover, null if the rover was not parked
+    private Integer roverId;
     private int xCoordinate;
     private int yCoordinate;
     private Direction finalDirection;
+    // Why the rover stopped, COMPLETED if it ran all of its commands
+    private StopReason stopReason;
 
-    public DeployRoverResult(int xCoordinate, int yCoordinate, Direction direction) {
+    public DeployRoverResult(int xCoordinate, int yCoordinate, Direction direction, StopReason stopReason) {
+        this(null, xCoordinate, yCoordinate, direction, stopReason);
+    }
+
+    public DeployRoverResult(Integer roverId, int xCoordinate, int yCoordinate, Direction direction, StopReason stopReason) {
+        this.setRoverId(roverId);
         this.setxCoordinate(xCoordinate);
         this.setyCoordinate(yCoordinate);
         this.setFinalDirection(direction);
+        this.setStopReason(stopReason);
+    }
+
+    public Integer getRoverId() {
+        return roverId;
+    }
+
+    public void setRoverId(Integer roverId) {
+        this.roverId = roverId;
     }
 
     public int getxCoordinate() {
@@ -36,4 +55,12 @@ public class DeployRoverResult {
     public void setFinalDirection(Direction finalDirection) {
         this.finalDirection = finalDirection;
     }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(StopReason stopReason) {
+        this.stopReason = stopReason;
+    }
 }
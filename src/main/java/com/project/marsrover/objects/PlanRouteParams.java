@@ -0,0 +1,38 @@
+package com.project.marsrover.objects;
+
+public class PlanRouteParams {
+
+    public PlanRouteParams(String currentCoordinates, int targetXCoordinate, int targetYCoordinate) {
+        this.setCurrentCoordinates(currentCoordinates);
+        this.setTargetXCoordinate(targetXCoordinate);
+        this.setTargetYCoordinate(targetYCoordinate);
+    }
+    // 3,4,N
+    private String currentCoordinates;
+    private int targetXCoordinate;
+    private int targetYCoordinate;
+
+    public String getCurrentCoordinates() {
+        return currentCoordinates;
+    }
+
+    public void setCurrentCoordinates(String currentCoordinates) {
+        this.currentCoordinates = currentCoordinates;
+    }
+
+    public int getTargetXCoordinate() {
+        return targetXCoordinate;
+    }
+
+    public void setTargetXCoordinate(int targetXCoordinate) {
+        this.targetXCoordinate = targetXCoordinate;
+    }
+
+    public int getTargetYCoordinate() {
+        return targetYCoordinate;
+    }
+
+    public void setTargetYCoordinate(int targetYCoordinate) {
+        this.targetYCoordinate = targetYCoordinate;
+    }
+}
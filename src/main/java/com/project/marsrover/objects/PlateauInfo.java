@@ -0,0 +1,71 @@
+package com.project.marsrover.objects;
+
+import com.project.marsrover.enums.GridType;
+
+public class PlateauInfo {
+    private String name;
+    private int width;
+    private int height;
+    private GridType grid;
+    // Number of rover IDs handed out on the plateau, as of its eviction if it is not loaded
+    private int roverCount;
+    // false while the plateau is evicted to disk
+    private boolean loaded;
+
+    public PlateauInfo(String name, int width, int height, GridType grid, int roverCount, boolean loaded) {
+        this.setName(name);
+        this.setWidth(width);
+        this.setHeight(height);
+        this.setGrid(grid);
+        this.setRoverCount(roverCount);
+        this.setLoaded(loaded);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public GridType getGrid() {
+        return grid;
+    }
+
+    public void setGrid(GridType grid) {
+        this.grid = grid;
+    }
+
+    public int getRoverCount() {
+        return roverCount;
+    }
+
+    public void setRoverCount(int roverCount) {
+        this.roverCount = roverCount;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+}
@@ -0,0 +1,54 @@
+package com.project.marsrover.objects;
+
+import com.project.marsrover.enums.GridType;
+
+public class PlateauParams {
+
+    public PlateauParams() {
+    }
+
+    public PlateauParams(String name, int width, int height, GridType grid) {
+        this.setName(name);
+        this.setWidth(width);
+        this.setHeight(height);
+        this.setGrid(grid);
+    }
+    // Letters, digits, _ and -, e.g gale-crater
+    private String name;
+    private int width;
+    private int height;
+    // SPARSE if not set
+    private GridType grid;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public GridType getGrid() {
+        return grid;
+    }
+
+    public void setGrid(GridType grid) {
+        this.grid = grid;
+    }
+}
@@ -2,18 +2,22 @@ package com.project.marsrover.objects;
 
 import com.project.marsrover.enums.Command;
 import com.project.marsrover.enums.Direction;
-import com.project.marsrover.exceptions.CollisionException;
+import com.project.marsrover.enums.StopReason;
 import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.parser.CommandProgram;
 
 public class Rover {
     private int xCoordinate;
     private int yCoordinate;
     private Direction direction;
+    // Commands run by the last execute, up to the move the rover stopped at
+    private long executedCommandCount;
 
-    public Rover(int xCoordinate, int yCoordinate, String direction) throws DeployRoverException {
+    public Rover(int xCoordinate, int yCoordinate, Direction direction) {
         this.setxCoordinate(xCoordinate);
         this.setyCoordinate(yCoordinate);
-        this.setDirection(Direction.convertStringToDirectionEnum(direction));
+        this.setDirection(direction);
     }
 
     public int getxCoordinate() {
@@ -40,6 +44,14 @@ public class Rover {
         return direction;
     }
 
+    /**
+     * @return The number of commands run by the last execute, counting each repetition and only the steps taken by
+     * the move the rover stopped at
+     */
+    public long getExecutedCommandCount() {
+        return executedCommandCount;
+    }
+
     /**
      * Turns the rover and updates its direction based on current direction and input command
      *
@@ -84,61 +96,120 @@ public class Rover {
      * Moves the rover and updates its coordinates based on current direction and input command
      *
      * @param command The turn command for the rover
-     * @param mars The 2d Mars object holding the state of other existing rovers
+     * @param mars The Mars occupancy grid holding the state of other existing rovers
+     * @return COMPLETED if the rover moved, or the reason it could not move
      * @throws DeployRoverException if the provided direction is invalid
-     * @throws CollisionException if the rover collides with another existing rover on Mars
      */
-    public void move(Command command, int[][] mars) throws DeployRoverException, CollisionException {
+    public StopReason move(Command command, OccupancyGrid mars) throws DeployRoverException {
         switch (this.getDirection()) {
             case NORTH -> {
                 if (command == Command.FORWARD) {
-                    this.updateCoordinates(mars, this.getxCoordinate() + 1, this.getyCoordinate());
+                    return this.updateCoordinates(mars, this.getxCoordinate() + 1, this.getyCoordinate());
                 } else {
-                    this.updateCoordinates(mars, this.getxCoordinate() - 1, this.getyCoordinate());
+                    return this.updateCoordinates(mars, this.getxCoordinate() - 1, this.getyCoordinate());
                 }
             }
             case SOUTH -> {
                 if (command == Command.FORWARD) {
-                    this.updateCoordinates(mars, this.getxCoordinate() - 1, this.getyCoordinate());
+                    return this.updateCoordinates(mars, this.getxCoordinate() - 1, this.getyCoordinate());
                 } else {
-                    this.updateCoordinates(mars, this.getxCoordinate() + 1, this.getyCoordinate());
+                    return this.updateCoordinates(mars, this.getxCoordinate() + 1, this.getyCoordinate());
                 }
             }
             case EAST -> {
                 if (command == Command.FORWARD) {
-                    this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() + 1);
+                    return this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() + 1);
                 } else {
-                    this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() - 1);
+                    return this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() - 1);
                 }
             }
             case WEST -> {
                 if (command == Command.FORWARD) {
-                    this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() - 1);
+                    return this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() - 1);
                 } else {
-                    this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() + 1);
+                    return this.updateCoordinates(mars, this.getxCoordinate(), this.getyCoordinate() + 1);
                 }
             }
             default -> throw new DeployRoverException("Invalid state");
         }
     }
 
+    /**
+     * Runs a compiled command program, stopping at the first move that results in a collision or leaves Mars
+     *
+     * @param program The compiled commands for the rover
+     * @param mars The Mars occupancy grid holding the state of other existing rovers
+     * @return COMPLETED if the rover ran all of its commands, or the reason it stopped early
+     * @throws DeployRoverException if the program has an invalid command that the rover reached
+     */
+    public StopReason execute(CommandProgram program, OccupancyGrid mars) throws DeployRoverException {
+        for (int i = 0; i < program.getOperationCount(); i++) {
+            int operation = program.getOperation(i);
+            if (CommandProgram.isTurn(operation)) {
+                this.setDirection(this.getDirection().turnRight(CommandProgram.getArgument(operation)));
+            } else {
+                int steps = CommandProgram.getArgument(operation);
+                int fromXCoordinate = this.getxCoordinate();
+                int fromYCoordinate = this.getyCoordinate();
+                StopReason stopReason = this.moveSteps(steps, mars);
+                if (stopReason != StopReason.COMPLETED) {
+                    int stepsTaken = Math.abs(this.getxCoordinate() - fromXCoordinate) + Math.abs(this.getyCoordinate() - fromYCoordinate);
+                    executedCommandCount = program.getCommandEnd(i) - (Math.abs(steps) - stepsTaken);
+                    return stopReason;
+                }
+            }
+        }
+        executedCommandCount = program.getCommandCount();
+        program.checkInvalidCommand();
+        return StopReason.COMPLETED;
+    }
+
+    /**
+     * Moves the rover a number of steps in a straight line, checking the whole line in one scan of the grid
+     *
+     * @param steps The number of steps, positive to move forward and negative to move backward
+     * @param mars The Mars occupancy grid holding the state of other existing rovers
+     * @return COMPLETED if the rover moved all steps, or the reason it stopped early
+     */
+    private StopReason moveSteps(int steps, OccupancyGrid mars) {
+        int xStep = steps > 0 ? this.getDirection().getxStep() : -this.getDirection().getxStep();
+        int yStep = steps > 0 ? this.getDirection().getyStep() : -this.getDirection().getyStep();
+        int requestedSteps = Math.abs(steps);
+        int stepsToBoundary = xStep > 0 ? mars.getWidth() - 1 - this.getxCoordinate()
+                : xStep < 0 ? this.getxCoordinate()
+                : yStep > 0 ? mars.getHeight() - 1 - this.getyCoordinate()
+                : this.getyCoordinate();
+        int stepsToCheck = Math.min(requestedSteps, stepsToBoundary);
+        int freeSteps = mars.countFreeSteps(this.getxCoordinate(), this.getyCoordinate(), xStep, yStep, stepsToCheck);
+        this.setxCoordinate(this.getxCoordinate() + xStep * freeSteps);
+        this.setyCoordinate(this.getyCoordinate() + yStep * freeSteps);
+        if (freeSteps < stepsToCheck) {
+            return StopReason.COLLISION;
+        }
+        if (requestedSteps > stepsToBoundary) {
+            return StopReason.OUT_OF_BOUNDS;
+        }
+        return StopReason.COMPLETED;
+    }
+
     /**
      * Updates the coordinates for the rover
      *
-     * @param mars The 2d Mars object holding the state of other existing rovers
+     * @param mars The Mars occupancy grid holding the state of other existing rovers
      * @param xCoordinate The xCoordinate to be updated to
      * @param yCoordinate The yCoordinate to be updated to
-     * @throws CollisionException if the rover collides with another existing rover on Mars
-     * @throws DeployRoverException if the rover moves out of Mars boundary
+     * @return COMPLETED if the coordinates were updated, COLLISION if another rover is parked there or
+     * OUT_OF_BOUNDS if they are outside of Mars boundary
      */
-    public void updateCoordinates(int[][] mars, int xCoordinate, int yCoordinate) throws CollisionException, DeployRoverException {
-        if (xCoordinate >= 99 || yCoordinate >= 99 || xCoordinate < 0 || yCoordinate < 0) {
-            throw new DeployRoverException("Out of Mars boundary.");
+    public StopReason updateCoordinates(OccupancyGrid mars, int xCoordinate, int yCoordinate) {
+        if (!mars.isWithinBounds(xCoordinate, yCoordinate)) {
+            return StopReason.OUT_OF_BOUNDS;
         }
-        if (mars[xCoordinate][yCoordinate] != 0) {
-            throw new CollisionException("Collision detected");
+        if (mars.isOccupied(xCoordinate, yCoordinate)) {
+            return StopReason.COLLISION;
         }
         this.setxCoordinate(xCoordinate);
         this.setyCoordinate(yCoordinate);
+        return StopReason.COMPLETED;
     }
 }
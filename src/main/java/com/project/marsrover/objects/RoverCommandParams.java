@@ -0,0 +1,21 @@
+package com.project.marsrover.objects;
+
+public class RoverCommandParams {
+
+    public RoverCommandParams() {
+    }
+
+    public RoverCommandParams(String commands) {
+        this.setCommands(commands);
+    }
+    // f,f,r,f,f
+    private String commands;
+
+    public String getCommands() {
+        return commands;
+    }
+
+    public void setCommands(String commands) {
+        this.commands = commands;
+    }
+}
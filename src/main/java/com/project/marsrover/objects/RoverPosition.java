@@ -0,0 +1,49 @@
+package com.project.marsrover.objects;
+
+import com.project.marsrover.enums.Direction;
+
+public class RoverPosition {
+    private int roverId;
+    private int xCoordinate;
+    private int yCoordinate;
+    private Direction direction;
+
+    public RoverPosition(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        this.setRoverId(roverId);
+        this.setxCoordinate(xCoordinate);
+        this.setyCoordinate(yCoordinate);
+        this.setDirection(direction);
+    }
+
+    public int getRoverId() {
+        return roverId;
+    }
+
+    public void setRoverId(int roverId) {
+        this.roverId = roverId;
+    }
+
+    public int getxCoordinate() {
+        return xCoordinate;
+    }
+
+    public void setxCoordinate(int xCoordinate) {
+        this.xCoordinate = xCoordinate;
+    }
+
+    public int getyCoordinate() {
+        return yCoordinate;
+    }
+
+    public void setyCoordinate(int yCoordinate) {
+        this.yCoordinate = yCoordinate;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+}
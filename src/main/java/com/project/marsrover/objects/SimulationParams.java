@@ -0,0 +1,34 @@
+package com.project.marsrover.objects;
+
+import java.util.List;
+
+public class SimulationParams {
+
+    public SimulationParams() {
+    }
+
+    public SimulationParams(List<SimulationRoverParams> rovers, int maxTicks) {
+        this.setRovers(rovers);
+        this.setMaxTicks(maxTicks);
+    }
+    // Parked rovers taking part and their commands
+    private List<SimulationRoverParams> rovers;
+    // Most ticks to run before returning the rovers that are still moving
+    private int maxTicks;
+
+    public List<SimulationRoverParams> getRovers() {
+        return rovers;
+    }
+
+    public void setRovers(List<SimulationRoverParams> rovers) {
+        this.rovers = rovers;
+    }
+
+    public int getMaxTicks() {
+        return maxTicks;
+    }
+
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+}
@@ -0,0 +1,31 @@
+package com.project.marsrover.objects;
+
+import java.util.List;
+
+public class SimulationResult {
+    // Number of ticks run
+    private int ticks;
+    // Position of every rover in rover ID order, the stop reason is null for rovers still moving after the last tick
+    private List<DeployRoverResult> results;
+
+    public SimulationResult(int ticks, List<DeployRoverResult> results) {
+        this.setTicks(ticks);
+        this.setResults(results);
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public void setTicks(int ticks) {
+        this.ticks = ticks;
+    }
+
+    public List<DeployRoverResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<DeployRoverResult> results) {
+        this.results = results;
+    }
+}
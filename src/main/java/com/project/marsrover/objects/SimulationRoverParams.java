@@ -0,0 +1,32 @@
+package com.project.marsrover.objects;
+
+public class SimulationRoverParams {
+
+    public SimulationRoverParams() {
+    }
+
+    public SimulationRoverParams(int roverId, String commands) {
+        this.setRoverId(roverId);
+        this.setCommands(commands);
+    }
+    // ID of a parked rover
+    private int roverId;
+    // f,f,r,f,f
+    private String commands;
+
+    public int getRoverId() {
+        return roverId;
+    }
+
+    public void setRoverId(int roverId) {
+        this.roverId = roverId;
+    }
+
+    public String getCommands() {
+        return commands;
+    }
+
+    public void setCommands(String commands) {
+        this.commands = commands;
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.marsrover.parser;
+
+import com.project.marsrover.exceptions.DeployRoverException;
+
+/**
+ * Compact form of a commands param. Consecutive turns are folded into one net right turn and runs of the same move
+ * command are merged into one move of several steps. Each operation is packed into an int, the lowest bit tells
+ * turns and moves apart and the remaining bits hold the number of right turns or the signed number of steps.
+ * Programs are immutable and can be shared between deployments.
+ */
+public class CommandProgram {
+    private final int[] operations;
+    // Number of commands folded into each operation and the ones before it, turns that cancelled out included
+    private final long[] commandEnds;
+    private final long commandCount;
+    // The first invalid command, null if all commands are valid
+    private final String invalidCommand;
+
+    CommandProgram(int[] operations, long[] commandEnds, long commandCount, String invalidCommand) {
+        this.operations = operations;
+        this.commandEnds = commandEnds;
+        this.commandCount = commandCount;
+        this.invalidCommand = invalidCommand;
+    }
+
+    /**
+     * @return The number of operations after folding turns and merging moves
+     */
+    public int getOperationCount() {
+        return operations.length;
+    }
+
+    /**
+     * @param index The position of the operation, from 0 to getOperationCount() - 1
+     * @return The packed operation at the position
+     */
+    public int getOperation(int index) {
+        return operations[index];
+    }
+
+    /**
+     * @param index The position of the operation, from 0 to getOperationCount() - 1
+     * @return The number of commands run once the operation at the position and every operation before it are done
+     */
+    public long getCommandEnd(int index) {
+        return commandEnds[index];
+    }
+
+    /**
+     * @return The number of valid commands the program was compiled from, counting each repetition
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * Reports the invalid command that follows the valid commands, if there is one
+     *
+     * @throws DeployRoverException if the commands param contains an invalid command
+     */
+    public void checkInvalidCommand() throws DeployRoverException {
+        if (invalidCommand != null) {
+            throw new DeployRoverException("Invalid command: " + invalidCommand);
+        }
+    }
+
+    /**
+     * @param operation A packed operation
+     * @return true if the operation turns the rover, false if it moves the rover
+     */
+    public static boolean isTurn(int operation) {
+        return (operation & 1) != 0;
+    }
+
+    /**
+     * @param operation A packed operation
+     * @return The number of right turns from 1 to 3 for a turn, or the number of steps for a move where
+     * positive numbers move forward and negative numbers move backward
+     */
+    public static int getArgument(int operation) {
+        return operation >> 1;
+    }
+
+    static int turn(int rightTurns) {
+        return (rightTurns << 1) | 1;
+    }
+
+    static int move(int steps) {
+        return steps << 1;
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.marsrover.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded least recently used cache of compiled programs keyed by the commands param. The cache is split into
+ * lock striped segments, each evicting its own least recently used program, so lookups from concurrent
+ * deployments rarely contend.
+ */
+public class CommandProgramCache {
+    // Longer commands params are compiled on every deployment instead of being kept alive by the cache
+    private static final int MAX_CACHED_COMMANDS_LENGTH = 4096;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public CommandProgramCache(int capacity) {
+        int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the compiled program for the commands param, compiling and caching it if it is not cached yet
+     *
+     * @param commands The comma separated commands, e.g f,f,r,f,f
+     * @return The compiled program
+     */
+    public CommandProgram get(String commands) {
+        if (commands.length() > MAX_CACHED_COMMANDS_LENGTH) {
+            return DeployRoverParser.parseCommands(commands);
+        }
+        int hash = commands.hashCode();
+        Segment segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        CommandProgram program = segment.get(commands);
+        if (program == null) {
+            // Compile outside of the lock, two deployments may compile the same program but both results are identical
+            program = DeployRoverParser.parseCommands(commands);
+            segment.put(commands, program);
+        }
+        return program;
+    }
+
+    /**
+     * @return The number of cached programs
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CommandProgram> programs;
+
+        Segment(int capacity) {
+            this.programs = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CommandProgram> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        CommandProgram get(String commands) {
+            lock.lock();
+            try {
+                return programs.get(commands);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(String commands, CommandProgram program) {
+            lock.lock();
+            try {
+                programs.put(commands, program);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return programs.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.project.marsrover.parser;
+
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.exceptions.DeployRoverException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Parses the deployment params in a single pass over the characters without splitting them into strings.
+ * Tokens follow the same rules as String.split(","), trailing empty tokens are ignored.
+ */
+public final class DeployRoverParser {
+    private static final String INVALID_COORDINATES = "Invalid coordinates params. Specify in the format of e.g 3,4,N.";
+    // Command letters indexed by Command ordinal, the value of a packed command
+    private static final char[] PACKED_COMMANDS = {'f', 'b', 'r', 'l'};
+
+    private DeployRoverParser() {
+    }
+
+    /**
+     * Parses the coordinates and direction of a deployment
+     *
+     * @param currentCoordinates The coordinates and direction, e.g 3,4,N
+     * @return The parsed coordinates
+     * @throws DeployRoverException if the coordinates params do not have exactly 3 parts
+     * @throws NumberFormatException if the coordinates are not integers
+     */
+    public static ParsedCoordinates parseCoordinates(CharSequence currentCoordinates) throws DeployRoverException {
+        int length = trimTrailingSeparators(currentCoordinates);
+        int firstComma = indexOfComma(currentCoordinates, 0, length);
+        int secondComma = firstComma < 0 ? -1 : indexOfComma(currentCoordinates, firstComma + 1, length);
+        if (secondComma < 0 || indexOfComma(currentCoordinates, secondComma + 1, length) >= 0) {
+            throw new DeployRoverException(INVALID_COORDINATES);
+        }
+        int xCoordinate = parseInt(currentCoordinates, 0, firstComma);
+        int yCoordinate = parseInt(currentCoordinates, firstComma + 1, secondComma);
+
+        int directionStart = secondComma + 1;
+        Direction direction = null;
+        if (length - directionStart == 1) {
+            direction = switch (currentCoordinates.charAt(directionStart)) {
+                case 'N' -> Direction.NORTH;
+                case 'S' -> Direction.SOUTH;
+                case 'E' -> Direction.EAST;
+                case 'W' -> Direction.WEST;
+                default -> null;
+            };
+        }
+        return new ParsedCoordinates(currentCoordinates, xCoordinate, yCoordinate, direction, directionStart, length);
+    }
+
+    /**
+     * Parses the commands of a deployment and compiles them into a program. A command can be repeated by adding
+     * a count, e.g f*5000 moves forward 5000 times. Parsing stops at the first invalid command, which is kept in
+     * the program and only reported once the commands before it have been executed.
+     *
+     * @param commands The comma separated commands, e.g f,f,r,f*5,f
+     * @return The compiled program
+     */
+    public static CommandProgram parseCommands(CharSequence commands) {
+        ProgramBuilder programBuilder = new ProgramBuilder();
+        int length = trimTrailingSeparators(commands);
+        if (length == 0 && commands.length() > 0) {
+            // Only separators, there are no commands at all
+            return programBuilder.build(null);
+        }
+        // An empty commands param is a single empty, and therefore invalid, command
+        int tokenStart = 0;
+        while (true) {
+            int tokenEnd = indexOfComma(commands, tokenStart, length);
+            if (tokenEnd < 0) {
+                tokenEnd = length;
+            }
+            int count = parseRepeatCount(commands, tokenStart, tokenEnd);
+            boolean valid = count > 0 && programBuilder.append(commands.charAt(tokenStart), count);
+            if (!valid) {
+                return programBuilder.build(commands.subSequence(tokenStart, tokenEnd).toString());
+            }
+            if (tokenEnd == length) {
+                return programBuilder.build(null);
+            }
+            tokenStart = tokenEnd + 1;
+        }
+    }
+
+    /**
+     * Compiles commands packed four to a byte, lowest bits first, each the ordinal of its Command. Runs of the same
+     * command are appended at once, like a repeated command.
+     *
+     * @param packed The packed commands, advanced past them
+     * @param commandCount The number of commands, none at all is a single empty, and therefore invalid, command
+     * @return The compiled program
+     */
+    public static CommandProgram parsePackedCommands(ByteBuffer packed, int commandCount) {
+        ProgramBuilder programBuilder = new ProgramBuilder();
+        if (commandCount == 0) {
+            return programBuilder.build("");
+        }
+        char runCommand = 0;
+        int runCount = 0;
+        int bits = 0;
+        for (int i = 0; i < commandCount; i++) {
+            if ((i & 3) == 0) {
+                bits = packed.get();
+            }
+            char command = PACKED_COMMANDS[bits & 3];
+            bits >>>= 2;
+            if (command != runCommand && runCount > 0) {
+                programBuilder.append(runCommand, runCount);
+                runCount = 0;
+            }
+            runCommand = command;
+            runCount++;
+        }
+        programBuilder.append(runCommand, runCount);
+        return programBuilder.build(null);
+    }
+
+    /**
+     * @return 1 for a single command, the count for a repeated command like f*5000, or -1 if the token is malformed
+     */
+    private static int parseRepeatCount(CharSequence commands, int tokenStart, int tokenEnd) {
+        int length = tokenEnd - tokenStart;
+        if (length == 1) {
+            return 1;
+        }
+        if (length < 3 || commands.charAt(tokenStart + 1) != '*') {
+            return -1;
+        }
+        long count = 0;
+        for (int i = tokenStart + 2; i < tokenEnd; i++) {
+            char digit = commands.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            count = count * 10 + (digit - '0');
+            if (count > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) count;
+    }
+
+    private static int parseInt(CharSequence input, int start, int end) {
+        if (start == end) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        return Integer.parseInt(input, start, end, 10);
+    }
+
+    /**
+     * @return The length of the input without trailing commas, matching String.split dropping trailing empty tokens
+     */
+    private static int trimTrailingSeparators(CharSequence input) {
+        int length = input.length();
+        while (length > 0 && input.charAt(length - 1) == ',') {
+            length--;
+        }
+        return length;
+    }
+
+    private static int indexOfComma(CharSequence input, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (input.charAt(i) == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Folds commands into program operations as they are parsed
+     */
+    private static class ProgramBuilder {
+        // Largest number of steps that fits in a single packed move
+        private static final int MAX_STEPS = (1 << 30) - 1;
+
+        private int[] operations = new int[8];
+        private long[] commandEnds = new long[8];
+        private int operationCount;
+        private long commandCount;
+        // Net right turns not yet written, from 0 to 3
+        private int pendingTurns;
+        // Steps of the move run not yet written, positive for forward and negative for backward
+        private long pendingSteps;
+
+        boolean append(char command, int count) {
+            switch (command) {
+                case 'f' -> addSteps(count);
+                case 'b' -> addSteps(-count);
+                case 'r' -> addTurns(count & 3);
+                case 'l' -> addTurns((count * 3) & 3);
+                default -> {
+                    return false;
+                }
+            }
+            commandCount += count;
+            return true;
+        }
+
+        private void addSteps(long steps) {
+            if (pendingTurns != 0 || (pendingSteps != 0 && (pendingSteps > 0) != (steps > 0))) {
+                flush();
+            }
+            // Turns that cancelled out still end the previous run, so the commands of a move stay contiguous
+            pendingSteps += steps;
+        }
+
+        private void addTurns(int rightTurns) {
+            if (pendingSteps != 0) {
+                flush();
+            }
+            pendingTurns = (pendingTurns + rightTurns) & 3;
+        }
+
+        private void flush() {
+            // Every command appended so far is folded into the pending operations
+            while (pendingSteps != 0) {
+                int steps = (int) Math.max(-MAX_STEPS, Math.min(MAX_STEPS, pendingSteps));
+                pendingSteps -= steps;
+                add(CommandProgram.move(steps), commandCount - Math.abs(pendingSteps));
+            }
+            if (pendingTurns != 0) {
+                add(CommandProgram.turn(pendingTurns), commandCount);
+                pendingTurns = 0;
+            }
+        }
+
+        private void add(int operation, long commandEnd) {
+            if (operationCount == operations.length) {
+                operations = Arrays.copyOf(operations, operationCount << 1);
+                commandEnds = Arrays.copyOf(commandEnds, operationCount << 1);
+            }
+            commandEnds[operationCount] = commandEnd;
+            operations[operationCount++] = operation;
+        }
+
+        CommandProgram build(String invalidCommand) {
+            flush();
+            return new CommandProgram(Arrays.copyOf(operations, operationCount), Arrays.copyOf(commandEnds, operationCount),
+                    commandCount, invalidCommand);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.project.marsrover.parser;
+
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.exceptions.DeployRoverException;
+
+/**
+ * Result of parsing the coordinates params in a single pass. An invalid direction is only reported when it is
+ * resolved, so errors are raised in the same order as when the params were split and converted token by token.
+ */
+public class ParsedCoordinates {
+    private final CharSequence currentCoordinates;
+    private final int xCoordinate;
+    private final int yCoordinate;
+    private final Direction direction;
+    private final int directionStart;
+    private final int directionEnd;
+
+    ParsedCoordinates(CharSequence currentCoordinates, int xCoordinate, int yCoordinate, Direction direction, int directionStart, int directionEnd) {
+        this.currentCoordinates = currentCoordinates;
+        this.xCoordinate = xCoordinate;
+        this.yCoordinate = yCoordinate;
+        this.direction = direction;
+        this.directionStart = directionStart;
+        this.directionEnd = directionEnd;
+    }
+
+    public int getxCoordinate() {
+        return xCoordinate;
+    }
+
+    public int getyCoordinate() {
+        return yCoordinate;
+    }
+
+    /**
+     * @return The Direction the rover is deployed facing
+     * @throws DeployRoverException if the direction param is invalid
+     */
+    public Direction resolveDirection() throws DeployRoverException {
+        if (direction == null) {
+            throw new DeployRoverException("Invalid direction: " + currentCoordinates.subSequence(directionStart, directionEnd));
+        }
+        return direction;
+    }
+}
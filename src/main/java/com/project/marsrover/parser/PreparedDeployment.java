@@ -0,0 +1,72 @@
+package com.project.marsrover.parser;
+
+import com.project.marsrover.exceptions.DeployRoverException;
+
+/**
+ * Deployment params parsed and compiled ahead of the deployment, possibly on another thread. A failure to parse the
+ * coordinates is kept and only raised when the deployment runs, so errors are raised in the same order as when the
+ * params are parsed by the deployment itself.
+ */
+public class PreparedDeployment {
+    // Null if the coordinates params could not be parsed
+    private final ParsedCoordinates parsedCoordinates;
+    // DeployRoverException or NumberFormatException raised by the coordinates params, null if they were parsed
+    private final Exception failure;
+    private final String commands;
+    // Null if the commands were not compiled ahead
+    private final CommandProgram program;
+
+    PreparedDeployment(ParsedCoordinates parsedCoordinates, Exception failure, String commands, CommandProgram program) {
+        this.parsedCoordinates = parsedCoordinates;
+        this.failure = failure;
+        this.commands = commands;
+        this.program = program;
+    }
+
+    /**
+     * Parses and compiles deployment params without touching Mars, safe to call from any thread
+     *
+     * @param currentCoordinates The coordinates and direction, e.g 3,4,N
+     * @param commands The comma separated commands, e.g f,f,r,f*5,f
+     * @param commandProgramCache The cache to compile the commands with
+     * @return The prepared deployment
+     */
+    public static PreparedDeployment prepare(String currentCoordinates, String commands, CommandProgramCache commandProgramCache) {
+        ParsedCoordinates parsedCoordinates;
+        try {
+            parsedCoordinates = DeployRoverParser.parseCoordinates(currentCoordinates);
+        }
+        catch (DeployRoverException | RuntimeException exception) {
+            return new PreparedDeployment(null, exception, commands, null);
+        }
+        // Missing commands fail when the deployment gets to them, like unprepared params
+        CommandProgram program = commands != null ? commandProgramCache.get(commands) : null;
+        return new PreparedDeployment(parsedCoordinates, null, commands, program);
+    }
+
+    /**
+     * @return The parsed coordinates
+     * @throws DeployRoverException if the coordinates params do not have exactly 3 parts
+     * @throws NumberFormatException if the coordinates are not integers
+     */
+    public ParsedCoordinates resolveCoordinates() throws DeployRoverException {
+        if (failure instanceof DeployRoverException deployRoverException) {
+            throw deployRoverException;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        return parsedCoordinates;
+    }
+
+    public String getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return The compiled commands, or null if they were not compiled ahead
+     */
+    public CommandProgram getProgram() {
+        return program;
+    }
+}
@@ -0,0 +1,254 @@
+package com.project.marsrover.persistence;
+
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.registry.RoverJournal;
+import com.project.marsrover.registry.RoverRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the parked rovers across restarts. Every change of a rover position goes to a write ahead log, and a compact
+ * snapshot of the registry is written periodically, after which the log records it covers are deleted. Recovery loads
+ * the latest snapshot and replays only the log records written after it started, then parks every rover again.
+ */
+public class MarsPersistence implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MarsPersistence.class);
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Path directory;
+    private final OccupancyGrid mars;
+    private final RoverRegistry roverRegistry;
+    private final WriteAheadLog writeAheadLog;
+    // Null if snapshots are only taken on demand and on close
+    private final ScheduledExecutorService snapshotScheduler;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private MarsPersistence(Path directory, OccupancyGrid mars, RoverRegistry roverRegistry, WriteAheadLog writeAheadLog,
+                            Duration snapshotInterval) {
+        this.directory = directory;
+        this.mars = mars;
+        this.roverRegistry = roverRegistry;
+        this.writeAheadLog = writeAheadLog;
+        if (snapshotInterval.isZero() || snapshotInterval.isNegative()) {
+            this.snapshotScheduler = null;
+            return;
+        }
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mars-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = snapshotInterval.toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Recovers the rovers persisted in the directory onto an empty plateau, then logs every later change
+     *
+     * @param directory The directory holding the snapshots and the write ahead log, created if missing
+     * @param mars The empty grid to park the recovered rovers on
+     * @param roverRegistry The empty registry to register the recovered rovers in, under their original IDs
+     * @param snapshotInterval The time between snapshots, zero to only take snapshots on demand and on close
+     * @return The persistence, to be closed on shutdown
+     * @throws IOException if the persisted state cannot be read or the log cannot be created
+     * @throws IllegalStateException if the plateau is not empty or the persisted state does not fit on it
+     */
+    public static MarsPersistence open(Path directory, OccupancyGrid mars, RoverRegistry roverRegistry, Duration snapshotInterval)
+            throws IOException {
+        if (roverRegistry.size() > 0 || mars.getOccupiedCount() > 0) {
+            throw new IllegalStateException("Persisted rovers can only be recovered onto an empty plateau.");
+        }
+        long startNanos = System.nanoTime();
+        Files.createDirectories(directory);
+        RecoveredRovers recoveredRovers = new RecoveredRovers();
+        long snapshotSequence = 0;
+        List<Long> snapshotSequences = snapshotSequences(directory);
+        if (!snapshotSequences.isEmpty()) {
+            RoverSnapshot snapshot = RoverSnapshot.read(snapshotFile(directory, snapshotSequences.get(snapshotSequences.size() - 1)));
+            checkPlateau(snapshot, mars);
+            recoveredRovers.load(snapshot);
+            snapshotSequence = snapshot.sequence;
+        }
+        long lastSequence = WriteAheadLog.replay(directory, snapshotSequence, recoveredRovers::apply);
+        int parkedCount = recoveredRovers.park(mars, roverRegistry);
+        LOGGER.info("Recovered {} rovers, replaying {} log records after the snapshot, in {} ms", parkedCount,
+                lastSequence - snapshotSequence, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory, lastSequence);
+        roverRegistry.setJournal(writeAheadLog);
+        return new MarsPersistence(directory, mars, roverRegistry, writeAheadLog, snapshotInterval);
+    }
+
+    /**
+     * Writes every registered rover to a standalone snapshot file, without a write ahead log
+     *
+     * @param file The file to write, replaced once the new snapshot is complete
+     * @param mars The grid the rovers are parked on
+     * @param roverRegistry The registry to copy
+     * @throws IOException if the file cannot be written
+     */
+    public static void exportRovers(Path file, OccupancyGrid mars, RoverRegistry roverRegistry) throws IOException {
+        RoverSnapshot.write(file, 0, mars, roverRegistry, RoverJournal.NONE);
+    }
+
+    /**
+     * Parks the rovers of a standalone snapshot file again under their original IDs
+     *
+     * @param file The file written by exportRovers
+     * @param mars The empty grid to park the rovers on
+     * @param roverRegistry The empty registry to register the rovers in
+     * @return The number of rovers parked
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file does not fit on the plateau
+     */
+    public static int importRovers(Path file, OccupancyGrid mars, RoverRegistry roverRegistry) throws IOException {
+        RoverSnapshot snapshot = RoverSnapshot.read(file);
+        checkPlateau(snapshot, mars);
+        RecoveredRovers recoveredRovers = new RecoveredRovers();
+        recoveredRovers.load(snapshot);
+        return recoveredRovers.park(mars, roverRegistry);
+    }
+
+    /**
+     * Writes a snapshot of every registered rover and deletes the log records and older snapshots it makes redundant.
+     * Rovers keep moving while the snapshot is written.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long sequence = writeAheadLog.roll();
+            // The snapshot and its directory entry are on disk once written, before anything it replaces is deleted
+            RoverSnapshot.write(snapshotFile(directory, sequence), sequence, mars, roverRegistry, writeAheadLog);
+            writeAheadLog.deleteSegmentsBefore(sequence + 1);
+            for (long olderSequence : snapshotSequences(directory)) {
+                if (olderSequence < sequence) {
+                    Files.deleteIfExists(snapshotFile(directory, olderSequence));
+                }
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the periodic snapshots, writes a last snapshot so the next start has no log to replay and closes the log
+     *
+     * @throws IOException if the last snapshot or the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            try {
+                snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            snapshot();
+        } finally {
+            roverRegistry.setJournal(RoverJournal.NONE);
+            writeAheadLog.close();
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        }
+        catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Unable to write rover snapshot", exception);
+        }
+    }
+
+    private static void checkPlateau(RoverSnapshot snapshot, OccupancyGrid mars) {
+        if (snapshot.width != mars.getWidth() || snapshot.height != mars.getHeight()) {
+            throw new IllegalStateException("Persisted rovers were parked on a " + snapshot.width + " x " + snapshot.height
+                    + " plateau, not " + mars.getWidth() + " x " + mars.getHeight() + ".");
+        }
+    }
+
+    private static List<Long> snapshotSequences(Path directory) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .forEach(name -> sequences.add(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()))));
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private static Path snapshotFile(Path directory, long sequence) {
+        return directory.resolve(SNAPSHOT_PREFIX + String.format("%020d", sequence) + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Last known position of each rover ID while the snapshot and the log are read
+     */
+    private static final class RecoveredRovers {
+        private int[] xCoordinates = new int[0];
+        private int[] yCoordinates = new int[0];
+        // Direction ordinal plus one, 0 for IDs without a position
+        private byte[] directions = new byte[0];
+        private int roverCount;
+
+        private void load(RoverSnapshot snapshot) {
+            xCoordinates = snapshot.xCoordinates;
+            yCoordinates = snapshot.yCoordinates;
+            directions = snapshot.directions;
+            roverCount = snapshot.roverCount;
+        }
+
+        private void apply(byte type, int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+            if (roverId >= directions.length) {
+                int capacity = Math.max(roverId + 1, directions.length * 2);
+                xCoordinates = Arrays.copyOf(xCoordinates, capacity);
+                yCoordinates = Arrays.copyOf(yCoordinates, capacity);
+                directions = Arrays.copyOf(directions, capacity);
+            }
+            xCoordinates[roverId] = xCoordinate;
+            yCoordinates[roverId] = yCoordinate;
+            directions[roverId] = (byte) (direction.ordinal() + 1);
+            roverCount = Math.max(roverCount, roverId + 1);
+        }
+
+        private int park(OccupancyGrid mars, RoverRegistry roverRegistry) {
+            int parkedCount = 0;
+            for (int roverId = 0; roverId < roverCount; roverId++) {
+                if (directions[roverId] == 0) {
+                    continue;
+                }
+                int xCoordinate = xCoordinates[roverId];
+                int yCoordinate = yCoordinates[roverId];
+                if (!mars.isWithinBounds(xCoordinate, yCoordinate) || !mars.occupy(xCoordinate, yCoordinate)) {
+                    throw new IllegalStateException("Recovered rover " + roverId + " cannot be parked at "
+                            + xCoordinate + ", " + yCoordinate + ".");
+                }
+                roverRegistry.restore(roverId, xCoordinate, yCoordinate, DIRECTIONS[directions[roverId] - 1]);
+                parkedCount++;
+            }
+            return parkedCount;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.project.marsrover.persistence;
+
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.registry.RoverJournal;
+import com.project.marsrover.registry.RoverRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact snapshot of every registered rover, written and read through memory mapped files. The file holds a header
+ * followed by one column per field: every xCoordinate, then every yCoordinate, then every direction ordinal plus one,
+ * indexed by rover ID. Taken coordinates are not stored, every one of them belongs to a registered rover.
+ */
+final class RoverSnapshot {
+    private static final int MAGIC = 0x4D525331;
+    private static final int HEADER_SIZE = 32;
+    // Rovers copied out of the registry at a time
+    private static final int BATCH_SIZE = 64 * 1024;
+    // Windows cannot open a directory as a file channel to force it
+    private static final boolean WINDOWS = System.getProperty("os.name").startsWith("Windows");
+
+    // Sequence number of the last log record the snapshot is guaranteed to reflect
+    final long sequence;
+    final int width;
+    final int height;
+    final int roverCount;
+    final int[] xCoordinates;
+    final int[] yCoordinates;
+    // Direction ordinal plus one, 0 for IDs that were not registered yet
+    final byte[] directions;
+
+    private RoverSnapshot(long sequence, int width, int height, int roverCount, int[] xCoordinates, int[] yCoordinates, byte[] directions) {
+        this.sequence = sequence;
+        this.width = width;
+        this.height = height;
+        this.roverCount = roverCount;
+        this.xCoordinates = xCoordinates;
+        this.yCoordinates = yCoordinates;
+        this.directions = directions;
+    }
+
+    /**
+     * Writes the rovers to a temporary file and moves it in place once it is complete, so a crash never leaves a
+     * partly written snapshot behind. Rovers moved while the snapshot is written are covered by the log records
+     * after the sequence number, which are made durable before the snapshot is moved in place. Otherwise a crash could
+     * leave a snapshot holding half of a swap between two rovers, with nothing to replay after it. The directory is
+     * forced after the move so the snapshot, and the log segment it is followed by, are still there after a crash
+     * once older segments and snapshots are deleted.
+     *
+     * @param file The snapshot file
+     * @param sequence The sequence number of the last log record before the snapshot started
+     * @param mars The grid the rovers are parked on
+     * @param roverRegistry The registry to copy
+     * @param journal The log of the changes after the sequence number, RoverJournal.NONE for a standalone snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    static void write(Path file, long sequence, OccupancyGrid mars, RoverRegistry roverRegistry, RoverJournal journal) throws IOException {
+        int roverCount = roverRegistry.size();
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer xColumn = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, 4L * roverCount);
+            MappedByteBuffer yColumn = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + 4L * roverCount, 4L * roverCount);
+            MappedByteBuffer directionColumn = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + 8L * roverCount, roverCount);
+            IntBuffer xInts = xColumn.asIntBuffer();
+            IntBuffer yInts = yColumn.asIntBuffer();
+            int[] xCoordinates = new int[BATCH_SIZE];
+            int[] yCoordinates = new int[BATCH_SIZE];
+            byte[] directions = new byte[BATCH_SIZE];
+            for (int from = 0; from < roverCount; from += BATCH_SIZE) {
+                roverRegistry.readPositions(from, xCoordinates, yCoordinates, directions);
+                int count = Math.min(BATCH_SIZE, roverCount - from);
+                xInts.put(xCoordinates, 0, count);
+                yInts.put(yCoordinates, 0, count);
+                directionColumn.put(directions, 0, count);
+            }
+            xColumn.force();
+            yColumn.force();
+            directionColumn.force();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(MAGIC).putInt(roverCount).putLong(sequence).putInt(mars.getWidth()).putInt(mars.getHeight());
+            header.force();
+        }
+        journal.sync();
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces the entries of a directory to disk, so files created or moved into it are not lost in a crash
+     *
+     * @param directory The directory
+     * @throws IOException if the directory cannot be forced
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @param file The snapshot file
+     * @return The rovers in the snapshot
+     * @throws IOException if the snapshot cannot be read
+     * @throws IllegalStateException if the file is not a complete snapshot
+     */
+    static RoverSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IllegalStateException("Snapshot " + file + " is incomplete.");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            int magic = header.getInt();
+            int roverCount = header.getInt();
+            long sequence = header.getLong();
+            int width = header.getInt();
+            int height = header.getInt();
+            if (magic != MAGIC || roverCount < 0 || channel.size() != HEADER_SIZE + 9L * roverCount) {
+                throw new IllegalStateException("Snapshot " + file + " is incomplete.");
+            }
+            int[] xCoordinates = new int[roverCount];
+            int[] yCoordinates = new int[roverCount];
+            byte[] directions = new byte[roverCount];
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 4L * roverCount).asIntBuffer().get(xCoordinates);
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 4L * roverCount, 4L * roverCount).asIntBuffer().get(yCoordinates);
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 8L * roverCount, roverCount).get(directions);
+            return new RoverSnapshot(sequence, width, height, roverCount, xCoordinates, yCoordinates, directions);
+        }
+    }
+}
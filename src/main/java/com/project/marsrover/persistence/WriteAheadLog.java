@@ -0,0 +1,301 @@
+package com.project.marsrover.persistence;
+
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.registry.RoverJournal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append only log of rover position changes with group commit. Records are appended to an in memory buffer while the
+ * registry holds the rover lock, without ever waiting for the disk. The first thread to sync writes and forces every
+ * record appended so far in one go, and threads syncing in the meantime find their records already durable once it
+ * is done.
+ * The log is split into segments named after the sequence number of their first record, so segments fully covered
+ * by a snapshot can be deleted. Records are 16 bytes: type, direction, check, rover ID and coordinates.
+ */
+public class WriteAheadLog implements RoverJournal, Closeable {
+    static final int RECORD_SIZE = 16;
+    static final byte PARKED = 1;
+    static final byte MOVED = 2;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // Writers wait for the buffer to be written out beyond this, so nothing grows without bound between syncs
+    private static final int MAX_BUFFERED_RECORDS = 4 * 1024 * 1024 / RECORD_SIZE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Path directory;
+    // Guards the append buffer and the appended sequence
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private ByteBuffer appendBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    // Sequence number of the last appended record
+    private volatile long appendedSequence;
+    // Guards the segment and the spare buffer, taken before the append lock
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ByteBuffer spareBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private FileChannel segment;
+    // Sequence number of the last record forced to disk
+    private volatile long durableSequence;
+    // Set once a write fails, every later sync fails too since the log no longer matches the registry
+    private volatile IOException failure;
+
+    /**
+     * Starts a new segment after the records already in the directory
+     *
+     * @param directory The directory holding the segments
+     * @param lastSequence The sequence number of the last record already logged, 0 if none
+     * @throws IOException if the segment cannot be created
+     */
+    public WriteAheadLog(Path directory, long lastSequence) throws IOException {
+        this.directory = directory;
+        this.appendedSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.segment = openSegment(lastSequence + 1);
+    }
+
+    @Override
+    public void parked(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        append(PARKED, roverId, xCoordinate, yCoordinate, direction);
+    }
+
+    @Override
+    public void moved(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        append(MOVED, roverId, xCoordinate, yCoordinate, direction);
+    }
+
+    @Override
+    public void sync() {
+        awaitDurable(appendedSequence);
+    }
+
+    @Override
+    public void awaitCapacity() {
+        long sequence = appendedSequence;
+        if (sequence - durableSequence >= MAX_BUFFERED_RECORDS) {
+            awaitDurable(sequence);
+        }
+    }
+
+    private void append(byte type, int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        appendLock.lock();
+        try {
+            if (appendBuffer.remaining() < RECORD_SIZE) {
+                ByteBuffer grown = ByteBuffer.allocate(appendBuffer.capacity() * 2);
+                appendBuffer.flip();
+                appendBuffer = grown.put(appendBuffer);
+            }
+            appendBuffer.put(type)
+                    .put((byte) direction.ordinal())
+                    .putShort(check(type, direction.ordinal(), roverId, xCoordinate, yCoordinate))
+                    .putInt(roverId)
+                    .putInt(xCoordinate)
+                    .putInt(yCoordinate);
+            appendedSequence++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            // Another thread may have written this record out while this thread was waiting for the lock
+            if (durableSequence >= sequence) {
+                return;
+            }
+            ByteBuffer records;
+            long lastSequence;
+            appendLock.lock();
+            try {
+                records = appendBuffer;
+                appendBuffer = spareBuffer;
+                lastSequence = appendedSequence;
+            } finally {
+                appendLock.unlock();
+            }
+            spareBuffer = records;
+            write(records);
+            durableSequence = lastSequence;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes out every appended record and starts a new segment, so the older segments can be deleted once a
+     * snapshot taken after this point is durable
+     *
+     * @return The sequence number of the last record in the older segments
+     */
+    long roll() {
+        flushLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                write(appendBuffer);
+                long lastSequence = appendedSequence;
+                durableSequence = lastSequence;
+                FileChannel previous = segment;
+                segment = openSegment(lastSequence + 1);
+                previous.close();
+                return lastSequence;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        catch (IOException exception) {
+            failure = exception;
+            throw new UncheckedIOException("Unable to start a new write ahead log segment", exception);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all come before the sequence number
+     *
+     * @param firstSequence The sequence number of the first record to keep
+     * @throws IOException if the directory cannot be listed or a segment cannot be deleted
+     */
+    void deleteSegmentsBefore(long firstSequence) throws IOException {
+        List<Long> segmentStarts = segmentStarts(directory);
+        for (int i = 0; i + 1 < segmentStarts.size() && segmentStarts.get(i + 1) <= firstSequence; i++) {
+            Files.deleteIfExists(segmentFile(directory, segmentStarts.get(i)));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        flushLock.lock();
+        try {
+            segment.close();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(ByteBuffer records) {
+        if (failure != null) {
+            throw new UncheckedIOException("Write ahead log failed earlier", failure);
+        }
+        records.flip();
+        try {
+            while (records.hasRemaining()) {
+                segment.write(records);
+            }
+            segment.force(false);
+        }
+        catch (IOException exception) {
+            failure = exception;
+            throw new UncheckedIOException("Unable to write the write ahead log", exception);
+        } finally {
+            records.clear();
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        return FileChannel.open(segmentFile(directory, firstSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Reads every record logged after a sequence number, in order. A partly written record at the end of the log,
+     * left by a crash in the middle of a write, ends the log and is cut off.
+     *
+     * @param directory The directory holding the segments
+     * @param afterSequence The sequence number of the last record already reflected in the recovered state
+     * @param consumer Receives each record after the sequence number
+     * @return The sequence number of the last record in the log, or afterSequence if there is none after it
+     * @throws IOException if a segment cannot be read
+     */
+    static long replay(Path directory, long afterSequence, RecordConsumer consumer) throws IOException {
+        List<Long> segmentStarts = segmentStarts(directory);
+        long sequence = afterSequence;
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * RECORD_SIZE);
+        for (long segmentStart : segmentStarts) {
+            if (segmentStart > sequence + 1) {
+                throw new IllegalStateException("Write ahead log is missing records " + (sequence + 1) + " to " + (segmentStart - 1) + ".");
+            }
+            long recordSequence = segmentStart - 1;
+            try (FileChannel channel = FileChannel.open(segmentFile(directory, segmentStart), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long validBytes = 0;
+                boolean torn = false;
+                buffer.clear();
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    while (buffer.remaining() >= RECORD_SIZE) {
+                        byte type = buffer.get();
+                        int direction = buffer.get();
+                        short check = buffer.getShort();
+                        int roverId = buffer.getInt();
+                        int xCoordinate = buffer.getInt();
+                        int yCoordinate = buffer.getInt();
+                        if ((type != PARKED && type != MOVED) || direction < 0 || direction >= DIRECTIONS.length
+                                || check != check(type, direction, roverId, xCoordinate, yCoordinate)) {
+                            torn = true;
+                            break;
+                        }
+                        validBytes += RECORD_SIZE;
+                        if (++recordSequence > sequence) {
+                            sequence = recordSequence;
+                            consumer.accept(type, roverId, xCoordinate, yCoordinate, DIRECTIONS[direction]);
+                        }
+                    }
+                    if (torn) {
+                        break;
+                    }
+                    buffer.compact();
+                }
+                if (validBytes < channel.size()) {
+                    // Cut off the partly written record so the next segment carries on right after the last full record
+                    channel.truncate(validBytes);
+                    channel.force(true);
+                }
+            }
+        }
+        return sequence;
+    }
+
+    private static List<Long> segmentStarts(Path directory) throws IOException {
+        List<Long> segmentStarts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segmentStarts.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        segmentStarts.sort(null);
+        return segmentStarts;
+    }
+
+    private static Path segmentFile(Path directory, long firstSequence) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+    }
+
+    private static short check(byte type, int direction, int roverId, int xCoordinate, int yCoordinate) {
+        int hash = ((((type * 31) + direction) * 31 + roverId) * 31 + xCoordinate) * 31 + yCoordinate;
+        return (short) (hash ^ (hash >>> 16));
+    }
+
+    /**
+     * Receives the records of the log while it is replayed
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(byte type, int roverId, int xCoordinate, int yCoordinate, Direction direction);
+    }
+}
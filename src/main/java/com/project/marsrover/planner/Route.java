@@ -0,0 +1,39 @@
+package com.project.marsrover.planner;
+
+/**
+ * A planned route: the commands that drive a rover from its start pose to the target, and every coordinate the
+ * rover passes through on the way, start and target included.
+ */
+public class Route {
+    private final String commands;
+    private final int moveCount;
+    private final int turnCount;
+    // Coordinates along the route, packed as xCoordinate << 32 | yCoordinate
+    private final long[] cells;
+
+    Route(String commands, int moveCount, int turnCount, long[] cells) {
+        this.commands = commands;
+        this.moveCount = moveCount;
+        this.turnCount = turnCount;
+        this.cells = cells;
+    }
+
+    /**
+     * @return The comma separated commands, e.g f*3,r,f. Empty if the rover already is at the target
+     */
+    public String getCommands() {
+        return commands;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    long[] getCells() {
+        return cells;
+    }
+}
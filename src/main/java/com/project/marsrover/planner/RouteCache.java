@@ -0,0 +1,162 @@
+package com.project.marsrover.planner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded least recently used cache of planned routes. Every cached route is indexed by the coordinates it passes
+ * through, so taking a coordinate drops exactly the routes that pass through it and leaves every other route cached.
+ */
+class RouteCache {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<RouteKey, Route> routes;
+    // Cached routes by the coordinates they pass through
+    private final HashMap<Long, List<RouteKey>> routesByCell = new HashMap<>();
+    // Read without the lock so taking a coordinate costs nothing while no routes are cached
+    private volatile int cachedRouteCount;
+
+    RouteCache(int capacity) {
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RouteKey, Route> eldest) {
+                if (size() > capacity) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    Route get(RouteKey routeKey) {
+        lock.lock();
+        try {
+            return routes.get(routeKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(RouteKey routeKey, Route route) {
+        lock.lock();
+        try {
+            Route previous = routes.remove(routeKey);
+            if (previous != null) {
+                unindex(routeKey, previous);
+            }
+            for (long cell : route.getCells()) {
+                routesByCell.computeIfAbsent(cell, key -> new ArrayList<>(2)).add(routeKey);
+            }
+            routes.put(routeKey, route);
+            cachedRouteCount = routes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the route cached for the key if it is still the given route
+     *
+     * @param routeKey The start pose and target of the route
+     * @param route The route to drop, a route cached for the key since then is kept
+     */
+    void remove(RouteKey routeKey, Route route) {
+        lock.lock();
+        try {
+            if (routes.get(routeKey) == route) {
+                routes.remove(routeKey);
+                unindex(routeKey, route);
+                cachedRouteCount = routes.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every cached route passing through the coordinates
+     *
+     * @param cell The coordinates packed as xCoordinate << 32 | yCoordinate
+     */
+    void invalidate(long cell) {
+        if (cachedRouteCount == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            List<RouteKey> routeKeys = routesByCell.get(cell);
+            if (routeKeys == null) {
+                return;
+            }
+            for (RouteKey routeKey : new ArrayList<>(routeKeys)) {
+                Route route = routes.remove(routeKey);
+                if (route != null) {
+                    unindex(routeKey, route);
+                }
+            }
+            cachedRouteCount = routes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return routes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unindex(RouteKey routeKey, Route route) {
+        for (long cell : route.getCells()) {
+            List<RouteKey> routeKeys = routesByCell.get(cell);
+            if (routeKeys != null) {
+                routeKeys.remove(routeKey);
+                if (routeKeys.isEmpty()) {
+                    routesByCell.remove(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start pose and target of a planned route
+     */
+    static final class RouteKey {
+        private final int xCoordinate;
+        private final int yCoordinate;
+        private final int directionOrdinal;
+        private final int targetXCoordinate;
+        private final int targetYCoordinate;
+
+        RouteKey(int xCoordinate, int yCoordinate, int directionOrdinal, int targetXCoordinate, int targetYCoordinate) {
+            this.xCoordinate = xCoordinate;
+            this.yCoordinate = yCoordinate;
+            this.directionOrdinal = directionOrdinal;
+            this.targetXCoordinate = targetXCoordinate;
+            this.targetYCoordinate = targetYCoordinate;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RouteKey routeKey)) {
+                return false;
+            }
+            return xCoordinate == routeKey.xCoordinate && yCoordinate == routeKey.yCoordinate
+                    && directionOrdinal == routeKey.directionOrdinal
+                    && targetXCoordinate == routeKey.targetXCoordinate && targetYCoordinate == routeKey.targetYCoordinate;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(xCoordinate, yCoordinate, directionOrdinal, targetXCoordinate, targetYCoordinate);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.project.marsrover.planner;
+
+import com.project.marsrover.collections.LongIntHashMap;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.grid.OccupancyGrid;
+
+import java.util.Arrays;
+
+/**
+ * Plans collision free routes with A* search over rover poses, where a pose is a coordinate and a direction.
+ * Moving forward or backward costs one, turning costs the configured turn cost, and the distance in steps to the
+ * target is used as the estimate of the remaining cost, so the planned route never costs more than it has to.
+ * The search gives up after a bounded number of poses, so planning towards an unreachable target on a large
+ * plateau cannot run away. Planned routes are cached until a coordinate along them is taken.
+ */
+public class RoutePlanner {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte MOVE_FORWARD = 0;
+    private static final byte MOVE_BACKWARD = 1;
+    private static final byte TURN_LEFT = 2;
+    private static final byte TURN_RIGHT = 3;
+    private static final byte START = 4;
+    private static final int DEFAULT_TURN_COST = 1;
+    private static final int DEFAULT_MAX_EXPANDED_POSES = 1_000_000;
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private final int turnCost;
+    private final int maxExpandedPoses;
+    private final RouteCache routeCache;
+
+    public RoutePlanner() {
+        this(DEFAULT_TURN_COST, DEFAULT_MAX_EXPANDED_POSES, DEFAULT_CACHE_SIZE);
+    }
+
+    public RoutePlanner(int turnCost, int maxExpandedPoses, int cacheSize) {
+        if (turnCost < 1 || maxExpandedPoses < 1) {
+            throw new IllegalArgumentException("Turn cost and search limit must be positive.");
+        }
+        if ((long) Math.max(turnCost, 2) * maxExpandedPoses > Integer.MAX_VALUE / 2) {
+            // Route costs are kept in ints
+            throw new IllegalArgumentException("Turn cost and search limit are too large.");
+        }
+        this.turnCost = turnCost;
+        this.maxExpandedPoses = maxExpandedPoses;
+        this.routeCache = new RouteCache(cacheSize);
+    }
+
+    /**
+     * Plans a route from the start pose to the target that only passes through free coordinates.
+     * The start coordinate itself is not checked.
+     *
+     * @param mars The Mars occupancy grid holding the state of other existing rovers
+     * @param xCoordinate The xCoordinate the rover starts from
+     * @param yCoordinate The yCoordinate the rover starts from
+     * @param direction The direction the rover starts facing
+     * @param targetXCoordinate The xCoordinate to reach
+     * @param targetYCoordinate The yCoordinate to reach
+     * @return The cheapest route, or null if the target cannot be reached within the search limit
+     */
+    public Route plan(OccupancyGrid mars, int xCoordinate, int yCoordinate, Direction direction,
+                      int targetXCoordinate, int targetYCoordinate) {
+        RouteCache.RouteKey routeKey = new RouteCache.RouteKey(xCoordinate, yCoordinate, direction.ordinal(), targetXCoordinate, targetYCoordinate);
+        while (true) {
+            Route route = routeCache.get(routeKey);
+            if (route != null) {
+                return route;
+            }
+            route = new Search(mars, targetXCoordinate, targetYCoordinate).run(xCoordinate, yCoordinate, direction);
+            if (route == null) {
+                return null;
+            }
+            routeCache.put(routeKey, route);
+            // A coordinate along the route may have been taken while it was being planned, after the search read it
+            // but before the route was cached, so check the route once more now that later changes will invalidate it
+            if (isStillFree(mars, route)) {
+                return route;
+            }
+            // Its invalidation ran before it was cached, so drop it here or the next attempt would find it again
+            routeCache.remove(routeKey, route);
+        }
+    }
+
+    private static boolean isStillFree(OccupancyGrid mars, Route route) {
+        long[] cells = route.getCells();
+        for (int i = 1; i < cells.length; i++) {
+            if (mars.isOccupied((int) (cells[i] >>> 32), (int) cells[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the cached routes passing through coordinates that were just taken. Must be called after every
+     * coordinate taken on the grid the routes are planned on.
+     *
+     * @param xCoordinate The xCoordinate that was taken
+     * @param yCoordinate The yCoordinate that was taken
+     */
+    public void cellOccupied(int xCoordinate, int yCoordinate) {
+        routeCache.invalidate(((long) xCoordinate << 32) | yCoordinate);
+    }
+
+    /**
+     * @return The number of cached routes
+     */
+    public int getCachedRouteCount() {
+        return routeCache.size();
+    }
+
+    /**
+     * State of a single A* search. Poses are numbered in the order they are discovered and their search state is
+     * kept in primitive columns indexed by that number.
+     */
+    private final class Search {
+        private final OccupancyGrid mars;
+        private final int targetXCoordinate;
+        private final int targetYCoordinate;
+        // Pose number by pose, packed as xCoordinate << 33 | yCoordinate << 2 | direction
+        private final LongIntHashMap poseNumbers = new LongIntHashMap(1024);
+        private int[] xCoordinates = new int[1024];
+        private int[] yCoordinates = new int[1024];
+        private byte[] directions = new byte[1024];
+        // Cheapest known cost from the start pose
+        private int[] costs = new int[1024];
+        // Pose number this pose was reached from and the command that reached it
+        private int[] parents = new int[1024];
+        private byte[] actions = new byte[1024];
+        private boolean[] expanded = new boolean[1024];
+        private int poseCount;
+        // Binary heap of estimated total cost << 32 | pose number, cheapest first
+        private long[] open = new long[1024];
+        private int openSize;
+
+        private Search(OccupancyGrid mars, int targetXCoordinate, int targetYCoordinate) {
+            this.mars = mars;
+            this.targetXCoordinate = targetXCoordinate;
+            this.targetYCoordinate = targetYCoordinate;
+        }
+
+        private Route run(int xCoordinate, int yCoordinate, Direction direction) {
+            if (estimate(xCoordinate, yCoordinate) > maxExpandedPoses) {
+                // Every step of the route expands at least one pose
+                return null;
+            }
+            discover(xCoordinate, yCoordinate, direction.ordinal(), 0, -1, START);
+            int expandedPoses = 0;
+            while (openSize > 0 && expandedPoses < maxExpandedPoses) {
+                int pose = (int) pop();
+                if (expanded[pose]) {
+                    continue;
+                }
+                expanded[pose] = true;
+                expandedPoses++;
+                int x = xCoordinates[pose];
+                int y = yCoordinates[pose];
+                if (x == targetXCoordinate && y == targetYCoordinate) {
+                    return toRoute(pose);
+                }
+                Direction facing = DIRECTIONS[directions[pose]];
+                int cost = costs[pose];
+                tryMove(pose, x + facing.getxStep(), y + facing.getyStep(), facing, cost, MOVE_FORWARD);
+                tryMove(pose, x - facing.getxStep(), y - facing.getyStep(), facing, cost, MOVE_BACKWARD);
+                discover(x, y, facing.turnRight(3).ordinal(), cost + turnCost, pose, TURN_LEFT);
+                discover(x, y, facing.turnRight(1).ordinal(), cost + turnCost, pose, TURN_RIGHT);
+            }
+            return null;
+        }
+
+        private void tryMove(int parent, int x, int y, Direction facing, int cost, byte action) {
+            if (mars.isWithinBounds(x, y) && !mars.isOccupied(x, y)) {
+                discover(x, y, facing.ordinal(), cost + 1, parent, action);
+            }
+        }
+
+        /**
+         * Records a pose reached at the cost, unless it was already reached more cheaply
+         */
+        private void discover(int x, int y, int direction, int cost, int parent, byte action) {
+            long key = ((long) x << 33) | ((long) y << 2) | direction;
+            int pose = poseNumbers.get(key);
+            if (pose == LongIntHashMap.NO_VALUE) {
+                pose = poseCount++;
+                if (pose == costs.length) {
+                    grow();
+                }
+                poseNumbers.put(key, pose);
+                xCoordinates[pose] = x;
+                yCoordinates[pose] = y;
+                directions[pose] = (byte) direction;
+            } else if (expanded[pose] || costs[pose] <= cost) {
+                return;
+            }
+            costs[pose] = cost;
+            parents[pose] = parent;
+            actions[pose] = action;
+            push(((cost + estimate(x, y)) << 32) | pose);
+        }
+
+        private long estimate(int x, int y) {
+            return Math.abs((long) x - targetXCoordinate) + Math.abs((long) y - targetYCoordinate);
+        }
+
+        private Route toRoute(int targetPose) {
+            int length = 0;
+            for (int pose = targetPose; actions[pose] != START; pose = parents[pose]) {
+                length++;
+            }
+            byte[] path = new byte[length];
+            long[] cells = new long[length + 1];
+            int pose = targetPose;
+            for (int i = length - 1; i >= 0; i--) {
+                path[i] = actions[pose];
+                cells[i + 1] = ((long) xCoordinates[pose] << 32) | yCoordinates[pose];
+                pose = parents[pose];
+            }
+            cells[0] = ((long) xCoordinates[pose] << 32) | yCoordinates[pose];
+            // Turns do not change the coordinate, keep each coordinate once
+            long[] distinctCells = Arrays.stream(cells).distinct().toArray();
+
+            StringBuilder commands = new StringBuilder();
+            int moveCount = 0;
+            int turnCount = 0;
+            for (int i = 0; i < length; ) {
+                int run = 1;
+                while (i + run < length && path[i + run] == path[i] && path[i] <= MOVE_BACKWARD) {
+                    run++;
+                }
+                if (commands.length() > 0) {
+                    commands.append(',');
+                }
+                switch (path[i]) {
+                    case MOVE_FORWARD -> commands.append('f');
+                    case MOVE_BACKWARD -> commands.append('b');
+                    case TURN_LEFT -> commands.append('l');
+                    default -> commands.append('r');
+                }
+                if (run > 1) {
+                    commands.append('*').append(run);
+                }
+                if (path[i] <= MOVE_BACKWARD) {
+                    moveCount += run;
+                } else {
+                    turnCount++;
+                }
+                i += run;
+            }
+            return new Route(commands.toString(), moveCount, turnCount, distinctCells);
+        }
+
+        private void grow() {
+            int capacity = costs.length * 2;
+            xCoordinates = Arrays.copyOf(xCoordinates, capacity);
+            yCoordinates = Arrays.copyOf(yCoordinates, capacity);
+            directions = Arrays.copyOf(directions, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            expanded = Arrays.copyOf(expanded, capacity);
+        }
+
+        private void push(long entry) {
+            if (openSize == open.length) {
+                open = Arrays.copyOf(open, openSize * 2);
+            }
+            int index = openSize++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (open[parent] <= entry) {
+                    break;
+                }
+                open[index] = open[parent];
+                index = parent;
+            }
+            open[index] = entry;
+        }
+
+        /**
+         * @return The pose number of the cheapest open entry, removing it from the heap
+         */
+        private long pop() {
+            long top = open[0];
+            long last = open[--openSize];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= openSize) {
+                    break;
+                }
+                if (child + 1 < openSize && open[child + 1] < open[child]) {
+                    child++;
+                }
+                if (open[child] >= last) {
+                    break;
+                }
+                open[index] = open[child];
+                index = child;
+            }
+            open[index] = last;
+            return top & 0xFFFFFFFFL;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.project.marsrover.plateau;
+
+import com.project.marsrover.enums.GridType;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.service.MarsRoverService;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A named plateau and, while it is loaded, the grid, registry and service holding its rovers
+ */
+final class Plateau {
+    final String name;
+    final int width;
+    final int height;
+    final GridType gridType;
+    // Held for reading by every request on the plateau, and for writing while it is loaded or evicted
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Null while the plateau is evicted, only changed under the write lock
+    volatile Loaded loaded;
+    // Number of rover IDs handed out when the plateau was last evicted
+    volatile int evictedRoverCount;
+    // System.nanoTime() of the last request, the least recently used plateaus are evicted first
+    volatile long lastAccessNanos;
+
+    Plateau(String name, int width, int height, GridType gridType, Loaded loaded) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.gridType = gridType;
+        this.loaded = loaded;
+        this.lastAccessNanos = System.nanoTime();
+    }
+
+    /**
+     * @return The number of rover IDs handed out on the plateau, as of its eviction if it is not loaded
+     */
+    int roverCount() {
+        Loaded current = loaded;
+        return current != null ? current.roverRegistry.size() : evictedRoverCount;
+    }
+
+    /**
+     * The in memory state of a loaded plateau
+     */
+    static final class Loaded {
+        final OccupancyGrid mars;
+        final RoverRegistry roverRegistry;
+        final MarsRoverService marsRoverService;
+
+        Loaded(OccupancyGrid mars, RoverRegistry roverRegistry, MarsRoverService marsRoverService) {
+            this.mars = mars;
+            this.roverRegistry = roverRegistry;
+            this.marsRoverService = marsRoverService;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.project.marsrover.plateau;
+
+import com.project.marsrover.service.MarsRoverService;
+
+/**
+ * Keeps a plateau loaded while a request runs on it. Close it once the request is done so the plateau can be
+ * evicted again.
+ */
+public final class PlateauLease implements AutoCloseable {
+    private final MarsRoverService marsRoverService;
+    // Null for the default plateau, which is never evicted
+    private final Runnable release;
+
+    PlateauLease(MarsRoverService marsRoverService, Runnable release) {
+        this.marsRoverService = marsRoverService;
+        this.release = release;
+    }
+
+    /**
+     * @return The service holding the rovers of the plateau
+     */
+    public MarsRoverService getService() {
+        return marsRoverService;
+    }
+
+    @Override
+    public void close() {
+        if (release != null) {
+            release.run();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.project.marsrover.plateau;
+
+import com.project.marsrover.enums.GridType;
+import com.project.marsrover.events.RoverEventBus;
+import com.project.marsrover.exceptions.InvalidQueryException;
+import com.project.marsrover.exceptions.PlateauNotFoundException;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.metrics.MarsRoverMetrics;
+import com.project.marsrover.objects.PlateauInfo;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.persistence.MarsPersistence;
+import com.project.marsrover.planner.RoutePlanner;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.service.MarsRoverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Named plateaus next to the default one, each with its own dimensions, occupancy grid, rover registry and route
+ * planner behind its own MarsRoverService, so requests on different plateaus never wait on each other. The compiled
+ * commands cache, event bus, metrics and parallel pool are shared.
+ * When the estimated heap use of the loaded plateaus goes over the memory budget, the least recently used plateaus
+ * without a request in flight are written to a snapshot file and dropped from memory, then loaded again on their next
+ * request. Evicted plateaus only live as long as the application, they are not recovered after a restart.
+ */
+public class PlateauManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlateauManager.class);
+    public static final String DEFAULT_PLATEAU = "default";
+    // Plateau names end up in file names
+    private static final Pattern PLATEAU_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String SNAPSHOT_SUFFIX = ".rovers";
+    // Rough heap use of a rover in the registry columns, its coordinate lookup and the spatial index
+    private static final long REGISTRY_BYTES_PER_ROVER = 64;
+    // Rough heap use of a taken coordinate in a sparse grid
+    private static final long SPARSE_BYTES_PER_ROVER = 16;
+    // Plateaus growing while loaded are checked against the budget at most this often, loads always check
+    private static final long BUDGET_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MarsRoverService defaultService;
+    private final Path directory;
+    private final long memoryBudgetBytes;
+    private final CommandProgramCache commandProgramCache;
+    private final RoverEventBus roverEventBus;
+    private final MarsRoverMetrics metrics;
+    private final Supplier<RoutePlanner> routePlanners;
+    private final ForkJoinPool parallelPool;
+    private final ConcurrentHashMap<String, Plateau> plateaus = new ConcurrentHashMap<>();
+    // Only one thread looks for plateaus to evict at a time
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // System.nanoTime() after which the next finished request checks the budget
+    private final AtomicLong nextBudgetCheckNanos = new AtomicLong(System.nanoTime());
+
+    public PlateauManager(MarsRoverService defaultService, Path directory, long memoryBudgetBytes) {
+        this(defaultService, directory, memoryBudgetBytes, new CommandProgramCache(4096), RoverEventBus.disabled(),
+                MarsRoverMetrics.noop(), RoutePlanner::new, ForkJoinPool.commonPool());
+    }
+
+    public PlateauManager(MarsRoverService defaultService, Path directory, long memoryBudgetBytes,
+                          CommandProgramCache commandProgramCache, RoverEventBus roverEventBus, MarsRoverMetrics metrics,
+                          Supplier<RoutePlanner> routePlanners, ForkJoinPool parallelPool) {
+        this.defaultService = defaultService;
+        this.directory = directory;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.commandProgramCache = commandProgramCache;
+        this.roverEventBus = roverEventBus;
+        this.metrics = metrics;
+        this.routePlanners = routePlanners;
+        this.parallelPool = parallelPool;
+    }
+
+    /**
+     * Creates an empty named plateau
+     *
+     * @param name The plateau name, letters, digits, _ and - only
+     * @param width The number of valid x coordinates
+     * @param height The number of valid y coordinates
+     * @param gridType The occupancy store of the plateau, SPARSE if null
+     * @return The new plateau
+     * @throws InvalidQueryException if the name is invalid or taken, or the dimensions are invalid
+     */
+    public PlateauInfo createPlateau(String name, int width, int height, GridType gridType) throws InvalidQueryException {
+        if (name == null || !PLATEAU_NAME.matcher(name).matches() || DEFAULT_PLATEAU.equals(name)) {
+            throw new InvalidQueryException("Invalid plateau name, must be 1 to 64 letters, digits, _ or - and not " + DEFAULT_PLATEAU + ".");
+        }
+        GridType type = gridType != null ? gridType : GridType.SPARSE;
+        if (type == GridType.DENSE && BitmapOccupancyGrid.bitmapBytes(width, height) > memoryBudgetBytes) {
+            throw new InvalidQueryException("A dense " + width + " x " + height + " plateau does not fit in the plateau memory budget.");
+        }
+        Plateau plateau;
+        try {
+            plateau = new Plateau(name, width, height, type, load(name, width, height, type));
+        }
+        catch (IllegalArgumentException exception) {
+            throw new InvalidQueryException(exception.getMessage());
+        }
+        if (plateaus.putIfAbsent(name, plateau) != null) {
+            throw new InvalidQueryException("Plateau " + name + " already exists.");
+        }
+        evictOverBudget();
+        return info(plateau);
+    }
+
+    /**
+     * @return Every named plateau, loaded or evicted, ordered by name
+     */
+    public List<PlateauInfo> listPlateaus() {
+        List<PlateauInfo> plateauInfos = new ArrayList<>();
+        for (Plateau plateau : plateaus.values()) {
+            plateauInfos.add(info(plateau));
+        }
+        plateauInfos.sort(Comparator.comparing(PlateauInfo::getName));
+        return plateauInfos;
+    }
+
+    /**
+     * Keeps a plateau loaded until the lease is closed, loading it from its snapshot file first if it was evicted.
+     * Requests on the same plateau share the lease, they only exclude eviction.
+     *
+     * @param name The plateau name, null or default for the plateau configured in application.properties
+     * @return The lease holding the service of the plateau, to be closed once the request is done
+     * @throws PlateauNotFoundException if there is no plateau with the name
+     */
+    public PlateauLease acquire(String name) throws PlateauNotFoundException {
+        if (name == null || DEFAULT_PLATEAU.equals(name)) {
+            return new PlateauLease(defaultService, null);
+        }
+        Plateau plateau = plateaus.get(name);
+        if (plateau == null) {
+            throw new PlateauNotFoundException("There is no plateau named " + name + ".");
+        }
+        plateau.lastAccessNanos = System.nanoTime();
+        Lock readLock = plateau.lock.readLock();
+        readLock.lock();
+        Plateau.Loaded loaded = plateau.loaded;
+        if (loaded != null) {
+            return new PlateauLease(loaded.marsRoverService, () -> release(readLock));
+        }
+        readLock.unlock();
+        plateau.lock.writeLock().lock();
+        try {
+            if (plateau.loaded == null) {
+                reload(plateau);
+            }
+            loaded = plateau.loaded;
+            // Downgrade, so the plateau cannot be evicted again before the request runs
+            readLock.lock();
+        } finally {
+            plateau.lock.writeLock().unlock();
+        }
+        evictOverBudget();
+        return new PlateauLease(loaded.marsRoverService, () -> release(readLock));
+    }
+
+    private void release(Lock readLock) {
+        readLock.unlock();
+        long checkNanos = nextBudgetCheckNanos.get();
+        long now = System.nanoTime();
+        if (now - checkNanos >= 0 && nextBudgetCheckNanos.compareAndSet(checkNanos, now + BUDGET_CHECK_INTERVAL_NANOS)) {
+            evictOverBudget();
+        }
+    }
+
+    private Plateau.Loaded load(String name, int width, int height, GridType gridType) {
+        OccupancyGrid mars = switch (gridType) {
+            case SPARSE -> new SparseOccupancyGrid(width, height);
+            case DENSE -> new BitmapOccupancyGrid(width, height);
+        };
+        RoverRegistry roverRegistry = new RoverRegistry();
+        MarsRoverService marsRoverService = new MarsRoverService(name, mars, commandProgramCache, roverEventBus,
+                metrics, roverRegistry, routePlanners.get(), parallelPool);
+        return new Plateau.Loaded(mars, roverRegistry, marsRoverService);
+    }
+
+    private void reload(Plateau plateau) {
+        Plateau.Loaded loaded = load(plateau.name, plateau.width, plateau.height, plateau.gridType);
+        Path snapshotFile = snapshotFile(plateau);
+        try {
+            int parkedCount = MarsPersistence.importRovers(snapshotFile, loaded.mars, loaded.roverRegistry);
+            Files.delete(snapshotFile);
+            LOGGER.info("Loaded plateau {} with {} rovers", plateau.name, parkedCount);
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException("Unable to load plateau " + plateau.name, exception);
+        }
+        plateau.loaded = loaded;
+    }
+
+    /**
+     * Evicts the least recently used plateaus until the loaded ones fit in the memory budget. Plateaus with a request
+     * in flight or a feed subscriber are skipped, so the budget can be exceeded while they are busy.
+     */
+    private void evictOverBudget() {
+        if (estimatedBytes() <= memoryBudgetBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Plateau> candidates = new ArrayList<>();
+            long totalBytes = 0;
+            for (Plateau plateau : plateaus.values()) {
+                Plateau.Loaded loaded = plateau.loaded;
+                if (loaded != null) {
+                    candidates.add(plateau);
+                    totalBytes += estimatedBytes(plateau, loaded);
+                }
+            }
+            candidates.sort(Comparator.comparingLong(plateau -> plateau.lastAccessNanos));
+            for (Plateau plateau : candidates) {
+                if (totalBytes <= memoryBudgetBytes) {
+                    break;
+                }
+                if (!plateau.lock.writeLock().tryLock()) {
+                    continue;
+                }
+                try {
+                    Plateau.Loaded loaded = plateau.loaded;
+                    // Feed subscribers stay attached to the service of the loaded plateau
+                    if (loaded != null && !loaded.marsRoverService.hasSubscribers() && evict(plateau, loaded)) {
+                        totalBytes -= estimatedBytes(plateau, loaded);
+                    }
+                } finally {
+                    plateau.lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean evict(Plateau plateau, Plateau.Loaded loaded) {
+        try {
+            Files.createDirectories(directory);
+            MarsPersistence.exportRovers(snapshotFile(plateau), loaded.mars, loaded.roverRegistry);
+        }
+        catch (IOException exception) {
+            LOGGER.warn("Unable to evict plateau {}, keeping it loaded", plateau.name, exception);
+            return false;
+        }
+        plateau.evictedRoverCount = loaded.roverRegistry.size();
+        plateau.loaded = null;
+        loaded.marsRoverService.unbindMetrics();
+        LOGGER.info("Evicted plateau {} with {} rover IDs", plateau.name, plateau.evictedRoverCount);
+        return true;
+    }
+
+    private long estimatedBytes() {
+        long totalBytes = 0;
+        for (Plateau plateau : plateaus.values()) {
+            Plateau.Loaded loaded = plateau.loaded;
+            if (loaded != null) {
+                totalBytes += estimatedBytes(plateau, loaded);
+            }
+        }
+        return totalBytes;
+    }
+
+    private static long estimatedBytes(Plateau plateau, Plateau.Loaded loaded) {
+        long gridBytes = plateau.gridType == GridType.DENSE
+                ? BitmapOccupancyGrid.bitmapBytes(plateau.width, plateau.height)
+                : loaded.mars.getOccupiedCount() * SPARSE_BYTES_PER_ROVER;
+        return gridBytes + loaded.roverRegistry.size() * REGISTRY_BYTES_PER_ROVER;
+    }
+
+    private Path snapshotFile(Plateau plateau) {
+        return directory.resolve(plateau.name + SNAPSHOT_SUFFIX);
+    }
+
+    private static PlateauInfo info(Plateau plateau) {
+        return new PlateauInfo(plateau.name, plateau.width, plateau.height, plateau.gridType, plateau.roverCount(),
+                plateau.loaded != null);
+    }
+}
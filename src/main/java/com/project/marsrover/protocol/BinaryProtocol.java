@@ -0,0 +1,207 @@
+package com.project.marsrover.protocol;
+
+import com.project.marsrover.enums.Command;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.objects.DeployRoverBatchResult;
+import com.project.marsrover.objects.DeployRoverResult;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary form of deployments, for clients that send many deployments over one connection.
+ * Every message is a frame: the payload length as an unsigned varint followed by the payload. Signed numbers are
+ * zigzag encoded varints, directions and stop reasons are their enum ordinal in one byte, and commands are packed
+ * four to a byte, lowest bits first, as their Command ordinal (0 forward, 1 backward, 2 right, 3 left).
+ * <p>
+ * Deploy request: type 1, x, y, direction, command count as an unsigned varint, packed commands.
+ * Response: 0, rover ID as an unsigned varint, x, y, final direction, stop reason for a parked rover, or
+ * 1, message length as an unsigned varint, UTF-8 message for a failed deployment.
+ * Responses come back in the same order as the requests.
+ */
+public final class BinaryProtocol {
+    public static final byte DEPLOY = 1;
+    public static final byte PARKED = 0;
+    public static final byte FAILED = 1;
+    // Largest payload accepted, enough for about four million packed commands
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final StopReason[] STOP_REASONS = StopReason.values();
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Appends a deploy request frame
+     *
+     * @param out The buffer to append to, with enough room for the frame
+     * @param xCoordinate The xCoordinate to deploy the rover at
+     * @param yCoordinate The yCoordinate to deploy the rover at
+     * @param direction The direction the rover is deployed facing
+     * @param commands The commands for the rover
+     */
+    public static void writeDeployRequest(ByteBuffer out, int xCoordinate, int yCoordinate, Direction direction, Command[] commands) {
+        int payloadLength = 1 + varintLength(zigzag(xCoordinate)) + varintLength(zigzag(yCoordinate)) + 1
+                + varintLength(commands.length) + packedLength(commands.length);
+        writeVarint(out, payloadLength);
+        out.put(DEPLOY);
+        writeVarint(out, zigzag(xCoordinate));
+        writeVarint(out, zigzag(yCoordinate));
+        out.put((byte) direction.ordinal());
+        writeVarint(out, commands.length);
+        int packed = 0;
+        for (int i = 0; i < commands.length; i++) {
+            packed |= commands[i].ordinal() << ((i & 3) << 1);
+            if ((i & 3) == 3 || i == commands.length - 1) {
+                out.put((byte) packed);
+                packed = 0;
+            }
+        }
+    }
+
+    /**
+     * Appends a response frame
+     *
+     * @param out The buffer to append to, with enough room for the frame, see maxResponseLength
+     * @param deployRoverBatchResult The result of the deployment or the reason it failed
+     */
+    public static void writeResponse(ByteBuffer out, DeployRoverBatchResult deployRoverBatchResult) {
+        DeployRoverResult result = deployRoverBatchResult.getResult();
+        if (result == null) {
+            byte[] message = deployRoverBatchResult.getError().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, 1 + varintLength(message.length) + message.length);
+            out.put(FAILED);
+            writeVarint(out, message.length);
+            out.put(message);
+            return;
+        }
+        int roverId = result.getRoverId();
+        int xCoordinate = zigzag(result.getxCoordinate());
+        int yCoordinate = zigzag(result.getyCoordinate());
+        writeVarint(out, 1 + varintLength(roverId) + varintLength(xCoordinate) + varintLength(yCoordinate) + 2);
+        out.put(PARKED);
+        writeVarint(out, roverId);
+        writeVarint(out, xCoordinate);
+        writeVarint(out, yCoordinate);
+        out.put((byte) result.getFinalDirection().ordinal());
+        out.put((byte) result.getStopReason().ordinal());
+    }
+
+    /**
+     * Reads a response frame
+     *
+     * @param in The buffer positioned at the start of a complete frame, advanced past it
+     * @return The result of the deployment or the reason it failed
+     * @throws ProtocolException if the frame is malformed
+     */
+    public static DeployRoverBatchResult readResponse(ByteBuffer in) throws ProtocolException {
+        int length = readFrameLength(in);
+        if (length < 0 || in.remaining() < length) {
+            throw new ProtocolException("Incomplete response.");
+        }
+        byte status = in.get();
+        if (status == FAILED) {
+            byte[] message = new byte[readVarint(in)];
+            in.get(message);
+            return new DeployRoverBatchResult(null, new String(message, StandardCharsets.UTF_8));
+        }
+        int roverId = readVarint(in);
+        int xCoordinate = unzigzag(readVarint(in));
+        int yCoordinate = unzigzag(readVarint(in));
+        Direction direction = DIRECTIONS[in.get()];
+        StopReason stopReason = STOP_REASONS[in.get()];
+        return new DeployRoverBatchResult(new DeployRoverResult(roverId, xCoordinate, yCoordinate, direction, stopReason), null);
+    }
+
+    /**
+     * @param deployRoverBatchResult The result of the deployment or the reason it failed
+     * @return The largest number of bytes its response frame can take
+     */
+    public static int maxResponseLength(DeployRoverBatchResult deployRoverBatchResult) {
+        String error = deployRoverBatchResult.getError();
+        // Length, status, then either the message with its length or the rover ID, coordinates, direction and stop reason
+        return 5 + 1 + (error != null ? 5 + error.length() * 3 : 5 * 3 + 2);
+    }
+
+    /**
+     * Reads the payload length of the next frame if it is complete
+     *
+     * @param in The buffer positioned at the start of a frame
+     * @return The payload length, advancing past the length, or -1 without advancing if the length is not complete yet
+     * @throws ProtocolException if the length is malformed or above MAX_FRAME_LENGTH
+     */
+    public static int readFrameLength(ByteBuffer in) throws ProtocolException {
+        int start = in.position();
+        int length = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            if (!in.hasRemaining()) {
+                in.position(start);
+                return -1;
+            }
+            byte next = in.get();
+            length |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                if (length > MAX_FRAME_LENGTH) {
+                    throw new ProtocolException("Frame of " + length + " bytes is above the limit of " + MAX_FRAME_LENGTH + " bytes.");
+                }
+                return length;
+            }
+        }
+        throw new ProtocolException("Malformed frame length.");
+    }
+
+    /**
+     * @param in The buffer positioned at an unsigned varint, advanced past it
+     * @return The value, or -1 if it does not fit in an int
+     */
+    public static int readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte next = in.get();
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value > Integer.MAX_VALUE ? -1 : (int) value;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param out The buffer to append to
+     * @param value The value to append as an unsigned varint
+     */
+    public static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * @param commandCount The number of commands
+     * @return The number of bytes the packed commands take
+     */
+    public static int packedLength(int commandCount) {
+        return (commandCount + 3) >>> 2;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,390 @@
+package com.project.marsrover.protocol;
+
+import com.project.marsrover.config.ThreadModes;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.ThreadMode;
+import com.project.marsrover.objects.DeployRoverBatchResult;
+import com.project.marsrover.parser.CommandProgram;
+import com.project.marsrover.parser.DeployRoverParser;
+import com.project.marsrover.service.MarsRoverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Accepts deployments in the compact form of BinaryProtocol over plain TCP, next to the JSON endpoints.
+ * Connections are spread over a few reactor threads, each waiting on its own selector. A reactor deploys every
+ * complete frame it has read from a connection, then hands the connection to a sync thread that waits for them to be
+ * persisted, and writes their responses in order once it is handed back, so clients can pipeline many requests without
+ * waiting for each response and a disk flush never holds up the other connections of the reactor. Concurrent syncs
+ * share a single flush of the write ahead log. A connection is not read from while its responses are being persisted
+ * or are waiting to be written, so a client that does not read its responses only holds up itself.
+ */
+public class BinaryProtocolServer implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryProtocolServer.class);
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final String MALFORMED_REQUEST = "Malformed request.";
+    private static final String UNKNOWN_REQUEST = "Unknown request type.";
+    private static final String INVALID_DIRECTION = "Invalid direction.";
+
+    private final MarsRoverService marsRoverService;
+    private final ServerSocketChannel serverChannel;
+    private final Thread acceptor;
+    private final List<Reactor> reactors = new ArrayList<>();
+    // Waits for the deployments of a connection to be persisted, at most one sync per connection at a time
+    private final ExecutorService syncers;
+    private volatile boolean closed;
+
+    private BinaryProtocolServer(MarsRoverService marsRoverService, ServerSocketChannel serverChannel, int threads,
+                                 ThreadFactory syncThreadFactory) throws IOException {
+        this.marsRoverService = marsRoverService;
+        this.serverChannel = serverChannel;
+        this.syncers = Executors.newCachedThreadPool(syncThreadFactory);
+        for (int i = 0; i < threads; i++) {
+            Reactor reactor = new Reactor(Selector.open(), "rover-binary-" + (i + 1));
+            reactors.add(reactor);
+            reactor.thread.start();
+        }
+        this.acceptor = new Thread(this::accept, "rover-binary-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Starts listening for binary deployments
+     *
+     * @param address The address to listen on, port 0 for any free port
+     * @param marsRoverService The service of the plateau to deploy on
+     * @param threads The number of reactor threads, 0 for one per processor
+     * @return The running server, to be closed on shutdown
+     * @throws IOException if the address cannot be bound
+     */
+    public static BinaryProtocolServer start(InetSocketAddress address, MarsRoverService marsRoverService, int threads) throws IOException {
+        return start(address, marsRoverService, threads, ThreadModes.threadFactory(ThreadMode.PLATFORM, "rover-binary-sync-"));
+    }
+
+    /**
+     * Starts listening for binary deployments
+     *
+     * @param address The address to listen on, port 0 for any free port
+     * @param marsRoverService The service of the plateau to deploy on
+     * @param threads The number of reactor threads, 0 for one per processor
+     * @param syncThreadFactory Creates the threads waiting for deployments to be persisted, one per connection at most
+     * @return The running server, to be closed on shutdown
+     * @throws IOException if the address cannot be bound
+     */
+    public static BinaryProtocolServer start(InetSocketAddress address, MarsRoverService marsRoverService, int threads,
+                                             ThreadFactory syncThreadFactory) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            BinaryProtocolServer server = new BinaryProtocolServer(marsRoverService, serverChannel,
+                    threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), syncThreadFactory);
+            LOGGER.info("Listening for binary deployments on {}", serverChannel.getLocalAddress());
+            return server;
+        }
+        catch (IOException | RuntimeException exception) {
+            serverChannel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * @return The port the server is listening on
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        }
+        catch (IOException exception) {
+            throw new IllegalStateException("Binary protocol server is closed", exception);
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes every open connection
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+        for (Reactor reactor : reactors) {
+            reactor.selector.wakeup();
+        }
+        try {
+            acceptor.join();
+            for (Reactor reactor : reactors) {
+                reactor.thread.join();
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            syncers.shutdown();
+        }
+    }
+
+    private void accept() {
+        int next = 0;
+        while (!closed) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Reactor reactor = reactors.get(next);
+                next = (next + 1) % reactors.size();
+                reactor.pending.add(channel);
+                reactor.selector.wakeup();
+            }
+            catch (ClosedChannelException exception) {
+                return;
+            }
+            catch (IOException exception) {
+                LOGGER.warn("Unable to accept a binary protocol connection", exception);
+            }
+        }
+    }
+
+    /**
+     * Deploys the rover of a single request frame
+     *
+     * @return The result of the deployment or the reason it failed
+     */
+    private DeployRoverBatchResult deploy(ByteBuffer frame) {
+        try {
+            if (frame.get() != BinaryProtocol.DEPLOY) {
+                return new DeployRoverBatchResult(null, UNKNOWN_REQUEST);
+            }
+            int xCoordinate = BinaryProtocol.unzigzag(BinaryProtocol.readVarint(frame));
+            int yCoordinate = BinaryProtocol.unzigzag(BinaryProtocol.readVarint(frame));
+            int direction = frame.get();
+            int commandCount = BinaryProtocol.readVarint(frame);
+            if (direction < 0 || direction >= DIRECTIONS.length) {
+                return new DeployRoverBatchResult(null, INVALID_DIRECTION);
+            }
+            if (commandCount < 0 || frame.remaining() != BinaryProtocol.packedLength(commandCount)) {
+                return new DeployRoverBatchResult(null, MALFORMED_REQUEST);
+            }
+            int packedLength = frame.remaining();
+            CommandProgram program = DeployRoverParser.parsePackedCommands(frame, commandCount);
+            return marsRoverService.runCompiledDeployment(xCoordinate, yCoordinate, DIRECTIONS[direction], program, packedLength);
+        }
+        catch (BufferUnderflowException exception) {
+            return new DeployRoverBatchResult(null, MALFORMED_REQUEST);
+        }
+    }
+
+    /**
+     * Thread serving its share of the connections through its own selector
+     */
+    private final class Reactor {
+        private final Selector selector;
+        private final Thread thread;
+        // Connections handed over by the acceptor, registered by the reactor thread itself
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        // Connections handed back by the sync threads, with their responses ready to be written
+        private final Queue<Connection> synced = new ConcurrentLinkedQueue<>();
+
+        private Reactor(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            try {
+                while (!closed) {
+                    selector.select();
+                    SocketChannel accepted;
+                    while ((accepted = pending.poll()) != null) {
+                        accepted.register(selector, SelectionKey.OP_READ, new Connection(accepted, this));
+                    }
+                    Connection syncedConnection;
+                    while ((syncedConnection = synced.poll()) != null) {
+                        syncedConnection.completeSync();
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write(key);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read(key);
+                            }
+                        }
+                        catch (IOException | RuntimeException exception) {
+                            LOGGER.debug("Closing binary protocol connection", exception);
+                            connection.close(key);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            }
+            catch (IOException | ClosedSelectorException exception) {
+                LOGGER.warn("Binary protocol reactor stopped", exception);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close(key);
+                }
+                SocketChannel accepted;
+                while ((accepted = pending.poll()) != null) {
+                    try {
+                        accepted.close();
+                    }
+                    catch (IOException exception) {
+                        // Nothing was sent on it yet
+                    }
+                }
+                try {
+                    selector.close();
+                }
+                catch (IOException exception) {
+                    LOGGER.warn("Unable to close binary protocol selector", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers of a single connection, only used by its reactor thread
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final Reactor reactor;
+        // Set by the sync thread when the deployments could not be persisted, read once the connection is handed back
+        private volatile boolean syncFailed;
+        // Bytes read but not handled yet, in write mode
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        // Responses not written yet, in write mode
+        private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        private Connection(SocketChannel channel, Reactor reactor) {
+            this.channel = channel;
+            this.reactor = reactor;
+        }
+
+        private void read(SelectionKey key) throws IOException {
+            if (channel.read(in) < 0) {
+                close(key);
+                return;
+            }
+            in.flip();
+            int handled = 0;
+            // Room needed for the frame read only in part, which starts the buffer after compact
+            int partialFrameBytes = 0;
+            try {
+                while (true) {
+                    int frameStart = in.position();
+                    int length = BinaryProtocol.readFrameLength(in);
+                    if (length < 0) {
+                        break;
+                    }
+                    if (in.remaining() < length) {
+                        partialFrameBytes = in.position() - frameStart + length;
+                        in.position(frameStart);
+                        break;
+                    }
+                    ByteBuffer frame = in.slice(in.position(), length);
+                    in.position(in.position() + length);
+                    DeployRoverBatchResult result = deploy(frame);
+                    ensureOutput(BinaryProtocol.maxResponseLength(result));
+                    BinaryProtocol.writeResponse(out, result);
+                    handled++;
+                }
+            } finally {
+                in.compact();
+            }
+            if (partialFrameBytes > in.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(partialFrameBytes);
+                in.flip();
+                in = grown.put(in);
+            }
+            if (handled > 0) {
+                // Responses only leave once the rovers they report are persisted, stop reading until they are written
+                key.interestOps(0);
+                syncers.execute(this::sync);
+            }
+        }
+
+        /**
+         * Runs on a sync thread, then hands the connection back to its reactor to write the responses
+         */
+        private void sync() {
+            try {
+                marsRoverService.sync();
+            }
+            catch (RuntimeException exception) {
+                LOGGER.warn("Unable to persist binary protocol deployments, closing the connection", exception);
+                syncFailed = true;
+            } finally {
+                reactor.synced.add(this);
+                reactor.selector.wakeup();
+            }
+        }
+
+        private void completeSync() {
+            SelectionKey key = channel.keyFor(reactor.selector);
+            if (key == null || !key.isValid()) {
+                return;
+            }
+            if (syncFailed) {
+                close(key);
+                return;
+            }
+            try {
+                write(key);
+            }
+            catch (IOException | RuntimeException exception) {
+                LOGGER.debug("Closing binary protocol connection", exception);
+                close(key);
+            }
+        }
+
+        private void write(SelectionKey key) throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            // Stop reading until the client takes its responses
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void ensureOutput(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                out = grown.put(out);
+            }
+        }
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            try {
+                channel.close();
+            }
+            catch (IOException exception) {
+                LOGGER.debug("Unable to close binary protocol connection", exception);
+            }
+        }
+    }
+}
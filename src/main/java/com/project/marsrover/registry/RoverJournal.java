@@ -0,0 +1,57 @@
+package com.project.marsrover.registry;
+
+import com.project.marsrover.enums.Direction;
+
+/**
+ * Receives every change of a registered rover position, in the order the changes are applied to each rover.
+ * Changes are reported while the registry holds the lock of the rover, so implementations must only buffer them.
+ */
+public interface RoverJournal {
+    /**
+     * Journal that keeps nothing, used while persistence is disabled
+     */
+    RoverJournal NONE = new RoverJournal() {
+        @Override
+        public void parked(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        }
+
+        @Override
+        public void moved(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        }
+
+        @Override
+        public void sync() {
+        }
+
+        @Override
+        public void awaitCapacity() {
+        }
+    };
+
+    /**
+     * @param roverId The ID of the newly registered rover
+     * @param xCoordinate The xCoordinate the rover is parked at
+     * @param yCoordinate The yCoordinate the rover is parked at
+     * @param direction The direction the rover is facing
+     */
+    void parked(int roverId, int xCoordinate, int yCoordinate, Direction direction);
+
+    /**
+     * @param roverId The ID of the moved rover
+     * @param xCoordinate The xCoordinate the rover is now parked at, its old coordinates are released
+     * @param yCoordinate The yCoordinate the rover is now parked at
+     * @param direction The direction the rover is now facing
+     */
+    void moved(int roverId, int xCoordinate, int yCoordinate, Direction direction);
+
+    /**
+     * Waits until every change reported so far is durable
+     */
+    void sync();
+
+    /**
+     * Waits while too many reported changes are not durable yet. Called by the registry before it takes a rover lock,
+     * so a journal falling behind slows down the writers without holding up other rovers behind the disk.
+     */
+    void awaitCapacity();
+}
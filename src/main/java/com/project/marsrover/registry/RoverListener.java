@@ -0,0 +1,41 @@
+package com.project.marsrover.registry;
+
+import com.project.marsrover.enums.Direction;
+
+/**
+ * Sees every change of a registered rover position as it is applied. Changes are reported while the registry holds
+ * the lock of the rover and before the caller frees the old coordinates on the grid, so a rover leaving coordinates
+ * is always seen before another rover is parked there. Implementations must only buffer the changes.
+ */
+public interface RoverListener {
+    /**
+     * Listener that ignores every change
+     */
+    RoverListener NONE = new RoverListener() {
+        @Override
+        public void parked(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        }
+
+        @Override
+        public void moved(int roverId, int fromXCoordinate, int fromYCoordinate, int xCoordinate, int yCoordinate, Direction direction) {
+        }
+    };
+
+    /**
+     * @param roverId The ID of the newly registered rover
+     * @param xCoordinate The xCoordinate the rover is parked at
+     * @param yCoordinate The yCoordinate the rover is parked at
+     * @param direction The direction the rover is facing
+     */
+    void parked(int roverId, int xCoordinate, int yCoordinate, Direction direction);
+
+    /**
+     * @param roverId The ID of the moved rover
+     * @param fromXCoordinate The xCoordinate the rover was parked at
+     * @param fromYCoordinate The yCoordinate the rover was parked at
+     * @param xCoordinate The xCoordinate the rover is now parked at, the same as before if it only turned
+     * @param yCoordinate The yCoordinate the rover is now parked at
+     * @param direction The direction the rover is now facing
+     */
+    void moved(int roverId, int fromXCoordinate, int fromYCoordinate, int xCoordinate, int yCoordinate, Direction direction);
+}
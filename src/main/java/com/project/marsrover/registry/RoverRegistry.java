@@ -0,0 +1,355 @@
+package com.project.marsrover.registry;
+
+import com.project.marsrover.collections.LongIntHashMap;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.objects.RoverPosition;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the identity and position of every parked rover.
+ * Positions are stored as columns of primitives split into fixed size chunks, one int column per coordinate and one
+ * byte column for the direction, so tens of millions of rovers take a handful of large arrays instead of an object each.
+ * Rovers are looked up by ID through the columns, by coordinates through lock striped hash maps and by area
+ * through a spatial index that is updated together with the columns. Every change is reported to the journal and the
+ * listener, if attached, while the rover lock is held so they see the changes of each rover in order.
+ */
+public class RoverRegistry {
+    public static final int NO_ROVER = LongIntHashMap.NO_VALUE;
+    private static final int DEFAULT_EXPECTED_ROVERS = 1024;
+    // Chunks hold 65536 rovers
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // Regions are 64 x 64 coordinates
+    private static final int REGION_SHIFT = 6;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final AtomicInteger nextRoverId = new AtomicInteger();
+    // Columns are replaced as a whole when a chunk is added, so readers always see fully allocated chunks
+    private volatile int[][] xCoordinates = new int[0][];
+    private volatile int[][] yCoordinates = new int[0][];
+    // Direction ordinal plus one, 0 while the rover is being registered
+    private volatile byte[][] directions = new byte[0][];
+    private final ReentrantLock chunkLock = new ReentrantLock();
+    // Guards the columns of the rovers whose ID maps to the stripe
+    private final ReentrantLock[] roverLocks;
+    // Rover ID by coordinates, striped by plateau region
+    private final LongIntHashMap[] cells;
+    private final ReentrantLock[] cellLocks;
+    private final int stripeMask;
+    // Parked rovers by area, updated while holding the rover lock so updates of one rover are applied in order
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    // Receives every change of a rover position, NONE unless persistence is enabled
+    private volatile RoverJournal journal = RoverJournal.NONE;
+    // Receives every change of a rover position as it happens, NONE unless a service streams the changes
+    private volatile RoverListener listener = RoverListener.NONE;
+
+    public RoverRegistry() {
+        this(DEFAULT_EXPECTED_ROVERS);
+    }
+
+    public RoverRegistry(int expectedRovers) {
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1;
+        this.roverLocks = new ReentrantLock[stripeCount];
+        this.cells = new LongIntHashMap[stripeCount];
+        this.cellLocks = new ReentrantLock[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            roverLocks[i] = new ReentrantLock();
+            cells[i] = new LongIntHashMap(expectedRovers / stripeCount);
+            cellLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Assigns the next ID to a rover parked at the coordinates. The coordinates must already be taken on the grid
+     * by this rover.
+     *
+     * @param xCoordinate The xCoordinate the rover is parked at
+     * @param yCoordinate The yCoordinate the rover is parked at
+     * @param direction The direction the rover is facing
+     * @return The ID of the rover
+     */
+    public int register(int xCoordinate, int yCoordinate, Direction direction) {
+        journal.awaitCapacity();
+        int roverId = nextRoverId.getAndIncrement();
+        if (roverId < 0) {
+            throw new IllegalStateException("Rover registry is full.");
+        }
+        int chunk = roverId >>> CHUNK_SHIFT;
+        int offset = roverId & CHUNK_MASK;
+        ensureChunk(chunk);
+        ReentrantLock roverLock = roverLocks[roverId & stripeMask];
+        roverLock.lock();
+        try {
+            xCoordinates[chunk][offset] = xCoordinate;
+            yCoordinates[chunk][offset] = yCoordinate;
+            directions[chunk][offset] = (byte) (direction.ordinal() + 1);
+            spatialIndex.add(roverId, xCoordinate, yCoordinate, direction);
+            journal.parked(roverId, xCoordinate, yCoordinate, direction);
+            listener.parked(roverId, xCoordinate, yCoordinate, direction);
+        } finally {
+            roverLock.unlock();
+        }
+        putCell(xCoordinate, yCoordinate, roverId);
+        return roverId;
+    }
+
+    /**
+     * Puts back a rover recovered from persisted state under its original ID, without reporting it to the journal.
+     * The coordinates must already be taken on the grid by this rover.
+     *
+     * @param roverId The ID the rover was registered with
+     * @param xCoordinate The xCoordinate the rover is parked at
+     * @param yCoordinate The yCoordinate the rover is parked at
+     * @param direction The direction the rover is facing
+     */
+    public void restore(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        nextRoverId.accumulateAndGet(roverId + 1, Math::max);
+        int chunk = roverId >>> CHUNK_SHIFT;
+        int offset = roverId & CHUNK_MASK;
+        ensureChunk(chunk);
+        ReentrantLock roverLock = roverLocks[roverId & stripeMask];
+        roverLock.lock();
+        try {
+            xCoordinates[chunk][offset] = xCoordinate;
+            yCoordinates[chunk][offset] = yCoordinate;
+            directions[chunk][offset] = (byte) (direction.ordinal() + 1);
+            spatialIndex.add(roverId, xCoordinate, yCoordinate, direction);
+        } finally {
+            roverLock.unlock();
+        }
+        putCell(xCoordinate, yCoordinate, roverId);
+    }
+
+    /**
+     * Moves a registered rover if it is still at the position it was last seen at. The new coordinates must already
+     * be taken on the grid by this rover, the caller frees the old coordinates on the grid after a successful move.
+     * The rover can be found at its new coordinates before it stops being found at its old ones.
+     *
+     * @param roverId The ID of the rover
+     * @param expected The position the rover was last seen at
+     * @param xCoordinate The xCoordinate the rover is now parked at
+     * @param yCoordinate The yCoordinate the rover is now parked at
+     * @param direction The direction the rover is now facing
+     * @return true if the rover was moved, false if it had already been moved by someone else
+     */
+    public boolean move(int roverId, RoverPosition expected, int xCoordinate, int yCoordinate, Direction direction) {
+        return move(roverId, expected.getxCoordinate(), expected.getyCoordinate(), expected.getDirection(), xCoordinate, yCoordinate, direction);
+    }
+
+    /**
+     * Moves a registered rover if it is still at the position it was last seen at, see {@link #move(int, RoverPosition, int, int, Direction)}
+     *
+     * @param roverId The ID of the rover
+     * @param expectedXCoordinate The xCoordinate the rover was last seen at
+     * @param expectedYCoordinate The yCoordinate the rover was last seen at
+     * @param expectedDirection The direction the rover was last seen facing
+     * @param xCoordinate The xCoordinate the rover is now parked at
+     * @param yCoordinate The yCoordinate the rover is now parked at
+     * @param direction The direction the rover is now facing
+     * @return true if the rover was moved, false if it had already been moved by someone else
+     */
+    public boolean move(int roverId, int expectedXCoordinate, int expectedYCoordinate, Direction expectedDirection,
+                        int xCoordinate, int yCoordinate, Direction direction) {
+        journal.awaitCapacity();
+        int chunk = roverId >>> CHUNK_SHIFT;
+        int offset = roverId & CHUNK_MASK;
+        ReentrantLock roverLock = roverLocks[roverId & stripeMask];
+        roverLock.lock();
+        try {
+            if (xCoordinates[chunk][offset] != expectedXCoordinate
+                    || yCoordinates[chunk][offset] != expectedYCoordinate
+                    || directions[chunk][offset] != expectedDirection.ordinal() + 1) {
+                return false;
+            }
+            xCoordinates[chunk][offset] = xCoordinate;
+            yCoordinates[chunk][offset] = yCoordinate;
+            directions[chunk][offset] = (byte) (direction.ordinal() + 1);
+            spatialIndex.move(roverId, expectedXCoordinate, expectedYCoordinate, xCoordinate, yCoordinate, direction);
+            journal.moved(roverId, xCoordinate, yCoordinate, direction);
+            listener.moved(roverId, expectedXCoordinate, expectedYCoordinate, xCoordinate, yCoordinate, direction);
+        } finally {
+            roverLock.unlock();
+        }
+        if (xCoordinate != expectedXCoordinate || yCoordinate != expectedYCoordinate) {
+            putCell(xCoordinate, yCoordinate, roverId);
+            long oldKey = toKey(expectedXCoordinate, expectedYCoordinate);
+            int oldStripe = stripeOf(expectedXCoordinate, expectedYCoordinate);
+            cellLocks[oldStripe].lock();
+            try {
+                // Another rover may already be registered at the old coordinates, only remove this rover
+                if (cells[oldStripe].get(oldKey) == roverId) {
+                    cells[oldStripe].remove(oldKey);
+                }
+            } finally {
+                cellLocks[oldStripe].unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up a rover by ID
+     *
+     * @param roverId The ID returned when the rover was registered
+     * @return The position of the rover, or null if no rover has the ID
+     */
+    public RoverPosition find(int roverId) {
+        if (roverId < 0 || roverId >= nextRoverId.get()) {
+            return null;
+        }
+        int chunk = roverId >>> CHUNK_SHIFT;
+        int offset = roverId & CHUNK_MASK;
+        ReentrantLock roverLock = roverLocks[roverId & stripeMask];
+        roverLock.lock();
+        try {
+            byte[][] directionChunks = directions;
+            if (chunk >= directionChunks.length || directionChunks[chunk][offset] == 0) {
+                return null;
+            }
+            return new RoverPosition(roverId, xCoordinates[chunk][offset], yCoordinates[chunk][offset],
+                    DIRECTIONS[directionChunks[chunk][offset] - 1]);
+        } finally {
+            roverLock.unlock();
+        }
+    }
+
+    /**
+     * Looks up the rover parked at the coordinates
+     *
+     * @param xCoordinate The xCoordinate to check
+     * @param yCoordinate The yCoordinate to check
+     * @return The ID of the rover, or NO_ROVER if no registered rover is parked there
+     */
+    public int findRoverIdAt(int xCoordinate, int yCoordinate) {
+        int stripe = stripeOf(xCoordinate, yCoordinate);
+        cellLocks[stripe].lock();
+        try {
+            return cells[stripe].get(toKey(xCoordinate, yCoordinate));
+        } finally {
+            cellLocks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Copies the positions of a range of rovers, each read under its rover lock
+     *
+     * @param fromRoverId The first ID to copy
+     * @param xCoordinates Receives the xCoordinate of each rover
+     * @param yCoordinates Receives the yCoordinate of each rover
+     * @param directions Receives the direction ordinal plus one of each rover, or 0 if the ID is not registered yet
+     * @return The number of rovers copied, up to the length of the arrays
+     */
+    public int readPositions(int fromRoverId, int[] xCoordinates, int[] yCoordinates, byte[] directions) {
+        int count = Math.max(0, Math.min(xCoordinates.length, nextRoverId.get() - fromRoverId));
+        for (int i = 0; i < count; i++) {
+            int roverId = fromRoverId + i;
+            int chunk = roverId >>> CHUNK_SHIFT;
+            int offset = roverId & CHUNK_MASK;
+            ReentrantLock roverLock = roverLocks[roverId & stripeMask];
+            roverLock.lock();
+            try {
+                byte[][] directionChunks = this.directions;
+                if (chunk >= directionChunks.length || directionChunks[chunk][offset] == 0) {
+                    directions[i] = 0;
+                    continue;
+                }
+                xCoordinates[i] = this.xCoordinates[chunk][offset];
+                yCoordinates[i] = this.yCoordinates[chunk][offset];
+                directions[i] = directionChunks[chunk][offset];
+            } finally {
+                roverLock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Attaches the journal that receives every later change of a rover position
+     *
+     * @param journal The journal, or RoverJournal.NONE to stop reporting changes
+     */
+    public void setJournal(RoverJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Attaches the listener that sees every later change of a rover position, replacing the previous one
+     *
+     * @param listener The listener, or RoverListener.NONE to stop reporting changes
+     */
+    public void setListener(RoverListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Waits until every change made so far is durable in the journal, returns straight away without one
+     */
+    public void sync() {
+        journal.sync();
+    }
+
+    /**
+     * @return The index of parked rovers by area
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * @return The number of IDs handed out
+     */
+    public int size() {
+        return nextRoverId.get();
+    }
+
+    private void ensureChunk(int chunk) {
+        if (chunk < directions.length) {
+            return;
+        }
+        chunkLock.lock();
+        try {
+            int chunkCount = directions.length;
+            if (chunk < chunkCount) {
+                return;
+            }
+            int[][] newXCoordinates = Arrays.copyOf(xCoordinates, chunk + 1);
+            int[][] newYCoordinates = Arrays.copyOf(yCoordinates, chunk + 1);
+            byte[][] newDirections = Arrays.copyOf(directions, chunk + 1);
+            for (int i = chunkCount; i <= chunk; i++) {
+                newXCoordinates[i] = new int[CHUNK_SIZE];
+                newYCoordinates[i] = new int[CHUNK_SIZE];
+                newDirections[i] = new byte[CHUNK_SIZE];
+            }
+            xCoordinates = newXCoordinates;
+            yCoordinates = newYCoordinates;
+            // Written last, readers check the direction column before reading the others
+            directions = newDirections;
+        } finally {
+            chunkLock.unlock();
+        }
+    }
+
+    private void putCell(int xCoordinate, int yCoordinate, int roverId) {
+        int stripe = stripeOf(xCoordinate, yCoordinate);
+        cellLocks[stripe].lock();
+        try {
+            cells[stripe].put(toKey(xCoordinate, yCoordinate), roverId);
+        } finally {
+            cellLocks[stripe].unlock();
+        }
+    }
+
+    private int stripeOf(int xCoordinate, int yCoordinate) {
+        int hash = (xCoordinate >>> REGION_SHIFT) * 0x9E3779B1 + (yCoordinate >>> REGION_SHIFT);
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private static long toKey(int xCoordinate, int yCoordinate) {
+        return ((long) xCoordinate << 32) | yCoordinate;
+    }
+}
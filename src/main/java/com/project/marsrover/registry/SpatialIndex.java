@@ -0,0 +1,342 @@
+package com.project.marsrover.registry;
+
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.objects.RoverPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds parked rovers by area. The plateau is split into square tiles and each tile that ever held a rover keeps
+ * the rovers inside it in primitive columns, guarded by its own lock.
+ * Queries only visit the tiles that overlap the area asked for, or only the tiles that hold rovers when there are
+ * fewer of those, so their cost follows the number of rovers found instead of the plateau area.
+ */
+public class SpatialIndex {
+    // Tiles are 64 x 64 coordinates
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // Nearest first, lower rover ID first between rovers at the same distance
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.<Candidate>comparingLong(candidate -> candidate.distance)
+            .thenComparingInt(candidate -> candidate.roverPosition.getRoverId());
+
+    private final ConcurrentHashMap<Long, Tile> tiles = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a rover to the tile of its coordinates
+     *
+     * @param roverId The ID of the rover
+     * @param xCoordinate The xCoordinate the rover is parked at
+     * @param yCoordinate The yCoordinate the rover is parked at
+     * @param direction The direction the rover is facing
+     */
+    public void add(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+        int tileX = xCoordinate >>> TILE_SHIFT;
+        int tileY = yCoordinate >>> TILE_SHIFT;
+        tiles.computeIfAbsent(toKey(tileX, tileY), key -> new Tile(tileX, tileY))
+                .add(roverId, xCoordinate, yCoordinate, direction);
+    }
+
+    /**
+     * Moves a rover that was added to the index, staying in its tile when the new coordinates are in the same tile
+     *
+     * @param roverId The ID of the rover
+     * @param oldXCoordinate The xCoordinate the rover was parked at
+     * @param oldYCoordinate The yCoordinate the rover was parked at
+     * @param xCoordinate The xCoordinate the rover is now parked at
+     * @param yCoordinate The yCoordinate the rover is now parked at
+     * @param direction The direction the rover is now facing
+     */
+    public void move(int roverId, int oldXCoordinate, int oldYCoordinate, int xCoordinate, int yCoordinate, Direction direction) {
+        Tile oldTile = tiles.get(toKey(oldXCoordinate >>> TILE_SHIFT, oldYCoordinate >>> TILE_SHIFT));
+        if (oldTile.update(roverId, xCoordinate, yCoordinate, direction)) {
+            return;
+        }
+        // Added to the new tile first so the rover is never missing from the index
+        add(roverId, xCoordinate, yCoordinate, direction);
+        oldTile.remove(roverId);
+    }
+
+    /**
+     * Counts the rovers parked inside a rectangle
+     *
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @return The number of rovers inside the rectangle
+     */
+    public long count(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate) {
+        long count = 0;
+        for (Tile tile : overlappingTiles(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate)) {
+            count += tile.count(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate);
+        }
+        return count;
+    }
+
+    /**
+     * Lists the rovers parked inside a rectangle, in no particular order
+     *
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @param limit The maximum number of rovers to return
+     * @return Up to limit rovers inside the rectangle
+     */
+    public List<RoverPosition> list(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate, int limit) {
+        List<RoverPosition> roverPositions = new ArrayList<>();
+        for (Tile tile : overlappingTiles(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate)) {
+            if (roverPositions.size() >= limit) {
+                break;
+            }
+            tile.list(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate, limit, roverPositions);
+        }
+        return roverPositions;
+    }
+
+    /**
+     * Finds the rovers nearest to the coordinates by the number of steps between them, ignoring other rovers on the way.
+     * Tiles are searched in rings around the coordinates and the search stops as soon as no unsearched tile can
+     * hold a nearer rover, or falls back to checking every tile holding rovers once the rings grow larger than that.
+     *
+     * @param xCoordinate The xCoordinate to search from
+     * @param yCoordinate The yCoordinate to search from
+     * @param k The number of rovers to find
+     * @return Up to k rovers, nearest first
+     */
+    public List<RoverPosition> nearest(int xCoordinate, int yCoordinate, int k) {
+        // Farthest of the best k at the head, so it can be replaced by a nearer rover
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k, NEAREST_FIRST.reversed());
+        int centerTileX = xCoordinate >>> TILE_SHIFT;
+        int centerTileY = yCoordinate >>> TILE_SHIFT;
+        long visitedTiles = 0;
+        for (int ring = 0; ; ring++) {
+            // Every coordinate in this ring is at least this many steps away
+            long ringDistance = ring == 0 ? 0 : (long) (ring - 1) * TILE_SIZE + 1;
+            if (best.size() == k && best.peek().distance < ringDistance) {
+                break;
+            }
+            visitedTiles += ring == 0 ? 1 : 8L * ring;
+            if (visitedTiles > tiles.size()) {
+                // The rings have become larger than the set of tiles holding rovers, check those directly instead
+                best.clear();
+                for (Tile tile : tiles.values()) {
+                    tile.offerNearest(xCoordinate, yCoordinate, k, best);
+                }
+                break;
+            }
+            for (int tileX = centerTileX - ring; tileX <= centerTileX + ring; tileX++) {
+                // Only the edges of the ring, the inside was covered by earlier rings
+                int tileYStep = tileX == centerTileX - ring || tileX == centerTileX + ring ? 1 : Math.max(1, 2 * ring);
+                for (int tileY = centerTileY - ring; tileY <= centerTileY + ring; tileY += tileYStep) {
+                    if (tileX < 0 || tileY < 0) {
+                        continue;
+                    }
+                    Tile tile = tiles.get(toKey(tileX, tileY));
+                    if (tile != null) {
+                        tile.offerNearest(xCoordinate, yCoordinate, k, best);
+                    }
+                }
+            }
+        }
+        Candidate[] candidates = best.toArray(new Candidate[0]);
+        Arrays.sort(candidates, NEAREST_FIRST);
+        List<RoverPosition> roverPositions = new ArrayList<>(candidates.length);
+        for (Candidate candidate : candidates) {
+            roverPositions.add(candidate.roverPosition);
+        }
+        return roverPositions;
+    }
+
+    private List<Tile> overlappingTiles(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate) {
+        int minTileX = minXCoordinate >>> TILE_SHIFT;
+        int minTileY = minYCoordinate >>> TILE_SHIFT;
+        int maxTileX = maxXCoordinate >>> TILE_SHIFT;
+        int maxTileY = maxYCoordinate >>> TILE_SHIFT;
+        List<Tile> overlapping = new ArrayList<>();
+        long tilesInRectangle = (long) (maxTileX - minTileX + 1) * (maxTileY - minTileY + 1);
+        if (tilesInRectangle <= tiles.size()) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+                    Tile tile = tiles.get(toKey(tileX, tileY));
+                    if (tile != null) {
+                        overlapping.add(tile);
+                    }
+                }
+            }
+        } else {
+            // The rectangle covers more tiles than hold rovers, so only look at the tiles that hold rovers
+            for (Tile tile : tiles.values()) {
+                if (tile.tileX >= minTileX && tile.tileX <= maxTileX && tile.tileY >= minTileY && tile.tileY <= maxTileY) {
+                    overlapping.add(tile);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Long.hashCode of the packed tile coordinates is tileX ^ tileY, which puts whole diagonals of tiles in the same
+     * bucket, so the packed coordinates are multiplied by an odd constant first. That keeps keys unique and spreads them.
+     */
+    private static Long toKey(int tileX, int tileY) {
+        return (((long) tileX << 32) | tileY) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static final class Candidate {
+        private final long distance;
+        private final RoverPosition roverPosition;
+
+        private Candidate(long distance, RoverPosition roverPosition) {
+            this.distance = distance;
+            this.roverPosition = roverPosition;
+        }
+    }
+
+    /**
+     * The rovers inside one tile, stored as primitive columns that grow as rovers are added
+     */
+    private static final class Tile {
+        private final int tileX;
+        private final int tileY;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int[] roverIds = new int[4];
+        private int[] xCoordinates = new int[4];
+        private int[] yCoordinates = new int[4];
+        private byte[] directions = new byte[4];
+        private int size;
+
+        private Tile(int tileX, int tileY) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        private void add(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+            lock.lock();
+            try {
+                if (size == roverIds.length) {
+                    roverIds = Arrays.copyOf(roverIds, size * 2);
+                    xCoordinates = Arrays.copyOf(xCoordinates, size * 2);
+                    yCoordinates = Arrays.copyOf(yCoordinates, size * 2);
+                    directions = Arrays.copyOf(directions, size * 2);
+                }
+                roverIds[size] = roverId;
+                xCoordinates[size] = xCoordinate;
+                yCoordinates[size] = yCoordinate;
+                directions[size] = (byte) direction.ordinal();
+                size++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Updates the rover in place if its new coordinates are still inside this tile
+         */
+        private boolean update(int roverId, int xCoordinate, int yCoordinate, Direction direction) {
+            if (xCoordinate >>> TILE_SHIFT != tileX || yCoordinate >>> TILE_SHIFT != tileY) {
+                return false;
+            }
+            lock.lock();
+            try {
+                int index = indexOf(roverId);
+                xCoordinates[index] = xCoordinate;
+                yCoordinates[index] = yCoordinate;
+                directions[index] = (byte) direction.ordinal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(int roverId) {
+            lock.lock();
+            try {
+                // Fill the gap with the last rover of the tile
+                int index = indexOf(roverId);
+                size--;
+                roverIds[index] = roverIds[size];
+                xCoordinates[index] = xCoordinates[size];
+                yCoordinates[index] = yCoordinates[size];
+                directions[index] = directions[size];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int count(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate) {
+            lock.lock();
+            try {
+                boolean covered = minXCoordinate <= tileX << TILE_SHIFT && minYCoordinate <= tileY << TILE_SHIFT
+                        && maxXCoordinate >= (tileX << TILE_SHIFT) + TILE_SIZE - 1
+                        && maxYCoordinate >= (tileY << TILE_SHIFT) + TILE_SIZE - 1;
+                if (covered) {
+                    return size;
+                }
+                int count = 0;
+                for (int i = 0; i < size; i++) {
+                    if (xCoordinates[i] >= minXCoordinate && xCoordinates[i] <= maxXCoordinate
+                            && yCoordinates[i] >= minYCoordinate && yCoordinates[i] <= maxYCoordinate) {
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void list(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate, int limit,
+                          List<RoverPosition> roverPositions) {
+            lock.lock();
+            try {
+                for (int i = 0; i < size && roverPositions.size() < limit; i++) {
+                    if (xCoordinates[i] >= minXCoordinate && xCoordinates[i] <= maxXCoordinate
+                            && yCoordinates[i] >= minYCoordinate && yCoordinates[i] <= maxYCoordinate) {
+                        roverPositions.add(toRoverPosition(i));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void offerNearest(int xCoordinate, int yCoordinate, int k, PriorityQueue<Candidate> best) {
+            lock.lock();
+            try {
+                for (int i = 0; i < size; i++) {
+                    long distance = Math.abs((long) xCoordinates[i] - xCoordinate) + Math.abs((long) yCoordinates[i] - yCoordinate);
+                    if (best.size() < k) {
+                        best.add(new Candidate(distance, toRoverPosition(i)));
+                    } else if (distance < best.peek().distance
+                            || (distance == best.peek().distance && roverIds[i] < best.peek().roverPosition.getRoverId())) {
+                        best.poll();
+                        best.add(new Candidate(distance, toRoverPosition(i)));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int indexOf(int roverId) {
+            for (int i = 0; i < size; i++) {
+                if (roverIds[i] == roverId) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Rover " + roverId + " is not in its tile.");
+        }
+
+        private RoverPosition toRoverPosition(int index) {
+            return new RoverPosition(roverIds[index], xCoordinates[index], yCoordinates[index], DIRECTIONS[directions[index]]);
+        }
+    }
+}
@@ -1,67 +1,781 @@
 package com.project.marsrover.service;
 
-import com.project.marsrover.enums.Command;
-import com.project.marsrover.exceptions.CollisionException;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.events.RoverEvent;
+import com.project.marsrover.events.RoverEventBus;
 import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.exceptions.InvalidQueryException;
+import com.project.marsrover.exceptions.RoverNotFoundException;
+import com.project.marsrover.feed.FeedSubscription;
+import com.project.marsrover.feed.OccupancyFeed;
+import com.project.marsrover.grid.IgnoredCellOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.grid.ReadRecordingOccupancyGrid;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.objects.DeployRoverBatchResult;
 import com.project.marsrover.objects.DeployRoverParams;
 import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.objects.PlanRouteParams;
+import com.project.marsrover.metrics.MarsRoverMetrics;
 import com.project.marsrover.objects.Rover;
+import com.project.marsrover.objects.RoverPosition;
+import com.project.marsrover.objects.SimulationParams;
+import com.project.marsrover.objects.SimulationResult;
+import com.project.marsrover.objects.SimulationRoverParams;
+import com.project.marsrover.parser.CommandProgram;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.parser.DeployRoverParser;
+import com.project.marsrover.parser.ParsedCoordinates;
+import com.project.marsrover.parser.PreparedDeployment;
+import com.project.marsrover.plateau.PlateauManager;
+import com.project.marsrover.planner.Route;
+import com.project.marsrover.planner.RoutePlanner;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.simulation.TickSimulation;
+import io.micrometer.core.instrument.Gauge;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Service
 public class MarsRoverService {
-    // Use a 2d array as an in memory solution to keep track of which coordinates are taken
-    // Assume Mars has a fixed coordinates of 99, 99
-    public final int[][] mars = new int[99][99];
+    private static final String OUT_OF_BOUNDS = "Out of Mars boundary.";
+    // Most rovers returned by a single area query
+    private static final int MAX_QUERY_RESULTS = 10_000;
+    // Most ticks a single simulation may run
+    private static final int MAX_SIMULATION_TICKS = 1_000_000;
+    // Smaller batches are deployed one after another, the parallel run does not pay off for them
+    private static final int PARALLEL_BATCH_THRESHOLD = 64;
+    // Deployments run by each task of a parallel batch
+    private static final int SPECULATION_CHUNK_SIZE = 64;
+
+    // Keeps track of which coordinates are taken, the plateau dimensions are configured on the grid
+    public final OccupancyGrid mars;
+    // Compiled programs of recently used commands params
+    private final CommandProgramCache commandProgramCache;
+    // Receives an event for every parked rover, off the deploying thread
+    private final RoverEventBus roverEventBus;
+    // Deployment latency, command throughput and occupancy
+    private final MarsRoverMetrics metrics;
+    // Identity and position of every parked rover
+    private final RoverRegistry roverRegistry;
+    // Plans collision free routes and caches them until a coordinate along them is taken
+    private final RoutePlanner routePlanner;
+    // Runs simulation ticks and the deployments of large batches in parallel
+    private final ForkJoinPool parallelPool;
+    // Streams the changes of the parked rovers to subscribers as they happen
+    private final OccupancyFeed occupancyFeed = new OccupancyFeed();
+    // Publishes the taken coordinates of the grid, tagged with the plateau name
+    private final Gauge occupancyGauge;
+
+    public MarsRoverService() {
+        // Default Mars has coordinates of 99, 99
+        this(new SparseOccupancyGrid(99, 99));
+    }
+
+    public MarsRoverService(OccupancyGrid mars) {
+        this(mars, new CommandProgramCache(4096), RoverEventBus.disabled());
+    }
+
+    public MarsRoverService(OccupancyGrid mars, CommandProgramCache commandProgramCache, RoverEventBus roverEventBus) {
+        this(mars, commandProgramCache, roverEventBus, MarsRoverMetrics.noop(), new RoverRegistry(), new RoutePlanner());
+    }
+
+    public MarsRoverService(OccupancyGrid mars, CommandProgramCache commandProgramCache, RoverEventBus roverEventBus,
+                            MarsRoverMetrics metrics, RoverRegistry roverRegistry, RoutePlanner routePlanner) {
+        this(mars, commandProgramCache, roverEventBus, metrics, roverRegistry, routePlanner, ForkJoinPool.commonPool());
+    }
+
+    @Autowired
+    public MarsRoverService(OccupancyGrid mars, CommandProgramCache commandProgramCache, RoverEventBus roverEventBus,
+                            MarsRoverMetrics metrics, RoverRegistry roverRegistry, RoutePlanner routePlanner,
+                            ForkJoinPool parallelPool) {
+        this(PlateauManager.DEFAULT_PLATEAU, mars, commandProgramCache, roverEventBus, metrics, roverRegistry, routePlanner,
+                parallelPool);
+    }
+
+    public MarsRoverService(String plateau, OccupancyGrid mars, CommandProgramCache commandProgramCache,
+                            RoverEventBus roverEventBus, MarsRoverMetrics metrics, RoverRegistry roverRegistry,
+                            RoutePlanner routePlanner, ForkJoinPool parallelPool) {
+        this.mars = mars;
+        this.commandProgramCache = commandProgramCache;
+        this.roverEventBus = roverEventBus;
+        this.metrics = metrics;
+        this.roverRegistry = roverRegistry;
+        this.routePlanner = routePlanner;
+        this.parallelPool = parallelPool;
+        this.occupancyGauge = metrics.bindOccupancy(plateau, mars);
+        roverRegistry.setListener(occupancyFeed);
+    }
 
     /**
-     * Deploys the rover based on input coordinates and direction and moves it according to input commands
+     * Stops publishing the occupancy of the plateau, once the service is dropped and its grid is no longer used
+     */
+    public void unbindMetrics() {
+        metrics.unbindOccupancy(occupancyGauge);
+    }
+
+    /**
+     * Deploys the rover based on input coordinates and direction and moves it according to input commands.
+     * Safe to call from multiple threads, two rovers will never be parked at the same coordinates.
      *
      * @param deployRoverParams The deployment params passed in by the client
-     * @throws DeployRoverException if the rover is deployed with invalid params
+     * @throws DeployRoverException if the rover is deployed with invalid params or moves out of Mars boundary
      */
     public DeployRoverResult deployRover(DeployRoverParams deployRoverParams) throws DeployRoverException {
-        Rover rover = null;
+        DeployRoverResult deployRoverResult = runDeployment(deployRoverParams);
+        roverRegistry.sync();
+        if (deployRoverResult.getStopReason() == StopReason.OUT_OF_BOUNDS) {
+            throw new DeployRoverException(OUT_OF_BOUNDS);
+        }
+        return deployRoverResult;
+    }
+
+    /**
+     * Deploys the rover and moves it according to input commands without raising an exception when it stops early.
+     * A rover that stops before moving out of Mars boundary is not parked and is returned with OUT_OF_BOUNDS.
+     * Does not wait for the parked rover to be persisted.
+     *
+     * @param deployRoverParams The deployment params passed in by the client
+     * @return The final position of the rover and the reason it stopped
+     * @throws DeployRoverException if the rover is deployed with invalid params
+     */
+    public DeployRoverResult runDeployment(DeployRoverParams deployRoverParams) throws DeployRoverException {
+        long startNanos = System.nanoTime();
+        return runPreparedDeployment(prepareDeployment(deployRoverParams), startNanos);
+    }
+
+    /**
+     * Parses and compiles deployment params ahead of the deployment, without touching Mars. Safe to call from any
+     * thread, errors in the params are only raised once the prepared deployment runs.
+     *
+     * @param deployRoverParams The deployment params passed in by the client
+     * @return The prepared deployment, for deployPreparedRover
+     */
+    public PreparedDeployment prepareDeployment(DeployRoverParams deployRoverParams) {
+        return PreparedDeployment.prepare(deployRoverParams.getCurrentCoordinates(), deployRoverParams.getCommands(), commandProgramCache);
+    }
+
+    /**
+     * Deploys a rover prepared by prepareDeployment, raising the same exceptions as deployRover with the same params.
+     * Does not wait for the parked rover to be persisted, call sync before reporting the result.
+     *
+     * @param preparedDeployment The prepared deployment params
+     * @return The final position of the rover and the reason it stopped
+     * @throws DeployRoverException if the rover is deployed with invalid params or moves out of Mars boundary
+     */
+    public DeployRoverResult deployPreparedRover(PreparedDeployment preparedDeployment) throws DeployRoverException {
+        DeployRoverResult deployRoverResult = runPreparedDeployment(preparedDeployment, System.nanoTime());
+        if (deployRoverResult.getStopReason() == StopReason.OUT_OF_BOUNDS) {
+            throw new DeployRoverException(OUT_OF_BOUNDS);
+        }
+        return deployRoverResult;
+    }
+
+    private DeployRoverResult runPreparedDeployment(PreparedDeployment preparedDeployment, long startNanos) throws DeployRoverException {
+        String commands = preparedDeployment.getCommands();
+        // Set while the params are being parsed, so a failure there is recorded as a parse failure
+        boolean parsing = true;
+        try {
+            ParsedCoordinates parsedCoordinates = preparedDeployment.resolveCoordinates();
+            parsing = false;
+            int xCoordinate = parsedCoordinates.getxCoordinate();
+            int yCoordinate = parsedCoordinates.getyCoordinate();
+            if (!mars.isWithinBounds(xCoordinate, yCoordinate)) {
+                throw new DeployRoverException(OUT_OF_BOUNDS);
+            }
+            while (true) {
+                // 1. Check if deployed coordinates clash with another rover
+                if (mars.isOccupied(xCoordinate, yCoordinate)) {
+                    throw new DeployRoverException("There is an existing rover at this coordinate.");
+                }
+                // 2. Run the compiled commands, moving the rover and stopping it if it clashes
+                parsing = true;
+                Rover rover = new Rover(xCoordinate, yCoordinate, parsedCoordinates.resolveDirection());
+                CommandProgram program = preparedDeployment.getProgram() != null
+                        ? preparedDeployment.getProgram()
+                        : commandProgramCache.get(commands);
+                StopReason stopReason = rover.execute(program, mars);
+                parsing = false;
+                if (stopReason == StopReason.OUT_OF_BOUNDS) {
+                    metrics.recordDeployment(stopReason, rover.getExecutedCommandCount(), commands.length(), System.nanoTime() - startNanos);
+                    return new DeployRoverResult(rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection(), stopReason);
+                }
+                // 3. After the rover finishes its commands, mark the location in Mars as occupied.
+                // If another rover was parked there while this rover was moving, replay the deployment against the updated Mars
+                DeployRoverResult deployRoverResult = park(rover, stopReason, commands.length(), startNanos);
+                if (deployRoverResult != null) {
+                    return deployRoverResult;
+                }
+            }
+        }
+        catch (DeployRoverException | RuntimeException exception) {
+            metrics.recordFailure(parsing, System.nanoTime() - startNanos);
+            throw exception;
+        }
+    }
+
+    /**
+     * Parks a rover that finished its commands at its final coordinates and registers it
+     *
+     * @return The result of the deployment, or null if another rover was parked at the coordinates first
+     */
+    private DeployRoverResult park(Rover rover, StopReason stopReason, int commandsLength, long startNanos) {
+        if (!mars.occupy(rover.getxCoordinate(), rover.getyCoordinate())) {
+            return null;
+        }
+        routePlanner.cellOccupied(rover.getxCoordinate(), rover.getyCoordinate());
+        int roverId = roverRegistry.register(rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection());
+        if (stopReason == StopReason.COLLISION) {
+            occupancyFeed.collided(roverId, rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection());
+        }
+        if (roverEventBus.isEnabled()) {
+            roverEventBus.publish(new RoverEvent(rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection(), stopReason));
+        }
+        metrics.recordDeployment(stopReason, rover.getExecutedCommandCount(), commandsLength, System.nanoTime() - startNanos);
+        return new DeployRoverResult(roverId, rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection(), stopReason);
+    }
+
+    /**
+     * Moves an already parked rover according to input commands. The rover does not collide with its own coordinates,
+     * and it keeps its old coordinates taken until its new coordinates are taken, so it is never missing from Mars.
+     *
+     * @param roverId The ID of the rover
+     * @param commands The commands for the rover
+     * @return The new position of the rover and the reason it stopped
+     * @throws RoverNotFoundException if no rover has the ID
+     * @throws DeployRoverException if the commands are invalid or move the rover out of Mars boundary, in which case
+     * the rover stays where it was
+     */
+    public DeployRoverResult commandRover(int roverId, String commands) throws RoverNotFoundException, DeployRoverException {
+        DeployRoverResult deployRoverResult = runCommands(roverId, commands);
+        roverRegistry.sync();
+        if (deployRoverResult.getStopReason() == StopReason.OUT_OF_BOUNDS) {
+            throw new DeployRoverException(OUT_OF_BOUNDS);
+        }
+        return deployRoverResult;
+    }
+
+    /**
+     * Moves an already parked rover according to input commands without raising an exception when it stops early.
+     * A rover that stops before moving out of Mars boundary stays where it was and is returned with OUT_OF_BOUNDS.
+     * Does not wait for the new position to be persisted.
+     *
+     * @param roverId The ID of the rover
+     * @param commands The commands for the rover
+     * @return The position of the rover and the reason it stopped
+     * @throws RoverNotFoundException if no rover has the ID
+     * @throws DeployRoverException if the commands are invalid
+     */
+    public DeployRoverResult runCommands(int roverId, String commands) throws RoverNotFoundException, DeployRoverException {
+        long startNanos = System.nanoTime();
+        // Set while the commands are being parsed, so a failure there is recorded as a parse failure
+        boolean parsing = false;
         try {
-            String[] commands = deployRoverParams.getCommands().split(",");
-            String[] coordinates = deployRoverParams.getCurrentCoordinates().split(",");
-            if (coordinates.length != 3) {
-                throw new DeployRoverException("Invalid coordinates params. Specify in the format of e.g 3,4,N.");
+            while (true) {
+                // 1. Run the compiled commands from where the rover is parked, ignoring its own coordinates
+                RoverPosition roverPosition = getRover(roverId);
+                int xCoordinate = roverPosition.getxCoordinate();
+                int yCoordinate = roverPosition.getyCoordinate();
+                Rover rover = new Rover(xCoordinate, yCoordinate, roverPosition.getDirection());
+                parsing = true;
+                CommandProgram program = commandProgramCache.get(commands);
+                StopReason stopReason = rover.execute(program, new IgnoredCellOccupancyGrid(mars, xCoordinate, yCoordinate));
+                parsing = false;
+                if (stopReason == StopReason.OUT_OF_BOUNDS) {
+                    metrics.recordDeployment(stopReason, rover.getExecutedCommandCount(), commands.length(), System.nanoTime() - startNanos);
+                    return new DeployRoverResult(roverId, xCoordinate, yCoordinate, roverPosition.getDirection(), stopReason);
+                }
+                boolean moved = rover.getxCoordinate() != xCoordinate || rover.getyCoordinate() != yCoordinate;
+                // 2. Take the new coordinates before giving up the old ones.
+                // If another rover was parked there while this rover was moving, replay the commands against the updated Mars
+                if (moved && !mars.occupy(rover.getxCoordinate(), rover.getyCoordinate())) {
+                    continue;
+                }
+                if (moved) {
+                    routePlanner.cellOccupied(rover.getxCoordinate(), rover.getyCoordinate());
+                }
+                // 3. Record the new position, unless the rover was moved by another request in the meantime
+                if (!roverRegistry.move(roverId, roverPosition, rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection())) {
+                    if (moved) {
+                        mars.release(rover.getxCoordinate(), rover.getyCoordinate());
+                    }
+                    continue;
+                }
+                if (moved) {
+                    mars.release(xCoordinate, yCoordinate);
+                }
+                if (stopReason == StopReason.COLLISION) {
+                    occupancyFeed.collided(roverId, rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection());
+                }
+                if (roverEventBus.isEnabled()) {
+                    roverEventBus.publish(new RoverEvent(rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection(), stopReason));
+                }
+                metrics.recordDeployment(stopReason, rover.getExecutedCommandCount(), commands.length(), System.nanoTime() - startNanos);
+                return new DeployRoverResult(roverId, rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection(), stopReason);
+            }
+        }
+        catch (RoverNotFoundException | DeployRoverException | RuntimeException exception) {
+            metrics.recordFailure(parsing, System.nanoTime() - startNanos);
+            throw exception;
+        }
+    }
+
+    /**
+     * Deploys the rovers as if one after another in the given order. A failed deployment is reported in its own result
+     * and does not stop the rest of the batch. Large batches are run in parallel, see {@link #deployRoversSpeculatively(List)}.
+     *
+     * @param deployRoverParamsList The deployment params passed in by the client, in deployment order
+     * @return One result per deployment, in the same order as the params
+     */
+    public List<DeployRoverBatchResult> deployRovers(List<DeployRoverParams> deployRoverParamsList) {
+        if (deployRoverParamsList.size() >= PARALLEL_BATCH_THRESHOLD && parallelPool.getParallelism() > 1) {
+            return deployRoversSpeculatively(deployRoverParamsList);
+        }
+        List<DeployRoverBatchResult> results = new ArrayList<>(deployRoverParamsList.size());
+        for (DeployRoverParams deployRoverParams : deployRoverParamsList) {
+            results.add(tryDeployment(deployRoverParams));
+        }
+        roverRegistry.sync();
+        return results;
+    }
+
+    /**
+     * Runs the deployments of a batch in parallel against the live grid, recording the coordinates each of them looks at,
+     * then parks the rovers one after another in batch order. A deployment that looked at a coordinate taken by an earlier
+     * deployment of the batch after it started running is run again at its turn, so the results are the same as deploying
+     * the batch one after another. Only a bounded number of tasks run ahead of the parking, which keeps reruns rare.
+     *
+     * @param deployRoverParamsList The deployment params passed in by the client, in deployment order
+     * @return One result per deployment, in the same order as the params
+     */
+    private List<DeployRoverBatchResult> deployRoversSpeculatively(List<DeployRoverParams> deployRoverParamsList) {
+        int size = deployRoverParamsList.size();
+        Speculation[] speculations = new Speculation[size];
+        // Coordinates taken by this batch in parking order, the count is read by the running deployments
+        long[] parkedCells = new long[size];
+        AtomicInteger parkedCount = new AtomicInteger();
+        int chunkCount = (size + SPECULATION_CHUNK_SIZE - 1) / SPECULATION_CHUNK_SIZE;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunkCount];
+        int window = parallelPool.getParallelism() * 4;
+        int submittedChunks = 0;
+        List<DeployRoverBatchResult> results = new ArrayList<>(size);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            while (submittedChunks < chunkCount && submittedChunks < chunk + window) {
+                int from = submittedChunks * SPECULATION_CHUNK_SIZE;
+                int to = Math.min(size, from + SPECULATION_CHUNK_SIZE);
+                tasks[submittedChunks++] = parallelPool.submit(() -> {
+                    for (int i = from; i < to; i++) {
+                        speculations[i] = speculate(deployRoverParamsList.get(i), parkedCount.get());
+                    }
+                });
             }
-            // 1. Check if deployed coordinates clash with another rover
-            int xCoordinate = Integer.parseInt(coordinates[0]);
-            int yCoordinate = Integer.parseInt(coordinates[1]);
-            if (xCoordinate >= 99 || yCoordinate >= 99 || xCoordinate < 0 || yCoordinate < 0) {
-                throw new DeployRoverException("Out of Mars boundary.");
+            tasks[chunk].join();
+            tasks[chunk] = null;
+            int end = Math.min(size, (chunk + 1) * SPECULATION_CHUNK_SIZE);
+            for (int i = chunk * SPECULATION_CHUNK_SIZE; i < end; i++) {
+                Speculation speculation = speculations[i];
+                speculations[i] = null;
+                int parked = parkedCount.get();
+                DeployRoverBatchResult result = speculation.isStale(parkedCells, parked)
+                        ? tryDeployment(speculation.deployRoverParams)
+                        : finishSpeculation(speculation);
+                DeployRoverResult deployRoverResult = result.getResult();
+                if (deployRoverResult != null) {
+                    // Published after the rover is parked, a deployment that reads the new count sees the coordinates taken
+                    parkedCells[parked] = ((long) deployRoverResult.getxCoordinate() << 32) | deployRoverResult.getyCoordinate();
+                    parkedCount.set(parked + 1);
+                }
+                results.add(result);
             }
-            if (mars[xCoordinate][yCoordinate] == 1) {
+        }
+        roverRegistry.sync();
+        return results;
+    }
+
+    /**
+     * Runs a deployment of a parallel batch against a read recording view of Mars without parking the rover
+     *
+     * @param deployRoverParams The deployment params passed in by the client
+     * @param parkedCount The number of rovers of the batch parked before the deployment starts running
+     * @return The outcome of the deployment and the coordinates it looked at
+     */
+    private Speculation speculate(DeployRoverParams deployRoverParams, int parkedCount) {
+        Speculation speculation = new Speculation(deployRoverParams, parkedCount, new ReadRecordingOccupancyGrid(mars));
+        // Set while the params are being parsed, so a failure there is recorded as a parse failure
+        boolean parsing = true;
+        try {
+            ParsedCoordinates parsedCoordinates = DeployRoverParser.parseCoordinates(deployRoverParams.getCurrentCoordinates());
+            parsing = false;
+            int xCoordinate = parsedCoordinates.getxCoordinate();
+            int yCoordinate = parsedCoordinates.getyCoordinate();
+            if (!mars.isWithinBounds(xCoordinate, yCoordinate)) {
+                throw new DeployRoverException(OUT_OF_BOUNDS);
+            }
+            if (speculation.view.isOccupied(xCoordinate, yCoordinate)) {
                 throw new DeployRoverException("There is an existing rover at this coordinate.");
             }
-            rover = new Rover(xCoordinate, yCoordinate, coordinates[2]);
-            // 2. For each command, move the rover and check if it clashes
-            for (String commandParam: commands) {
-                Command command = Command.convertStringToCommandEnum(commandParam);
-                if (command == Command.FORWARD || command == Command.BACKWARD) {
-                    // Only forward and back commands can shift coordinates
-                    rover.move(command, mars);
-                }
-                else {
-                    // Only left and right commands can change directions
-                    rover.turn(command);
+            parsing = true;
+            Rover rover = new Rover(xCoordinate, yCoordinate, parsedCoordinates.resolveDirection());
+            CommandProgram program = commandProgramCache.get(deployRoverParams.getCommands());
+            speculation.stopReason = rover.execute(program, speculation.view);
+            speculation.rover = rover;
+        }
+        catch (DeployRoverException | RuntimeException exception) {
+            speculation.failure = exception;
+            speculation.parsing = parsing;
+        }
+        return speculation;
+    }
+
+    /**
+     * Completes a deployment of a parallel batch whose outcome still holds, parking the rover if it stayed on Mars
+     *
+     * @param speculation The outcome of the deployment
+     * @return The result of the deployment or the reason it failed
+     */
+    private DeployRoverBatchResult finishSpeculation(Speculation speculation) {
+        if (speculation.failure != null) {
+            metrics.recordFailure(speculation.parsing, System.nanoTime() - speculation.startNanos);
+            Exception exception = speculation.failure;
+            return new DeployRoverBatchResult(null, exception.getMessage() != null ? exception.getMessage() : exception.toString());
+        }
+        String commands = speculation.deployRoverParams.getCommands();
+        if (speculation.stopReason == StopReason.OUT_OF_BOUNDS) {
+            metrics.recordDeployment(speculation.stopReason, speculation.rover.getExecutedCommandCount(), commands.length(),
+                    System.nanoTime() - speculation.startNanos);
+            return new DeployRoverBatchResult(null, OUT_OF_BOUNDS);
+        }
+        DeployRoverResult deployRoverResult = park(speculation.rover, speculation.stopReason, commands.length(), speculation.startNanos);
+        if (deployRoverResult == null) {
+            // Taken by a request outside of the batch, run the deployment again against the updated Mars
+            return tryDeployment(speculation.deployRoverParams);
+        }
+        return new DeployRoverBatchResult(deployRoverResult, null);
+    }
+
+    /**
+     * Deploys a single rover of a batch, converting any failure into an error result
+     *
+     * @param deployRoverParams The deployment params passed in by the client
+     * @return The result of the deployment or the reason it failed
+     */
+    public DeployRoverBatchResult deployRoverForBatch(DeployRoverParams deployRoverParams) {
+        DeployRoverBatchResult deployRoverBatchResult = tryDeployment(deployRoverParams);
+        roverRegistry.sync();
+        return deployRoverBatchResult;
+    }
+
+    /**
+     * Deploys a rover whose commands were already compiled, converting any failure into an error result like a batch
+     * deployment. Does not wait for the parked rover to be persisted, call sync before reporting the result.
+     *
+     * @param xCoordinate The xCoordinate to deploy the rover at
+     * @param yCoordinate The yCoordinate to deploy the rover at
+     * @param direction The direction the rover is deployed facing
+     * @param program The compiled commands for the rover
+     * @param commandsLength The size of the commands as sent by the client, for the metrics
+     * @return The result of the deployment or the reason it failed
+     */
+    public DeployRoverBatchResult runCompiledDeployment(int xCoordinate, int yCoordinate, Direction direction, CommandProgram program,
+                                                        int commandsLength) {
+        long startNanos = System.nanoTime();
+        try {
+            if (!mars.isWithinBounds(xCoordinate, yCoordinate)) {
+                throw new DeployRoverException(OUT_OF_BOUNDS);
+            }
+            while (true) {
+                if (mars.isOccupied(xCoordinate, yCoordinate)) {
+                    throw new DeployRoverException("There is an existing rover at this coordinate.");
+                }
+                Rover rover = new Rover(xCoordinate, yCoordinate, direction);
+                StopReason stopReason = rover.execute(program, mars);
+                if (stopReason == StopReason.OUT_OF_BOUNDS) {
+                    metrics.recordDeployment(stopReason, rover.getExecutedCommandCount(), commandsLength, System.nanoTime() - startNanos);
+                    return new DeployRoverBatchResult(null, OUT_OF_BOUNDS);
+                }
+                DeployRoverResult deployRoverResult = park(rover, stopReason, commandsLength, startNanos);
+                if (deployRoverResult != null) {
+                    return new DeployRoverBatchResult(deployRoverResult, null);
+                }
+            }
+        }
+        catch (DeployRoverException | RuntimeException exception) {
+            metrics.recordFailure(false, System.nanoTime() - startNanos);
+            return new DeployRoverBatchResult(null, exception.getMessage() != null ? exception.getMessage() : exception.toString());
+        }
+    }
+
+    /**
+     * Waits until every rover parked or moved so far is persisted, a no-op without persistence
+     */
+    public void sync() {
+        roverRegistry.sync();
+    }
+
+    /**
+     * Deploys a single rover of a batch without waiting for it to be persisted, converting any failure into an error result
+     */
+    private DeployRoverBatchResult tryDeployment(DeployRoverParams deployRoverParams) {
+        try {
+            DeployRoverResult deployRoverResult = runDeployment(deployRoverParams);
+            if (deployRoverResult.getStopReason() == StopReason.OUT_OF_BOUNDS) {
+                return new DeployRoverBatchResult(null, OUT_OF_BOUNDS);
+            }
+            return new DeployRoverBatchResult(deployRoverResult, null);
+        }
+        catch (DeployRoverException | RuntimeException exception) {
+            return new DeployRoverBatchResult(null, exception.getMessage() != null ? exception.getMessage() : exception.toString());
+        }
+    }
+
+    /**
+     * Looks up a parked rover by the ID returned when it was deployed
+     *
+     * @param roverId The ID of the rover
+     * @return The current position of the rover
+     * @throws RoverNotFoundException if no rover has the ID
+     */
+    public RoverPosition getRover(int roverId) throws RoverNotFoundException {
+        RoverPosition roverPosition = roverRegistry.find(roverId);
+        if (roverPosition == null) {
+            throw new RoverNotFoundException("There is no rover with id " + roverId + ".");
+        }
+        return roverPosition;
+    }
+
+    /**
+     * Looks up the rover parked at the coordinates
+     *
+     * @param xCoordinate The xCoordinate to check
+     * @param yCoordinate The yCoordinate to check
+     * @return The current position of the rover
+     * @throws RoverNotFoundException if no rover is parked at the coordinates
+     */
+    public RoverPosition getRoverAt(int xCoordinate, int yCoordinate) throws RoverNotFoundException {
+        if (mars.isWithinBounds(xCoordinate, yCoordinate)) {
+            int roverId = roverRegistry.findRoverIdAt(xCoordinate, yCoordinate);
+            if (roverId != RoverRegistry.NO_ROVER) {
+                return getRover(roverId);
+            }
+        }
+        throw new RoverNotFoundException("There is no rover at " + xCoordinate + ", " + yCoordinate + ".");
+    }
+
+    /**
+     * Plans commands that move a rover from the start pose to the target coordinates without colliding with any
+     * parked rover. Planned routes are cached until a coordinate along them is taken.
+     *
+     * @param planRouteParams The start pose and the target coordinates
+     * @return The route with the fewest moves and turns, its commands are empty if the start is the target
+     * @throws DeployRoverException if the params are invalid, either end is taken or out of Mars boundary,
+     * or no route is found
+     */
+    public Route planRoute(PlanRouteParams planRouteParams) throws DeployRoverException {
+        ParsedCoordinates parsedCoordinates = DeployRoverParser.parseCoordinates(planRouteParams.getCurrentCoordinates());
+        int xCoordinate = parsedCoordinates.getxCoordinate();
+        int yCoordinate = parsedCoordinates.getyCoordinate();
+        int targetXCoordinate = planRouteParams.getTargetXCoordinate();
+        int targetYCoordinate = planRouteParams.getTargetYCoordinate();
+        if (!mars.isWithinBounds(xCoordinate, yCoordinate) || !mars.isWithinBounds(targetXCoordinate, targetYCoordinate)) {
+            throw new DeployRoverException(OUT_OF_BOUNDS);
+        }
+        if (mars.isOccupied(xCoordinate, yCoordinate)) {
+            throw new DeployRoverException("There is an existing rover at this coordinate.");
+        }
+        if (mars.isOccupied(targetXCoordinate, targetYCoordinate)) {
+            throw new DeployRoverException("There is an existing rover at the target coordinate.");
+        }
+        Route route = routePlanner.plan(mars, xCoordinate, yCoordinate, parsedCoordinates.resolveDirection(), targetXCoordinate, targetYCoordinate);
+        if (route == null) {
+            throw new DeployRoverException("No route to the target coordinate.");
+        }
+        return route;
+    }
+
+    /**
+     * Moves parked rovers at the same time, one move or turn per rover each tick, see {@link TickSimulation}.
+     * When two rovers want the same coordinates in a tick, the rover with the lower ID moves and the other waits.
+     * Commands are checked before the first tick, so a rover with invalid commands fails the simulation without any rover moving.
+     *
+     * @param simulationParams The rovers taking part, their commands and the most ticks to run
+     * @return The number of ticks run and the position of every rover in rover ID order
+     * @throws RoverNotFoundException if no rover has one of the IDs
+     * @throws DeployRoverException if the tick limit or any commands are invalid, or a rover is listed more than once
+     */
+    public SimulationResult simulate(SimulationParams simulationParams) throws RoverNotFoundException, DeployRoverException {
+        int maxTicks = simulationParams.getMaxTicks();
+        if (maxTicks < 1 || maxTicks > MAX_SIMULATION_TICKS) {
+            throw new DeployRoverException("Invalid max ticks, must be between 1 and " + MAX_SIMULATION_TICKS + ".");
+        }
+        List<SimulationRoverParams> roverParamsList = new ArrayList<>(simulationParams.getRovers());
+        roverParamsList.sort(Comparator.comparingInt(SimulationRoverParams::getRoverId));
+        List<RoverPosition> fleet = new ArrayList<>(roverParamsList.size());
+        List<CommandProgram> programs = new ArrayList<>(roverParamsList.size());
+        for (int i = 0; i < roverParamsList.size(); i++) {
+            SimulationRoverParams roverParams = roverParamsList.get(i);
+            if (i > 0 && roverParamsList.get(i - 1).getRoverId() == roverParams.getRoverId()) {
+                throw new DeployRoverException("Rover " + roverParams.getRoverId() + " is listed more than once.");
+            }
+            fleet.add(getRover(roverParams.getRoverId()));
+            CommandProgram program = commandProgramCache.get(roverParams.getCommands());
+            program.checkInvalidCommand();
+            programs.add(program);
+        }
+        TickSimulation simulation = new TickSimulation(mars, roverRegistry, routePlanner, parallelPool, fleet, programs);
+        int ticks = simulation.run(maxTicks);
+        roverRegistry.sync();
+        List<DeployRoverResult> results = simulation.getResults();
+        for (DeployRoverResult result : results) {
+            if (result.getStopReason() == StopReason.COLLISION) {
+                occupancyFeed.collided(result.getRoverId(), result.getxCoordinate(), result.getyCoordinate(), result.getFinalDirection());
+            }
+        }
+        if (roverEventBus.isEnabled()) {
+            for (DeployRoverResult result : results) {
+                if (result.getStopReason() != null) {
+                    roverEventBus.publish(new RoverEvent(result.getxCoordinate(), result.getyCoordinate(), result.getFinalDirection(), result.getStopReason()));
+                }
+            }
+        }
+        return new SimulationResult(ticks, results);
+    }
+
+    /**
+     * Counts the rovers parked inside a rectangle. Parts of the rectangle outside of Mars are ignored.
+     *
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @return The number of rovers inside the rectangle
+     * @throws InvalidQueryException if the lowest coordinates are above the highest coordinates
+     */
+    public long countRovers(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate) throws InvalidQueryException {
+        checkRectangle(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate);
+        if (maxXCoordinate < 0 || maxYCoordinate < 0 || minXCoordinate >= mars.getWidth() || minYCoordinate >= mars.getHeight()) {
+            return 0;
+        }
+        return roverRegistry.getSpatialIndex().count(Math.max(0, minXCoordinate), Math.max(0, minYCoordinate),
+                Math.min(mars.getWidth() - 1, maxXCoordinate), Math.min(mars.getHeight() - 1, maxYCoordinate));
+    }
+
+    /**
+     * Lists the rovers parked inside a rectangle, in no particular order. Parts of the rectangle outside of Mars are ignored.
+     *
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @param limit The maximum number of rovers to return
+     * @return Up to limit rovers inside the rectangle
+     * @throws InvalidQueryException if the lowest coordinates are above the highest coordinates or the limit is out of range
+     */
+    public List<RoverPosition> listRovers(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate, int limit)
+            throws InvalidQueryException {
+        checkRectangle(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate);
+        checkResultCount("limit", limit);
+        if (maxXCoordinate < 0 || maxYCoordinate < 0 || minXCoordinate >= mars.getWidth() || minYCoordinate >= mars.getHeight()) {
+            return new ArrayList<>();
+        }
+        return roverRegistry.getSpatialIndex().list(Math.max(0, minXCoordinate), Math.max(0, minYCoordinate),
+                Math.min(mars.getWidth() - 1, maxXCoordinate), Math.min(mars.getHeight() - 1, maxYCoordinate), limit);
+    }
+
+    /**
+     * Finds the rovers nearest to the coordinates by the number of steps between them
+     *
+     * @param xCoordinate The xCoordinate to search from
+     * @param yCoordinate The yCoordinate to search from
+     * @param k The number of rovers to find
+     * @return Up to k rovers, nearest first
+     * @throws InvalidQueryException if the coordinates are out of Mars boundary or k is out of range
+     */
+    public List<RoverPosition> findNearestRovers(int xCoordinate, int yCoordinate, int k) throws InvalidQueryException {
+        if (!mars.isWithinBounds(xCoordinate, yCoordinate)) {
+            throw new InvalidQueryException(OUT_OF_BOUNDS);
+        }
+        checkResultCount("k", k);
+        return roverRegistry.getSpatialIndex().nearest(xCoordinate, yCoordinate, k);
+    }
+
+    /**
+     * Starts collecting the changes of the parked rovers inside a rectangle: parks, moves, coordinates left behind and
+     * collisions. Parts of the rectangle outside of Mars are ignored.
+     *
+     * @param minXCoordinate The lowest xCoordinate of the rectangle, inclusive
+     * @param minYCoordinate The lowest yCoordinate of the rectangle, inclusive
+     * @param maxXCoordinate The highest xCoordinate of the rectangle, inclusive
+     * @param maxYCoordinate The highest yCoordinate of the rectangle, inclusive
+     * @param capacity The number of cells with changes that can wait to be sent before the subscription overflows
+     * @return The subscription, to be closed once the subscriber leaves
+     * @throws InvalidQueryException if the lowest coordinates are above the highest coordinates
+     */
+    public FeedSubscription subscribe(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate, int capacity)
+            throws InvalidQueryException {
+        checkRectangle(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate);
+        return occupancyFeed.subscribe(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate, capacity);
+    }
+
+    /**
+     * @return true if at least one feed subscription is open
+     */
+    public boolean hasSubscribers() {
+        return occupancyFeed.hasSubscribers();
+    }
+
+    private static void checkRectangle(int minXCoordinate, int minYCoordinate, int maxXCoordinate, int maxYCoordinate) throws InvalidQueryException {
+        if (minXCoordinate > maxXCoordinate || minYCoordinate > maxYCoordinate) {
+            throw new InvalidQueryException("Invalid area, min coordinates must not be above max coordinates.");
+        }
+    }
+
+    private static void checkResultCount(String name, int count) throws InvalidQueryException {
+        if (count < 1 || count > MAX_QUERY_RESULTS) {
+            throw new InvalidQueryException("Invalid " + name + ", must be between 1 and " + MAX_QUERY_RESULTS + ".");
+        }
+    }
+
+    /**
+     * Outcome of a deployment of a parallel batch that ran before the rovers ahead of it in the batch were parked
+     */
+    private static final class Speculation {
+        private final DeployRoverParams deployRoverParams;
+        // Number of rovers of the batch parked before the deployment started running
+        private final int parkedCount;
+        // Every coordinate the deployment looked at
+        private final ReadRecordingOccupancyGrid view;
+        private final long startNanos = System.nanoTime();
+        // Set if the deployment finished, with the rover at its final coordinates
+        private Rover rover;
+        private StopReason stopReason;
+        // Set if the deployment failed
+        private Exception failure;
+        private boolean parsing;
+
+        private Speculation(DeployRoverParams deployRoverParams, int parkedCount, ReadRecordingOccupancyGrid view) {
+            this.deployRoverParams = deployRoverParams;
+            this.parkedCount = parkedCount;
+            this.view = view;
+        }
+
+        /**
+         * @return true if a rover parked after the deployment started running may have changed its outcome
+         */
+        private boolean isStale(long[] parkedCells, int parkedCount) {
+            for (int i = this.parkedCount; i < parkedCount; i++) {
+                if (view.hasRead((int) (parkedCells[i] >>> 32), (int) parkedCells[i])) {
+                    return true;
                 }
             }
-            // 3. After the rover finishes its commands, mark the location in Mars as occupied
-            mars[rover.getxCoordinate()][rover.getyCoordinate()] = 1;
-            System.out.println("Final Coordinate: " + rover.getxCoordinate() + ", " + rover.getyCoordinate());
-            System.out.println("Final Direction:  " + rover.getDirection());
-            return new DeployRoverResult(rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection());
-        }
-        catch (CollisionException e) {
-            // Stop rover and mark location on Mars
-            mars[rover.getxCoordinate()][rover.getyCoordinate()] = 1;
-            System.out.println("Final Coordinate: " + rover.getxCoordinate() + ", " + rover.getyCoordinate());
-            System.out.println("Final Direction:  " + rover.getDirection());
-            return new DeployRoverResult(rover.getxCoordinate(), rover.getyCoordinate(), rover.getDirection());
+            return false;
         }
     }
 }
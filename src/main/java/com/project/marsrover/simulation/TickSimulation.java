@@ -0,0 +1,382 @@
+package com.project.marsrover.simulation;
+
+import com.project.marsrover.collections.LongIntHashMap;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.objects.RoverPosition;
+import com.project.marsrover.parser.CommandProgram;
+import com.project.marsrover.planner.RoutePlanner;
+import com.project.marsrover.registry.RoverRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Moves a fleet of parked rovers at the same time. Every tick, each active rover runs one step of its commands:
+ * one move, or one turn, where a folded turn around takes two ticks. Each tick runs in three parallel phases:
+ * <ol>
+ *     <li>Rovers, split into chunks in rover ID order, work out the coordinate they want to move to</li>
+ *     <li>Claims are split into spatial stripes by the coordinate claimed. Each stripe takes its coordinates on the
+ *     grid with compare and set in rover ID order, so the rover with the lowest ID wins a contested coordinate</li>
+ *     <li>Rovers, again by chunk, record their new positions and give up the coordinates they moved away from, so
+ *     coordinates freed during a tick can only be claimed from the next tick on</li>
+ * </ol>
+ * A rover blocked by another active rover of the fleet waits and tries again on the next tick. A rover blocked by
+ * anything else stops with COLLISION, and a rover that would leave Mars stops with OUT_OF_BOUNDS where it is.
+ * When a whole tick passes without any rover making progress, the waiting rovers are deadlocked and stop with COLLISION.
+ */
+public class TickSimulation {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // Rovers per chunk of the first and last phase
+    private static final int CHUNK_SIZE = 1024;
+    // Regions are 64 x 64 coordinates
+    private static final int REGION_SHIFT = 6;
+    // What an active rover does in the current tick
+    private static final byte TURNING = 0;
+    private static final byte MOVING = 1;
+    private static final byte MOVED = 2;
+    private static final byte WAITING = 3;
+    private static final byte COLLIDED = 4;
+    private static final byte LEAVING_MARS = 5;
+
+    private final OccupancyGrid mars;
+    private final RoverRegistry roverRegistry;
+    private final RoutePlanner routePlanner;
+    private final ForkJoinPool forkJoinPool;
+
+    // Fleet in rover ID order, one entry per rover in every column
+    private final int[] roverIds;
+    private final int[] xCoordinates;
+    private final int[] yCoordinates;
+    private final byte[] directions;
+    private final CommandProgram[] programs;
+    private final int[] operationIndexes;
+    // Steps or turns done of the current operation
+    private final int[] operationProgress;
+    // Null while the rover is active
+    private final StopReason[] stopReasons;
+    // Fleet index by rover ID
+    private final LongIntHashMap fleetIndexes;
+
+    // State of the current tick
+    private final byte[] outcomes;
+    private final int[] targetXCoordinates;
+    private final int[] targetYCoordinates;
+    private final byte[] targetDirections;
+    // Fleet indexes of the active rovers, in rover ID order
+    private int[] active;
+    private int activeCount;
+    private int chunkCount;
+    // Claims by chunk and stripe, each in rover ID order
+    private ClaimList[][] claims = new ClaimList[0][];
+    // Coordinates taken in the current tick by stripe, to tell a lost claim from a collision
+    private final LongIntHashMap[] claimedCells;
+    private boolean[] chunkProgress = new boolean[0];
+    private final int stripeMask;
+    private int ticks;
+
+    /**
+     * @param mars The Mars occupancy grid the fleet is parked on
+     * @param roverRegistry The registry the fleet is registered in
+     * @param routePlanner The planner whose cached routes are dropped as the fleet takes coordinates
+     * @param forkJoinPool The pool the phases of each tick run on
+     * @param fleet The starting positions of the rovers, in rover ID order without duplicates
+     * @param fleetPrograms The compiled commands of each rover, in the same order as the fleet
+     */
+    public TickSimulation(OccupancyGrid mars, RoverRegistry roverRegistry, RoutePlanner routePlanner, ForkJoinPool forkJoinPool,
+                          List<RoverPosition> fleet, List<CommandProgram> fleetPrograms) {
+        this.mars = mars;
+        this.roverRegistry = roverRegistry;
+        this.routePlanner = routePlanner;
+        this.forkJoinPool = forkJoinPool;
+        int size = fleet.size();
+        this.roverIds = new int[size];
+        this.xCoordinates = new int[size];
+        this.yCoordinates = new int[size];
+        this.directions = new byte[size];
+        this.programs = fleetPrograms.toArray(new CommandProgram[0]);
+        this.operationIndexes = new int[size];
+        this.operationProgress = new int[size];
+        this.stopReasons = new StopReason[size];
+        this.fleetIndexes = new LongIntHashMap(size);
+        this.outcomes = new byte[size];
+        this.targetXCoordinates = new int[size];
+        this.targetYCoordinates = new int[size];
+        this.targetDirections = new byte[size];
+        this.active = new int[size];
+        for (int i = 0; i < size; i++) {
+            RoverPosition roverPosition = fleet.get(i);
+            roverIds[i] = roverPosition.getRoverId();
+            xCoordinates[i] = roverPosition.getxCoordinate();
+            yCoordinates[i] = roverPosition.getyCoordinate();
+            directions[i] = (byte) roverPosition.getDirection().ordinal();
+            fleetIndexes.put(roverIds[i], i);
+            if (programs[i].getOperationCount() == 0) {
+                stopReasons[i] = StopReason.COMPLETED;
+            } else {
+                active[activeCount++] = i;
+            }
+        }
+        int stripeCount = Integer.highestOneBit(forkJoinPool.getParallelism() * 8 - 1) << 1;
+        this.stripeMask = stripeCount - 1;
+        this.claimedCells = new LongIntHashMap[stripeCount];
+        for (int s = 0; s < stripeCount; s++) {
+            claimedCells[s] = new LongIntHashMap(16);
+        }
+    }
+
+    /**
+     * Runs ticks until every rover has stopped or the tick limit is reached
+     *
+     * @param maxTicks The most ticks to run
+     * @return The number of ticks run
+     */
+    public int run(int maxTicks) {
+        while (activeCount > 0 && ticks < maxTicks) {
+            chunkCount = (activeCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            ensureClaimLists();
+            forkJoinPool.invoke(new RangeTask(0, chunkCount, this::planChunk));
+            forkJoinPool.invoke(new RangeTask(0, claimedCells.length, this::claimStripe));
+            forkJoinPool.invoke(new RangeTask(0, chunkCount, this::commitChunk));
+            ticks++;
+            removeStoppedRovers();
+        }
+        return ticks;
+    }
+
+    /**
+     * @return The position of every rover in rover ID order, with a null stop reason for rovers still active
+     */
+    public List<DeployRoverResult> getResults() {
+        List<DeployRoverResult> results = new ArrayList<>(roverIds.length);
+        for (int i = 0; i < roverIds.length; i++) {
+            results.add(new DeployRoverResult(roverIds[i], xCoordinates[i], yCoordinates[i], DIRECTIONS[directions[i]], stopReasons[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Phase 1: works out what each rover of the chunk does in this tick and files its claim under the stripe
+     * of the coordinate it wants to move to
+     */
+    private void planChunk(int chunk) {
+        ClaimList[] chunkClaims = claims[chunk];
+        for (ClaimList claimList : chunkClaims) {
+            claimList.size = 0;
+        }
+        int end = Math.min(activeCount, (chunk + 1) * CHUNK_SIZE);
+        for (int k = chunk * CHUNK_SIZE; k < end; k++) {
+            int rover = active[k];
+            int operation = programs[rover].getOperation(operationIndexes[rover]);
+            Direction facing = DIRECTIONS[directions[rover]];
+            if (CommandProgram.isTurn(operation)) {
+                // 3 right turns are a left turn, 2 right turns take two ticks
+                targetDirections[rover] = (byte) facing.turnRight(CommandProgram.getArgument(operation) == 3 ? 3 : 1).ordinal();
+                outcomes[rover] = TURNING;
+                continue;
+            }
+            int step = CommandProgram.getArgument(operation) > 0 ? 1 : -1;
+            int targetXCoordinate = xCoordinates[rover] + step * facing.getxStep();
+            int targetYCoordinate = yCoordinates[rover] + step * facing.getyStep();
+            if (!mars.isWithinBounds(targetXCoordinate, targetYCoordinate)) {
+                outcomes[rover] = LEAVING_MARS;
+                continue;
+            }
+            targetXCoordinates[rover] = targetXCoordinate;
+            targetYCoordinates[rover] = targetYCoordinate;
+            outcomes[rover] = MOVING;
+            chunkClaims[stripeOf(targetXCoordinate, targetYCoordinate)].add(rover);
+        }
+    }
+
+    /**
+     * Phase 2: takes the claimed coordinates of the stripe on the grid, chunk by chunk so claims are handled in rover ID order
+     */
+    private void claimStripe(int stripe) {
+        LongIntHashMap claimed = claimedCells[stripe];
+        claimed.clear();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            ClaimList claimList = claims[chunk][stripe];
+            for (int c = 0; c < claimList.size; c++) {
+                int rover = claimList.rovers[c];
+                int targetXCoordinate = targetXCoordinates[rover];
+                int targetYCoordinate = targetYCoordinates[rover];
+                long cell = ((long) targetXCoordinate << 32) | targetYCoordinate;
+                if (claimed.get(cell) != LongIntHashMap.NO_VALUE) {
+                    // A rover with a lower ID moves there in this tick
+                    outcomes[rover] = WAITING;
+                } else if (mars.occupy(targetXCoordinate, targetYCoordinate)) {
+                    claimed.put(cell, rover);
+                    outcomes[rover] = MOVED;
+                } else {
+                    outcomes[rover] = isBlockedByActiveRover(targetXCoordinate, targetYCoordinate) ? WAITING : COLLIDED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Phase 3: records the new positions of the rovers of the chunk and frees the coordinates they moved away from
+     */
+    private void commitChunk(int chunk) {
+        boolean progress = false;
+        int end = Math.min(activeCount, (chunk + 1) * CHUNK_SIZE);
+        for (int k = chunk * CHUNK_SIZE; k < end; k++) {
+            int rover = active[k];
+            int xCoordinate = xCoordinates[rover];
+            int yCoordinate = yCoordinates[rover];
+            Direction facing = DIRECTIONS[directions[rover]];
+            switch (outcomes[rover]) {
+                case TURNING -> {
+                    progress = true;
+                    Direction targetDirection = DIRECTIONS[targetDirections[rover]];
+                    if (roverRegistry.move(roverIds[rover], xCoordinate, yCoordinate, facing, xCoordinate, yCoordinate, targetDirection)) {
+                        directions[rover] = targetDirections[rover];
+                        advance(rover);
+                    } else {
+                        // Moved by another request while the fleet was running
+                        stopReasons[rover] = StopReason.COLLISION;
+                    }
+                }
+                case MOVED -> {
+                    progress = true;
+                    int targetXCoordinate = targetXCoordinates[rover];
+                    int targetYCoordinate = targetYCoordinates[rover];
+                    if (roverRegistry.move(roverIds[rover], xCoordinate, yCoordinate, facing, targetXCoordinate, targetYCoordinate, facing)) {
+                        mars.release(xCoordinate, yCoordinate);
+                        routePlanner.cellOccupied(targetXCoordinate, targetYCoordinate);
+                        xCoordinates[rover] = targetXCoordinate;
+                        yCoordinates[rover] = targetYCoordinate;
+                        advance(rover);
+                    } else {
+                        mars.release(targetXCoordinate, targetYCoordinate);
+                        stopReasons[rover] = StopReason.COLLISION;
+                    }
+                }
+                case COLLIDED -> {
+                    progress = true;
+                    stopReasons[rover] = StopReason.COLLISION;
+                }
+                case LEAVING_MARS -> {
+                    progress = true;
+                    stopReasons[rover] = StopReason.OUT_OF_BOUNDS;
+                }
+                default -> {
+                    // Waiting for the coordinate to be freed
+                }
+            }
+        }
+        chunkProgress[chunk] = progress;
+    }
+
+    /**
+     * Moves the rover on to the next step of its commands after a successful move or turn
+     */
+    private void advance(int rover) {
+        CommandProgram program = programs[rover];
+        int operation = program.getOperation(operationIndexes[rover]);
+        int argument = CommandProgram.getArgument(operation);
+        int operationTicks = CommandProgram.isTurn(operation) ? (argument == 2 ? 2 : 1) : Math.abs(argument);
+        if (++operationProgress[rover] == operationTicks) {
+            operationProgress[rover] = 0;
+            if (++operationIndexes[rover] == program.getOperationCount()) {
+                stopReasons[rover] = StopReason.COMPLETED;
+            }
+        }
+    }
+
+    private boolean isBlockedByActiveRover(int xCoordinate, int yCoordinate) {
+        int roverId = roverRegistry.findRoverIdAt(xCoordinate, yCoordinate);
+        if (roverId == RoverRegistry.NO_ROVER) {
+            return false;
+        }
+        int blocker = fleetIndexes.get(roverId);
+        return blocker != LongIntHashMap.NO_VALUE && stopReasons[blocker] == null;
+    }
+
+    private void removeStoppedRovers() {
+        boolean progress = false;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            progress |= chunkProgress[chunk];
+        }
+        int remaining = 0;
+        for (int k = 0; k < activeCount; k++) {
+            int rover = active[k];
+            if (stopReasons[rover] == null) {
+                if (!progress) {
+                    // Every remaining rover is waiting on another, none of them can ever move again
+                    stopReasons[rover] = StopReason.COLLISION;
+                } else {
+                    active[remaining++] = rover;
+                }
+            }
+        }
+        activeCount = remaining;
+    }
+
+    private void ensureClaimLists() {
+        if (claims.length >= chunkCount) {
+            return;
+        }
+        int previousChunkCount = claims.length;
+        claims = Arrays.copyOf(claims, chunkCount);
+        chunkProgress = new boolean[chunkCount];
+        for (int chunk = previousChunkCount; chunk < chunkCount; chunk++) {
+            claims[chunk] = new ClaimList[claimedCells.length];
+            for (int stripe = 0; stripe < claimedCells.length; stripe++) {
+                claims[chunk][stripe] = new ClaimList();
+            }
+        }
+    }
+
+    private int stripeOf(int xCoordinate, int yCoordinate) {
+        int hash = (xCoordinate >>> REGION_SHIFT) * 0x9E3779B1 + (yCoordinate >>> REGION_SHIFT);
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    /**
+     * Growable list of fleet indexes, reused across ticks
+     */
+    private static final class ClaimList {
+        private int[] rovers = new int[16];
+        private int size;
+
+        private void add(int rover) {
+            if (size == rovers.length) {
+                rovers = Arrays.copyOf(rovers, size * 2);
+            }
+            rovers[size++] = rover;
+        }
+    }
+
+    /**
+     * Runs the body for every index of a range, splitting the range in halves across the fork join pool
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer body;
+
+        private RangeTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+            } else if (to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, middle, body), new RangeTask(middle, to, body));
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.project.marsrover;
+
+import com.project.marsrover.enums.Command;
+import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.objects.Rover;
+import com.project.marsrover.parser.CommandProgram;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.parser.DeployRoverParser;
+import com.project.marsrover.parser.ParsedCoordinates;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+class DeployRoverParserTests {
+
+    @Test
+    public void parseCoordinates_success_coordinatesAndDirection() throws DeployRoverException {
+        // Given valid coordinates params
+        // When they are parsed
+        ParsedCoordinates parsedCoordinates = DeployRoverParser.parseCoordinates("3,-4,W");
+
+        // Then the coordinates and direction should be parsed
+        Assertions.assertEquals(3, parsedCoordinates.getxCoordinate());
+        Assertions.assertEquals(-4, parsedCoordinates.getyCoordinate());
+        Assertions.assertEquals(Direction.WEST, parsedCoordinates.resolveDirection());
+    }
+
+    @Test
+    public void parse_success_trailingSeparatorsIgnoredLikeSplit() throws DeployRoverException {
+        // Given params with trailing commas, which String.split(",") drops
+        ParsedCoordinates parsedCoordinates = DeployRoverParser.parseCoordinates("3,4,N,,");
+        CommandProgram program = DeployRoverParser.parseCommands("f,f,,");
+
+        // Then they should be parsed as if the trailing commas were not there
+        Assertions.assertEquals(Direction.NORTH, parsedCoordinates.resolveDirection());
+        Assertions.assertEquals(2, program.getCommandCount());
+        Assertions.assertDoesNotThrow(program::checkInvalidCommand);
+    }
+
+    @Test
+    public void parseCommands_success_turnsFoldedAndMovesMerged() {
+        // Given commands with runs of moves and turns that partly cancel out
+        // When they are compiled
+        CommandProgram program = DeployRoverParser.parseCommands("f,f,l,r,f,r,r,r,b,b,f,l,l,l,l");
+
+        // Then turns should be folded into net right turns and runs of the same move merged,
+        // but not across turns that cancelled out so a stop mid-move can count the commands run
+        Assertions.assertEquals(15, program.getCommandCount());
+        Assertions.assertEquals(5, program.getOperationCount());
+        assertMove(program.getOperation(0), 2);
+        assertMove(program.getOperation(1), 1);
+        Assertions.assertEquals(5, program.getCommandEnd(1));
+        assertTurn(program.getOperation(2), 3);
+        assertMove(program.getOperation(3), -2);
+        assertMove(program.getOperation(4), 1);
+    }
+
+    @Test
+    public void parseCommands_success_repeatedCommands() {
+        // Given commands with repeat counts
+        // When they are compiled
+        CommandProgram program = DeployRoverParser.parseCommands("f*5000,f,l*5,b*2,r*4");
+
+        // Then each repetition should count as a command and runs should still be merged
+        Assertions.assertEquals(5012, program.getCommandCount());
+        Assertions.assertEquals(3, program.getOperationCount());
+        assertMove(program.getOperation(0), 5001);
+        assertTurn(program.getOperation(1), 3);
+        assertMove(program.getOperation(2), -2);
+    }
+
+    @Test
+    public void parseCommands_fail_malformedRepeatCount() {
+        // Given commands with malformed repeat counts
+        // Then they should be reported as invalid commands
+        for (String commands : new String[]{"f*0", "f*", "f*-1", "x*3", "f**2", "f*99999999999"}) {
+            CommandProgram program = DeployRoverParser.parseCommands("f," + commands);
+            Exception exception = Assertions.assertThrows(DeployRoverException.class, program::checkInvalidCommand);
+            Assertions.assertEquals("Invalid command: " + commands, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void parseCommands_fail_invalidCommandReportedAfterValidCommands() {
+        // Given commands with an invalid command in the middle
+        CommandProgram program = DeployRoverParser.parseCommands("f,r,fr,f");
+
+        // Then only the commands before it should be compiled and the invalid command should be reported when checked
+        Assertions.assertEquals(2, program.getCommandCount());
+        Exception exception = Assertions.assertThrows(DeployRoverException.class, program::checkInvalidCommand);
+        Assertions.assertEquals("Invalid command: fr", exception.getMessage());
+    }
+
+    @Test
+    public void parseCommands_fail_emptyCommand() {
+        // Given commands with an empty command in the middle
+        CommandProgram program = DeployRoverParser.parseCommands("f,,f");
+
+        // Then the empty command should be reported
+        Exception exception = Assertions.assertThrows(DeployRoverException.class, program::checkInvalidCommand);
+        Assertions.assertEquals("Invalid command: ", exception.getMessage());
+    }
+
+    @Test
+    public void parsePackedCommands_success_sameProgramAsCommandsParam() {
+        Random random = new Random(7);
+        String[] commandParams = {"f", "b", "r", "l"};
+        for (int run = 0; run < 500; run++) {
+            // Given random commands, both comma separated and packed four to a byte by Command ordinal
+            int commandCount = 1 + random.nextInt(40);
+            StringBuilder commands = new StringBuilder();
+            ByteBuffer packed = ByteBuffer.allocate((commandCount + 3) / 4);
+            int bits = 0;
+            for (int i = 0; i < commandCount; i++) {
+                int command = random.nextInt(4);
+                commands.append(i == 0 ? "" : ",").append(commandParams[command]);
+                bits |= command << ((i % 4) * 2);
+                if (i % 4 == 3 || i == commandCount - 1) {
+                    packed.put((byte) bits);
+                    bits = 0;
+                }
+            }
+            packed.flip();
+
+            // When both are compiled
+            CommandProgram expected = DeployRoverParser.parseCommands(commands);
+            CommandProgram program = DeployRoverParser.parsePackedCommands(packed, commandCount);
+
+            // Then they should compile into the same operations
+            Assertions.assertFalse(packed.hasRemaining());
+            Assertions.assertEquals(expected.getCommandCount(), program.getCommandCount(), commands::toString);
+            Assertions.assertEquals(expected.getOperationCount(), program.getOperationCount(), commands::toString);
+            for (int i = 0; i < expected.getOperationCount(); i++) {
+                Assertions.assertEquals(expected.getOperation(i), program.getOperation(i), commands::toString);
+            }
+        }
+    }
+
+    @Test
+    public void parsePackedCommands_fail_noCommands() {
+        // Given no packed commands at all
+        CommandProgram program = DeployRoverParser.parsePackedCommands(ByteBuffer.allocate(0), 0);
+
+        // Then it should be reported like an empty commands param
+        Exception exception = Assertions.assertThrows(DeployRoverException.class, program::checkInvalidCommand);
+        Assertions.assertEquals("Invalid command: ", exception.getMessage());
+    }
+
+    @Test
+    public void parseCoordinates_fail_invalidDirectionReportedWhenResolved() throws DeployRoverException {
+        // Given params with an invalid direction
+        ParsedCoordinates parsedCoordinates = DeployRoverParser.parseCoordinates("3,4,NE");
+
+        // Then the direction should be reported when resolved
+        Exception exception = Assertions.assertThrows(DeployRoverException.class, parsedCoordinates::resolveDirection);
+        Assertions.assertEquals("Invalid direction: NE", exception.getMessage());
+    }
+
+    @Test
+    public void parseCoordinates_fail_invalidCoordinates() {
+        // Given coordinates that do not have exactly 3 parts or are not integers
+        // Then the same errors as splitting and parsing the params should be thrown
+        Exception exception = Assertions.assertThrows(DeployRoverException.class, () -> DeployRoverParser.parseCoordinates("3,4,N,1"));
+        Assertions.assertEquals("Invalid coordinates params. Specify in the format of e.g 3,4,N.", exception.getMessage());
+        Assertions.assertThrows(DeployRoverException.class, () -> DeployRoverParser.parseCoordinates(""));
+        Assertions.assertThrows(NumberFormatException.class, () -> DeployRoverParser.parseCoordinates("a,4,N"));
+        Assertions.assertThrows(NumberFormatException.class, () -> DeployRoverParser.parseCoordinates(",4,N"));
+    }
+
+    @Test
+    public void commandProgramCache_success_reusesProgramsAndStaysBounded() {
+        // Given a small cache
+        CommandProgramCache commandProgramCache = new CommandProgramCache(32);
+
+        // When the same commands are looked up twice
+        // Then the same compiled program should be returned
+        Assertions.assertSame(commandProgramCache.get("f,f,r"), commandProgramCache.get("f,f,r"));
+
+        // When many different commands are looked up
+        for (int i = 0; i < 1000; i++) {
+            commandProgramCache.get("f,".repeat(i) + "l");
+        }
+
+        // Then older programs should be evicted
+        Assertions.assertTrue(commandProgramCache.size() <= 32);
+    }
+
+    @Test
+    public void execute_success_sameOutcomeAsCommandByCommand() throws DeployRoverException {
+        // Given a grid with scattered rovers and random commands
+        Random random = new Random(42);
+        OccupancyGrid mars = new BitmapOccupancyGrid(99, 99);
+        for (int i = 0; i < 800; i++) {
+            mars.occupy(random.nextInt(99), random.nextInt(99));
+        }
+        String[] commandParams = {"f", "b", "l", "r"};
+        for (int run = 0; run < 2000; run++) {
+            StringBuilder commands = new StringBuilder(commandParams[random.nextInt(4)]);
+            for (int c = random.nextInt(30); c > 0; c--) {
+                commands.append(',').append(commandParams[random.nextInt(4)]);
+            }
+            int xCoordinate = 30 + random.nextInt(40);
+            int yCoordinate = 30 + random.nextInt(40);
+
+            // When the compiled program and the individual commands are run from the same start
+            Rover compiledRover = new Rover(xCoordinate, yCoordinate, Direction.NORTH);
+            Rover referenceRover = new Rover(xCoordinate, yCoordinate, Direction.NORTH);
+            StopReason compiledStopReason = compiledRover.execute(DeployRoverParser.parseCommands(commands), mars);
+            StopReason referenceStopReason = StopReason.COMPLETED;
+            long referenceExecutedCommandCount = 0;
+            for (String commandParam : commands.toString().split(",")) {
+                Command command = Command.convertStringToCommandEnum(commandParam);
+                if (command == Command.FORWARD || command == Command.BACKWARD) {
+                    referenceStopReason = referenceRover.move(command, mars);
+                    if (referenceStopReason != StopReason.COMPLETED) {
+                        break;
+                    }
+                } else {
+                    referenceRover.turn(command);
+                }
+                referenceExecutedCommandCount++;
+            }
+
+            // Then both rovers should end up in the same place facing the same direction after running the same commands
+            Assertions.assertEquals(referenceRover.getxCoordinate(), compiledRover.getxCoordinate(), commands::toString);
+            Assertions.assertEquals(referenceRover.getyCoordinate(), compiledRover.getyCoordinate(), commands::toString);
+            Assertions.assertEquals(referenceRover.getDirection(), compiledRover.getDirection(), commands::toString);
+            Assertions.assertEquals(referenceStopReason, compiledStopReason, commands::toString);
+            Assertions.assertEquals(referenceExecutedCommandCount, compiledRover.getExecutedCommandCount(), commands::toString);
+        }
+    }
+
+    private static void assertMove(int operation, int steps) {
+        Assertions.assertFalse(CommandProgram.isTurn(operation));
+        Assertions.assertEquals(steps, CommandProgram.getArgument(operation));
+    }
+
+    private static void assertTurn(int operation, int rightTurns) {
+        Assertions.assertTrue(CommandProgram.isTurn(operation));
+        Assertions.assertEquals(rightTurns, CommandProgram.getArgument(operation));
+    }
+}
@@ -0,0 +1,269 @@
+package com.project.marsrover;
+
+import com.project.marsrover.enums.CellChangeType;
+import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.exceptions.RoverNotFoundException;
+import com.project.marsrover.feed.FeedSubscription;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.objects.CellChange;
+import com.project.marsrover.objects.DeployRoverParams;
+import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.objects.RoverPosition;
+import com.project.marsrover.service.MarsRoverService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class MarsRoverServiceConcurrencyTests {
+    private static final int THREADS = 8;
+    private static final int DEPLOYMENTS_PER_THREAD = 2_000;
+    private static final String[] COMMANDS = {"f", "b", "l", "r"};
+
+    @Test
+    public void deployMarsRover_concurrent_noDoubleOccupancyOnSparseGrid() throws Exception {
+        assertNoDoubleOccupancy(new SparseOccupancyGrid(99, 99));
+    }
+
+    @Test
+    public void deployMarsRover_concurrent_noDoubleOccupancyOnBitmapGrid() throws Exception {
+        assertNoDoubleOccupancy(new BitmapOccupancyGrid(99, 99));
+    }
+
+    @Test
+    public void occupy_concurrent_eachCoordinateTakenOnce() throws Exception {
+        for (OccupancyGrid grid : List.of(new SparseOccupancyGrid(64, 64), new BitmapOccupancyGrid(64, 64))) {
+            // Given every thread racing to take every coordinate of the same small grid
+            List<Integer> successes = runConcurrently(threadIndex -> {
+                int taken = 0;
+                for (int x = 0; x < 64; x++) {
+                    for (int y = 0; y < 64; y++) {
+                        if (grid.occupy(x, y)) {
+                            taken++;
+                        }
+                    }
+                }
+                return taken;
+            });
+
+            // Then each coordinate should have been taken by exactly one thread
+            Assertions.assertEquals(64 * 64, successes.stream().mapToInt(Integer::intValue).sum());
+            Assertions.assertEquals(64 * 64, grid.getOccupiedCount());
+        }
+    }
+
+    @Test
+    public void occupyAndRelease_concurrent_bitmapsStayInStep() throws Exception {
+        // Given a bitmap grid where every thread keeps taking and freeing the same few coordinates
+        BitmapOccupancyGrid grid = new BitmapOccupancyGrid(16, 16);
+        runConcurrently(threadIndex -> {
+            Random random = new Random(threadIndex);
+            for (int i = 0; i < DEPLOYMENTS_PER_THREAD * 50; i++) {
+                int xCoordinate = 1 + random.nextInt(4);
+                int yCoordinate = 1 + random.nextInt(4);
+                if (random.nextBoolean()) {
+                    grid.occupy(xCoordinate, yCoordinate);
+                } else {
+                    grid.release(xCoordinate, yCoordinate);
+                }
+            }
+            return null;
+        });
+
+        // Then scans along x and along y should both see exactly the taken coordinates
+        long taken = 0;
+        for (int x = 1; x <= 4; x++) {
+            for (int y = 1; y <= 4; y++) {
+                boolean occupied = grid.isOccupied(x, y);
+                taken += occupied ? 1 : 0;
+                Assertions.assertEquals(occupied ? 0 : 1, grid.countFreeSteps(x - 1, y, 1, 0, 1), x + ", " + y);
+                Assertions.assertEquals(occupied ? 0 : 1, grid.countFreeSteps(x, y - 1, 0, 1, 1), x + ", " + y);
+            }
+        }
+        Assertions.assertEquals(taken, grid.getOccupiedCount());
+    }
+
+    @Test
+    public void commandRover_concurrent_eachRoverParkedOnceOnSparseGrid() throws Exception {
+        assertEachRoverParkedOnce(new SparseOccupancyGrid(99, 99));
+    }
+
+    @Test
+    public void commandRover_concurrent_eachRoverParkedOnceOnBitmapGrid() throws Exception {
+        assertEachRoverParkedOnce(new BitmapOccupancyGrid(99, 99));
+    }
+
+    @Test
+    public void subscribe_concurrent_drainedChangesMatchFinalPositions() throws Exception {
+        // Given a subscriber applying the changes of a crowded corner of Mars as they are drained
+        OccupancyGrid grid = new SparseOccupancyGrid(99, 99);
+        MarsRoverService marsRoverService = new MarsRoverService(grid);
+        FeedSubscription subscription = marsRoverService.subscribe(0, 0, 98, 98, 100_000);
+        int roverCount = 200;
+        for (int i = 0; i < roverCount; i++) {
+            marsRoverService.deployRover(new DeployRoverParams((10 + i / 20) + "," + (10 + i % 20) + ",N", "l,r"));
+        }
+        Map<Long, Integer> roverIdByCell = new HashMap<>();
+        AtomicBoolean commanding = new AtomicBoolean(true);
+        Thread subscriber = new Thread(() -> {
+            while (commanding.get()) {
+                applyChanges(subscription.drain(), roverIdByCell);
+            }
+        });
+        subscriber.start();
+
+        // When many threads keep sending random commands to the same rovers
+        runConcurrently(threadIndex -> {
+            Random random = new Random(threadIndex);
+            for (int i = 0; i < DEPLOYMENTS_PER_THREAD; i++) {
+                StringBuilder commands = new StringBuilder(COMMANDS[random.nextInt(4)]);
+                for (int c = 0; c < 4; c++) {
+                    commands.append(',').append(COMMANDS[random.nextInt(4)]);
+                }
+                try {
+                    marsRoverService.commandRover(random.nextInt(roverCount), commands.toString());
+                } catch (DeployRoverException e) {
+                    // Rovers sent out of bounds stay where they are
+                }
+            }
+            return null;
+        });
+        commanding.set(false);
+        subscriber.join();
+        applyChanges(subscription.drain(), roverIdByCell);
+
+        // Then the latest change of every cell should match where the rovers are parked
+        Assertions.assertEquals(roverCount, roverIdByCell.size());
+        for (int roverId = 0; roverId < roverCount; roverId++) {
+            RoverPosition roverPosition = marsRoverService.getRover(roverId);
+            long key = ((long) roverPosition.getxCoordinate() << 32) | roverPosition.getyCoordinate();
+            Assertions.assertEquals(roverId, roverIdByCell.get(key));
+        }
+    }
+
+    private static void applyChanges(List<CellChange> changes, Map<Long, Integer> roverIdByCell) {
+        Assertions.assertNotNull(changes);
+        for (CellChange change : changes) {
+            long key = ((long) change.getxCoordinate() << 32) | change.getyCoordinate();
+            if (change.getType() == CellChangeType.VACATED) {
+                roverIdByCell.remove(key);
+            } else if (change.getType() != CellChangeType.COLLISION) {
+                roverIdByCell.put(key, change.getRoverId());
+            }
+        }
+    }
+
+    private void assertEachRoverParkedOnce(OccupancyGrid grid) throws Exception {
+        // Given a crowded corner of Mars full of parked rovers
+        MarsRoverService marsRoverService = new MarsRoverService(grid);
+        int roverCount = 200;
+        for (int i = 0; i < roverCount; i++) {
+            marsRoverService.deployRover(new DeployRoverParams((10 + i / 20) + "," + (10 + i % 20) + ",N", "l,r"));
+        }
+
+        // When many threads keep sending random commands to the same rovers
+        runConcurrently(threadIndex -> {
+            Random random = new Random(threadIndex);
+            for (int i = 0; i < DEPLOYMENTS_PER_THREAD; i++) {
+                StringBuilder commands = new StringBuilder(COMMANDS[random.nextInt(4)]);
+                for (int c = 0; c < 8; c++) {
+                    commands.append(',').append(COMMANDS[random.nextInt(4)]);
+                }
+                try {
+                    marsRoverService.commandRover(random.nextInt(roverCount), commands.toString());
+                } catch (DeployRoverException e) {
+                    // Rovers sent out of bounds stay where they are
+                }
+            }
+            return null;
+        });
+
+        // Then every rover should be parked at its own coordinates and no coordinates should be leaked
+        Set<Long> parkedCoordinates = new HashSet<>();
+        for (int roverId = 0; roverId < roverCount; roverId++) {
+            RoverPosition roverPosition = marsRoverService.getRover(roverId);
+            long key = ((long) roverPosition.getxCoordinate() << 32) | roverPosition.getyCoordinate();
+            Assertions.assertTrue(parkedCoordinates.add(key));
+            Assertions.assertTrue(grid.isOccupied(roverPosition.getxCoordinate(), roverPosition.getyCoordinate()));
+            Assertions.assertEquals(roverId, marsRoverService.getRoverAt(roverPosition.getxCoordinate(), roverPosition.getyCoordinate()).getRoverId());
+        }
+        Assertions.assertEquals(roverCount, grid.getOccupiedCount());
+        Assertions.assertEquals(roverCount, marsRoverService.countRovers(0, 0, 98, 98));
+    }
+
+    private void assertNoDoubleOccupancy(OccupancyGrid grid) throws Exception {
+        // Given many threads deploying rovers with random commands into the same crowded corner of Mars
+        MarsRoverService marsRoverService = new MarsRoverService(grid);
+        List<List<DeployRoverResult>> resultsPerThread = runConcurrently(threadIndex -> {
+            Random random = new Random(threadIndex);
+            List<DeployRoverResult> results = new ArrayList<>();
+            for (int i = 0; i < DEPLOYMENTS_PER_THREAD; i++) {
+                StringBuilder commands = new StringBuilder(COMMANDS[random.nextInt(4)]);
+                for (int c = 0; c < 8; c++) {
+                    commands.append(',').append(COMMANDS[random.nextInt(4)]);
+                }
+                String coordinates = (10 + random.nextInt(30)) + "," + (10 + random.nextInt(30)) + ",N";
+                try {
+                    results.add(marsRoverService.deployRover(new DeployRoverParams(coordinates, commands.toString())));
+                } catch (DeployRoverException e) {
+                    // Deployments onto an existing rover are expected in a crowded area
+                }
+            }
+            return results;
+        });
+
+        // Then every successful deployment should be parked and registered at its own coordinates
+        Set<Long> parkedCoordinates = new HashSet<>();
+        for (List<DeployRoverResult> results : resultsPerThread) {
+            for (DeployRoverResult result : results) {
+                long key = ((long) result.getxCoordinate() << 32) | result.getyCoordinate();
+                Assertions.assertTrue(parkedCoordinates.add(key), "Two rovers parked at " + result.getxCoordinate() + ", " + result.getyCoordinate());
+                Assertions.assertTrue(grid.isOccupied(result.getxCoordinate(), result.getyCoordinate()));
+                Assertions.assertEquals(result.getRoverId(), marsRoverService.getRoverAt(result.getxCoordinate(), result.getyCoordinate()).getRoverId());
+            }
+        }
+        Assertions.assertEquals(parkedCoordinates.size(), grid.getOccupiedCount());
+    }
+
+    private interface ThreadTask<T> {
+        T run(int threadIndex) throws Exception;
+    }
+
+    private static <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int threadIndex = t;
+                Callable<T> callable = () -> {
+                    start.await();
+                    return task.run(threadIndex);
+                };
+                futures.add(executorService.submit(callable));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
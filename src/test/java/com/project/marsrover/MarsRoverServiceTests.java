@@ -1,23 +1,130 @@
 package com.project.marsrover;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.marsrover.cli.HeadlessMarsRover;
+import com.project.marsrover.cli.MarsRoverConsole;
+import com.project.marsrover.cli.MissionFileRunner;
+import com.project.marsrover.config.MarsProperties;
+import com.project.marsrover.config.ThreadModes;
+import com.project.marsrover.controller.MarsRoverController;
+import com.project.marsrover.enums.CellChangeType;
+import com.project.marsrover.enums.Command;
 import com.project.marsrover.enums.Direction;
+import com.project.marsrover.enums.GridType;
+import com.project.marsrover.enums.StopReason;
+import com.project.marsrover.enums.ThreadMode;
+import com.project.marsrover.events.InMemoryRoverEventConsumer;
+import com.project.marsrover.events.RoverEvent;
+import com.project.marsrover.events.RoverEventBus;
 import com.project.marsrover.exceptions.DeployRoverException;
+import com.project.marsrover.exceptions.InvalidQueryException;
+import com.project.marsrover.exceptions.PlateauNotFoundException;
+import com.project.marsrover.exceptions.RoverNotFoundException;
+import com.project.marsrover.feed.FeedSubscription;
+import com.project.marsrover.feed.SseFeedStreamer;
+import com.project.marsrover.grid.BitmapOccupancyGrid;
+import com.project.marsrover.grid.IgnoredCellOccupancyGrid;
+import com.project.marsrover.grid.OccupancyGrid;
+import com.project.marsrover.grid.ReadRecordingOccupancyGrid;
+import com.project.marsrover.grid.SparseOccupancyGrid;
+import com.project.marsrover.metrics.MarsRoverMetrics;
+import com.project.marsrover.objects.CellChange;
+import com.project.marsrover.objects.DeployRoverBatchResult;
 import com.project.marsrover.objects.DeployRoverParams;
 import com.project.marsrover.objects.DeployRoverResult;
+import com.project.marsrover.objects.PlanRouteParams;
+import com.project.marsrover.objects.PlateauInfo;
+import com.project.marsrover.objects.RoverPosition;
+import com.project.marsrover.objects.SimulationParams;
+import com.project.marsrover.objects.SimulationResult;
+import com.project.marsrover.objects.SimulationRoverParams;
+import com.project.marsrover.parser.CommandProgramCache;
+import com.project.marsrover.persistence.MarsPersistence;
+import com.project.marsrover.planner.Route;
+import com.project.marsrover.planner.RoutePlanner;
+import com.project.marsrover.plateau.PlateauLease;
+import com.project.marsrover.plateau.PlateauManager;
+import com.project.marsrover.protocol.BinaryProtocol;
+import com.project.marsrover.protocol.BinaryProtocolServer;
+import com.project.marsrover.registry.RoverRegistry;
+import com.project.marsrover.registry.SpatialIndex;
 import com.project.marsrover.service.MarsRoverService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessorApplicationListener;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.junit.jupiter.api.Assertions;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @SpringBootTest
 class MarsRoverServiceTests {
 
     @Autowired
     private MarsRoverService marsRoverService;
 
+    // The application's mapper, which reads the params through their constructors
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @BeforeEach
     private void setUp() {
         marsRoverService = new MarsRoverService();
@@ -426,4 +533,2026 @@ class MarsRoverServiceTests {
             Assertions.assertEquals(70, deployRoverResult.getyCoordinate());
         }
     }
+
+    @Nested
+    class LargePlateauTests {
+        @Test
+        public void deployMarsRover_success_farCornerOfLargePlateau() throws DeployRoverException {
+            // Given a plateau of a trillion coordinates
+            MarsRoverService largeMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(1_000_000, 1_000_000));
+
+            // When a rover is deployed near the far corner and moves forward
+            DeployRoverResult deployRoverResult = largeMarsRoverService.deployRover(new DeployRoverParams("999997,999998,N", "f,f"));
+
+            // Then it should be deployed in the correct coordinates and only its coordinate should be taken
+            Assertions.assertEquals(999999, deployRoverResult.getxCoordinate());
+            Assertions.assertEquals(999998, deployRoverResult.getyCoordinate());
+            Assertions.assertEquals(1, largeMarsRoverService.mars.getOccupiedCount());
+            Assertions.assertTrue(largeMarsRoverService.mars.isOccupied(999999, 999998));
+        }
+
+        @Test
+        public void deployMarsRover_fail_roverMoveOutOfLargePlateau() {
+            // Given a plateau of a trillion coordinates
+            MarsRoverService largeMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(1_000_000, 1_000_000));
+
+            // When a rover is moved past the configured boundary
+            // Then an exception will be thrown with the correct exception message
+            Exception exception = Assertions.assertThrows(DeployRoverException.class, ()-> largeMarsRoverService.deployRover(new DeployRoverParams("999999,5,N", "f")));
+
+            Assertions.assertEquals("Out of Mars boundary.", exception.getMessage());
+        }
+
+        @Test
+        public void deployMarsRover_success_manyRoversAndCollision() throws DeployRoverException {
+            // Given many rovers parked on a large plateau
+            MarsRoverService largeMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(1_000_000, 1_000_000, 16));
+            for (int i = 0; i < 10_000; i++) {
+                largeMarsRoverService.deployRover(new DeployRoverParams(i * 50 + "," + i * 70 + ",N", "l"));
+            }
+
+            // When a rover drives towards one of them
+            DeployRoverResult deployRoverResult = largeMarsRoverService.deployRover(new DeployRoverParams("4998,7000,N", "f,f,f"));
+
+            // Then it should stop before the collision
+            Assertions.assertEquals(4999, deployRoverResult.getxCoordinate());
+            Assertions.assertEquals(7000, deployRoverResult.getyCoordinate());
+            Assertions.assertEquals(10_001, largeMarsRoverService.mars.getOccupiedCount());
+        }
+    }
+
+    @Nested
+    class DensePlateauTests {
+        @Test
+        public void deployMarsRover_success_roverCollisionOnBitmapGrid() throws DeployRoverException {
+            // Given a dense plateau with an existing deployed rover
+            MarsRoverService denseMarsRoverService = new MarsRoverService(new BitmapOccupancyGrid(99, 99));
+            denseMarsRoverService.deployRover(new DeployRoverParams("70,70,N", "r"));
+
+            // When deploy rover is called with commands to collide onto the above deployed rover
+            DeployRoverResult deployRoverResult = denseMarsRoverService.deployRover(new DeployRoverParams("68,70,N", "f,f"));
+
+            // Then the rover should stop before the collision and both coordinates should be taken
+            Assertions.assertEquals(69, deployRoverResult.getxCoordinate());
+            Assertions.assertEquals(70, deployRoverResult.getyCoordinate());
+            Assertions.assertEquals(2, denseMarsRoverService.mars.getOccupiedCount());
+        }
+
+        @Test
+        public void snapshot_isIndependentOfGrid() {
+            // Given a dense grid with a taken coordinate
+            BitmapOccupancyGrid grid = new BitmapOccupancyGrid(1000, 1000);
+            grid.occupy(999, 999);
+
+            // When a snapshot is taken and the grid changes afterwards
+            OccupancyGrid snapshot = grid.snapshot();
+            grid.occupy(0, 63);
+            grid.release(999, 999);
+
+            // Then the snapshot should keep the state at the time it was taken
+            Assertions.assertTrue(snapshot.isOccupied(999, 999));
+            Assertions.assertFalse(snapshot.isOccupied(0, 63));
+            Assertions.assertEquals(1, snapshot.getOccupiedCount());
+            Assertions.assertEquals(1, grid.getOccupiedCount());
+        }
+    }
+
+    @Nested
+    class BatchDeploymentTests {
+        @Test
+        public void deployMarsRovers_success_sequentialCollisionAndPerItemErrors() {
+            // Given a batch where the second rover collides with the first and the third has an invalid command
+            List<DeployRoverParams> deployRoverParamsList = List.of(
+                    new DeployRoverParams("70,70,N", "r"),
+                    new DeployRoverParams("68,70,N", "f,f"),
+                    new DeployRoverParams("3,4,N", "x"),
+                    new DeployRoverParams("70,70,N", "l"),
+                    new DeployRoverParams("50,50,S", "f"));
+
+            // When the batch is deployed
+            List<DeployRoverBatchResult> results = marsRoverService.deployRovers(deployRoverParamsList);
+
+            // Then each item should have its own result in order and failures should not stop the batch
+            Assertions.assertEquals(5, results.size());
+            Assertions.assertEquals(Direction.EAST, results.get(0).getResult().getFinalDirection());
+            Assertions.assertEquals(69, results.get(1).getResult().getxCoordinate());
+            Assertions.assertEquals("Invalid command: x", results.get(2).getError());
+            Assertions.assertNull(results.get(2).getResult());
+            Assertions.assertEquals("There is an existing rover at this coordinate.", results.get(3).getError());
+            Assertions.assertEquals(49, results.get(4).getResult().getxCoordinate());
+            Assertions.assertNull(results.get(4).getError());
+        }
+
+        @Test
+        public void deployMarsRovers_success_parallelBatchMatchesSequential() {
+            // Given a crowded batch with collisions, occupied starts, boundary stops and invalid commands
+            Random random = new Random(18);
+            String[] commands = {"f*5", "b*3,r,f*2", "l,f*8", "r,r,f*20", "f,x", "l,r"};
+            List<DeployRoverParams> deployRoverParamsList = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                String coordinates = random.nextInt(45) + "," + random.nextInt(45) + "," + "NESW".charAt(random.nextInt(4));
+                deployRoverParamsList.add(new DeployRoverParams(coordinates, commands[random.nextInt(commands.length)]));
+            }
+
+            // When it is deployed one after another and in parallel
+            List<List<DeployRoverBatchResult>> runs = new ArrayList<>();
+            List<OccupancyGrid> grids = new ArrayList<>();
+            for (int parallelism : new int[]{1, 4}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    OccupancyGrid grid = new SparseOccupancyGrid(40, 40);
+                    MarsRoverService batchMarsRoverService = new MarsRoverService(grid, new CommandProgramCache(64),
+                            RoverEventBus.disabled(), MarsRoverMetrics.noop(), new RoverRegistry(), new RoutePlanner(), pool);
+                    runs.add(batchMarsRoverService.deployRovers(deployRoverParamsList));
+                    grids.add(grid);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+
+            // Then every result and the final state of Mars should be identical
+            for (int i = 0; i < deployRoverParamsList.size(); i++) {
+                DeployRoverBatchResult sequential = runs.get(0).get(i);
+                DeployRoverBatchResult parallel = runs.get(1).get(i);
+                Assertions.assertEquals(sequential.getError(), parallel.getError());
+                if (sequential.getResult() != null) {
+                    Assertions.assertEquals(sequential.getResult().getRoverId(), parallel.getResult().getRoverId());
+                    Assertions.assertEquals(sequential.getResult().getxCoordinate(), parallel.getResult().getxCoordinate());
+                    Assertions.assertEquals(sequential.getResult().getyCoordinate(), parallel.getResult().getyCoordinate());
+                    Assertions.assertEquals(sequential.getResult().getFinalDirection(), parallel.getResult().getFinalDirection());
+                    Assertions.assertEquals(sequential.getResult().getStopReason(), parallel.getResult().getStopReason());
+                }
+            }
+            Assertions.assertEquals(grids.get(0).getOccupiedCount(), grids.get(1).getOccupiedCount());
+            for (int x = 0; x < 40; x++) {
+                for (int y = 0; y < 40; y++) {
+                    Assertions.assertEquals(grids.get(0).isOccupied(x, y), grids.get(1).isOccupied(x, y));
+                }
+            }
+        }
+
+        @Test
+        public void hasRead_success_recordsScannedLineUpToBlocker() {
+            // Given a rover parked across the path of a scan
+            OccupancyGrid grid = new SparseOccupancyGrid(20, 20);
+            grid.occupy(10, 5);
+            ReadRecordingOccupancyGrid view = new ReadRecordingOccupancyGrid(grid);
+
+            // When the line is scanned and a single coordinate is checked
+            Assertions.assertEquals(4, view.countFreeSteps(5, 5, 1, 0, 8));
+            Assertions.assertFalse(view.isOccupied(0, 0));
+
+            // Then only the coordinates up to and including the blocker should be recorded
+            Assertions.assertTrue(view.hasRead(6, 5));
+            Assertions.assertTrue(view.hasRead(10, 5));
+            Assertions.assertFalse(view.hasRead(5, 5));
+            Assertions.assertFalse(view.hasRead(11, 5));
+            Assertions.assertFalse(view.hasRead(6, 6));
+            Assertions.assertTrue(view.hasRead(0, 0));
+        }
+    }
+
+    @Nested
+    class StraightLineMoveTests {
+        @Test
+        public void deployMarsRover_success_longRunStopsBeforeCollision() throws DeployRoverException {
+            // Given a large dense plateau with a rover far ahead in each direction
+            MarsRoverService denseMarsRoverService = new MarsRoverService(new BitmapOccupancyGrid(20_000, 20_000));
+            denseMarsRoverService.deployRover(new DeployRoverParams("10000,17000,N", "l"));
+            denseMarsRoverService.deployRover(new DeployRoverParams("3000,5000,N", "l"));
+
+            // When rovers move thousands of steps towards them
+            DeployRoverResult eastResult = denseMarsRoverService.deployRover(new DeployRoverParams("10000,10,E", "f*9000,f*9000"));
+            DeployRoverResult southResult = denseMarsRoverService.deployRover(new DeployRoverParams("10000,5000,S", "f*7001"));
+
+            // Then they should stop right before the other rovers
+            Assertions.assertEquals(10000, eastResult.getxCoordinate());
+            Assertions.assertEquals(16999, eastResult.getyCoordinate());
+            Assertions.assertEquals(3001, southResult.getxCoordinate());
+            Assertions.assertEquals(5000, southResult.getyCoordinate());
+        }
+
+        @Test
+        public void deployMarsRover_fail_longRunOutOfBounds() {
+            // Given a large dense plateau
+            MarsRoverService denseMarsRoverService = new MarsRoverService(new BitmapOccupancyGrid(20_000, 20_000));
+
+            // When a rover moves past the boundary in a single run
+            // Then an exception will be thrown with the correct exception message
+            Exception exception = Assertions.assertThrows(DeployRoverException.class, ()-> denseMarsRoverService.deployRover(new DeployRoverParams("5,5,W", "b*19994,b")));
+
+            Assertions.assertEquals("Out of Mars boundary.", exception.getMessage());
+        }
+
+        @Test
+        public void countFreeSteps_bitmapScanMatchesCellByCell() {
+            // Given the same random rovers on a bitmap grid and a sparse grid, which checks one coordinate at a time
+            Random random = new Random(7);
+            BitmapOccupancyGrid bitmapGrid = new BitmapOccupancyGrid(300, 200);
+            SparseOccupancyGrid sparseGrid = new SparseOccupancyGrid(300, 200);
+            for (int i = 0; i < 400; i++) {
+                int xCoordinate = random.nextInt(300);
+                int yCoordinate = random.nextInt(200);
+                bitmapGrid.occupy(xCoordinate, yCoordinate);
+                sparseGrid.occupy(xCoordinate, yCoordinate);
+            }
+            int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+            for (int i = 0; i < 5000; i++) {
+                int xCoordinate = random.nextInt(300);
+                int yCoordinate = random.nextInt(200);
+                int[] step = steps[random.nextInt(4)];
+                int stepsToBoundary = step[0] > 0 ? 299 - xCoordinate : step[0] < 0 ? xCoordinate : step[1] > 0 ? 199 - yCoordinate : yCoordinate;
+                int maxSteps = random.nextInt(stepsToBoundary + 1);
+
+                // When free steps are counted on both grids
+                // Then the word at a time scan should match the coordinate at a time check
+                Assertions.assertEquals(sparseGrid.countFreeSteps(xCoordinate, yCoordinate, step[0], step[1], maxSteps),
+                        bitmapGrid.countFreeSteps(xCoordinate, yCoordinate, step[0], step[1], maxSteps));
+            }
+        }
+    }
+
+    @Nested
+    class StopReasonTests {
+        @Test
+        public void deployMarsRover_success_completedAndCollisionStopReasons() throws DeployRoverException {
+            // Given an existing deployed rover
+            DeployRoverResult parkedResult = marsRoverService.deployRover(new DeployRoverParams("70,70,N", "r"));
+
+            // When another rover collides onto it
+            DeployRoverResult collidedResult = marsRoverService.deployRover(new DeployRoverParams("68,70,N", "f,f,r"));
+
+            // Then the first rover should have completed its commands and the second should have stopped on collision
+            Assertions.assertEquals(StopReason.COMPLETED, parkedResult.getStopReason());
+            Assertions.assertEquals(StopReason.COLLISION, collidedResult.getStopReason());
+            Assertions.assertEquals(Direction.NORTH, collidedResult.getFinalDirection());
+        }
+
+        @Test
+        public void runDeployment_success_outOfBoundsReportedWithoutParking() throws DeployRoverException {
+            // Given a rover that moves out of bounds
+            DeployRoverParams deployRoverParams = new DeployRoverParams("97,97,N", "f,f,f");
+
+            // When the deployment is run
+            DeployRoverResult deployRoverResult = marsRoverService.runDeployment(deployRoverParams);
+
+            // Then it should stop at the boundary with the stop reason and not be parked
+            Assertions.assertEquals(StopReason.OUT_OF_BOUNDS, deployRoverResult.getStopReason());
+            Assertions.assertEquals(98, deployRoverResult.getxCoordinate());
+            Assertions.assertEquals(0, marsRoverService.mars.getOccupiedCount());
+        }
+    }
+
+    @Nested
+    class RoverEventTests {
+        @Test
+        public void deployMarsRover_success_eventPublishedToConsumer() throws DeployRoverException {
+            // Given a service publishing events to an in memory consumer
+            InMemoryRoverEventConsumer consumer = new InMemoryRoverEventConsumer(10);
+            RoverEventBus roverEventBus = new RoverEventBus(16, List.of(consumer));
+            MarsRoverService eventMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(99, 99), new CommandProgramCache(16), roverEventBus);
+
+            // When rovers are deployed and the bus is closed
+            eventMarsRoverService.deployRover(new DeployRoverParams("70,70,N", "r"));
+            eventMarsRoverService.deployRover(new DeployRoverParams("68,70,N", "f,f"));
+            roverEventBus.close();
+
+            // Then the consumer should have received one event per parked rover in order
+            List<RoverEvent> events = consumer.getEvents();
+            Assertions.assertEquals(2, events.size());
+            Assertions.assertEquals(StopReason.COMPLETED, events.get(0).getStopReason());
+            Assertions.assertEquals(69, events.get(1).getxCoordinate());
+            Assertions.assertEquals(StopReason.COLLISION, events.get(1).getStopReason());
+        }
+
+        @Test
+        public void publish_success_dropsInsteadOfBlockingWhenFull() {
+            // Given a bus whose only consumer is stuck
+            CountDownLatch release = new CountDownLatch(1);
+            RoverEventBus roverEventBus = new RoverEventBus(4, List.of(event -> {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            // When many more events than the buffer holds are published
+            for (int i = 0; i < 100; i++) {
+                roverEventBus.publish(new RoverEvent(i, i, Direction.NORTH, StopReason.COMPLETED));
+            }
+
+            // Then the extra events should be dropped and counted instead of blocking the publisher
+            Assertions.assertTrue(roverEventBus.getDroppedCount() >= 95);
+            release.countDown();
+            roverEventBus.close();
+        }
+    }
+
+    @Nested
+    class MetricsTests {
+        @Test
+        public void deployMarsRover_success_deploymentsRecorded() throws DeployRoverException {
+            // Given a service recording into a simple meter registry
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            MarsRoverService meteredMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(99, 99),
+                    new CommandProgramCache(16), RoverEventBus.disabled(), new MarsRoverMetrics(meterRegistry), new RoverRegistry(),
+                    new RoutePlanner());
+
+            // When rovers complete, collide, stop at the boundary and fail to parse
+            meteredMarsRoverService.deployRover(new DeployRoverParams("70,70,N", "f*3"));
+            meteredMarsRoverService.deployRover(new DeployRoverParams("71,70,N", "f,f,r"));
+            meteredMarsRoverService.runDeployment(new DeployRoverParams("97,97,N", "f,f,f"));
+            meteredMarsRoverService.deployRoverForBatch(new DeployRoverParams("1,1,X", "f"));
+            meteredMarsRoverService.deployRoverForBatch(new DeployRoverParams("73,70,N", "f"));
+
+            // Then each outcome should be counted and the occupancy gauge should follow the parked rovers
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.deploy").tag("outcome", "completed").timer().count());
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.deploy").tag("outcome", "collision").timer().count());
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.deploy").tag("outcome", "out_of_bounds").timer().count());
+            Assertions.assertEquals(2, meterRegistry.get("mars.rover.deploy").tag("outcome", "failed").timer().count());
+            // Only the commands run before a rover stopped count, 3 + 1 + 1 of the 9 commands sent
+            Assertions.assertEquals(5, meterRegistry.get("mars.rover.commands").counter().count());
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.collisions").counter().count());
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.boundary.stops").counter().count());
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.parse.failures").counter().count());
+            Assertions.assertEquals(3, meterRegistry.get("mars.rover.command.length").summary().count());
+            Assertions.assertEquals(2, meterRegistry.get("mars.rover.occupied.cells").gauge().value());
+        }
+    }
+
+    @Nested
+    class RoverRegistryTests {
+        @Test
+        public void deployMarsRover_success_roverFoundByIdAndCoordinates() throws DeployRoverException, RoverNotFoundException {
+            // Given two deployed rovers
+            DeployRoverResult first = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "f,r"));
+            DeployRoverResult second = marsRoverService.deployRover(new DeployRoverParams("20,20,S", "l"));
+
+            // When they are looked up by id and by coordinates
+            RoverPosition byId = marsRoverService.getRover(first.getRoverId());
+            RoverPosition byCoordinates = marsRoverService.getRoverAt(20, 20);
+
+            // Then each lookup should return the parked position of the right rover
+            Assertions.assertNotEquals(first.getRoverId(), second.getRoverId());
+            Assertions.assertEquals(11, byId.getxCoordinate());
+            Assertions.assertEquals(10, byId.getyCoordinate());
+            Assertions.assertEquals(Direction.EAST, byId.getDirection());
+            Assertions.assertEquals(second.getRoverId(), byCoordinates.getRoverId());
+            Assertions.assertEquals(Direction.EAST, byCoordinates.getDirection());
+        }
+
+        @Test
+        public void getRover_fail_unknownRover() throws DeployRoverException {
+            // Given a rover that is not parked because it moved out of bounds
+            DeployRoverResult deployRoverResult = marsRoverService.runDeployment(new DeployRoverParams("98,0,N", "f"));
+
+            // Then it should have no id and nothing should be found
+            Assertions.assertNull(deployRoverResult.getRoverId());
+            Assertions.assertThrows(RoverNotFoundException.class, () -> marsRoverService.getRover(0));
+            Assertions.assertThrows(RoverNotFoundException.class, () -> marsRoverService.getRoverAt(98, 0));
+            Assertions.assertThrows(RoverNotFoundException.class, () -> marsRoverService.getRoverAt(-1, 500));
+        }
+
+        @Test
+        public void register_success_acrossChunks() {
+            // Given more rovers than fit in one chunk of the registry
+            RoverRegistry roverRegistry = new RoverRegistry(16);
+            int roverCount = 200_000;
+            for (int i = 0; i < roverCount; i++) {
+                Assertions.assertEquals(i, roverRegistry.register(i, i * 2, Direction.values()[i & 3]));
+            }
+
+            // Then every rover should be found by id and by coordinates
+            Assertions.assertEquals(roverCount, roverRegistry.size());
+            for (int i = 0; i < roverCount; i += 997) {
+                RoverPosition roverPosition = roverRegistry.find(i);
+                Assertions.assertEquals(i, roverPosition.getxCoordinate());
+                Assertions.assertEquals(i * 2, roverPosition.getyCoordinate());
+                Assertions.assertEquals(Direction.values()[i & 3], roverPosition.getDirection());
+                Assertions.assertEquals(i, roverRegistry.findRoverIdAt(i, i * 2));
+            }
+            Assertions.assertNull(roverRegistry.find(roverCount));
+            Assertions.assertEquals(RoverRegistry.NO_ROVER, roverRegistry.findRoverIdAt(1, 1));
+        }
+    }
+
+    @Nested
+    class CommandRoverTests {
+        @Test
+        public void commandRover_success_oldCoordinatesFreed() throws DeployRoverException, RoverNotFoundException {
+            // Given a parked rover
+            DeployRoverResult deployed = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "f"));
+
+            // When it is sent new commands
+            DeployRoverResult moved = marsRoverService.commandRover(deployed.getRoverId(), "f,f,r,f");
+
+            // Then it should be parked only at its new coordinates and found there
+            Assertions.assertEquals(deployed.getRoverId(), moved.getRoverId());
+            Assertions.assertEquals(13, moved.getxCoordinate());
+            Assertions.assertEquals(11, moved.getyCoordinate());
+            Assertions.assertEquals(Direction.EAST, moved.getFinalDirection());
+            Assertions.assertFalse(marsRoverService.mars.isOccupied(11, 10));
+            Assertions.assertTrue(marsRoverService.mars.isOccupied(13, 11));
+            Assertions.assertEquals(1, marsRoverService.mars.getOccupiedCount());
+            Assertions.assertEquals(deployed.getRoverId(), marsRoverService.getRoverAt(13, 11).getRoverId());
+            Assertions.assertThrows(RoverNotFoundException.class, () -> marsRoverService.getRoverAt(11, 10));
+        }
+
+        @Test
+        public void commandRover_success_passesOverOwnCoordinates() throws DeployRoverException, RoverNotFoundException {
+            // Given a parked rover
+            DeployRoverResult deployed = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "l,r"));
+
+            // When it reverses back over the coordinates it is parked at
+            DeployRoverResult moved = marsRoverService.commandRover(deployed.getRoverId(), "f,b*3");
+
+            // Then it should not collide with itself
+            Assertions.assertEquals(StopReason.COMPLETED, moved.getStopReason());
+            Assertions.assertEquals(8, moved.getxCoordinate());
+            Assertions.assertEquals(1, marsRoverService.mars.getOccupiedCount());
+        }
+
+        @Test
+        public void commandRover_success_stopsBeforeOtherRover() throws DeployRoverException, RoverNotFoundException {
+            // Given two parked rovers on the same line
+            DeployRoverResult deployed = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "l,r"));
+            marsRoverService.deployRover(new DeployRoverParams("14,10,N", "l,r"));
+
+            // When the first rover is sent past the second
+            DeployRoverResult moved = marsRoverService.commandRover(deployed.getRoverId(), "f*10");
+
+            // Then it should stop right before the second rover
+            Assertions.assertEquals(StopReason.COLLISION, moved.getStopReason());
+            Assertions.assertEquals(13, moved.getxCoordinate());
+            Assertions.assertEquals(2, marsRoverService.mars.getOccupiedCount());
+        }
+
+        @Test
+        public void commandRover_fail_outOfBoundsRoverStaysParked() throws DeployRoverException, RoverNotFoundException {
+            // Given a rover parked near the boundary
+            DeployRoverResult deployed = marsRoverService.deployRover(new DeployRoverParams("97,10,N", "l,r"));
+
+            // When it is sent out of bounds
+            DeployRoverException exception = Assertions.assertThrows(DeployRoverException.class,
+                    () -> marsRoverService.commandRover(deployed.getRoverId(), "f,f,f"));
+
+            // Then it should stay where it was parked
+            Assertions.assertEquals("Out of Mars boundary.", exception.getMessage());
+            Assertions.assertEquals(97, marsRoverService.getRover(deployed.getRoverId()).getxCoordinate());
+            Assertions.assertTrue(marsRoverService.mars.isOccupied(97, 10));
+            Assertions.assertEquals(1, marsRoverService.mars.getOccupiedCount());
+        }
+
+        @Test
+        public void commandRover_fail_unknownRover() {
+            Assertions.assertThrows(RoverNotFoundException.class, () -> marsRoverService.commandRover(5, "f"));
+        }
+
+        @Test
+        public void countFreeSteps_success_ignoredCoordinatesTreatedAsFree() {
+            for (OccupancyGrid grid : List.of(new SparseOccupancyGrid(200, 200), new BitmapOccupancyGrid(200, 200))) {
+                // Given a random plateau with one taken coordinate ignored
+                Random random = new Random(7);
+                for (int i = 0; i < 2_000; i++) {
+                    grid.occupy(random.nextInt(200), random.nextInt(200));
+                }
+                grid.occupy(100, 100);
+                OccupancyGrid view = new IgnoredCellOccupancyGrid(grid, 100, 100);
+
+                // Then scanning any line through the ignored coordinate should match checking one coordinate at a time
+                int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+                for (int[] step : steps) {
+                    for (int distance = 1; distance < 90; distance++) {
+                        int xCoordinate = 100 - step[0] * distance;
+                        int yCoordinate = 100 - step[1] * distance;
+                        int expected = 0;
+                        while (expected < 180 && !view.isOccupied(xCoordinate + step[0] * (expected + 1), yCoordinate + step[1] * (expected + 1))) {
+                            expected++;
+                        }
+                        Assertions.assertEquals(expected, view.countFreeSteps(xCoordinate, yCoordinate, step[0], step[1], 180));
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class SpatialQueryTests {
+        @Test
+        public void spatialIndex_success_matchesFullScan() {
+            // Given rovers registered and moved at random on a plateau spanning many tiles
+            Random random = new Random(11);
+            RoverRegistry roverRegistry = new RoverRegistry();
+            OccupancyGrid grid = new SparseOccupancyGrid(1_000, 1_000);
+            List<int[]> positions = new ArrayList<>();
+            while (positions.size() < 3_000) {
+                int xCoordinate = random.nextInt(1_000);
+                int yCoordinate = random.nextInt(1_000);
+                if (grid.occupy(xCoordinate, yCoordinate)) {
+                    positions.add(new int[]{roverRegistry.register(xCoordinate, yCoordinate, Direction.NORTH), xCoordinate, yCoordinate});
+                }
+            }
+            for (int i = 0; i < 2_000; i++) {
+                int[] position = positions.get(random.nextInt(positions.size()));
+                int xCoordinate = Math.min(999, Math.max(0, position[1] + random.nextInt(201) - 100));
+                int yCoordinate = Math.min(999, Math.max(0, position[2] + random.nextInt(201) - 100));
+                if (grid.occupy(xCoordinate, yCoordinate)) {
+                    roverRegistry.move(position[0], roverRegistry.find(position[0]), xCoordinate, yCoordinate, Direction.EAST);
+                    grid.release(position[1], position[2]);
+                    position[1] = xCoordinate;
+                    position[2] = yCoordinate;
+                }
+            }
+            SpatialIndex spatialIndex = roverRegistry.getSpatialIndex();
+
+            // Then every query should match a scan of all rovers
+            for (int query = 0; query < 200; query++) {
+                int minXCoordinate = random.nextInt(1_000);
+                int minYCoordinate = random.nextInt(1_000);
+                int maxXCoordinate = minXCoordinate + random.nextInt(1_000 - minXCoordinate);
+                int maxYCoordinate = minYCoordinate + random.nextInt(1_000 - minYCoordinate);
+                long expectedCount = positions.stream().filter(position -> position[1] >= minXCoordinate && position[1] <= maxXCoordinate
+                        && position[2] >= minYCoordinate && position[2] <= maxYCoordinate).count();
+                Assertions.assertEquals(expectedCount, spatialIndex.count(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate));
+                Assertions.assertEquals(expectedCount, spatialIndex.list(minXCoordinate, minYCoordinate, maxXCoordinate, maxYCoordinate, 10_000).size());
+
+                int xCoordinate = random.nextInt(1_000);
+                int yCoordinate = random.nextInt(1_000);
+                int k = 1 + random.nextInt(20);
+                List<Integer> expectedNearest = positions.stream()
+                        .sorted(Comparator.<int[]>comparingInt(position -> Math.abs(position[1] - xCoordinate) + Math.abs(position[2] - yCoordinate))
+                                .thenComparingInt(position -> position[0]))
+                        .limit(k).map(position -> position[0]).toList();
+                Assertions.assertEquals(expectedNearest, spatialIndex.nearest(xCoordinate, yCoordinate, k).stream().map(RoverPosition::getRoverId).toList());
+            }
+        }
+
+        @Test
+        public void findNearestRovers_success_farAwayOnLargePlateau() throws DeployRoverException, InvalidQueryException {
+            // Given two rovers far apart on a very large plateau
+            MarsRoverService largeMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(1_000_000, 1_000_000));
+            largeMarsRoverService.deployRover(new DeployRoverParams("999000,999000,N", "l,r"));
+            largeMarsRoverService.deployRover(new DeployRoverParams("500000,500000,N", "l,r"));
+
+            // When the nearest rovers to a corner are searched for
+            List<RoverPosition> nearest = largeMarsRoverService.findNearestRovers(0, 0, 5);
+
+            // Then both should be found, nearest first, without walking the whole plateau
+            Assertions.assertEquals(2, nearest.size());
+            Assertions.assertEquals(500000, nearest.get(0).getxCoordinate());
+            Assertions.assertEquals(999000, nearest.get(1).getxCoordinate());
+        }
+
+        @Test
+        public void countRovers_success_followsDeploymentsAndMoves() throws DeployRoverException, RoverNotFoundException, InvalidQueryException {
+            // Given rovers deployed into one corner of Mars
+            DeployRoverResult moving = marsRoverService.deployRover(new DeployRoverParams("1,1,N", "l,r"));
+            marsRoverService.deployRover(new DeployRoverParams("2,2,N", "l,r"));
+
+            // When one of them is moved out of the corner
+            marsRoverService.commandRover(moving.getRoverId(), "f*50");
+
+            // Then area queries should follow it, ignoring the parts of the area outside of Mars
+            Assertions.assertEquals(1, marsRoverService.countRovers(-10, -10, 10, 10));
+            Assertions.assertEquals(2, marsRoverService.countRovers(0, 0, 1_000, 1_000));
+            Assertions.assertEquals(51, marsRoverService.listRovers(40, 0, 60, 5, 10).get(0).getxCoordinate());
+            Assertions.assertEquals(0, marsRoverService.countRovers(200, 200, 300, 300));
+            Assertions.assertThrows(InvalidQueryException.class, () -> marsRoverService.countRovers(10, 0, 0, 10));
+            Assertions.assertThrows(InvalidQueryException.class, () -> marsRoverService.findNearestRovers(0, 0, 0));
+            Assertions.assertThrows(InvalidQueryException.class, () -> marsRoverService.findNearestRovers(-1, 0, 1));
+        }
+    }
+
+    @Nested
+    class RoutePlannerTests {
+        @Test
+        public void planRoute_success_aroundWallAndDeployable() throws DeployRoverException {
+            // Given a wall of rovers between the start and the target
+            for (int yCoordinate = 0; yCoordinate < 20; yCoordinate++) {
+                marsRoverService.deployRover(new DeployRoverParams("10," + yCoordinate + ",N", "l,r"));
+            }
+
+            // When a route is planned through the wall
+            Route route = marsRoverService.planRoute(new PlanRouteParams("5,5,N", 15, 5));
+
+            // Then the route should go around the wall and deploying with it should reach the target
+            DeployRoverResult deployRoverResult = marsRoverService.deployRover(new DeployRoverParams("5,5,N", route.getCommands()));
+            Assertions.assertEquals(StopReason.COMPLETED, deployRoverResult.getStopReason());
+            Assertions.assertEquals(15, deployRoverResult.getxCoordinate());
+            Assertions.assertEquals(5, deployRoverResult.getyCoordinate());
+            Assertions.assertEquals(10 + 15 + 15, route.getMoveCount());
+            Assertions.assertEquals(3, route.getTurnCount());
+        }
+
+        @Test
+        public void plan_success_cellTakenDuringSearchNotReturned() {
+            // Given a coordinate on the straight route that is taken right after the search sees it free
+            RoutePlanner routePlanner = new RoutePlanner();
+            boolean[] taken = new boolean[1];
+            OccupancyGrid grid = new SparseOccupancyGrid(10, 10) {
+                @Override
+                public boolean isOccupied(int xCoordinate, int yCoordinate) {
+                    if (xCoordinate == 2 && yCoordinate == 0 && !taken[0]) {
+                        taken[0] = true;
+                        occupy(2, 0);
+                        routePlanner.cellOccupied(2, 0);
+                        return false;
+                    }
+                    return super.isOccupied(xCoordinate, yCoordinate);
+                }
+            };
+
+            // When a route is planned through it
+            Route route = routePlanner.plan(grid, 0, 0, Direction.NORTH, 4, 0);
+
+            // Then the route should go around the taken coordinate, and no route through it should stay cached
+            Assertions.assertTrue(taken[0]);
+            Assertions.assertTrue(route.getTurnCount() > 0, route.getCommands());
+            Assertions.assertTrue(route.getMoveCount() > 4, route.getCommands());
+            Assertions.assertSame(route, routePlanner.plan(grid, 0, 0, Direction.NORTH, 4, 0));
+        }
+
+        @Test
+        public void plan_success_cheapestRouteOnRandomPlateaus() throws DeployRoverException {
+            Random random = new Random(5);
+            for (int plateau = 0; plateau < 20; plateau++) {
+                // Given a plateau with random obstacles
+                OccupancyGrid grid = new SparseOccupancyGrid(30, 30);
+                for (int i = 0; i < 250; i++) {
+                    grid.occupy(random.nextInt(30), random.nextInt(30));
+                }
+                RoutePlanner routePlanner = new RoutePlanner();
+                for (int query = 0; query < 20; query++) {
+                    int xCoordinate = random.nextInt(30);
+                    int yCoordinate = random.nextInt(30);
+                    int targetXCoordinate = random.nextInt(30);
+                    int targetYCoordinate = random.nextInt(30);
+                    Direction direction = Direction.values()[random.nextInt(4)];
+                    if (grid.isOccupied(xCoordinate, yCoordinate) || grid.isOccupied(targetXCoordinate, targetYCoordinate)) {
+                        continue;
+                    }
+
+                    // When a route is planned
+                    Route route = routePlanner.plan(grid, xCoordinate, yCoordinate, direction, targetXCoordinate, targetYCoordinate);
+
+                    // Then it should exist exactly when a full search finds one, cost the same and reach the target
+                    int expectedCost = cheapestCost(grid, xCoordinate, yCoordinate, direction, targetXCoordinate, targetYCoordinate);
+                    if (expectedCost < 0) {
+                        Assertions.assertNull(route);
+                        continue;
+                    }
+                    Assertions.assertEquals(expectedCost, route.getMoveCount() + route.getTurnCount());
+                    if (expectedCost > 0) {
+                        MarsRoverService gridMarsRoverService = new MarsRoverService(grid.snapshot());
+                        DeployRoverResult deployRoverResult = gridMarsRoverService.runDeployment(new DeployRoverParams(
+                                xCoordinate + "," + yCoordinate + "," + direction.name().charAt(0), route.getCommands()));
+                        Assertions.assertEquals(StopReason.COMPLETED, deployRoverResult.getStopReason());
+                        Assertions.assertEquals(targetXCoordinate, deployRoverResult.getxCoordinate());
+                        Assertions.assertEquals(targetYCoordinate, deployRoverResult.getyCoordinate());
+                    }
+                }
+            }
+        }
+
+        @Test
+        public void planRoute_success_cachedUntilRouteCoordinateTaken() throws DeployRoverException {
+            // Given a planned route along a straight line
+            Route route = marsRoverService.planRoute(new PlanRouteParams("10,10,N", 20, 10));
+            Assertions.assertEquals("f*10", route.getCommands());
+
+            // When a rover is parked off the route, the same route should be reused
+            marsRoverService.deployRover(new DeployRoverParams("50,50,N", "l,r"));
+            Assertions.assertSame(route, marsRoverService.planRoute(new PlanRouteParams("10,10,N", 20, 10)));
+
+            // When a rover is parked on the route, the route should be planned again around it
+            marsRoverService.deployRover(new DeployRoverParams("15,10,N", "l,r"));
+            Route replanned = marsRoverService.planRoute(new PlanRouteParams("10,10,N", 20, 10));
+            Assertions.assertNotSame(route, replanned);
+            Assertions.assertEquals(12, replanned.getMoveCount());
+        }
+
+        @Test
+        public void planRoute_fail_noRoute() throws DeployRoverException {
+            // Given a target surrounded by rovers
+            marsRoverService.deployRover(new DeployRoverParams("21,20,N", "l,r"));
+            marsRoverService.deployRover(new DeployRoverParams("19,20,N", "l,r"));
+            marsRoverService.deployRover(new DeployRoverParams("20,21,N", "l,r"));
+            marsRoverService.deployRover(new DeployRoverParams("20,19,N", "l,r"));
+
+            // Then no route should be found, and the ends of the route should be checked
+            DeployRoverException exception = Assertions.assertThrows(DeployRoverException.class,
+                    () -> marsRoverService.planRoute(new PlanRouteParams("1,1,N", 20, 20)));
+            Assertions.assertEquals("No route to the target coordinate.", exception.getMessage());
+            Assertions.assertThrows(DeployRoverException.class, () -> marsRoverService.planRoute(new PlanRouteParams("1,1,N", 21, 20)));
+            Assertions.assertThrows(DeployRoverException.class, () -> marsRoverService.planRoute(new PlanRouteParams("1,1,N", 99, 0)));
+            Assertions.assertEquals("", marsRoverService.planRoute(new PlanRouteParams("1,1,N", 1, 1)).getCommands());
+        }
+
+        @Test
+        public void plan_fail_searchLimitReached() {
+            // Given a planner that may only expand a few poses
+            RoutePlanner routePlanner = new RoutePlanner(1, 50, 16);
+            OccupancyGrid grid = new SparseOccupancyGrid(1_000_000, 1_000_000);
+
+            // Then targets farther than the limit should not be searched for
+            Assertions.assertNull(routePlanner.plan(grid, 0, 0, Direction.NORTH, 999_999, 999_999));
+            Assertions.assertNotNull(routePlanner.plan(grid, 0, 0, Direction.NORTH, 20, 0));
+        }
+
+        /**
+         * Breadth first search over every pose with moves and turns costing one
+         */
+        private int cheapestCost(OccupancyGrid grid, int xCoordinate, int yCoordinate, Direction direction,
+                                 int targetXCoordinate, int targetYCoordinate) {
+            int[][][] costs = new int[grid.getWidth()][grid.getHeight()][4];
+            for (int[][] column : costs) {
+                for (int[] cell : column) {
+                    Arrays.fill(cell, -1);
+                }
+            }
+            ArrayDeque<int[]> queue = new ArrayDeque<>();
+            costs[xCoordinate][yCoordinate][direction.ordinal()] = 0;
+            queue.add(new int[]{xCoordinate, yCoordinate, direction.ordinal()});
+            while (!queue.isEmpty()) {
+                int[] pose = queue.poll();
+                int cost = costs[pose[0]][pose[1]][pose[2]];
+                if (pose[0] == targetXCoordinate && pose[1] == targetYCoordinate) {
+                    return cost;
+                }
+                Direction facing = Direction.values()[pose[2]];
+                int[][] next = {
+                        {pose[0] + facing.getxStep(), pose[1] + facing.getyStep(), pose[2]},
+                        {pose[0] - facing.getxStep(), pose[1] - facing.getyStep(), pose[2]},
+                        {pose[0], pose[1], facing.turnRight(1).ordinal()},
+                        {pose[0], pose[1], facing.turnRight(3).ordinal()}};
+                for (int[] nextPose : next) {
+                    if (grid.isWithinBounds(nextPose[0], nextPose[1]) && !grid.isOccupied(nextPose[0], nextPose[1])
+                            && costs[nextPose[0]][nextPose[1]][nextPose[2]] < 0) {
+                        costs[nextPose[0]][nextPose[1]][nextPose[2]] = cost + 1;
+                        queue.add(nextPose);
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    @Nested
+    class SimulationTests {
+        @Test
+        public void simulate_success_convoyMovesOneStepPerTick() throws DeployRoverException, RoverNotFoundException {
+            // Given three rovers parked nose to tail, the lowest ID at the back
+            int back = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "l,r")).getRoverId();
+            int middle = marsRoverService.deployRover(new DeployRoverParams("11,10,N", "l,r")).getRoverId();
+            int front = marsRoverService.deployRover(new DeployRoverParams("12,10,N", "l,r")).getRoverId();
+
+            // When all of them drive three steps forward
+            SimulationResult result = marsRoverService.simulate(new SimulationParams(List.of(
+                    new SimulationRoverParams(front, "f*3"),
+                    new SimulationRoverParams(back, "f*3"),
+                    new SimulationRoverParams(middle, "f*3")), 100));
+
+            // Then each rover should wait one tick for the rover in front of it to move away
+            Assertions.assertEquals(5, result.getTicks());
+            Assertions.assertEquals(List.of(back, middle, front), result.getResults().stream().map(DeployRoverResult::getRoverId).toList());
+            for (int i = 0; i < 3; i++) {
+                DeployRoverResult roverResult = result.getResults().get(i);
+                Assertions.assertEquals(StopReason.COMPLETED, roverResult.getStopReason());
+                Assertions.assertEquals(13 + i, roverResult.getxCoordinate());
+                Assertions.assertEquals(roverResult.getRoverId(), marsRoverService.getRoverAt(13 + i, 10).getRoverId());
+            }
+            Assertions.assertEquals(3, marsRoverService.mars.getOccupiedCount());
+        }
+
+        @Test
+        public void simulate_success_lowestRoverIdWinsContestedCoordinate() throws DeployRoverException, RoverNotFoundException {
+            // Given two rovers facing the same free coordinate from opposite sides
+            int first = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "l,r")).getRoverId();
+            int second = marsRoverService.deployRover(new DeployRoverParams("12,10,S", "l,r")).getRoverId();
+
+            // When both move onto it in the same tick
+            SimulationResult result = marsRoverService.simulate(new SimulationParams(List.of(
+                    new SimulationRoverParams(second, "f"),
+                    new SimulationRoverParams(first, "f")), 100));
+
+            // Then the rover with the lower ID should take it and the other should collide once it has parked there
+            Assertions.assertEquals(2, result.getTicks());
+            DeployRoverResult winner = result.getResults().get(0);
+            DeployRoverResult loser = result.getResults().get(1);
+            Assertions.assertEquals(StopReason.COMPLETED, winner.getStopReason());
+            Assertions.assertEquals(11, winner.getxCoordinate());
+            Assertions.assertEquals(StopReason.COLLISION, loser.getStopReason());
+            Assertions.assertEquals(12, loser.getxCoordinate());
+        }
+
+        @Test
+        public void simulate_success_deadlockedRoversCollide() throws DeployRoverException, RoverNotFoundException {
+            // Given two rovers facing each other
+            int first = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "l,r")).getRoverId();
+            int second = marsRoverService.deployRover(new DeployRoverParams("11,10,S", "l,r")).getRoverId();
+            int bystander = marsRoverService.deployRover(new DeployRoverParams("50,50,E", "l,r")).getRoverId();
+
+            // When both try to move onto each other while a third rover turns
+            SimulationResult result = marsRoverService.simulate(new SimulationParams(List.of(
+                    new SimulationRoverParams(first, "f"),
+                    new SimulationRoverParams(second, "f"),
+                    new SimulationRoverParams(bystander, "l")), 100));
+
+            // Then they should stop with COLLISION as soon as a tick passes without any rover moving
+            Assertions.assertEquals(2, result.getTicks());
+            Assertions.assertEquals(StopReason.COLLISION, result.getResults().get(0).getStopReason());
+            Assertions.assertEquals(StopReason.COLLISION, result.getResults().get(1).getStopReason());
+            Assertions.assertEquals(10, result.getResults().get(0).getxCoordinate());
+            Assertions.assertEquals(StopReason.COMPLETED, result.getResults().get(2).getStopReason());
+            Assertions.assertEquals(Direction.NORTH, result.getResults().get(2).getFinalDirection());
+        }
+
+        @Test
+        public void simulate_success_turnsTakeTicksAndBoundaryStopsRover() throws DeployRoverException, RoverNotFoundException {
+            // Given a rover near the boundary and a rover in the open
+            int edge = marsRoverService.deployRover(new DeployRoverParams("97,10,N", "l,r")).getRoverId();
+            int turner = marsRoverService.deployRover(new DeployRoverParams("20,20,N", "l,r")).getRoverId();
+
+            // When the first drives off Mars and the second turns around before moving
+            SimulationResult result = marsRoverService.simulate(new SimulationParams(List.of(
+                    new SimulationRoverParams(edge, "f*5"),
+                    new SimulationRoverParams(turner, "r,r,f,l,r")), 100));
+
+            // Then the first should stop at the boundary and the second should take two ticks to turn around
+            Assertions.assertEquals(3, result.getTicks());
+            DeployRoverResult edgeResult = result.getResults().get(0);
+            Assertions.assertEquals(StopReason.OUT_OF_BOUNDS, edgeResult.getStopReason());
+            Assertions.assertEquals(98, edgeResult.getxCoordinate());
+            DeployRoverResult turnerResult = result.getResults().get(1);
+            Assertions.assertEquals(StopReason.COMPLETED, turnerResult.getStopReason());
+            Assertions.assertEquals(19, turnerResult.getxCoordinate());
+            Assertions.assertEquals(Direction.SOUTH, turnerResult.getFinalDirection());
+            Assertions.assertEquals(Direction.SOUTH, marsRoverService.getRover(turner).getDirection());
+        }
+
+        @Test
+        public void simulate_success_stopsAtTickLimit() throws DeployRoverException, RoverNotFoundException {
+            // Given a rover with a long drive
+            int roverId = marsRoverService.deployRover(new DeployRoverParams("0,10,N", "l,r")).getRoverId();
+
+            // When the simulation is limited to fewer ticks
+            SimulationResult result = marsRoverService.simulate(new SimulationParams(List.of(new SimulationRoverParams(roverId, "f*50")), 20));
+
+            // Then the rover should be returned mid drive without a stop reason
+            Assertions.assertEquals(20, result.getTicks());
+            Assertions.assertNull(result.getResults().get(0).getStopReason());
+            Assertions.assertEquals(20, result.getResults().get(0).getxCoordinate());
+        }
+
+        @Test
+        public void simulate_fail_invalidParams() throws DeployRoverException, RoverNotFoundException {
+            // Given a parked rover
+            int roverId = marsRoverService.deployRover(new DeployRoverParams("10,10,N", "l,r")).getRoverId();
+
+            // Then invalid commands, duplicate or unknown rovers and invalid tick limits should fail before any rover moves
+            DeployRoverException exception = Assertions.assertThrows(DeployRoverException.class, () -> marsRoverService.simulate(
+                    new SimulationParams(List.of(new SimulationRoverParams(roverId, "f,x")), 10)));
+            Assertions.assertEquals("Invalid command: x", exception.getMessage());
+            exception = Assertions.assertThrows(DeployRoverException.class, () -> marsRoverService.simulate(new SimulationParams(List.of(
+                    new SimulationRoverParams(roverId, "f"), new SimulationRoverParams(roverId, "f")), 10)));
+            Assertions.assertEquals("Rover " + roverId + " is listed more than once.", exception.getMessage());
+            Assertions.assertThrows(RoverNotFoundException.class, () -> marsRoverService.simulate(
+                    new SimulationParams(List.of(new SimulationRoverParams(roverId + 1, "f")), 10)));
+            Assertions.assertThrows(DeployRoverException.class, () -> marsRoverService.simulate(
+                    new SimulationParams(List.of(new SimulationRoverParams(roverId, "f")), 0)));
+            Assertions.assertEquals(10, marsRoverService.getRover(roverId).getxCoordinate());
+        }
+
+        @Test
+        public void simulate_success_sameResultsForAnyParallelism() throws DeployRoverException, RoverNotFoundException, InvalidQueryException {
+            // Given the same crowded plateau and commands run with one and with four threads
+            List<SimulationResult> results = new ArrayList<>();
+            for (int parallelism : new int[]{1, 4}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    MarsRoverService simulationService = new MarsRoverService(new SparseOccupancyGrid(40, 40), new CommandProgramCache(64),
+                            RoverEventBus.disabled(), MarsRoverMetrics.noop(), new RoverRegistry(), new RoutePlanner(), pool);
+                    Random random = new Random(17);
+                    String[] commands = {"f*5", "b*3", "r,f*4", "l,f*2,r,f*2", "r,r,f*6", "f,l,f,r,f"};
+                    List<SimulationRoverParams> rovers = new ArrayList<>();
+                    for (int i = 0; i < 600; i++) {
+                        int xCoordinate = random.nextInt(40);
+                        int yCoordinate = random.nextInt(40);
+                        char direction = "NESW".charAt(random.nextInt(4));
+                        String roverCommands = commands[random.nextInt(commands.length)];
+                        if (!simulationService.mars.isOccupied(xCoordinate, yCoordinate)) {
+                            DeployRoverResult deployed = simulationService.deployRover(
+                                    new DeployRoverParams(xCoordinate + "," + yCoordinate + "," + direction, "l,r"));
+                            rovers.add(new SimulationRoverParams(deployed.getRoverId(), roverCommands));
+                        }
+                    }
+
+                    // When they are simulated
+                    SimulationResult result = simulationService.simulate(new SimulationParams(rovers, 1000));
+                    results.add(result);
+
+                    // Then every rover should be found at its final coordinates, each parked exactly once
+                    Assertions.assertEquals(rovers.size(), simulationService.mars.getOccupiedCount());
+                    Assertions.assertEquals(rovers.size(), simulationService.countRovers(0, 0, 39, 39));
+                    for (DeployRoverResult roverResult : result.getResults()) {
+                        Assertions.assertNotNull(roverResult.getStopReason());
+                        RoverPosition parked = simulationService.getRoverAt(roverResult.getxCoordinate(), roverResult.getyCoordinate());
+                        Assertions.assertEquals(roverResult.getRoverId(), parked.getRoverId());
+                        Assertions.assertEquals(roverResult.getFinalDirection(), parked.getDirection());
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+
+            // Then both runs should end identically
+            Assertions.assertEquals(results.get(0).getTicks(), results.get(1).getTicks());
+            for (int i = 0; i < results.get(0).getResults().size(); i++) {
+                DeployRoverResult single = results.get(0).getResults().get(i);
+                DeployRoverResult parallel = results.get(1).getResults().get(i);
+                Assertions.assertEquals(single.getRoverId(), parallel.getRoverId());
+                Assertions.assertEquals(single.getxCoordinate(), parallel.getxCoordinate());
+                Assertions.assertEquals(single.getyCoordinate(), parallel.getyCoordinate());
+                Assertions.assertEquals(single.getFinalDirection(), parallel.getFinalDirection());
+                Assertions.assertEquals(single.getStopReason(), parallel.getStopReason());
+            }
+        }
+    }
+
+    @Nested
+    class PersistenceTests {
+        @TempDir
+        Path directory;
+
+        @Test
+        public void open_success_recoversRoversAfterShutdown() throws IOException, DeployRoverException, RoverNotFoundException {
+            // Given rovers parked and moved with persistence enabled
+            OccupancyGrid grid = new SparseOccupancyGrid(99, 99);
+            RoverRegistry roverRegistry = new RoverRegistry();
+            MarsPersistence persistence = MarsPersistence.open(directory, grid, roverRegistry, Duration.ZERO);
+            MarsRoverService persistentMarsRoverService = persistentService(grid, roverRegistry);
+            int first = persistentMarsRoverService.deployRover(new DeployRoverParams("10,10,N", "f")).getRoverId();
+            int second = persistentMarsRoverService.deployRover(new DeployRoverParams("20,20,E", "l,r")).getRoverId();
+            persistentMarsRoverService.commandRover(first, "r,f*3");
+
+            // When the application shuts down and starts again
+            persistence.close();
+            OccupancyGrid recoveredGrid = new SparseOccupancyGrid(99, 99);
+            RoverRegistry recoveredRegistry = new RoverRegistry();
+            MarsPersistence recovered = MarsPersistence.open(directory, recoveredGrid, recoveredRegistry, Duration.ZERO);
+            MarsRoverService recoveredMarsRoverService = persistentService(recoveredGrid, recoveredRegistry);
+
+            // Then every rover should be back at its last position under its own ID, and new rovers should get new IDs
+            RoverPosition firstPosition = recoveredMarsRoverService.getRover(first);
+            Assertions.assertEquals(11, firstPosition.getxCoordinate());
+            Assertions.assertEquals(13, firstPosition.getyCoordinate());
+            Assertions.assertEquals(Direction.EAST, firstPosition.getDirection());
+            Assertions.assertEquals(second, recoveredMarsRoverService.getRoverAt(20, 20).getRoverId());
+            Assertions.assertEquals(2, recoveredGrid.getOccupiedCount());
+            Assertions.assertFalse(recoveredGrid.isOccupied(11, 10));
+            Assertions.assertEquals(2, recoveredMarsRoverService.deployRover(new DeployRoverParams("30,30,N", "l,r")).getRoverId());
+            recovered.close();
+        }
+
+        @Test
+        public void open_success_replaysLogAfterSnapshotAndIgnoresTornRecord() throws IOException, DeployRoverException, RoverNotFoundException {
+            // Given a snapshot taken halfway through, followed by more moves
+            OccupancyGrid grid = new SparseOccupancyGrid(99, 99);
+            RoverRegistry roverRegistry = new RoverRegistry();
+            MarsPersistence persistence = MarsPersistence.open(directory, grid, roverRegistry, Duration.ZERO);
+            MarsRoverService persistentMarsRoverService = persistentService(grid, roverRegistry);
+            List<DeployRoverParams> deployRoverParamsList = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                deployRoverParamsList.add(new DeployRoverParams(i % 90 + "," + (i / 90) * 10 + ",N", "l,r"));
+            }
+            persistentMarsRoverService.deployRovers(deployRoverParamsList);
+            persistentMarsRoverService.commandRover(5, "r,f*4");
+            persistence.snapshot();
+            persistentMarsRoverService.commandRover(5, "f*2");
+            persistentMarsRoverService.commandRover(150, "b,l");
+            int lastRover = persistentMarsRoverService.deployRover(new DeployRoverParams("50,50,S", "f")).getRoverId();
+
+            // When the application crashes in the middle of writing a record, without a last snapshot
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> segments = files.filter(file -> file.getFileName().toString().startsWith("wal-")).sorted().toList();
+                Assertions.assertEquals(1, segments.size());
+                Files.write(segments.get(0), new byte[]{1, 2, 3, 4, 5, 6, 7}, StandardOpenOption.APPEND);
+            }
+            OccupancyGrid recoveredGrid = new SparseOccupancyGrid(99, 99);
+            RoverRegistry recoveredRegistry = new RoverRegistry();
+            MarsPersistence recovered = MarsPersistence.open(directory, recoveredGrid, recoveredRegistry, Duration.ZERO);
+            MarsRoverService recoveredMarsRoverService = persistentService(recoveredGrid, recoveredRegistry);
+
+            // Then the snapshot and the records after it should give back every rover
+            Assertions.assertEquals(grid.getOccupiedCount(), recoveredGrid.getOccupiedCount());
+            for (int roverId = 0; roverId <= lastRover; roverId++) {
+                RoverPosition expected = persistentMarsRoverService.getRover(roverId);
+                RoverPosition actual = recoveredMarsRoverService.getRover(roverId);
+                Assertions.assertEquals(expected.getxCoordinate(), actual.getxCoordinate());
+                Assertions.assertEquals(expected.getyCoordinate(), actual.getyCoordinate());
+                Assertions.assertEquals(expected.getDirection(), actual.getDirection());
+            }
+            Assertions.assertEquals(6, recoveredMarsRoverService.getRover(5).getyCoordinate());
+            recovered.close();
+        }
+
+        @Test
+        public void open_fail_differentPlateau() throws IOException {
+            // Given rovers persisted on the default plateau
+            MarsPersistence persistence = MarsPersistence.open(directory, new SparseOccupancyGrid(99, 99), new RoverRegistry(), Duration.ZERO);
+            persistence.close();
+
+            // Then they should not be recovered onto a plateau of another size
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> MarsPersistence.open(directory, new SparseOccupancyGrid(50, 50), new RoverRegistry(), Duration.ZERO));
+        }
+
+        private MarsRoverService persistentService(OccupancyGrid grid, RoverRegistry roverRegistry) {
+            return new MarsRoverService(grid, new CommandProgramCache(64), RoverEventBus.disabled(), MarsRoverMetrics.noop(),
+                    roverRegistry, new RoutePlanner());
+        }
+    }
+
+    @Nested
+    class PlateauTests {
+        @TempDir
+        Path directory;
+
+        @Test
+        public void acquire_success_plateausAreIsolated() throws InvalidQueryException, PlateauNotFoundException, DeployRoverException,
+                RoverNotFoundException {
+            // Given two named plateaus next to the default one
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, Long.MAX_VALUE);
+            plateauManager.createPlateau("gale", 20, 20, GridType.SPARSE);
+            plateauManager.createPlateau("jezero", 500, 500, GridType.DENSE);
+
+            // When rovers are deployed to the same coordinates on every plateau
+            DeployRoverResult defaultResult;
+            DeployRoverResult galeResult;
+            DeployRoverResult jezeroResult;
+            try (PlateauLease lease = plateauManager.acquire(null)) {
+                defaultResult = lease.getService().deployRover(new DeployRoverParams("5,5,N", "f*10"));
+            }
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                galeResult = lease.getService().deployRover(new DeployRoverParams("5,5,N", "f*10"));
+            }
+            try (PlateauLease lease = plateauManager.acquire("jezero")) {
+                jezeroResult = lease.getService().deployRover(new DeployRoverParams("5,5,N", "f*10"));
+            }
+
+            // Then no rover should collide and each plateau should hand out its own IDs and apply its own boundary
+            Assertions.assertEquals(StopReason.COMPLETED, defaultResult.getStopReason());
+            Assertions.assertEquals(StopReason.COMPLETED, galeResult.getStopReason());
+            Assertions.assertEquals(StopReason.COMPLETED, jezeroResult.getStopReason());
+            Assertions.assertEquals(0, galeResult.getRoverId());
+            Assertions.assertEquals(0, jezeroResult.getRoverId());
+            Assertions.assertEquals(1, marsRoverService.mars.getOccupiedCount());
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                Assertions.assertThrows(DeployRoverException.class, () -> lease.getService().commandRover(0, "f*10"));
+            }
+            try (PlateauLease lease = plateauManager.acquire("jezero")) {
+                Assertions.assertEquals(25, lease.getService().commandRover(0, "f*10").getxCoordinate());
+            }
+        }
+
+        @Test
+        public void acquire_success_reloadsEvictedPlateau() throws InvalidQueryException, PlateauNotFoundException, DeployRoverException,
+                RoverNotFoundException {
+            // Given a memory budget that only fits one plateau with rovers
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, 100 * 64);
+            plateauManager.createPlateau("gale", 99, 99, null);
+            plateauManager.createPlateau("jezero", 99, 99, null);
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                List<DeployRoverParams> deployRoverParamsList = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    deployRoverParamsList.add(new DeployRoverParams(i + ",0,E", "f*" + (i + 1)));
+                }
+                lease.getService().deployRovers(deployRoverParamsList);
+                lease.getService().commandRover(7, "l,f*3");
+            }
+
+            // When rovers are deployed on the other plateau and a third plateau is created
+            try (PlateauLease lease = plateauManager.acquire("jezero")) {
+                for (int i = 0; i < 40; i++) {
+                    lease.getService().deployRover(new DeployRoverParams(i + ",1,N", "l,r"));
+                }
+            }
+            plateauManager.createPlateau("olympus", 99, 99, null);
+
+            // Then the least recently used plateau should be evicted, and come back with its rovers on the next request
+            List<PlateauInfo> plateauInfos = plateauManager.listPlateaus();
+            Assertions.assertEquals("gale", plateauInfos.get(0).getName());
+            Assertions.assertFalse(plateauInfos.get(0).isLoaded());
+            Assertions.assertEquals(50, plateauInfos.get(0).getRoverCount());
+            Assertions.assertTrue(plateauInfos.get(1).isLoaded());
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                RoverPosition moved = lease.getService().getRover(7);
+                Assertions.assertEquals(10, moved.getxCoordinate());
+                Assertions.assertEquals(8, moved.getyCoordinate());
+                Assertions.assertEquals(Direction.NORTH, moved.getDirection());
+                Assertions.assertEquals(50, lease.getService().getRover(49).getyCoordinate());
+                Assertions.assertEquals(50, lease.getService().deployRover(new DeployRoverParams("90,90,N", "l,r")).getRoverId());
+            }
+            Assertions.assertFalse(plateauManager.listPlateaus().get(1).isLoaded());
+        }
+
+        @Test
+        public void acquire_success_busyPlateauIsNotEvicted() throws InvalidQueryException, PlateauNotFoundException, DeployRoverException {
+            // Given a plateau with a request in flight
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, 0);
+            plateauManager.createPlateau("gale", 99, 99, null);
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                lease.getService().deployRover(new DeployRoverParams("5,5,N", "l,r"));
+
+                // When another plateau is created over the memory budget
+                plateauManager.createPlateau("jezero", 99, 99, null);
+
+                // Then the busy plateau should stay loaded
+                Assertions.assertTrue(plateauManager.listPlateaus().get(0).isLoaded());
+            }
+        }
+
+        @Test
+        public void acquire_success_occupancyGaugeFollowsPlateau() throws InvalidQueryException, PlateauNotFoundException,
+                DeployRoverException {
+            // Given plateaus sharing the metrics of the default one, with a memory budget that only fits one with rovers
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            MarsRoverMetrics metrics = new MarsRoverMetrics(meterRegistry);
+            MarsRoverService meteredMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(99, 99),
+                    new CommandProgramCache(16), RoverEventBus.disabled(), metrics, new RoverRegistry(), new RoutePlanner());
+            PlateauManager plateauManager = new PlateauManager(meteredMarsRoverService, directory, 100 * 64,
+                    new CommandProgramCache(16), RoverEventBus.disabled(), metrics, RoutePlanner::new, ForkJoinPool.commonPool());
+            plateauManager.createPlateau("gale", 99, 99, null);
+            plateauManager.createPlateau("jezero", 99, 99, null);
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                for (int i = 0; i < 50; i++) {
+                    lease.getService().deployRover(new DeployRoverParams(i + ",0,E", "l,r"));
+                }
+            }
+            try (PlateauLease lease = plateauManager.acquire("jezero")) {
+                for (int i = 0; i < 40; i++) {
+                    lease.getService().deployRover(new DeployRoverParams(i + ",1,N", "l,r"));
+                }
+            }
+            meteredMarsRoverService.deployRover(new DeployRoverParams("5,5,N", "l,r"));
+            Assertions.assertEquals(50, meterRegistry.get("mars.rover.occupied.cells").tag("plateau", "gale").gauge().value());
+
+            // When a third plateau is created and evicts the least recently used one
+            plateauManager.createPlateau("olympus", 99, 99, null);
+
+            // Then the evicted plateau should stop reporting until it is loaded again, and the others should keep their own gauge
+            Assertions.assertNull(meterRegistry.find("mars.rover.occupied.cells").tag("plateau", "gale").gauge());
+            Assertions.assertEquals(40, meterRegistry.get("mars.rover.occupied.cells").tag("plateau", "jezero").gauge().value());
+            Assertions.assertEquals(0, meterRegistry.get("mars.rover.occupied.cells").tag("plateau", "olympus").gauge().value());
+            Assertions.assertEquals(1, meterRegistry.get("mars.rover.occupied.cells").tag("plateau", PlateauManager.DEFAULT_PLATEAU)
+                    .gauge().value());
+            try (PlateauLease lease = plateauManager.acquire("gale")) {
+                Assertions.assertEquals(50, meterRegistry.get("mars.rover.occupied.cells").tag("plateau", "gale").gauge().value());
+            }
+        }
+
+        @Test
+        public void createPlateau_fail_denseBitmapsOverBudget() {
+            // Given a memory budget that fits one 800 x 800 bitmap but not the two a dense grid keeps
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, 100_000);
+
+            // When a dense plateau of that size is created
+            Exception overBudget = Assertions.assertThrows(InvalidQueryException.class,
+                    () -> plateauManager.createPlateau("gale", 800, 800, GridType.DENSE));
+
+            // Then it should be rejected, the grid takes 2 bits per coordinate
+            Assertions.assertEquals("A dense 800 x 800 plateau does not fit in the plateau memory budget.", overBudget.getMessage());
+            Assertions.assertEquals(160_000, BitmapOccupancyGrid.bitmapBytes(800, 800));
+        }
+
+        @Test
+        public void createPlateau_fail_invalidOrTakenName() throws InvalidQueryException {
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, Long.MAX_VALUE);
+            plateauManager.createPlateau("gale", 10, 10, null);
+
+            Exception taken = Assertions.assertThrows(InvalidQueryException.class, () -> plateauManager.createPlateau("gale", 10, 10, null));
+            Assertions.assertEquals("Plateau gale already exists.", taken.getMessage());
+            Assertions.assertThrows(InvalidQueryException.class, () -> plateauManager.createPlateau("../gale", 10, 10, null));
+            Assertions.assertThrows(InvalidQueryException.class, () -> plateauManager.createPlateau("default", 10, 10, null));
+            Assertions.assertThrows(InvalidQueryException.class, () -> plateauManager.createPlateau("olympus", 0, 10, null));
+        }
+
+        @Test
+        public void acquire_fail_unknownPlateau() {
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, Long.MAX_VALUE);
+
+            Exception exception = Assertions.assertThrows(PlateauNotFoundException.class, () -> plateauManager.acquire("gale"));
+            Assertions.assertEquals("There is no plateau named gale.", exception.getMessage());
+        }
+    }
+
+    @Nested
+    class FeedTests {
+        @Test
+        public void subscribe_success_streamsChangesInsideRectangle() throws InvalidQueryException, DeployRoverException,
+                RoverNotFoundException {
+            // Given a subscription to the cells from 0,0 to 20,20
+            FeedSubscription subscription = marsRoverService.subscribe(0, 0, 20, 20, 100);
+
+            // When rovers are parked inside and outside of the rectangle
+            int inside = marsRoverService.deployRover(new DeployRoverParams("5,5,N", "f")).getRoverId();
+            marsRoverService.deployRover(new DeployRoverParams("50,50,N", "f"));
+
+            // Then only the park inside the rectangle should be waiting
+            List<CellChange> parks = subscription.drain();
+            Assertions.assertEquals(1, parks.size());
+            Assertions.assertEquals(CellChangeType.PARKED, parks.get(0).getType());
+            Assertions.assertEquals(inside, parks.get(0).getRoverId());
+            Assertions.assertEquals(Direction.NORTH, parks.get(0).getDirection());
+
+            // When the rover inside moves out of the rectangle
+            marsRoverService.commandRover(inside, "r,f*30");
+
+            // Then only the cell it left should be reported
+            List<CellChange> moves = subscription.drain();
+            Assertions.assertEquals(1, moves.size());
+            Assertions.assertEquals(CellChangeType.VACATED, moves.get(0).getType());
+            Assertions.assertEquals(6, moves.get(0).getxCoordinate());
+            Assertions.assertEquals(5, moves.get(0).getyCoordinate());
+            Assertions.assertTrue(subscription.drain().isEmpty());
+        }
+
+        @Test
+        public void onReady_success_changeBeforeListenerWakesUpSender() throws InvalidQueryException, DeployRoverException {
+            // Given a subscription that takes a change before its sender is set
+            FeedSubscription subscription = marsRoverService.subscribe(0, 0, 98, 98, 100);
+            marsRoverService.deployRover(new DeployRoverParams("5,5,N", "f"));
+
+            // When the sender is set
+            int[] wakeUps = new int[1];
+            subscription.onReady(() -> wakeUps[0]++);
+
+            // Then it should be woken up for the waiting change, and again for changes after it drained
+            Assertions.assertEquals(1, wakeUps[0]);
+            Assertions.assertEquals(1, subscription.drain().size());
+            Assertions.assertTrue(subscription.drain().isEmpty());
+            marsRoverService.deployRover(new DeployRoverParams("7,7,N", "f"));
+            Assertions.assertEquals(2, wakeUps[0]);
+        }
+
+        @Test
+        public void subscribe_success_conflatesChangesPerCell() throws InvalidQueryException, DeployRoverException,
+                RoverNotFoundException {
+            // Given a subscriber that has not drained its subscription yet
+            FeedSubscription subscription = marsRoverService.subscribe(0, 0, 98, 98, 100);
+            int[] wakeUps = new int[1];
+            subscription.onReady(() -> wakeUps[0]++);
+
+            // When a rover keeps moving back and forth between two cells
+            int roverId = marsRoverService.deployRover(new DeployRoverParams("5,5,N", "l,r")).getRoverId();
+            for (int i = 0; i < 50; i++) {
+                marsRoverService.commandRover(roverId, "f");
+                marsRoverService.commandRover(roverId, "b");
+            }
+
+            // Then only the latest change of each cell should be waiting, and the subscriber woken up once
+            List<CellChange> changes = subscription.drain();
+            Assertions.assertEquals(2, changes.size());
+            Assertions.assertEquals(CellChangeType.MOVED, changes.get(0).getType());
+            Assertions.assertEquals(5, changes.get(0).getxCoordinate());
+            Assertions.assertEquals(CellChangeType.VACATED, changes.get(1).getType());
+            Assertions.assertEquals(6, changes.get(1).getxCoordinate());
+            Assertions.assertEquals(1, wakeUps[0]);
+        }
+
+        @Test
+        public void subscribe_success_reportsCollision() throws InvalidQueryException, DeployRoverException {
+            // Given a rover parked in the way
+            marsRoverService.deployRover(new DeployRoverParams("10,5,N", "l,r"));
+            FeedSubscription subscription = marsRoverService.subscribe(0, 0, 98, 98, 100);
+
+            // When another rover drives into it
+            int roverId = marsRoverService.deployRover(new DeployRoverParams("5,5,N", "f*10")).getRoverId();
+
+            // Then its park should be followed by a collision at the same coordinates
+            List<CellChange> changes = subscription.drain();
+            Assertions.assertEquals(2, changes.size());
+            Assertions.assertEquals(CellChangeType.PARKED, changes.get(0).getType());
+            Assertions.assertEquals(CellChangeType.COLLISION, changes.get(1).getType());
+            Assertions.assertEquals(roverId, changes.get(1).getRoverId());
+            Assertions.assertEquals(9, changes.get(1).getxCoordinate());
+        }
+
+        @Test
+        public void subscribe_fail_overflowsAndCloses() throws InvalidQueryException, DeployRoverException {
+            // Given a subscription with room for two cells
+            FeedSubscription subscription = marsRoverService.subscribe(0, 0, 98, 98, 2);
+
+            // When three cells change before it is drained
+            for (int i = 0; i < 3; i++) {
+                marsRoverService.deployRover(new DeployRoverParams(i + ",0,N", "l,r"));
+            }
+
+            // Then the subscription should overflow, and stop taking changes once closed
+            Assertions.assertNull(subscription.drain());
+            Assertions.assertTrue(marsRoverService.hasSubscribers());
+            subscription.close();
+            Assertions.assertFalse(marsRoverService.hasSubscribers());
+            Assertions.assertThrows(InvalidQueryException.class, () -> marsRoverService.subscribe(5, 0, 4, 0, 2));
+        }
+    }
+
+    @Nested
+    class ConsoleTests {
+        @TempDir
+        Path directory;
+
+        @Test
+        public void console_success_deploysOnSharedService() throws RoverNotFoundException {
+            // Given a console on the same service as the REST endpoints
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            MarsRoverConsole marsRoverConsole = new MarsRoverConsole(marsRoverService);
+
+            // When rovers are deployed through the console
+            marsRoverConsole.run(new ByteArrayInputStream("3,4,N f,f,r,f\n3 4 N\n".getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(output, true, StandardCharsets.UTF_8));
+
+            // Then the service should see the parked rover and the console should report both lines
+            RoverPosition roverPosition = marsRoverService.getRover(0);
+            Assertions.assertEquals(5, roverPosition.getxCoordinate());
+            Assertions.assertEquals(5, roverPosition.getyCoordinate());
+            String lines = output.toString(StandardCharsets.UTF_8);
+            Assertions.assertTrue(lines.contains("Final Coordinate: 5, 5"), lines);
+            Assertions.assertTrue(lines.contains("Final Direction:  EAST"), lines);
+            Assertions.assertTrue(lines.contains("Invalid params. Params must follow the format of: 3,4,N f,f,r,f,f"), lines);
+        }
+
+        @Test
+        public void headless_success_settingsFromArguments() throws IOException {
+            // Given a headless run on a 10 x 10 plateau set by arguments
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            String[] args = {"--headless", "--mars.width=10", "--mars.height=10"};
+
+            // When a rover is deployed inside and another drives past the configured boundary
+            HeadlessMarsRover.run(args, new ByteArrayInputStream("3,4,N f,f,r,f\n1,1,N f*20\n".getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(output, true, StandardCharsets.UTF_8));
+
+            // Then the first should park and the second should be out of bounds
+            String lines = output.toString(StandardCharsets.UTF_8);
+            Assertions.assertTrue(lines.contains("Final Coordinate: 5, 5"), lines);
+            Assertions.assertTrue(lines.contains("Out of Mars boundary."), lines);
+        }
+
+        @Test
+        public void headless_success_sameSettingsAsSpringBinding() throws IOException {
+            // Given settings spread over arguments, system properties, environment variables and an active profile
+            String[] args = {"--headless", "--mars.events.buffer-size=8", "--mars.grid=dense"};
+            Properties systemProperties = new Properties();
+            systemProperties.setProperty("mars.parallelism", "3");
+            systemProperties.setProperty("mars.feed.heartbeat-seconds", "9");
+            Map<String, String> environment = Map.of("SPRING_PROFILES_ACTIVE", "headless", "MARS_PLANNER_TURNCOST", "4",
+                    "MARS_FEED_HEARTBEATSECONDS", "1", "MARS_BINARY_ENABLED", "yes");
+
+            // When they are read by the headless run and bound by Spring Boot
+            MarsProperties headlessProperties = HeadlessMarsRover.loadProperties(args, systemProperties, environment);
+            StandardEnvironment springEnvironment = new StandardEnvironment() {
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Map<String, Object> getSystemProperties() {
+                    return (Map) systemProperties;
+                }
+
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Map<String, Object> getSystemEnvironment() {
+                    return (Map) environment;
+                }
+            };
+            SpringApplication springApplication = new SpringApplication(MarsProperties.class);
+            springApplication.setWebApplicationType(WebApplicationType.NONE);
+            springApplication.setBannerMode(Banner.Mode.OFF);
+            springApplication.setLogStartupInfo(false);
+            springApplication.setEnvironment(springEnvironment);
+            // Only load application.properties and the profiles, leave the logging of the test contexts alone
+            springApplication.setListeners(List.of(new EnvironmentPostProcessorApplicationListener()));
+            MarsProperties springProperties;
+            try (ConfigurableApplicationContext context = springApplication.run(args)) {
+                springProperties = Binder.get(context.getEnvironment()).bindOrCreate("mars", MarsProperties.class);
+            }
+
+            // Then both should hold the same settings, taken from the source with the highest precedence
+            Assertions.assertEquals(objectMapper.valueToTree(springProperties), objectMapper.valueToTree(headlessProperties));
+            Assertions.assertEquals(50, headlessProperties.getWidth());
+            Assertions.assertEquals(GridType.DENSE, headlessProperties.getGrid());
+            Assertions.assertEquals(8, headlessProperties.getEvents().getBufferSize());
+            Assertions.assertEquals(3, headlessProperties.getParallelism());
+            Assertions.assertEquals(9, headlessProperties.getFeed().getHeartbeatSeconds());
+            Assertions.assertEquals(4, headlessProperties.getPlanner().getTurnCost());
+            Assertions.assertTrue(headlessProperties.getBinary().isEnabled());
+            Assertions.assertEquals(ThreadMode.VIRTUAL, headlessProperties.getThreadMode());
+            Assertions.assertEquals(60, headlessProperties.getPersistence().getSnapshotIntervalSeconds());
+        }
+
+        @Test
+        public void missionFile_success_sameOutputAsConsole() throws IOException {
+            // Given a mission file mixing rovers that park, collide and fail, malformed and blank lines and Windows line ends
+            Random random = new Random(11);
+            String[] lines = {"3,4,N", "3,4,X", "a,4,N", "3,4,N,1", "", "  ", "3,4", "3,4,N  f", "3,4,N f,f,q", "3,4,N f*0"};
+            String[] commandParams = {"f", "b", "l", "r", "f*7", "b*3"};
+            StringBuilder mission = new StringBuilder();
+            for (int i = 0; i < 3000; i++) {
+                if (random.nextInt(10) == 0) {
+                    mission.append(lines[random.nextInt(lines.length)]);
+                }
+                else {
+                    mission.append(random.nextInt(110) - 5).append(',').append(random.nextInt(110) - 5).append(',')
+                            .append("NSEW".charAt(random.nextInt(4))).append(' ').append(commandParams[random.nextInt(commandParams.length)]);
+                    for (int c = random.nextInt(6); c > 0; c--) {
+                        mission.append(',').append(commandParams[random.nextInt(commandParams.length)]);
+                    }
+                }
+                mission.append(random.nextInt(20) == 0 ? "\r\n" : "\n");
+            }
+            mission.append("\n  \n");
+            Path missionFile = directory.resolve("mission.txt");
+            Files.writeString(missionFile, mission, StandardCharsets.UTF_8);
+
+            // When it is typed on the console and run as a mission file in small chunks
+            ByteArrayOutputStream consoleOutput = new ByteArrayOutputStream();
+            new MarsRoverConsole(new MarsRoverService()).run(new ByteArrayInputStream(mission.toString().getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(consoleOutput, true, StandardCharsets.UTF_8));
+            Path resultsFile = directory.resolve("results.txt");
+            try (FileChannel results = FileChannel.open(resultsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                new MissionFileRunner(new MarsRoverService(), 3, 256).run(missionFile, results);
+            }
+
+            // Then both should report the same results, line for line
+            String expected = consoleOutput.toString(StandardCharsets.UTF_8);
+            expected = expected.substring(expected.indexOf(System.lineSeparator()) + System.lineSeparator().length());
+            Assertions.assertEquals(expected, Files.readString(resultsFile, StandardCharsets.UTF_8));
+            Assertions.assertTrue(expected.contains("Final Coordinate"));
+            Assertions.assertTrue(expected.contains("Invalid params"));
+        }
+    }
+
+    @Nested
+    class BinaryProtocolTests {
+        @Test
+        public void binaryProtocol_success_pipelinedResultsMatchBatch() throws IOException, DeployRoverException {
+            // Given deployments that park, collide, move out of bounds and land on a taken cell
+            String[][] deployments = {{"5", "5", "N", "f,f,r,f"}, {"9", "6", "S", "f,f,f"}, {"0", "0", "S", "f"},
+                    {"7", "6", "E", "l,r"}, {"1", "98", "W", "r,r,b*3"}, {"20", "20", "N", "l,l,l,l,f,f,f,f,f"}};
+            ByteBuffer requests = ByteBuffer.allocate(1024);
+            for (String[] deployment : deployments) {
+                String[] commands = deployment[3].split(",");
+                List<Command> packedCommands = new ArrayList<>();
+                for (String command : commands) {
+                    int count = command.length() > 1 ? Integer.parseInt(command.substring(2)) : 1;
+                    for (int i = 0; i < count; i++) {
+                        packedCommands.add(Command.convertStringToCommandEnum(command.substring(0, 1)));
+                    }
+                }
+                BinaryProtocol.writeDeployRequest(requests, Integer.parseInt(deployment[0]), Integer.parseInt(deployment[1]),
+                        Direction.convertStringToDirectionEnum(deployment[2]), packedCommands.toArray(new Command[0]));
+            }
+            requests.flip();
+
+            // When they are all sent at once over the binary protocol
+            List<DeployRoverBatchResult> results;
+            try (BinaryProtocolServer server = BinaryProtocolServer.start(new InetSocketAddress("localhost", 0), marsRoverService, 1)) {
+                results = exchange(server.getPort(), requests, deployments.length);
+            }
+
+            // Then the responses should come back in order, the same as deploying the same params as a batch
+            MarsRoverService referenceService = new MarsRoverService();
+            for (int i = 0; i < deployments.length; i++) {
+                String[] deployment = deployments[i];
+                DeployRoverBatchResult expected = referenceService.deployRoverForBatch(
+                        new DeployRoverParams(deployment[0] + "," + deployment[1] + "," + deployment[2], deployment[3]));
+                Assertions.assertEquals(expected.getError(), results.get(i).getError());
+                if (expected.getResult() != null) {
+                    Assertions.assertEquals(expected.getResult().getRoverId(), results.get(i).getResult().getRoverId());
+                    Assertions.assertEquals(expected.getResult().getxCoordinate(), results.get(i).getResult().getxCoordinate());
+                    Assertions.assertEquals(expected.getResult().getyCoordinate(), results.get(i).getResult().getyCoordinate());
+                    Assertions.assertEquals(expected.getResult().getFinalDirection(), results.get(i).getResult().getFinalDirection());
+                    Assertions.assertEquals(expected.getResult().getStopReason(), results.get(i).getResult().getStopReason());
+                }
+            }
+            Assertions.assertEquals(StopReason.COLLISION, results.get(1).getResult().getStopReason());
+            Assertions.assertEquals("Out of Mars boundary.", results.get(2).getError());
+            Assertions.assertEquals("There is an existing rover at this coordinate.", results.get(3).getError());
+        }
+
+        @Test
+        public void binaryProtocol_fail_malformedRequestsAnsweredAndConnectionKept() throws IOException {
+            // Given an unknown request type, an invalid direction, commands cut short and no commands at all
+            ByteBuffer requests = ByteBuffer.allocate(256);
+            requests.put(new byte[]{2, 9, 0});
+            requests.put(new byte[]{5, BinaryProtocol.DEPLOY, 2, 2, 7, 0});
+            requests.put(new byte[]{5, BinaryProtocol.DEPLOY, 2, 2, 0, 5});
+            requests.put(new byte[]{5, BinaryProtocol.DEPLOY, 2, 2, 0, 0});
+            // Followed by a valid deployment
+            BinaryProtocol.writeDeployRequest(requests, 1, 1, Direction.NORTH, new Command[]{Command.FORWARD});
+            requests.flip();
+
+            // When they are sent on the same connection
+            List<DeployRoverBatchResult> results;
+            try (BinaryProtocolServer server = BinaryProtocolServer.start(new InetSocketAddress("localhost", 0), marsRoverService, 1)) {
+                results = exchange(server.getPort(), requests, 5);
+            }
+
+            // Then each should be answered with an error and the connection should still deploy the valid rover
+            Assertions.assertEquals("Unknown request type.", results.get(0).getError());
+            Assertions.assertEquals("Invalid direction.", results.get(1).getError());
+            Assertions.assertEquals("Malformed request.", results.get(2).getError());
+            Assertions.assertEquals("Invalid command: ", results.get(3).getError());
+            Assertions.assertEquals(2, results.get(4).getResult().getxCoordinate());
+            Assertions.assertEquals(1, results.get(4).getResult().getyCoordinate());
+        }
+
+        @Test
+        public void binaryProtocol_fail_oversizedFrameClosesConnection() throws IOException {
+            // Given a frame length one byte above the limit
+            ByteBuffer oversized = ByteBuffer.allocate(16);
+            BinaryProtocol.writeVarint(oversized, BinaryProtocol.MAX_FRAME_LENGTH + 1);
+            oversized.put(BinaryProtocol.DEPLOY);
+            oversized.flip();
+
+            try (BinaryProtocolServer server = BinaryProtocolServer.start(new InetSocketAddress("localhost", 0), marsRoverService, 1)) {
+                // When it is sent
+                try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+                    channel.write(oversized);
+
+                    // Then the connection should be closed without a response, and the server should keep serving others
+                    int read;
+                    try {
+                        read = channel.read(ByteBuffer.allocate(64));
+                    }
+                    catch (IOException exception) {
+                        // Reset by the server
+                        read = -1;
+                    }
+                    Assertions.assertEquals(-1, read);
+                }
+                ByteBuffer request = ByteBuffer.allocate(64);
+                BinaryProtocol.writeDeployRequest(request, 1, 1, Direction.NORTH, new Command[]{Command.FORWARD});
+                request.flip();
+                Assertions.assertEquals(2, exchange(server.getPort(), request, 1).get(0).getResult().getxCoordinate());
+            }
+        }
+
+        @Test
+        public void binaryProtocol_success_clientNotReadingOnlyHoldsUpItself() throws IOException, InterruptedException {
+            // Given a client pipelining requests on a single reactor thread without ever reading the responses
+            ByteBuffer requests = ByteBuffer.allocate(32 << 20);
+            while (requests.remaining() >= 6) {
+                // Deployments without commands, each answered with an error
+                requests.put(new byte[]{5, BinaryProtocol.DEPLOY, 2, 2, 0, 0});
+            }
+            requests.flip();
+            try (BinaryProtocolServer server = BinaryProtocolServer.start(new InetSocketAddress("localhost", 0), marsRoverService, 1);
+                 SocketChannel stalled = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+                stalled.configureBlocking(false);
+                long idleSinceNanos = System.nanoTime();
+                while (requests.hasRemaining() && System.nanoTime() - idleSinceNanos < TimeUnit.MILLISECONDS.toNanos(500)) {
+                    if (stalled.write(requests) > 0) {
+                        idleSinceNanos = System.nanoTime();
+                    }
+                    else {
+                        Thread.sleep(10);
+                    }
+                }
+                Assertions.assertTrue(requests.hasRemaining(), "The server kept reading from a client that does not read");
+
+                // When another client deploys on the same reactor
+                ByteBuffer request = ByteBuffer.allocate(64);
+                BinaryProtocol.writeDeployRequest(request, 1, 1, Direction.NORTH, new Command[]{Command.FORWARD});
+                request.flip();
+                List<DeployRoverBatchResult> results = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                        () -> exchange(server.getPort(), request, 1));
+
+                // Then it should still be answered
+                Assertions.assertEquals(2, results.get(0).getResult().getxCoordinate());
+            }
+        }
+
+        @Test
+        public void binaryProtocol_success_slowSyncOnlyHoldsUpItsConnection() throws IOException, InterruptedException {
+            // Given a service whose first sync waits until it is released, as if the disk were slow
+            CountDownLatch syncStarted = new CountDownLatch(1);
+            CountDownLatch releaseSync = new CountDownLatch(1);
+            MarsRoverService slowSyncService = new MarsRoverService() {
+                @Override
+                public void sync() {
+                    if (syncStarted.getCount() > 0) {
+                        syncStarted.countDown();
+                        try {
+                            releaseSync.await(10, TimeUnit.SECONDS);
+                        }
+                        catch (InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    super.sync();
+                }
+            };
+            ByteBuffer first = ByteBuffer.allocate(64);
+            BinaryProtocol.writeDeployRequest(first, 1, 1, Direction.NORTH, new Command[]{Command.FORWARD});
+            first.flip();
+            ByteBuffer second = ByteBuffer.allocate(64);
+            BinaryProtocol.writeDeployRequest(second, 5, 5, Direction.EAST, new Command[]{Command.FORWARD});
+            second.flip();
+
+            try (BinaryProtocolServer server = BinaryProtocolServer.start(new InetSocketAddress("localhost", 0), slowSyncService, 1);
+                 SocketChannel slow = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+                slow.write(first);
+                Assertions.assertTrue(syncStarted.await(10, TimeUnit.SECONDS));
+
+                // When another client deploys on the same reactor while the first sync is waiting
+                List<DeployRoverBatchResult> results = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                        () -> exchange(server.getPort(), second, 1));
+
+                // Then it should be answered first, and the waiting client once its sync is done
+                Assertions.assertEquals(6, results.get(0).getResult().getyCoordinate());
+                slow.configureBlocking(false);
+                Assertions.assertEquals(0, slow.read(ByteBuffer.allocate(64)));
+                releaseSync.countDown();
+                slow.configureBlocking(true);
+                Assertions.assertEquals(2, readResponses(slow, 1).get(0).getResult().getxCoordinate());
+            }
+        }
+
+        private List<DeployRoverBatchResult> exchange(int port, ByteBuffer requests, int responseCount) throws IOException {
+            try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+                while (requests.hasRemaining()) {
+                    channel.write(requests);
+                }
+                return readResponses(channel, responseCount);
+            }
+        }
+
+        private List<DeployRoverBatchResult> readResponses(SocketChannel channel, int responseCount) throws IOException {
+            List<DeployRoverBatchResult> results = new ArrayList<>();
+            ByteBuffer responses = ByteBuffer.allocate(4096);
+            while (results.size() < responseCount) {
+                Assertions.assertTrue(channel.read(responses) >= 0, "Connection closed before every response arrived");
+                responses.flip();
+                while (true) {
+                    int frameStart = responses.position();
+                    int length = BinaryProtocol.readFrameLength(responses);
+                    if (length < 0 || responses.remaining() < length) {
+                        responses.position(frameStart);
+                        break;
+                    }
+                    responses.position(frameStart);
+                    results.add(BinaryProtocol.readResponse(responses));
+                }
+                responses.compact();
+            }
+            return results;
+        }
+    }
+
+    @Nested
+    class ThreadModeTests {
+        @Test
+        public void threadMode_success_concurrentDeploysInEveryMode() throws InterruptedException, RoverNotFoundException {
+            for (ThreadMode threadMode : ThreadMode.values()) {
+                // Given a service publishing events to a consumer running on a thread of the mode
+                InMemoryRoverEventConsumer consumer = new InMemoryRoverEventConsumer(1000);
+                RoverEventBus roverEventBus = new RoverEventBus(1000, List.of(consumer),
+                        ThreadModes.threadFactory(threadMode, "test-event-bus-"));
+                MarsRoverService threadMarsRoverService = new MarsRoverService(new SparseOccupancyGrid(99, 99),
+                        new CommandProgramCache(16), roverEventBus);
+                Executor executor = ThreadModes.threadPerTaskExecutor(ThreadModes.threadFactory(threadMode, "test-request-"));
+
+                // When 64 rovers are deployed at once, each on a thread of its own
+                CountDownLatch deployed = new CountDownLatch(64);
+                for (int i = 0; i < 64; i++) {
+                    DeployRoverParams deployRoverParams = new DeployRoverParams("0," + i + ",N", "f,f");
+                    executor.execute(() -> {
+                        try {
+                            threadMarsRoverService.deployRover(deployRoverParams);
+                        }
+                        catch (DeployRoverException exception) {
+                            throw new IllegalStateException(exception);
+                        }
+                        finally {
+                            deployed.countDown();
+                        }
+                    });
+                }
+                Assertions.assertTrue(deployed.await(10, TimeUnit.SECONDS), threadMode.name());
+                roverEventBus.close();
+
+                // Then every rover should be parked two cells north and every event handed to the consumer
+                List<Integer> yCoordinates = new ArrayList<>();
+                for (int roverId = 0; roverId < 64; roverId++) {
+                    RoverPosition roverPosition = threadMarsRoverService.getRover(roverId);
+                    Assertions.assertEquals(2, roverPosition.getxCoordinate(), threadMode.name());
+                    yCoordinates.add(roverPosition.getyCoordinate());
+                }
+                yCoordinates.sort(Comparator.naturalOrder());
+                for (int i = 0; i < 64; i++) {
+                    Assertions.assertEquals(i, yCoordinates.get(i), threadMode.name());
+                }
+                Assertions.assertEquals(64, consumer.getEvents().size(), threadMode.name());
+            }
+        }
+        @Test
+        public void virtualThreadFactory_fail_fallsBackWithoutVirtualThreads() throws InterruptedException {
+            // Given a JVM without virtual threads, which are a preview feature before Java 21 and missing before Java 19
+            Assumptions.assumeTrue(Runtime.version().feature() < 19);
+
+            // When the threads of the VIRTUAL mode are created
+            ThreadFactory threadFactory = ThreadModes.threadFactory(ThreadMode.VIRTUAL, "test-fallback-");
+            Thread thread = threadFactory.newThread(() -> { });
+
+            // Then no virtual thread factory should be found, and daemon platform threads should be used instead
+            Assertions.assertNull(ThreadModes.virtualThreadFactory("test-virtual-"));
+            Assertions.assertEquals("test-fallback-1", thread.getName());
+            Assertions.assertTrue(thread.isDaemon());
+            thread.start();
+            thread.join();
+        }
+
+        @Test
+        public void virtualThreadFactory_success_virtualThreadsFromJava21() throws ReflectiveOperationException {
+            // Given a JVM with virtual threads
+            Assumptions.assumeTrue(Runtime.version().feature() >= 21);
+
+            // When the threads of the VIRTUAL mode are created
+            ThreadFactory threadFactory = ThreadModes.virtualThreadFactory("test-virtual-");
+            Assertions.assertNotNull(threadFactory);
+            Thread thread = threadFactory.newThread(() -> { });
+
+            // Then they should be numbered virtual threads, in both ways of creating them
+            Assertions.assertEquals("test-virtual-1", thread.getName());
+            Assertions.assertTrue(isVirtual(thread));
+            Assertions.assertTrue(isVirtual(ThreadModes.threadFactory(ThreadMode.VIRTUAL, "test-mode-").newThread(() -> { })));
+        }
+
+        @Test
+        public void virtualThreadProtocolHandlerCustomizer_success_notCreatedInPlatformMode(@Autowired ApplicationContext context) {
+            // Given the application context in the default PLATFORM mode
+            // Then Tomcat should keep its fixed pool
+            Assertions.assertFalse(context.containsBean("virtualThreadProtocolHandlerCustomizer"));
+        }
+    }
+
+    /**
+     * Reads Thread.isVirtual, which does not exist on the Java 17 the application is built with
+     */
+    private static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Nested
+    @TestPropertySource(properties = "mars.thread-mode=VIRTUAL")
+    class VirtualThreadModeTests {
+        @Autowired
+        private TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer;
+
+        @Test
+        public void virtualThreadProtocolHandlerCustomizer_success_virtualThreadsWhenAvailable() throws InterruptedException {
+            // Given the Tomcat customizer of an application context in the VIRTUAL mode
+            Http11NioProtocol protocolHandler = new Http11NioProtocol();
+
+            // When it customizes a connector and a request is handed to the executor of the connector
+            virtualThreadProtocolHandlerCustomizer.customize(protocolHandler);
+
+            // Then requests should run on virtual threads if the JVM has them, otherwise the fixed pool should be kept
+            if (ThreadModes.virtualThreadFactory("probe-") == null) {
+                Assertions.assertNull(protocolHandler.getExecutor());
+                return;
+            }
+            Assertions.assertNotNull(protocolHandler.getExecutor());
+            CountDownLatch ran = new CountDownLatch(1);
+            List<Boolean> virtual = new ArrayList<>();
+            protocolHandler.getExecutor().execute(() -> {
+                try {
+                    virtual.add(isVirtual(Thread.currentThread()));
+                }
+                catch (ReflectiveOperationException exception) {
+                    throw new IllegalStateException(exception);
+                } finally {
+                    ran.countDown();
+                }
+            });
+            Assertions.assertTrue(ran.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(List.of(true), virtual);
+        }
+    }
+
+    @Nested
+    class ControllerTests {
+        @TempDir
+        Path directory;
+
+        private MockMvc mockMvc;
+
+        @BeforeEach
+        public void setUp() throws InvalidQueryException {
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, Long.MAX_VALUE);
+            plateauManager.createPlateau("gale", 20, 20, GridType.SPARSE);
+            mockMvc = MockMvcBuilders.standaloneSetup(new MarsRoverController(plateauManager, new SseFeedStreamer(16, 15), objectMapper))
+                    .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                    .build();
+        }
+
+        @Test
+        public void queries_success_namedPlateau() throws Exception {
+            // Given a rover parked at 8, 5 on a named plateau only
+            mockMvc.perform(post("/deployRover").param("plateau", "gale").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"currentCoordinates\":\"5,5,N\",\"commands\":\"f*3\"}"))
+                    .andExpect(status().isOk());
+
+            // When it is looked up by cell, by area and by distance on both plateaus
+            // Then only the named plateau should find it
+            mockMvc.perform(get("/rovers").param("x", "8").param("y", "5").param("plateau", "gale"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.roverId").value(0));
+            mockMvc.perform(get("/rovers").param("x", "8").param("y", "5"))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get("/rovers/area/count").param("minX", "0").param("minY", "0").param("maxX", "19").param("maxY", "19")
+                            .param("plateau", "gale"))
+                    .andExpect(content().string("1"));
+            mockMvc.perform(get("/rovers/area/count").param("minX", "0").param("minY", "0").param("maxX", "19").param("maxY", "19"))
+                    .andExpect(content().string("0"));
+            mockMvc.perform(get("/rovers/area").param("minX", "0").param("minY", "0").param("maxX", "19").param("maxY", "19")
+                            .param("plateau", "gale"))
+                    .andExpect(jsonPath("$.length()").value(1));
+            mockMvc.perform(get("/rovers/nearest").param("x", "0").param("y", "0").param("plateau", "gale"))
+                    .andExpect(jsonPath("$[0].xCoordinate").value(8));
+            mockMvc.perform(get("/rovers/nearest").param("x", "0").param("y", "0"))
+                    .andExpect(jsonPath("$.length()").value(0));
+            mockMvc.perform(get("/rovers/area/count").param("minX", "0").param("minY", "0").param("maxX", "19").param("maxY", "19")
+                            .param("plateau", "olympus"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        public void mutations_success_namedPlateau() throws Exception {
+            // Given a rover parked at 8, 5 on a named plateau only
+            mockMvc.perform(post("/deployRover").param("plateau", "gale").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"currentCoordinates\":\"5,5,N\",\"commands\":\"f*3\"}"))
+                    .andExpect(status().isOk());
+
+            // When a route is planned through it, it is simulated and rovers are streamed onto the named plateau
+            // Then the route should avoid it only on the named plateau
+            mockMvc.perform(post("/planRoute").param("plateau", "gale").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"currentCoordinates\":\"7,5,N\",\"targetXCoordinate\":9,\"targetYCoordinate\":5}"))
+                    .andExpect(jsonPath("$.turnCount").value(Matchers.greaterThan(0)));
+            mockMvc.perform(post("/planRoute").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"currentCoordinates\":\"7,5,N\",\"targetXCoordinate\":9,\"targetYCoordinate\":5}"))
+                    .andExpect(jsonPath("$.commands").value("f*2"));
+            // And the simulation should move the rover of the named plateau
+            mockMvc.perform(post("/simulations").param("plateau", "gale").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rovers\":[{\"roverId\":0,\"commands\":\"f\"}],\"maxTicks\":10}"))
+                    .andExpect(jsonPath("$.results[0].xCoordinate").value(9));
+            mockMvc.perform(post("/simulations").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rovers\":[{\"roverId\":0,\"commands\":\"f\"}],\"maxTicks\":10}"))
+                    .andExpect(status().isNotFound());
+            // And streamed rovers should be parked on the named plateau
+            mockMvc.perform(post("/deployRovers/stream").param("plateau", "gale").contentType("application/x-ndjson")
+                            .content("{\"currentCoordinates\":\"1,1,N\",\"commands\":\"f\"}\n"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/rovers").param("x", "2").param("y", "1").param("plateau", "gale"))
+                    .andExpect(jsonPath("$.roverId").value(1));
+            Assertions.assertEquals(0, marsRoverService.mars.getOccupiedCount());
+        }
+
+        @Test
+        public void deployRoversStream_success_resultsInOrderWithErrorLines() throws Exception {
+            // Given a body with blank lines, a malformed line, a \r\n line break and a line over the length limit between deployments
+            String body = "{\"currentCoordinates\":\"1,1,N\",\"commands\":\"f\"}\n"
+                    + "\n   \n"
+                    + "{\"currentCoordinates\":\"oops\n"
+                    + "{\"currentCoordinates\":\"5,5,E\",\"commands\":\"f\"}\r\n"
+                    + "{\"currentCoordinates\":\"7,7,N\",\"commands\":\"" + "l,".repeat(1 << 19) + "r\"}\n"
+                    + "{\"currentCoordinates\":\"9,9,S\",\"commands\":\"f\"}";
+
+            // When it is streamed
+            String content = mockMvc.perform(post("/deployRovers/stream").contentType("application/x-ndjson").content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            // Then every line but the blank ones should get a result in order, with an error for the malformed and long lines
+            String[] lines = content.split("\n");
+            Assertions.assertEquals(5, lines.length);
+            JsonNode first = objectMapper.readTree(lines[0]);
+            Assertions.assertEquals(0, first.get("result").get("roverId").asInt());
+            Assertions.assertTrue(objectMapper.readTree(lines[1]).get("error").asText().startsWith("Invalid deployment: "));
+            Assertions.assertEquals(1, objectMapper.readTree(lines[2]).get("result").get("roverId").asInt());
+            Assertions.assertEquals("Invalid deployment: line longer than 1048576 characters.",
+                    objectMapper.readTree(lines[3]).get("error").asText());
+            Assertions.assertEquals(2, objectMapper.readTree(lines[4]).get("result").get("roverId").asInt());
+            Assertions.assertEquals(3, marsRoverService.mars.getOccupiedCount());
+            Assertions.assertFalse(marsRoverService.mars.isOccupied(7, 7));
+        }
+
+        @Test
+        public void deployRoversStream_success_nullLineRejectedLikeMalformedLine() throws Exception {
+            // Given a body with a line of literal null before a deployment
+            String body = "null\n{\"currentCoordinates\":\"1,1,N\",\"commands\":\"f\"}\n";
+
+            // When it is streamed
+            String content = mockMvc.perform(post("/deployRovers/stream").contentType("application/x-ndjson").content(body))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            // Then the null line should get an invalid deployment error and the deployment after it a result
+            String[] lines = content.split("\n");
+            Assertions.assertEquals(2, lines.length);
+            Assertions.assertEquals("Invalid deployment: expected a JSON object but got null.",
+                    objectMapper.readTree(lines[0]).get("error").asText());
+            Assertions.assertEquals(0, objectMapper.readTree(lines[1]).get("result").get("roverId").asInt());
+        }
+
+        @Test
+        public void deployRoversStream_success_resultsFlushedBeforeWaitingOnClient() throws Exception {
+            // Given a client that sends its second deployment only once the first result could have been sent
+            byte[][] chunks = {
+                    "{\"currentCoordinates\":\"1,1,N\",\"commands\":\"f\"}\n".getBytes(StandardCharsets.UTF_8),
+                    "{\"currentCoordinates\":\"5,5,E\",\"commands\":\"f\"}\n".getBytes(StandardCharsets.UTF_8)
+            };
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            List<String> sentBeforeSecondChunk = new ArrayList<>();
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/deployRovers/stream") {
+                @Override
+                public ServletInputStream getInputStream() {
+                    return new ChunkedServletInputStream(chunks,
+                            () -> sentBeforeSecondChunk.add(new String(response.getContentAsByteArray(), StandardCharsets.UTF_8)));
+                }
+            };
+            PlateauManager plateauManager = new PlateauManager(marsRoverService, directory, Long.MAX_VALUE);
+            MarsRoverController controller = new MarsRoverController(plateauManager, new SseFeedStreamer(16, 15), objectMapper);
+
+            // When the deployments are streamed
+            controller.deployRoversStream(request, response, null);
+
+            // Then the first result should have been sent before the client was waited on, and both results in the end
+            Assertions.assertEquals(1, sentBeforeSecondChunk.size());
+            Assertions.assertEquals(0, objectMapper.readTree(sentBeforeSecondChunk.get(0)).get("result").get("roverId").asInt());
+            Assertions.assertTrue(sentBeforeSecondChunk.get(0).endsWith("\n"));
+            Assertions.assertEquals(2, response.getContentAsString(StandardCharsets.UTF_8).split("\n").length);
+        }
+    }
+
+    /**
+     * A request body arriving in chunks, with nothing available until the previous chunk is read
+     */
+    private static final class ChunkedServletInputStream extends ServletInputStream {
+        private final byte[][] chunks;
+        private final Runnable beforeLaterChunk;
+        private int chunk;
+        private int position;
+
+        private ChunkedServletInputStream(byte[][] chunks, Runnable beforeLaterChunk) {
+            this.chunks = chunks;
+            this.beforeLaterChunk = beforeLaterChunk;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (chunk == chunks.length) {
+                return -1;
+            }
+            if (position == 0 && chunk > 0) {
+                beforeLaterChunk.run();
+            }
+            int count = Math.min(length, chunks[chunk].length - position);
+            System.arraycopy(chunks[chunk], position, bytes, offset, count);
+            position += count;
+            if (position == chunks[chunk].length) {
+                chunk++;
+                position = 0;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return chunk == chunks.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
 }